@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cft.server.core.ArchiveEntry;
+import org.eclipse.cft.server.core.internal.application.CachingApplicationArchive;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Collects the entries of a {@link CachingApplicationArchive} and reads the
+ * sha1 and size of each, as done by the client when computing the resources
+ * to upload during an incremental publish.
+ * <p/>
+ * {@link #allResourcesChanged(ModuleResourceTree, Blackhole)} measures the
+ * first publish, where every sha1 is computed and added to the deployed
+ * resource cache, and
+ * {@link #noResourcesChanged(ModuleResourceTree, Blackhole)} measures a
+ * republish where every entry is served from the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ApplicationArchiveBenchmark {
+
+	private static final String APP_NAME = "cftBenchmarkApp"; //$NON-NLS-1$
+
+	private List<IModuleResource> allFiles;
+
+	@Setup(Level.Trial)
+	public void setUp(ModuleResourceTree tree) throws CoreException {
+		allFiles = new ArrayList<IModuleResource>(tree.getModuleFiles());
+
+		// Populate the deployed resource cache for the unchanged case
+		consume(new CachingApplicationArchive(tree.getResources(), allFiles, null, APP_NAME), null);
+	}
+
+	@Benchmark
+	public void allResourcesChanged(ModuleResourceTree tree, Blackhole blackhole) throws CoreException {
+		consume(new CachingApplicationArchive(tree.getResources(), allFiles, null, APP_NAME), blackhole);
+	}
+
+	@Benchmark
+	public void noResourcesChanged(ModuleResourceTree tree, Blackhole blackhole) throws CoreException {
+		consume(new CachingApplicationArchive(tree.getResources(), Collections.<IModuleResource> emptyList(), null,
+				APP_NAME), blackhole);
+	}
+
+	protected void consume(CachingApplicationArchive archive, Blackhole blackhole) throws CoreException {
+		try {
+			for (ArchiveEntry entry : archive.getEntries()) {
+				String name = entry.getName();
+				byte[] sha1 = entry.getSha1Digest();
+				long size = entry.getSize();
+				if (blackhole != null) {
+					blackhole.consume(name);
+					blackhole.consume(sha1);
+					blackhole.consume(size);
+				}
+			}
+		}
+		finally {
+			archive.close();
+		}
+	}
+}
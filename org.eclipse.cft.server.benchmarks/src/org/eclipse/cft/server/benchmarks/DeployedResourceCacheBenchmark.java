@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cft.server.core.internal.DeployedResourceCache;
+import org.eclipse.cft.server.core.internal.DeployedResourceCache.CachedDeployedApplication;
+import org.eclipse.cft.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Adds and looks up an entry for every file of the tree in a
+ * {@link DeployedResourceCache}. The concurrent lookup case shows contention
+ * when several applications are published at the same time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeployedResourceCacheBenchmark {
+
+	private static final CachedDeployedApplication APP = new CachedDeployedApplication("cftBenchmarkApp"); //$NON-NLS-1$
+
+	private static final byte[] SHA1 = new byte[20];
+
+	private DeployedResourceCache cache;
+
+	@Setup(Level.Trial)
+	public void setUp(ModuleResourceTree tree) {
+		cache = populate(tree.getZipNames());
+	}
+
+	@Benchmark
+	public DeployedResourceCache add(ModuleResourceTree tree) {
+		return populate(tree.getZipNames());
+	}
+
+	@Benchmark
+	public void lookup(ModuleResourceTree tree, Blackhole blackhole) {
+		for (String name : tree.getZipNames()) {
+			blackhole.consume(cache.getEntry(APP, name));
+		}
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void concurrentLookup(ModuleResourceTree tree, Blackhole blackhole) {
+		lookup(tree, blackhole);
+	}
+
+	protected DeployedResourceCache populate(List<String> names) {
+		DeployedResourceCache cache = new DeployedResourceCache();
+		for (String name : names) {
+			cache.add(APP, new DeployedResourceEntry(SHA1, SHA1.length, name));
+		}
+		return cache;
+	}
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.cft.server.core.internal.application.AbstractArchiveEntry;
+
+/**
+ * Archive entry for a plain file, whose size and sha1 are deduced from the
+ * file content by {@link AbstractArchiveEntry}.
+ */
+public class FileArchiveEntry extends AbstractArchiveEntry {
+
+	private final File file;
+
+	public FileArchiveEntry(File file) {
+		this.file = file;
+	}
+
+	public boolean isDirectory() {
+		return false;
+	}
+
+	public String getName() {
+		return file.getName();
+	}
+
+	public InputStream getInputStream() throws IOException {
+		return new FileInputStream(file);
+	}
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.cft.server.core.internal.CloudUtil;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.eclipse.wst.server.core.util.ModuleFolder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Synthetic module resource tree shared by all benchmarks. Resources are
+ * backed by real files in a temporary folder, and adapt to {@link File} like
+ * resources of binary and standalone modules do.
+ * <p/>
+ * The tree shape is a benchmark parameter:
+ * <ul>
+ * <li>{@link #SMALL_FILES}: 10000 small files (e.g. classes and static web
+ * content) spread over 100 folders</li>
+ * <li>{@link #LARGE_JARS}: a few large, incompressible jars in WEB-INF/lib
+ * next to a handful of descriptors</li>
+ * <li>{@link #DEEP_FOLDERS}: a deep folder hierarchy with a few files per
+ * level, like deeply nested Java packages</li>
+ * </ul>
+ * Content is generated from a fixed seed so that every run hashes and zips the
+ * same bytes.
+ */
+@State(Scope.Benchmark)
+public class ModuleResourceTree {
+
+	public static final String SMALL_FILES = "SMALL_FILES"; //$NON-NLS-1$
+
+	public static final String LARGE_JARS = "LARGE_JARS"; //$NON-NLS-1$
+
+	public static final String DEEP_FOLDERS = "DEEP_FOLDERS"; //$NON-NLS-1$
+
+	private static final long SEED = 0xCF;
+
+	@Param({ SMALL_FILES, LARGE_JARS, DEEP_FOLDERS })
+	public String shape;
+
+	private File root;
+
+	private List<IModuleResource> resources;
+
+	private Set<IModuleResource> moduleFiles;
+
+	private List<File> files;
+
+	private List<String> zipNames;
+
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		root = File.createTempFile("cftBenchmark", null); //$NON-NLS-1$
+		root.delete();
+		root.mkdirs();
+
+		resources = new ArrayList<IModuleResource>();
+		moduleFiles = new HashSet<IModuleResource>();
+		files = new ArrayList<File>();
+		zipNames = new ArrayList<String>();
+		random = new Random(SEED);
+
+		if (SMALL_FILES.equals(shape)) {
+			ModuleFolder classes = addClassesFolder();
+			List<IModuleResource> packages = new ArrayList<IModuleResource>();
+			for (int i = 0; i < 100; i++) {
+				ModuleFolder pkg = addFolder(classes, "pkg" + i); //$NON-NLS-1$
+				List<IModuleResource> members = new ArrayList<IModuleResource>();
+				for (int j = 0; j < 100; j++) {
+					members.add(addFile(pkg, "Class" + j + ".class", 512 + random.nextInt(3584), true)); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				setMembers(pkg, members);
+				packages.add(pkg);
+			}
+			setMembers(classes, packages);
+		}
+		else if (LARGE_JARS.equals(shape)) {
+			ModuleFolder webInf = addFolder(null, "WEB-INF"); //$NON-NLS-1$
+			ModuleFolder lib = addFolder(webInf, "lib"); //$NON-NLS-1$
+			List<IModuleResource> jars = new ArrayList<IModuleResource>();
+			for (int i = 0; i < 4; i++) {
+				jars.add(addFile(lib, "library" + i + ".jar", 8 * 1024 * 1024, false)); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			setMembers(lib, jars);
+			List<IModuleResource> webInfMembers = new ArrayList<IModuleResource>();
+			webInfMembers.add(lib);
+			webInfMembers.add(addFile(webInf, "web.xml", 2048, true)); //$NON-NLS-1$
+			setMembers(webInf, webInfMembers);
+			resources.add(webInf);
+			resources.add(addFile(null, "index.html", 4096, true)); //$NON-NLS-1$
+		}
+		else if (DEEP_FOLDERS.equals(shape)) {
+			ModuleFolder parent = addClassesFolder();
+			List<IModuleResource> parentMembers = new ArrayList<IModuleResource>();
+			for (int depth = 0; depth < 40; depth++) {
+				ModuleFolder folder = addFolder(parent, "level" + depth); //$NON-NLS-1$
+				parentMembers.add(folder);
+				setMembers(parent, parentMembers);
+
+				parentMembers = new ArrayList<IModuleResource>();
+				for (int j = 0; j < 25; j++) {
+					parentMembers.add(addFile(folder, "Resource" + j + ".class", 1024, true)); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				parent = folder;
+			}
+			setMembers(parent, parentMembers);
+		}
+		else {
+			throw new IllegalArgumentException("Unknown module resource tree shape: " + shape); //$NON-NLS-1$
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		delete(root);
+	}
+
+	/**
+	 * @return top-level module resources
+	 */
+	public List<IModuleResource> getResources() {
+		return resources;
+	}
+
+	/**
+	 * @return all file resources in the tree
+	 */
+	public Set<IModuleResource> getModuleFiles() {
+		return moduleFiles;
+	}
+
+	/**
+	 * @return backing files of all file resources in the tree
+	 */
+	public List<File> getFiles() {
+		return files;
+	}
+
+	/**
+	 * @return zip relative names of all file resources in the tree
+	 */
+	public List<String> getZipNames() {
+		return zipNames;
+	}
+
+	/**
+	 * Creates a new file in the benchmark temporary folder, outside of the
+	 * module resource tree.
+	 */
+	public File createTempFile(String name) throws IOException {
+		return File.createTempFile(name, null, root);
+	}
+
+	/**
+	 * Adds the top-level WEB-INF/classes folders
+	 * @return the classes folder
+	 */
+	protected ModuleFolder addClassesFolder() {
+		ModuleFolder webInf = addFolder(null, "WEB-INF"); //$NON-NLS-1$
+		ModuleFolder classes = addFolder(webInf, "classes"); //$NON-NLS-1$
+		setMembers(webInf, Collections.<IModuleResource> singletonList(classes));
+		resources.add(webInf);
+		return classes;
+	}
+
+	protected ModuleFolder addFolder(ModuleFolder parent, String name) {
+		IPath parentPath = getPath(parent);
+		new File(root, parentPath.append(name).toOSString()).mkdirs();
+		return new ModuleFolder(null, name, parentPath);
+	}
+
+	protected ModuleFile addFile(ModuleFolder parent, String name, int size, boolean compressible)
+			throws IOException {
+		IPath parentPath = getPath(parent);
+		File file = new File(root, parentPath.append(name).toOSString());
+		writeContent(file, size, compressible);
+
+		ModuleFile moduleFile = new ModuleFile(file, name, parentPath);
+		moduleFiles.add(moduleFile);
+		files.add(file);
+		zipNames.add(CloudUtil.getZipRelativeName(moduleFile));
+		return moduleFile;
+	}
+
+	protected void setMembers(ModuleFolder folder, List<IModuleResource> members) {
+		folder.setMembers(members.toArray(new IModuleResource[0]));
+	}
+
+	protected IPath getPath(ModuleFolder folder) {
+		return folder != null ? folder.getModuleRelativePath().append(folder.getName()) : Path.EMPTY;
+	}
+
+	/**
+	 * Writes random content. Compressible content repeats a small set of
+	 * tokens, similar to class files and text resources, whereas
+	 * incompressible content is fully random, similar to already compressed
+	 * jars.
+	 */
+	protected void writeContent(File file, int size, boolean compressible) throws IOException {
+		byte[] content = new byte[size];
+		if (compressible) {
+			byte[] token = new byte[16];
+			for (int i = 0; i < size; i += token.length) {
+				if (random.nextInt(4) == 0) {
+					random.nextBytes(token);
+				}
+				System.arraycopy(token, 0, content, i, Math.min(token.length, size - i));
+			}
+		}
+		else {
+			random.nextBytes(content);
+		}
+
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	protected static void delete(File file) {
+		File[] members = file.listFiles();
+		if (members != null) {
+			for (File member : members) {
+				delete(member);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cft.server.core.internal.CloudUtil;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Zips the whole tree, as done when building WAR files and child module jars.
+ * {@link CloudUtil#publishZip(java.util.List, File, java.util.Set, org.eclipse.core.runtime.IProgressMonitor)}
+ * covers the zip entry creation in CloudUtil.addZipEntries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PublishZipBenchmark {
+
+	private File zipFile;
+
+	private IModuleResource[] resources;
+
+	@Setup(Level.Trial)
+	public void setUp(ModuleResourceTree tree) throws IOException {
+		zipFile = tree.createTempFile("publishZip"); //$NON-NLS-1$
+		resources = tree.getResources().toArray(new IModuleResource[0]);
+	}
+
+	@Benchmark
+	public IStatus[] publishZip(ModuleResourceTree tree) {
+		return check(CloudUtil.publishZip(tree.getResources(), zipFile, tree.getModuleFiles(),
+				new NullProgressMonitor()));
+	}
+
+	@Benchmark
+	public IStatus[] publishDeterministicZip() {
+		return check(CloudUtil.publishDeterministicZip(resources, zipFile, new NullProgressMonitor()));
+	}
+
+	protected IStatus[] check(IStatus[] status) {
+		if (status != null && status.length > 0) {
+			throw new IllegalStateException(status[0].getMessage(), status[0].getException());
+		}
+		return status;
+	}
+}
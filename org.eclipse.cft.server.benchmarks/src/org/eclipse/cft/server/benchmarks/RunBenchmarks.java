@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.util.Collection;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs the JMH benchmarks in this bundle. This is launched as a JUnit plug-in
+ * test so that the benchmarks have access to the CFT and WST bundles.
+ * Benchmarks therefore run in the test VM rather than in forked VMs, and the
+ * {@link GCProfiler} is used to report allocation rate and GC activity next to
+ * throughput.
+ * <p/>
+ * System properties:
+ * <ul>
+ * <li>cft.benchmarks.include: regular expression selecting the benchmarks to
+ * run. All benchmarks are run by default</li>
+ * <li>cft.benchmarks.result: optional file to write JSON results to</li>
+ * </ul>
+ */
+public class RunBenchmarks extends TestCase {
+
+	public static final String INCLUDE_PROPERTY = "cft.benchmarks.include"; //$NON-NLS-1$
+
+	public static final String RESULT_PROPERTY = "cft.benchmarks.result"; //$NON-NLS-1$
+
+	public void testRunBenchmarks() throws Exception {
+		String include = System.getProperty(INCLUDE_PROPERTY);
+		if (include == null || include.length() == 0) {
+			include = RunBenchmarks.class.getPackage().getName() + ".*"; //$NON-NLS-1$
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().include(include).forks(0)
+				.addProfiler(GCProfiler.class).shouldFailOnError(true);
+
+		String result = System.getProperty(RESULT_PROPERTY);
+		if (result != null && result.length() > 0) {
+			options.result(result).resultFormat(ResultFormatType.JSON);
+		}
+
+		Collection<RunResult> results = new Runner(options.build()).run();
+		assertFalse("No benchmarks matched " + include, results.isEmpty()); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import org.eclipse.cft.server.core.ArchiveEntry;
+import org.eclipse.cft.server.core.internal.CloudUtil;
+import org.eclipse.cft.server.core.internal.application.ZipArchive;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Opens a WAR of the tree as a {@link ZipArchive} and reads the name, size and
+ * sha1 of every entry, as done when pushing a packaged application.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ZipArchiveBenchmark {
+
+	private File war;
+
+	@Setup(Level.Trial)
+	public void setUp(ModuleResourceTree tree) throws IOException {
+		war = tree.createTempFile("zipArchive"); //$NON-NLS-1$
+		IStatus[] status = CloudUtil.publishZip(tree.getResources(), war, tree.getModuleFiles(),
+				new NullProgressMonitor());
+		if (status.length > 0) {
+			throw new IOException(status[0].getMessage(), status[0].getException());
+		}
+	}
+
+	@Benchmark
+	public void readEntries(Blackhole blackhole) throws IOException, CoreException {
+		ZipArchive archive = new ZipArchive(new ZipFile(war));
+		try {
+			for (ArchiveEntry entry : archive.getEntries()) {
+				blackhole.consume(entry.getName());
+				blackhole.consume(entry.getSize());
+				blackhole.consume(entry.getSha1Digest());
+			}
+		}
+		finally {
+			archive.close();
+		}
+	}
+}
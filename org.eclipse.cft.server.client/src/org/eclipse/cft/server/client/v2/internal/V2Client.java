@@ -28,17 +28,14 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
-import org.cloudfoundry.client.CloudFoundryClient;
 import org.cloudfoundry.doppler.LogMessage;
 import org.cloudfoundry.operations.CloudFoundryOperations;
 import org.cloudfoundry.operations.DefaultCloudFoundryOperations;
 import org.cloudfoundry.operations.applications.LogsRequest;
-import org.cloudfoundry.reactor.DefaultConnectionContext;
 import org.cloudfoundry.reactor.ProxyConfiguration;
-import org.cloudfoundry.reactor.client.ReactorCloudFoundryClient;
-import org.cloudfoundry.reactor.doppler.ReactorDopplerClient;
-import org.cloudfoundry.reactor.tokenprovider.PasswordGrantTokenProvider;
-import org.cloudfoundry.reactor.uaa.ReactorUaaClient;
+import org.eclipse.cft.server.client.v2.internal.V2ConnectionRegistry.Clients;
+import org.eclipse.cft.server.client.v2.internal.V2ConnectionRegistry.ConnectionKey;
+import org.eclipse.cft.server.client.v2.internal.V2ConnectionRegistry.SharedConnection;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
@@ -64,7 +61,7 @@ public class V2Client implements CFClient {
 	private CloudFoundryServer cloudServer;
 	private String orgName;
 	private String spaceName;
-	private CloudFoundryClient v2Client = null;
+	private SharedConnection connection = null;
 	private CloudFoundryOperations v2Operations = null;
 
 	public V2Client(CloudFoundryServer cloudServer, CFCloudCredentials credentials, String orgName, String spaceName) {
@@ -81,14 +78,27 @@ public class V2Client implements CFClient {
 	}
 
 	@Override
-	public String login() throws CoreException {
-		// clear exist client
-		this.v2Client = null;
+	public synchronized String login() throws CoreException {
+		// Operations, clients and token provider are recreated, so that a login
+		// fetches a new token. The connection context is reused if the server
+		// URL, proxy and SSL settings have not changed
 		this.v2Operations = null;
+		if (this.connection != null) {
+			this.connection.evictClients(credentials.getUser());
+		}
 		getV2Operations();
 		return null;
 	}
 
+	@Override
+	public synchronized void dispose() {
+		this.v2Operations = null;
+		if (this.connection != null) {
+			V2ConnectionRegistry.getDefault().release(this.connection);
+			this.connection = null;
+		}
+	}
+
 	@Override
 	public CFStreamingLogToken streamLogs(String appName, CFApplicationLogListener listener) throws CoreException {
 		return internalStreamLogs(appName, listener, false);
@@ -145,34 +155,26 @@ public class V2Client implements CFClient {
 		return null;
 	}
 
-	protected CloudFoundryOperations getV2Operations() throws CoreException {
+	protected synchronized CloudFoundryOperations getV2Operations() throws CoreException {
 
 		if (this.v2Operations == null) {
 			try {
+				ConnectionKey key = new ConnectionKey(getHost(), Optional.ofNullable(getProxyConfiguration()),
+						skipSsl(), Duration.ofSeconds(cloudServer.getSslHandshakeTimeout()), keepAlive());
 
-				boolean keepAlive = keepAlive();
-				DefaultConnectionContext connection = DefaultConnectionContext.builder()
-						.proxyConfiguration(Optional.ofNullable(getProxyConfiguration())).apiHost(getHost())
-						// SSL handshake timeout may need to be increased, for
-						// log streaming
-						.sslHandshakeTimeout(Duration.ofSeconds(cloudServer.getSslHandshakeTimeout()))
-						.keepAlive(keepAlive).skipSslValidation(skipSsl()).build();
-
-				PasswordGrantTokenProvider tokenProvider = PasswordGrantTokenProvider.builder()
-						.username(credentials.getUser()).password(credentials.getPassword()).build();
-
-				ReactorUaaClient uaaClient = ReactorUaaClient.builder().connectionContext(connection)
-						.tokenProvider(tokenProvider).build();
-
-				ReactorDopplerClient dopplerClient = ReactorDopplerClient.builder().connectionContext(connection)
-						.tokenProvider(tokenProvider).build();
+				if (this.connection == null || !this.connection.getKey().equals(key)) {
+					SharedConnection previous = this.connection;
+					this.connection = V2ConnectionRegistry.getDefault().acquire(key);
+					if (previous != null) {
+						V2ConnectionRegistry.getDefault().release(previous);
+					}
+				}
 
-				this.v2Client = ReactorCloudFoundryClient.builder().connectionContext(connection)
-						.tokenProvider(tokenProvider).build();
+				Clients clients = this.connection.getClients(credentials.getUser(), credentials.getPassword());
 
-				this.v2Operations = DefaultCloudFoundryOperations.builder().cloudFoundryClient(v2Client)
-						.dopplerClient(dopplerClient).uaaClient(uaaClient).organization(orgName).space(spaceName)
-						.build();
+				this.v2Operations = DefaultCloudFoundryOperations.builder()
+						.cloudFoundryClient(clients.cloudFoundryClient).dopplerClient(clients.dopplerClient)
+						.uaaClient(clients.uaaClient).organization(orgName).space(spaceName).build();
 
 			} catch (Throwable e) {
 				throw CloudErrorUtil.toCoreException(e);
@@ -181,8 +183,13 @@ public class V2Client implements CFClient {
 		return this.v2Operations;
 	}
 
+	/**
+	 * Keep-alive is enabled unless explicitly disabled through the
+	 * {@link #HTTP_KEEP_ALIVE_SYSTEM_PROPERTY} system property, so that
+	 * requests over a shared connection context reuse pooled connections.
+	 */
 	private boolean keepAlive() {
-		return getBooleanSystemProp(HTTP_KEEP_ALIVE_SYSTEM_PROPERTY).isPresent();
+		return getBooleanSystemProp(HTTP_KEEP_ALIVE_SYSTEM_PROPERTY).orElse(true);
 	}
 
 	private Optional<Boolean> getBooleanSystemProp(String name) {
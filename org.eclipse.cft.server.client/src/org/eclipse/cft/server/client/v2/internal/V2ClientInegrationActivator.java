@@ -44,6 +44,7 @@ public class V2ClientInegrationActivator implements BundleActivator {
 	 * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext bundleContext) throws Exception {
+		V2ConnectionRegistry.disposeDefault();
 		V2ClientInegrationActivator.context = null;
 	}
 
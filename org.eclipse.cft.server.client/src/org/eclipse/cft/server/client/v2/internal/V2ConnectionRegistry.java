@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.client.v2.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.ProxyConfiguration;
+import org.cloudfoundry.reactor.client.ReactorCloudFoundryClient;
+import org.cloudfoundry.reactor.doppler.ReactorDopplerClient;
+import org.cloudfoundry.reactor.tokenprovider.PasswordGrantTokenProvider;
+import org.cloudfoundry.reactor.uaa.ReactorUaaClient;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+
+/**
+ * Shares v2 connection contexts between {@link V2Client}s. Each
+ * {@link DefaultConnectionContext} owns a Netty event loop and connection
+ * pool, so creating one per login or per server is costly. Contexts are
+ * shared by all clients with the same API host, proxy and SSL settings, and
+ * are reference counted. A context that is no longer used by any client is
+ * shut down after an idle period, so that a client that logs in again shortly
+ * after (e.g. a reconnect) reuses it.
+ * <p/>
+ * Token providers and Reactor clients are cached per user on a shared
+ * connection, and replaced if the password of the user changes or the user
+ * logs in again. Tokens are cached and refreshed by the token provider, so
+ * clients that share a connection between logins do not fetch a new token
+ * for every request.
+ */
+public class V2ConnectionRegistry {
+
+	private static final long IDLE_SHUTDOWN_DELAY_SECONDS = 60;
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	private static V2ConnectionRegistry defaultRegistry;
+
+	private final Map<ConnectionKey, SharedConnection> connections = new HashMap<ConnectionKey, SharedConnection>();
+
+	private ScheduledExecutorService scheduler;
+
+	private boolean disposed;
+
+	public static synchronized V2ConnectionRegistry getDefault() {
+		if (defaultRegistry == null) {
+			defaultRegistry = new V2ConnectionRegistry();
+		}
+		return defaultRegistry;
+	}
+
+	public static synchronized void disposeDefault() {
+		if (defaultRegistry != null) {
+			defaultRegistry.dispose();
+			defaultRegistry = null;
+		}
+	}
+
+	/**
+	 * Returns the shared connection for the given settings, creating it if
+	 * necessary. Every call must be matched by a call to
+	 * {@link #release(SharedConnection)}.
+	 * @throws IllegalStateException if the registry is disposed
+	 */
+	public synchronized SharedConnection acquire(ConnectionKey key) {
+		if (disposed) {
+			throw new IllegalStateException("v2 connection registry is disposed"); //$NON-NLS-1$
+		}
+		SharedConnection connection = connections.get(key);
+		if (connection == null) {
+			connection = new SharedConnection(key);
+			connections.put(key, connection);
+		}
+		connection.references++;
+		return connection;
+	}
+
+	public synchronized void release(SharedConnection connection) {
+		if (connection == null || connection.references == 0) {
+			return;
+		}
+		if (--connection.references == 0) {
+			connection.idleSince = System.nanoTime();
+			if (!disposed) {
+				getScheduler().schedule(() -> shutdownIfIdle(connection), IDLE_SHUTDOWN_DELAY_SECONDS,
+						TimeUnit.SECONDS);
+			}
+		}
+	}
+
+	/**
+	 * @return number of connection contexts currently open
+	 */
+	public synchronized int getConnectionCount() {
+		return connections.size();
+	}
+
+	/**
+	 * Shuts down all connection contexts, whether they are still used or not.
+	 */
+	public void dispose() {
+		List<SharedConnection> toShutdown;
+		synchronized (this) {
+			disposed = true;
+			toShutdown = new ArrayList<SharedConnection>(connections.values());
+			connections.clear();
+			if (scheduler != null) {
+				scheduler.shutdownNow();
+				scheduler = null;
+			}
+		}
+		for (SharedConnection connection : toShutdown) {
+			connection.shutdown();
+		}
+	}
+
+	protected void shutdownIfIdle(SharedConnection connection) {
+		synchronized (this) {
+			// The connection may have been acquired again, or released again
+			// more recently, in which case a later check shuts it down
+			if (connection.references > 0 || connections.get(connection.key) != connection
+					|| System.nanoTime() - connection.idleSince < TimeUnit.SECONDS
+							.toNanos(IDLE_SHUTDOWN_DELAY_SECONDS)) {
+				return;
+			}
+			connections.remove(connection.key);
+		}
+		connection.shutdown();
+	}
+
+	protected synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "CFT v2 connection cleanup"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Settings that determine whether two clients can share a connection
+	 * context.
+	 */
+	public static final class ConnectionKey {
+
+		private final String apiHost;
+
+		private final Optional<ProxyConfiguration> proxyConfiguration;
+
+		private final boolean skipSslValidation;
+
+		private final Duration sslHandshakeTimeout;
+
+		private final boolean keepAlive;
+
+		public ConnectionKey(String apiHost, Optional<ProxyConfiguration> proxyConfiguration,
+				boolean skipSslValidation, Duration sslHandshakeTimeout, boolean keepAlive) {
+			this.apiHost = apiHost;
+			this.proxyConfiguration = proxyConfiguration;
+			this.skipSslValidation = skipSslValidation;
+			this.sslHandshakeTimeout = sslHandshakeTimeout;
+			this.keepAlive = keepAlive;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ConnectionKey)) {
+				return false;
+			}
+			ConnectionKey other = (ConnectionKey) obj;
+			return Objects.equals(apiHost, other.apiHost) && Objects.equals(proxyConfiguration, other.proxyConfiguration)
+					&& skipSslValidation == other.skipSslValidation
+					&& Objects.equals(sslHandshakeTimeout, other.sslHandshakeTimeout) && keepAlive == other.keepAlive;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(apiHost, proxyConfiguration, skipSslValidation, sslHandshakeTimeout, keepAlive);
+		}
+
+		@Override
+		public String toString() {
+			return apiHost + (proxyConfiguration.isPresent() ? " via " + proxyConfiguration.get().getHost() : ""); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * A connection context shared by clients with the same
+	 * {@link ConnectionKey}.
+	 */
+	public static final class SharedConnection {
+
+		private final ConnectionKey key;
+
+		private final DefaultConnectionContext context;
+
+		private final Map<String, Clients> clientsByUser = new HashMap<String, Clients>();
+
+		private int references;
+
+		private long idleSince;
+
+		private SharedConnection(ConnectionKey key) {
+			this.key = key;
+			this.context = DefaultConnectionContext.builder().proxyConfiguration(key.proxyConfiguration)
+					.apiHost(key.apiHost)
+					// SSL handshake timeout may need to be increased, for
+					// log streaming
+					.sslHandshakeTimeout(key.sslHandshakeTimeout).keepAlive(key.keepAlive)
+					.skipSslValidation(key.skipSslValidation).build();
+		}
+
+		public ConnectionKey getKey() {
+			return key;
+		}
+
+		/**
+		 * @return Reactor clients for the given credentials, sharing this
+		 * connection context and a single token provider
+		 */
+		public synchronized Clients getClients(String username, String password) {
+			// Only a digest of the password is kept, to detect a password
+			// change
+			byte[] passwordDigest = digest(password);
+			Clients clients = clientsByUser.get(username);
+			if (clients == null || !MessageDigest.isEqual(clients.passwordDigest, passwordDigest)) {
+				// Replaces the clients for a previous password of the user
+				clients = new Clients(context, username, password, passwordDigest);
+				clientsByUser.put(username, clients);
+			}
+			return clients;
+		}
+
+		/**
+		 * Discards the cached clients and token provider of the given user,
+		 * so that the next call to {@link #getClients(String, String)}
+		 * creates new ones. Clients already handed out keep working.
+		 * @param username
+		 */
+		public synchronized void evictClients(String username) {
+			clientsByUser.remove(username);
+		}
+
+		private static byte[] digest(String password) {
+			if (password == null) {
+				return new byte[0];
+			}
+			try {
+				return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+			}
+			catch (NoSuchAlgorithmException e) {
+				// SHA-256 is available on all Java platforms
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private void shutdown() {
+			try {
+				context.getHttpClient().shutdown().block(Duration.ofSeconds(SHUTDOWN_TIMEOUT_SECONDS));
+			}
+			catch (Throwable e) {
+				CloudFoundryPlugin.logError("Failed to shut down v2 connection to " + key, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	public static final class Clients {
+
+		public final ReactorCloudFoundryClient cloudFoundryClient;
+
+		public final ReactorDopplerClient dopplerClient;
+
+		public final ReactorUaaClient uaaClient;
+
+		private final byte[] passwordDigest;
+
+		private Clients(DefaultConnectionContext context, String username, String password, byte[] passwordDigest) {
+			this.passwordDigest = passwordDigest;
+			PasswordGrantTokenProvider tokenProvider = PasswordGrantTokenProvider.builder().username(username)
+					.password(password).build();
+			this.uaaClient = ReactorUaaClient.builder().connectionContext(context).tokenProvider(tokenProvider)
+					.build();
+			this.dopplerClient = ReactorDopplerClient.builder().connectionContext(context)
+					.tokenProvider(tokenProvider).build();
+			this.cloudFoundryClient = ReactorCloudFoundryClient.builder().connectionContext(context)
+					.tokenProvider(tokenProvider).build();
+		}
+	}
+}
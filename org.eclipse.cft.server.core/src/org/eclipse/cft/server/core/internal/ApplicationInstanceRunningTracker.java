@@ -22,6 +22,7 @@ package org.eclipse.cft.server.core.internal;
 
 import org.cloudfoundry.client.lib.domain.ApplicationStats;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.eclipse.cft.server.core.internal.client.CFV1Application;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryServerBehaviour;
 import org.eclipse.core.runtime.CoreException;
@@ -53,12 +54,23 @@ public class ApplicationInstanceRunningTracker {
 
 	private final long timeout;
 
+	private ApplicationRunningStatePoller statePoller;
+
 	public ApplicationInstanceRunningTracker(CloudFoundryApplicationModule appModule, CloudFoundryServer cloudServer) {
 		this.cloudServer = cloudServer;
 		this.appModule = appModule;
 		this.timeout = TIMEOUT;
 	}
 
+	/**
+	 * @param statePoller poller shared with other trackers, used instead of
+	 * fetching the application separately, or null to fetch the application
+	 * separately
+	 */
+	public void setStatePoller(ApplicationRunningStatePoller statePoller) {
+		this.statePoller = statePoller;
+	}
+
 	/**
 	 * 
 	 * @param monitor
@@ -98,8 +110,20 @@ public class ApplicationInstanceRunningTracker {
 				throw new OperationCanceledException(error);
 			}
 
-			CloudApplication cloudApp = behaviour.getCloudApplication(appName, monitor);
-			ApplicationStats applicationStats = behaviour.getApplicationStats(appName, monitor);
+			CloudApplication cloudApp = null;
+			ApplicationStats applicationStats = null;
+			if (statePoller != null) {
+				// The poller waits for the next poll, so no need to wait below
+				CFV1Application polledApp = statePoller.getApplication(appName, monitor);
+				if (polledApp != null) {
+					cloudApp = polledApp.getApplication();
+					applicationStats = polledApp.getStats();
+				}
+			}
+			else {
+				cloudApp = behaviour.getCloudApplication(appName, monitor);
+				applicationStats = behaviour.getApplicationStats(appName, monitor);
+			}
 
 			if (cloudApp == null) {
 				// app may no longer exist
@@ -109,11 +133,13 @@ public class ApplicationInstanceRunningTracker {
 			}
 			else {
 				state = CloudFoundryApplicationModule.getCloudState(cloudApp, applicationStats);
-				try {
-					Thread.sleep(WAIT_TIME);
-				}
-				catch (InterruptedException e) {
+				if (statePoller == null) {
+					try {
+						Thread.sleep(WAIT_TIME);
+					}
+					catch (InterruptedException e) {
 
+					}
 				}
 
 				currentTime = System.currentTimeMillis();
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.eclipse.cft.server.core.internal.client.CFV1Application;
+import org.eclipse.cft.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Polls the state of all applications in a Cloud space with a single space
+ * summary request, shared by several {@link ApplicationInstanceRunningTracker}
+ * that track applications at the same time (e.g. when restarting many
+ * applications). Without a shared poller, each tracker fetches its application
+ * and application stats separately every second.
+ * <p/>
+ * There is no polling thread. The first tracker that needs a state once the
+ * previous poll is older than the poll interval performs the poll, and other
+ * trackers wait for its result. A state is always from a poll that started
+ * after it was requested, so that trackers do not see the state from before
+ * an application was restarted.
+ * <p/>
+ * If the Cloud Controller does not support space summaries, each application
+ * is fetched separately instead.
+ */
+public class ApplicationRunningStatePoller {
+
+	private static final long WAIT_INTERVAL = 200;
+
+	private final CloudFoundryServerBehaviour behaviour;
+
+	private final long pollInterval;
+
+	private final Object lock = new Object();
+
+	private long startedPolls;
+
+	private long completedPolls;
+
+	private long lastPollStart;
+
+	private boolean polling;
+
+	private boolean summarySupported = true;
+
+	private Map<String, CFV1Application> applications;
+
+	private CoreException error;
+
+	public ApplicationRunningStatePoller(CloudFoundryServerBehaviour behaviour) {
+		this(behaviour, ApplicationInstanceRunningTracker.WAIT_TIME);
+	}
+
+	public ApplicationRunningStatePoller(CloudFoundryServerBehaviour behaviour, long pollInterval) {
+		this.behaviour = behaviour;
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * Waits for the next poll of the Cloud space, and returns the given
+	 * application from it.
+	 * @param appName
+	 * @param monitor
+	 * @return application and its stats, or null if the application does not
+	 * exist
+	 * @throws CoreException if the poll failed
+	 * @throws OperationCanceledException if the monitor was cancelled while
+	 * waiting
+	 */
+	public CFV1Application getApplication(String appName, IProgressMonitor monitor)
+			throws CoreException, OperationCanceledException {
+		long requiredPoll;
+		synchronized (lock) {
+			requiredPoll = summarySupported ? startedPolls + 1 : -1;
+		}
+
+		while (requiredPoll >= 0) {
+			synchronized (lock) {
+				if (completedPolls >= requiredPoll) {
+					if (error != null) {
+						throw error;
+					}
+					if (applications == null) {
+						// Summary is not supported. Fall back to fetching the
+						// application separately, outside the lock
+						break;
+					}
+					return applications.get(appName);
+				}
+
+				if (monitor != null && monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+
+				long wait = WAIT_INTERVAL;
+				if (!polling) {
+					wait = lastPollStart + pollInterval - System.currentTimeMillis();
+					if (wait <= 0) {
+						// Perform the next poll in this thread
+						polling = true;
+						startedPolls++;
+						lastPollStart = System.currentTimeMillis();
+						wait = -1;
+					}
+				}
+
+				if (wait > 0) {
+					try {
+						lock.wait(Math.min(wait, WAIT_INTERVAL));
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new OperationCanceledException();
+					}
+					continue;
+				}
+			}
+			poll(monitor);
+		}
+		return fetchApplication(appName, monitor);
+	}
+
+	protected void poll(IProgressMonitor monitor) {
+		Map<String, CFV1Application> polledApplications = null;
+		CoreException pollError = null;
+		boolean completed = false;
+		try {
+			List<CFV1Application> summary = behaviour.getSpaceSummaryApplications(monitor);
+			if (summary != null) {
+				polledApplications = new HashMap<String, CFV1Application>();
+				for (CFV1Application app : summary) {
+					polledApplications.put(app.getApplication().getName(), app);
+				}
+			}
+			completed = true;
+		}
+		catch (CoreException e) {
+			pollError = e;
+			completed = true;
+		}
+		finally {
+			synchronized (lock) {
+				if (completed) {
+					applications = polledApplications;
+					error = pollError;
+					summarySupported = polledApplications != null || pollError != null;
+					completedPolls++;
+				}
+				else {
+					// Cancelled, or failed unexpectedly. Let another tracker
+					// perform the poll instead
+					startedPolls--;
+				}
+				polling = false;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	protected CFV1Application fetchApplication(String appName, IProgressMonitor monitor) throws CoreException {
+		CloudApplication cloudApp = behaviour.getCloudApplication(appName, monitor);
+		if (cloudApp == null) {
+			return null;
+		}
+		ApplicationStats stats = behaviour.getApplicationStats(appName, monitor);
+		return new CFV1Application(stats, cloudApp);
+	}
+}
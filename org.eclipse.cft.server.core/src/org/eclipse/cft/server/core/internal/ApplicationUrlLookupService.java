@@ -22,12 +22,15 @@ package org.eclipse.cft.server.core.internal;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.cloudfoundry.client.lib.domain.CloudDomain;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -35,6 +38,10 @@ import org.eclipse.osgi.util.NLS;
  * domain portions of the URL are correct. In particular, it verifies that the
  * domain portion (the last segments of the URL: e.g, "cfapps.io" in
  * "myapp.cfapps.io") actually exists in the server.
+ * <p/>
+ * Domains are cached for {@link #DOMAINS_TTL}. Once expired, the cached
+ * domains are still returned while they are fetched again in the background,
+ * so only the very first fetch of a space blocks the caller.
  * 
  * IMPORTANT NOTE: This class can be referred by the branding extension from
  * adopter so this class should not be moved or renamed to avoid breakage to
@@ -42,13 +49,34 @@ import org.eclipse.osgi.util.NLS;
  */
 public class ApplicationUrlLookupService {
 
-	/** Synchronize on this object when accessing domainsPerActiveSpace */
+	/**
+	 * Time after which cached domains are fetched again, so that domains
+	 * added to the space are eventually shown without reconnecting.
+	 */
+	public static final long DOMAINS_TTL = 5 * 60 * 1000;
+
+	/**
+	 * Synchronize on this object when accessing domainsPerActiveSpace and
+	 * related cache state. The lock is never held while fetching domains.
+	 */
 	private final Object domainsPerActiveSpaceLock = new Object();
 	
 	private final CloudFoundryServer cloudServer;
 
 	private List<CloudDomain> domainsPerActiveSpace;
 
+	private long domainsFetchedAt;
+
+	/**
+	 * Incremented every time the cache is invalidated, so that a fetch that
+	 * started before the invalidation does not set obsolete domains.
+	 */
+	private int cacheGeneration;
+
+	private Job refreshJob;
+
+	private final List<DomainsListener> listeners = new CopyOnWriteArrayList<DomainsListener>();
+
 	private ApplicationUrlValidator validator;
 
 	public ApplicationUrlLookupService(CloudFoundryServer cloudServer) {
@@ -56,32 +84,157 @@ public class ApplicationUrlLookupService {
 		validator = new ApplicationUrlValidator();
 	}
 
+	/**
+	 * Fetches the domains of the active space if they are not cached or the
+	 * cached domains have expired. Callers that must not block, like UI
+	 * components, should use {@link #getCachedDomains()} instead.
+	 * @param monitor
+	 * @throws CoreException if failed to fetch the domains
+	 */
 	public void refreshDomains(IProgressMonitor monitor) throws CoreException {
-		synchronized(domainsPerActiveSpaceLock) {
-			if(domainsPerActiveSpace == null) {
-				domainsPerActiveSpace = cloudServer.getBehaviour().getDomainsForSpace(monitor);
-			}
+		if (!isCacheValid()) {
+			fetchDomains(monitor);
 		}
 	}
 
 	/**
-	 * Returns cached list of domains. If null or empty, refresh the list of
-	 * domains separately.
+	 * Returns cached list of domains. If no domains have been fetched yet,
+	 * they are fetched in the calling thread. If the cached domains have
+	 * expired, they are returned and fetched again in the background.
 	 * @return
 	 */
 	public List<CloudDomain> getDomains() {
-		synchronized(domainsPerActiveSpaceLock) {
-			if(domainsPerActiveSpace == null) {
-				try {
-					refreshDomains(new NullProgressMonitor());
-				}
-				catch (CoreException e) {
-					// Convert to unchecked exception. 
-					throw new RuntimeException(e);
+		List<CloudDomain> domains;
+		synchronized (domainsPerActiveSpaceLock) {
+			domains = domainsPerActiveSpace;
+		}
+		if (domains == null) {
+			try {
+				domains = fetchDomains(new NullProgressMonitor());
+			}
+			catch (CoreException e) {
+				// Convert to unchecked exception.
+				throw new RuntimeException(e);
+			}
+		}
+		else if (!isCacheValid()) {
+			scheduleRefresh();
+		}
+		return domains;
+	}
+
+	/**
+	 * Returns the cached list of domains without blocking. If there are no
+	 * domains cached, or they have expired, they are fetched in the background
+	 * and registered {@link DomainsListener}s are notified once available.
+	 * @return cached domains, possibly expired, or null if not fetched yet.
+	 */
+	public List<CloudDomain> getCachedDomains() {
+		List<CloudDomain> domains;
+		boolean valid;
+		synchronized (domainsPerActiveSpaceLock) {
+			domains = domainsPerActiveSpace;
+			valid = isCacheValid();
+		}
+		if (!valid) {
+			scheduleRefresh();
+		}
+		return domains;
+	}
+
+	/**
+	 * Clears the cached domains, for example when the active space changes.
+	 * Any fetch in progress is discarded.
+	 */
+	public void invalidateDomains() {
+		synchronized (domainsPerActiveSpaceLock) {
+			cacheGeneration++;
+			domainsPerActiveSpace = null;
+			domainsFetchedAt = 0;
+		}
+	}
+
+	/**
+	 * Fetches domains in the background, unless a fetch is already scheduled
+	 */
+	public void scheduleRefresh() {
+		synchronized (domainsPerActiveSpaceLock) {
+			if (refreshJob != null) {
+				return;
+			}
+			refreshJob = new Job(NLS.bind(Messages.ApplicationUrlLookupService_REFRESHING_DOMAINS,
+					cloudServer.getServerId())) {
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						fetchDomains(monitor);
+					}
+					catch (CoreException e) {
+						// Cached domains, if any, remain in use until the next
+						// attempt
+						CloudFoundryPlugin.logError(e);
+					}
+					finally {
+						synchronized (domainsPerActiveSpaceLock) {
+							refreshJob = null;
+						}
+					}
+					return Status.OK_STATUS;
 				}
+			};
+			refreshJob.setSystem(true);
+			refreshJob.schedule();
+		}
+	}
+
+	public void addDomainsListener(DomainsListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeDomainsListener(DomainsListener listener) {
+		listeners.remove(listener);
+	}
+
+	protected boolean isCacheValid() {
+		synchronized (domainsPerActiveSpaceLock) {
+			return domainsPerActiveSpace != null
+					&& System.currentTimeMillis() - domainsFetchedAt < DOMAINS_TTL;
+		}
+	}
+
+	/**
+	 * Fetches the domains from the Cloud and caches them, unless the cache was
+	 * invalidated in the meantime. The cache lock is not held during the
+	 * fetch.
+	 * @return fetched domains
+	 */
+	protected List<CloudDomain> fetchDomains(IProgressMonitor monitor) throws CoreException {
+		int generation;
+		synchronized (domainsPerActiveSpaceLock) {
+			generation = cacheGeneration;
+		}
+
+		List<CloudDomain> domains = getDomainsForSpace(monitor);
+
+		boolean updated = false;
+		synchronized (domainsPerActiveSpaceLock) {
+			if (generation == cacheGeneration) {
+				domainsPerActiveSpace = domains;
+				domainsFetchedAt = System.currentTimeMillis();
+				updated = true;
+			}
+		}
+		if (updated) {
+			for (DomainsListener listener : listeners) {
+				listener.domainsUpdated(domains);
 			}
 		}
-		return domainsPerActiveSpace;
+		return domains;
+	}
+
+	protected List<CloudDomain> getDomainsForSpace(IProgressMonitor monitor) throws CoreException {
+		return cloudServer.getBehaviour().getDomainsForSpace(monitor);
 	}
 
 	/**
@@ -245,4 +398,14 @@ public class ApplicationUrlLookupService {
 		return lookUp;
 	}
 
+	/**
+	 * Notified when the domains of a lookup service have been fetched. May be
+	 * called from a background thread.
+	 */
+	public interface DomainsListener {
+
+		public void domainsUpdated(List<CloudDomain> domains);
+
+	}
+
 }
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Central store for generated publish artifacts (WAR files, partial WAR files,
+ * child module jars, etc.), replacing ad-hoc temporary folders.
+ * <p/>
+ * Each artifact is kept in its own folder, identified by a key (typically
+ * derived from the module ID, see {@link #toKey(String...)}). The same folder is handed out every time the
+ * key is acquired, so packaging can overwrite the previous artifact in place
+ * rather than creating a new temporary folder for each publish.
+ * <p/>
+ * Folders are acquired while an artifact is being built or uploaded, and
+ * released once the operation completes. On release, the store is trimmed to
+ * its maximum size by deleting the least recently used folders that are not
+ * in use. The modification time of an artifact folder is used as its last
+ * access time, so the LRU order also holds across workbench sessions. The
+ * size of each folder is measured when it is released, so trimming the store
+ * does not walk all artifacts.
+ */
+public class ArtifactStore {
+
+	private final File root;
+
+	private final long maxSize;
+
+	/**
+	 * Keys of artifacts currently in use, and how many times each has been
+	 * acquired
+	 */
+	private final Map<String, Integer> inUse = new HashMap<String, Integer>();
+
+	/**
+	 * Last measured size of each artifact folder, keyed by folder name. Null
+	 * until the store is first measured.
+	 */
+	private Map<String, Long> sizes;
+
+	/**
+	 * Sum of all measured folder sizes
+	 */
+	private long totalSize;
+
+	/**
+	 *
+	 * @param root folder containing all artifacts
+	 * @param maxSize maximum size in bytes of all artifacts. The store may
+	 * temporarily exceed this size if artifacts in use need more space.
+	 */
+	public ArtifactStore(File root, long maxSize) {
+		this.root = root;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the folder for the artifact with the given key, creating it if
+	 * necessary. The folder is protected from eviction until it is released
+	 * through {@link #release(String)}.
+	 * @param key artifact key. Should be stable across publishes of the same
+	 * module so that the previous artifact can be reused
+	 * @return non-null existing folder for the artifact
+	 * @throws IOException if the folder could not be created
+	 */
+	public synchronized File acquire(String key) throws IOException {
+		File folder = getFolder(key);
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Unable to create artifact folder: " + folder.getAbsolutePath()); //$NON-NLS-1$
+		}
+		Integer count = inUse.get(key);
+		inUse.put(key, count == null ? 1 : count + 1);
+
+		touch(folder);
+		if (!getSizes().containsKey(folder.getName())) {
+			getSizes().put(folder.getName(), 0L);
+		}
+		return folder;
+	}
+
+	/**
+	 * Releases an artifact acquired through {@link #acquire(String)}. Once
+	 * released, the artifact remains in the store for reuse, but may be
+	 * evicted if the store exceeds its maximum size.
+	 * @param key artifact key
+	 */
+	public synchronized void release(String key) {
+		Integer count = inUse.get(key);
+		if (count == null) {
+			return;
+		}
+		if (count <= 1) {
+			inUse.remove(key);
+		}
+		else {
+			inUse.put(key, count - 1);
+		}
+		File folder = getFolder(key);
+		touch(folder);
+		measure(folder);
+		evict();
+	}
+
+	/**
+	 * Releases the artifact with the given key, and deletes its folder if it
+	 * is no longer in use. Used for artifacts that are of no use once the
+	 * operation that created them completes (e.g. partial WAR files, which
+	 * are created in a folder of their own for each publish).
+	 * @param key artifact key
+	 */
+	public synchronized void discard(String key) {
+		Integer count = inUse.get(key);
+		if (count != null && count > 1) {
+			inUse.put(key, count - 1);
+			return;
+		}
+		inUse.remove(key);
+		deleteArtifact(getFolder(key));
+	}
+
+	/**
+	 * Deletes least recently used artifacts that are not in use until the
+	 * store is within its maximum size.
+	 */
+	public synchronized void evict() {
+		// Artifacts in use may have grown since they were acquired
+		for (String key : inUse.keySet()) {
+			measure(getFolder(key));
+		}
+		if (totalSize <= maxSize) {
+			return;
+		}
+
+		File[] folders = root.listFiles();
+		if (folders == null) {
+			return;
+		}
+		List<File> candidates = new ArrayList<File>(Arrays.asList(folders));
+		Collections.sort(candidates, new Comparator<File>() {
+			public int compare(File file1, File file2) {
+				long modified1 = file1.lastModified();
+				long modified2 = file2.lastModified();
+				return modified1 < modified2 ? -1 : (modified1 == modified2 ? 0 : 1);
+			}
+		});
+
+		for (File folder : candidates) {
+			if (totalSize <= maxSize) {
+				break;
+			}
+			if (isInUse(folder)) {
+				continue;
+			}
+			CloudFoundryPlugin.trace("Evicting publish artifact " + folder.getName()); //$NON-NLS-1$
+			deleteArtifact(folder);
+		}
+	}
+
+	/**
+	 * Deletes the versions of an artifact that are not in use. Versions are
+	 * artifacts whose key is the given prefix followed by a version of the
+	 * given length (e.g. a content hash).
+	 * @param keyPrefix key shared by all versions of the artifact
+	 * @param versionLength length of the version part of the key
+	 */
+	public synchronized void deleteUnusedVersions(String keyPrefix, int versionLength) {
+		File[] folders = root.listFiles();
+		if (folders == null) {
+			return;
+		}
+		String prefix = toFolderName(keyPrefix);
+		for (File folder : folders) {
+			String name = folder.getName();
+			if (name.startsWith(prefix) && name.length() == prefix.length() + versionLength
+					&& !isInUse(folder)) {
+				deleteArtifact(folder);
+			}
+		}
+	}
+
+	/**
+	 * Deletes all artifacts that are not in use.
+	 */
+	public synchronized void clear() {
+		File[] folders = root.listFiles();
+		if (folders == null) {
+			return;
+		}
+		for (File folder : folders) {
+			if (!isInUse(folder)) {
+				deleteArtifact(folder);
+			}
+		}
+	}
+
+	/**
+	 * @return total size in bytes of all artifacts in the store, as last
+	 * measured
+	 */
+	public synchronized long getSize() {
+		getSizes();
+		return totalSize;
+	}
+
+	public File getRoot() {
+		return root;
+	}
+
+	protected File getFolder(String key) {
+		return new File(root, toFolderName(key));
+	}
+
+	protected boolean isInUse(File folder) {
+		for (String key : inUse.keySet()) {
+			if (getFolder(key).equals(folder)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Measures the sizes of all artifact folders on first use, which includes
+	 * artifacts left by a previous workbench session.
+	 */
+	private Map<String, Long> getSizes() {
+		if (sizes == null) {
+			sizes = new HashMap<String, Long>();
+			totalSize = 0;
+			File[] folders = root.listFiles();
+			if (folders != null) {
+				for (File folder : folders) {
+					long size = getSize(folder);
+					sizes.put(folder.getName(), size);
+					totalSize += size;
+				}
+			}
+		}
+		return sizes;
+	}
+
+	private void measure(File folder) {
+		Long previous = getSizes().remove(folder.getName());
+		if (previous != null) {
+			totalSize -= previous;
+		}
+		if (folder.exists()) {
+			long size = getSize(folder);
+			sizes.put(folder.getName(), size);
+			totalSize += size;
+		}
+	}
+
+	private void deleteArtifact(File folder) {
+		delete(folder);
+		measure(folder);
+	}
+
+	/**
+	 * Builds an artifact key from the given segments (e.g. the artifact type,
+	 * a server ID and a module ID). Segments are escaped, so different
+	 * segments never result in the same key, and the key of a segment list is
+	 * a prefix of the key of any longer list starting with the same segments.
+	 * @param segments
+	 * @return non-null artifact key
+	 */
+	public static String toKey(String... segments) {
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < segments.length; i++) {
+			if (i > 0) {
+				key.append('/');
+			}
+			key.append(segments[i].replace("%", "%25").replace("/", "%2F")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Converts an artifact key (e.g. a module ID, which may contain characters
+	 * like ':' or '/') to a valid folder name. Each character other than
+	 * letters, digits, '.' and '-' is replaced by '_' followed by its hex
+	 * code, so different keys never map to the same folder, and the folder
+	 * name of a key prefix is a prefix of the folder name of the key.
+	 */
+	public static String toFolderName(String key) {
+		StringBuilder name = new StringBuilder(key.length());
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.'
+					|| c == '-') {
+				name.append(c);
+			}
+			else {
+				name.append('_').append(String.format("%04x", (int) c)); //$NON-NLS-1$
+			}
+		}
+		return name.toString();
+	}
+
+	private static void touch(File folder) {
+		folder.setLastModified(System.currentTimeMillis());
+	}
+
+	private static long getSize(File file) {
+		if (file.isFile()) {
+			return file.length();
+		}
+		long size = 0;
+		File[] members = file.listFiles();
+		if (members != null) {
+			for (File member : members) {
+				size += getSize(member);
+			}
+		}
+		return size;
+	}
+
+	static void delete(File file) {
+		deleteContents(file);
+		file.delete();
+	}
+
+	static void deleteContents(File folder) {
+		File[] members = folder.listFiles();
+		if (members == null) {
+			return;
+		}
+		for (File member : members) {
+			delete(member);
+		}
+	}
+}
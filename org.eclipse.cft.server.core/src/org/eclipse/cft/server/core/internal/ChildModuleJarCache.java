@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+
+/**
+ * Cache of jars assembled from non-binary child modules (e.g. utility
+ * projects) of a web module. Each jar is keyed by the child module ID and a
+ * fingerprint of the child's resources (relative path, size and modification
+ * stamp of each file), so a child that has not changed since the last WAR
+ * build is not zipped again.
+ * <p/>
+ * Jars are written deterministically (sorted entries, fixed entry timestamps)
+ * so that the sha1 of an unchanged child jar stays the same across builds and
+ * the jar is matched by the Cloud Foundry resource cache instead of being
+ * uploaded again.
+ * <p/>
+ * Jars are kept in the {@link ArtifactStore}, one artifact per child module
+ * and fingerprint. The fingerprint is part of the jar location on disk,
+ * therefore cached jars remain valid across workbench sessions. A jar for new
+ * content never replaces a jar that a WAR build may be reading: jars for
+ * previous content of a child are only deleted once the new jar exists, and
+ * only if they are not in use.
+ * <p/>
+ * Jars for different content are built concurrently. Only builds of the same
+ * child content wait for each other, so that the jar is built once.
+ */
+public class ChildModuleJarCache {
+
+	private static final String KEY_TYPE = "childModuleJar"; //$NON-NLS-1$
+
+	/**
+	 * Length of the hex encoded SHA-1 fingerprint
+	 */
+	private static final int FINGERPRINT_LENGTH = 40;
+
+	private final ArtifactStore store;
+
+	/**
+	 * Locks of the artifacts currently being resolved, and how many threads
+	 * use each lock
+	 */
+	private final Map<String, BuildLock> buildLocks = new HashMap<String, BuildLock>();
+
+	public ChildModuleJarCache(ArtifactStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Returns a jar for the given child module resources. If a jar for the
+	 * same content was already built, the existing jar is returned. Otherwise
+	 * a new deterministic jar is created and previous jars for the child that
+	 * are not in use are discarded.
+	 * <p/>
+	 * The artifact containing the jar is acquired from the {@link ArtifactStore}
+	 * and must be released by the caller once the jar is no longer needed.
+	 * @param child module whose resources are to be jarred
+	 * @param resources of the child module
+	 * @param jarName name of the jar file as it will appear in the WAR
+	 * @param acquiredKeys list to which the key of the acquired artifact is
+	 * added
+	 * @param monitor
+	 * @return non-null jar file containing the child module resources
+	 * @throws CoreException if failed to create the jar
+	 */
+	public File getJar(IModule child, IModuleResource[] resources, String jarName,
+			List<String> acquiredKeys, IProgressMonitor monitor) throws CoreException {
+		String fingerprint = getFingerprint(resources);
+
+		String key = getArtifactKey(child, fingerprint);
+		File jarFolder;
+		try {
+			jarFolder = store.acquire(key);
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+
+		boolean created = false;
+		BuildLock lock = lock(key);
+		try {
+			File jarFile;
+			synchronized (lock) {
+				jarFile = getJar(child, resources, jarFolder, jarName, monitor);
+			}
+			created = true;
+			acquiredKeys.add(key);
+			return jarFile;
+		}
+		finally {
+			unlock(key, lock);
+			if (!created) {
+				store.release(key);
+			}
+		}
+	}
+
+	private BuildLock lock(String key) {
+		synchronized (buildLocks) {
+			BuildLock lock = buildLocks.get(key);
+			if (lock == null) {
+				lock = new BuildLock();
+				buildLocks.put(key, lock);
+			}
+			lock.users++;
+			return lock;
+		}
+	}
+
+	private void unlock(String key, BuildLock lock) {
+		synchronized (buildLocks) {
+			if (--lock.users == 0) {
+				buildLocks.remove(key);
+			}
+		}
+	}
+
+	protected File getJar(IModule child, IModuleResource[] resources, File jarFolder, String jarName,
+			IProgressMonitor monitor) throws CoreException {
+		File jarFile = new File(jarFolder, jarName);
+
+		if (jarFile.isFile()) {
+			CloudFoundryPlugin.trace("Reusing cached jar for child module " + child.getName()); //$NON-NLS-1$
+			return jarFile;
+		}
+
+		// Write to a temporary file first, so that an interrupted build never
+		// leaves a partial jar that would later be considered valid
+		File tempJar = new File(jarFolder, jarName + ".tmp"); //$NON-NLS-1$
+		IStatus[] status = CloudUtil.publishDeterministicZip(resources, tempJar, monitor);
+		if (status != null && status.length > 0) {
+			tempJar.delete();
+			throw new CoreException(status[0]);
+		}
+		if (!tempJar.renameTo(jarFile)) {
+			tempJar.delete();
+			throw new CoreException(new Status(IStatus.ERROR, CloudFoundryPlugin.PLUGIN_ID,
+					"Failed to create jar for child module: " + child.getName())); //$NON-NLS-1$
+		}
+
+		// Content changed (or never built). Discard jars for previous content
+		// of the child, unless a WAR build is still reading them
+		store.deleteUnusedVersions(getArtifactKey(child, ""), FINGERPRINT_LENGTH); //$NON-NLS-1$
+		return jarFile;
+	}
+
+	/**
+	 * @param child module
+	 * @param fingerprint of the child module resources
+	 * @return key of the artifact containing the jar for the given child module
+	 * content
+	 */
+	public static String getArtifactKey(IModule child, String fingerprint) {
+		return ArtifactStore.toKey(KEY_TYPE, child.getId(), fingerprint);
+	}
+
+	/**
+	 * Computes a fingerprint of the given resources based on the relative
+	 * path, size and modification stamp of each file. Resource order does not
+	 * affect the fingerprint.
+	 * @param resources
+	 * @return non-null hex encoded fingerprint
+	 * @throws CoreException if the fingerprint could not be computed
+	 */
+	public static String getFingerprint(IModuleResource[] resources) throws CoreException {
+		Map<String, String> stamps = new TreeMap<String, String>();
+		collectStamps(resources, stamps);
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA"); //$NON-NLS-1$
+			for (Map.Entry<String, String> entry : stamps.entrySet()) {
+				digest.update(entry.getKey().getBytes("UTF-8")); //$NON-NLS-1$
+				digest.update((byte) 0);
+				digest.update(entry.getValue().getBytes("UTF-8")); //$NON-NLS-1$
+				digest.update((byte) '\n');
+			}
+			return toHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+	}
+
+	private static void collectStamps(IModuleResource[] resources, Map<String, String> stamps) {
+		if (resources == null) {
+			return;
+		}
+		for (IModuleResource resource : resources) {
+			String zipName = CloudUtil.getZipRelativeName(resource);
+			if (resource instanceof IModuleFolder) {
+				stamps.put(zipName, ""); //$NON-NLS-1$
+				collectStamps(((IModuleFolder) resource).members(), stamps);
+			}
+			else if (resource instanceof IModuleFile) {
+				stamps.put(zipName, getStamp((IModuleFile) resource));
+			}
+		}
+	}
+
+	private static String getStamp(IModuleFile moduleFile) {
+		IFile iFile = (IFile) moduleFile.getAdapter(IFile.class);
+		if (iFile != null) {
+			IPath location = iFile.getLocation();
+			long size = location != null ? location.toFile().length() : -1;
+			return iFile.getModificationStamp() + ":" + iFile.getLocalTimeStamp() + ":" + size; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		File file = (File) moduleFile.getAdapter(File.class);
+		if (file != null) {
+			return file.lastModified() + ":" + file.length(); //$NON-NLS-1$
+		}
+		// No way to tell if it changed. Use the module file stamp
+		return String.valueOf(moduleFile.getModificationStamp());
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private static class BuildLock {
+
+		private int users;
+
+	}
+}
@@ -22,15 +22,19 @@
 package org.eclipse.cft.server.core.internal;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
 
 import org.eclipse.cft.server.core.AbstractAppStateTracker;
+import org.eclipse.cft.server.core.internal.application.ManifestCache;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryClientFactory;
 import org.eclipse.cft.server.core.internal.client.DeploymentConfiguration;
 import org.eclipse.cft.server.core.internal.client.diego.DiegoTarget;
+import org.eclipse.cft.server.core.internal.debug.SourceLookupCache;
 import org.eclipse.core.net.proxy.IProxyService;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -278,6 +282,36 @@ public class CloudFoundryPlugin extends Plugin {
 
 	public static final boolean DEFAULT_INCREMENTAL_PUBLISH_PREFERENCE_VAL = true;
 
+	public static final String ARTIFACT_STORE_MAX_SIZE_PREFERENCE = PLUGIN_ID + ".publish.artifacts.maxsize"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum size in bytes of generated publish artifacts (WAR files,
+	 * jars) kept for reuse in the artifact store.
+	 */
+	public static final long DEFAULT_ARTIFACT_STORE_MAX_SIZE = 512L * 1024 * 1024;
+
+	public static final String FLEET_PARALLELISM_PREFERENCE = PLUGIN_ID + ".fleet.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum number of applications started, stopped or restarted
+	 * at the same time by an operation on many applications
+	 */
+	public static final int DEFAULT_FLEET_PARALLELISM = 4;
+
+	public static final String SERVER_PARALLELISM_PREFERENCE = PLUGIN_ID + ".server.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * Default maximum number of background requests run at the same time for
+	 * each server, for example when refreshing applications
+	 */
+	public static final int DEFAULT_SERVER_PARALLELISM = 4;
+
+	private static final String ARTIFACT_STORE_FOLDER = "artifacts"; //$NON-NLS-1$
+
+	private static final String PUBLISH_HISTORY_FILE = "publish-history.csv"; //$NON-NLS-1$
+
+	private static final String MODULE_SNAPSHOT_FOLDER = "module-snapshots"; //$NON-NLS-1$
+
 	private static CloudFoundryCallback callback;
 
 	private static CloudFoundryTargetManager targetManager;
@@ -287,6 +321,20 @@ public class CloudFoundryPlugin extends Plugin {
 
 	private static ModuleCache moduleCache;
 
+	private static ArtifactStore artifactStore;
+
+	private static ChildModuleJarCache childModuleJarCache;
+
+	private static ResourceDigestCache resourceDigestCache;
+
+	private static PublishHistory publishHistory;
+
+	private ResourceDigestPrefetcher resourceDigestPrefetcher;
+
+	private static ManifestCache manifestCache;
+
+	private static SourceLookupCache sourceLookupCache;
+
 	private static CloudFoundryPlugin plugin;
 
 	private static IProxyService proxyService;
@@ -368,6 +416,14 @@ public class CloudFoundryPlugin extends Plugin {
 				DEFAULT_INCREMENTAL_PUBLISH_PREFERENCE_VAL);
 	}
 
+	public synchronized int getFleetParallelism() {
+		return Math.max(1, getPreferences().getInt(FLEET_PARALLELISM_PREFERENCE, DEFAULT_FLEET_PARALLELISM));
+	}
+
+	public synchronized int getServerParallelism() {
+		return Math.max(1, getPreferences().getInt(SERVER_PARALLELISM_PREFERENCE, DEFAULT_SERVER_PARALLELISM));
+	}
+
 	public IEclipsePreferences getPreferences() {
 		return INSTANCE_SCOPE.getNode(PLUGIN_ID);
 	}
@@ -391,6 +447,118 @@ public class CloudFoundryPlugin extends Plugin {
 		return moduleCache;
 	}
 
+	/**
+	 * @return non-null store for generated publish artifacts. If the plugin
+	 * state location is not available, artifacts are kept in the system temp
+	 * folder.
+	 */
+	public static synchronized ArtifactStore getArtifactStore() {
+		if (artifactStore == null) {
+			File root = null;
+			long maxSize = DEFAULT_ARTIFACT_STORE_MAX_SIZE;
+			if (plugin != null) {
+				try {
+					root = plugin.getStateLocation().append(ARTIFACT_STORE_FOLDER).toFile();
+				}
+				catch (IllegalStateException e) {
+					// No state location. Use temp folder below
+				}
+				maxSize = plugin.getPreferences().getLong(ARTIFACT_STORE_MAX_SIZE_PREFERENCE,
+						DEFAULT_ARTIFACT_STORE_MAX_SIZE);
+			}
+			if (root == null) {
+				root = new File(System.getProperty("java.io.tmpdir"), "cft-" + ARTIFACT_STORE_FOLDER); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			artifactStore = new ArtifactStore(root, maxSize);
+		}
+		return artifactStore;
+	}
+
+	/**
+	 * @return non-null cache of jars built from child modules of web modules
+	 */
+	public static synchronized ChildModuleJarCache getChildModuleJarCache() {
+		if (childModuleJarCache == null) {
+			childModuleJarCache = new ChildModuleJarCache(getArtifactStore());
+		}
+		return childModuleJarCache;
+	}
+
+	/**
+	 * @return non-null cache of file digests, shared by all applications and
+	 * servers
+	 */
+	public static synchronized ResourceDigestCache getResourceDigestCache() {
+		if (resourceDigestCache == null) {
+			resourceDigestCache = new ResourceDigestCache();
+		}
+		return resourceDigestCache;
+	}
+
+	/**
+	 * @return non-null history of publish timings per module. If the plugin
+	 * state location is not available, the history is only kept in memory.
+	 */
+	public static synchronized PublishHistory getPublishHistory() {
+		if (publishHistory == null) {
+			File file = null;
+			String version = null;
+			if (plugin != null) {
+				try {
+					file = plugin.getStateLocation().append(PUBLISH_HISTORY_FILE).toFile();
+				}
+				catch (IllegalStateException e) {
+					// No state location. Keep the history in memory
+				}
+				version = plugin.getBundle().getVersion().toString();
+			}
+			publishHistory = new PublishHistory(file, version);
+		}
+		return publishHistory;
+	}
+
+	/**
+	 * @param serverId id of the WST server
+	 * @return file of the module state snapshot of the given server, or null
+	 * if the plugin state location is not available
+	 */
+	public static File getModuleStateSnapshotFile(String serverId) {
+		if (plugin == null || serverId == null) {
+			return null;
+		}
+		try {
+			String fileName = URLEncoder.encode(serverId, "UTF-8") + ".json"; //$NON-NLS-1$ //$NON-NLS-2$
+			return plugin.getStateLocation().append(MODULE_SNAPSHOT_FOLDER).append(fileName).toFile();
+		}
+		catch (IllegalStateException e) {
+			// No state location
+			return null;
+		}
+		catch (UnsupportedEncodingException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return non-null cache of parsed application manifest files
+	 */
+	public static synchronized ManifestCache getManifestCache() {
+		if (manifestCache == null) {
+			manifestCache = new ManifestCache(ResourcesPlugin.getWorkspace());
+		}
+		return manifestCache;
+	}
+
+	/**
+	 * @return non-null cache of resolved source lookup paths of debug launches
+	 */
+	public static synchronized SourceLookupCache getSourceLookupCache() {
+		if (sourceLookupCache == null) {
+			sourceLookupCache = new SourceLookupCache();
+		}
+		return sourceLookupCache;
+	}
+
 	private ServiceTracker tracker;
 
 	private static CloudFoundryClientFactory factory;
@@ -442,10 +610,17 @@ public class CloudFoundryPlugin extends Plugin {
 			infoLogger = null;
 		}
 
+		// Warm the digest cache for incremental publishing as files change
+		resourceDigestPrefetcher = new ResourceDigestPrefetcher(ResourcesPlugin.getWorkspace());
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		if (resourceDigestPrefetcher != null) {
+			resourceDigestPrefetcher.dispose();
+			resourceDigestPrefetcher = null;
+		}
+
 		if (tracker != null) {
 			tracker.close();
 			tracker = null;
@@ -456,6 +631,25 @@ public class CloudFoundryPlugin extends Plugin {
 			moduleCache = null;
 		}
 
+		synchronized (CloudFoundryPlugin.class) {
+			if (manifestCache != null) {
+				manifestCache.dispose();
+				manifestCache = null;
+			}
+			if (sourceLookupCache != null) {
+				sourceLookupCache.dispose();
+				sourceLookupCache = null;
+			}
+			if (artifactStore != null) {
+				// Trim artifacts kept for reuse to the maximum size
+				artifactStore.evict();
+				artifactStore = null;
+				childModuleJarCache = null;
+			}
+			resourceDigestCache = null;
+			publishHistory = null;
+		}
+
 		plugin = null;
 		super.stop(context);
 	}
@@ -26,6 +26,8 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.wst.common.project.facet.core.IFacetedProject;
@@ -36,6 +38,10 @@ public class CloudFoundryProjectUtil {
 
 	public static final String ID_MODULE_STANDALONE = "cloudfoundry.standalone.app"; //$NON-NLS-1$
 
+	private static final int CLASSPATH_CHANGE_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED
+			| IJavaElementDelta.F_CLOSED;
+
 	public static final String SPRING_NATURE_ID = "org.springframework.ide.eclipse.core.springnature"; //$NON-NLS-1$
 
 	private CloudFoundryProjectUtil() {
@@ -182,6 +188,32 @@ public class CloudFoundryProjectUtil {
 		return isSpringBoot(getProject(appModule));
 	}
 
+	/**
+	 * Determines if a Java element delta may change the resolved classpath of
+	 * any project: a project classpath changed, or a project was added,
+	 * removed, opened or closed. Only the Java model and project levels of the
+	 * delta are checked, which is where these changes are reported.
+	 * @param delta
+	 * @return true if resolved classpaths may have changed
+	 */
+	public static boolean affectsClasspath(IJavaElementDelta delta) {
+		if (delta == null) {
+			return false;
+		}
+		int type = delta.getElement().getElementType();
+		if (type == IJavaElement.JAVA_PROJECT) {
+			return delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & CLASSPATH_CHANGE_FLAGS) != 0;
+		}
+		if (type == IJavaElement.JAVA_MODEL) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				if (affectsClasspath(child)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	private static boolean hasBootDependencies(IClasspathEntry e) {
 		if (e.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
 			IPath path = e.getPath();
@@ -41,6 +41,7 @@ import org.eclipse.cft.server.core.internal.ModuleCache.ServerData;
 import org.eclipse.cft.server.core.internal.application.ApplicationRegistry;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.eclipse.cft.server.core.internal.client.CloudOperationsConstants;
 import org.eclipse.cft.server.core.internal.client.SelfSignedStore;
 import org.eclipse.cft.server.core.internal.spaces.CloudFoundrySpace;
 import org.eclipse.core.runtime.CoreException;
@@ -145,6 +146,12 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 
 	private static final long DEFAULT_SSL_HANDSHAKE_TIMEOUT = 60;
 
+	/**
+	 * Attribute key for the time in milliseconds that requests to the server
+	 * are reattempted after errors.
+	 */
+	public static final String PROP_REQUEST_TIMEOUT = "org.eclipse.cft.request.timeout"; //$NON-NLS-1$
+
 	protected void updateState(Server server, CloudFoundryApplicationModule appModule) throws CoreException {
 		IModule[] localModule = new IModule[] { appModule.getLocalModule() };
 		server.setModuleState(localModule, appModule.getState());
@@ -196,6 +203,8 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 
 	private String initialServerId;
 
+	private volatile boolean moduleStateStale;
+
 	private String password;
 
 	private CloudFoundrySpace cloudSpace;
@@ -1055,6 +1064,67 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 		}
 	}
 	
+	/**
+	 * Shows the applications of a snapshot taken in a previous session until
+	 * the server is refreshed. Modules of applications in the snapshot are
+	 * created or updated, and their state is set from the snapshot. Unlike a
+	 * refresh, modules of applications that are not in the snapshot are not
+	 * deleted, as the snapshot may be out of date.
+	 * <p/>
+	 * Module states remain stale until {@link #setModuleStateStale(boolean)}
+	 * is called after a refresh.
+	 * @param snapshot
+	 * @throws CoreException
+	 */
+	public void restoreModules(ModuleStateSnapshot snapshot) throws CoreException {
+		Server server = (Server) getServer();
+		Map<String, CloudApplication> applications = snapshot.getApplications();
+		Map<String, ApplicationStats> stats = snapshot.getApplicationStats();
+		List<CloudFoundryApplicationModule> externalModules = new ArrayList<CloudFoundryApplicationModule>();
+
+		synchronized (this) {
+			if (getData() == null) {
+				return;
+			}
+			for (IModule module : server.getModules()) {
+				CloudFoundryApplicationModule cloudModule = getOrCreateCloudModule(module);
+				if (cloudModule == null) {
+					continue;
+				}
+				CloudApplication application = applications.remove(cloudModule.getDeployedApplicationName());
+				if (application != null) {
+					cloudModule.setCloudApplication(application);
+					cloudModule.setApplicationStats(stats.get(application.getName()));
+				}
+				if (cloudModule.isExternal()) {
+					externalModules.add(cloudModule);
+				}
+			}
+
+			for (CloudApplication application : applications.values()) {
+				CloudFoundryApplicationModule appModule = getData().createModule(application);
+				appModule.setApplicationStats(stats.get(application.getName()));
+				externalModules.add(appModule);
+			}
+
+			server.setExternalModules(externalModules.toArray(new IModule[0]));
+			moduleStateStale = true;
+		}
+		updateModulesState();
+	}
+
+	/**
+	 * @return true if module states are from a snapshot of a previous
+	 * session, and the server has not been refreshed yet
+	 */
+	public boolean isModuleStateStale() {
+		return moduleStateStale;
+	}
+
+	public void setModuleStateStale(boolean moduleStateStale) {
+		this.moduleStateStale = moduleStateStale;
+	}
+
 	/**
 	 * Updates the module state of all existing Cloud modules in the server
 	 * @throws CoreException
@@ -1586,4 +1656,16 @@ public class CloudFoundryServer extends ServerDelegate implements IURLProvider {
 	public long getSslHandshakeTimeout() {
 		return DEFAULT_SSL_HANDSHAKE_TIMEOUT;
 	}
+
+	/**
+	 * Time in milliseconds that requests to this server are reattempted after
+	 * errors, unless a request specifies its own timeout. Each server has its
+	 * own timeout, so that a slow target can be given more time without
+	 * affecting other servers. Background refreshes also cancel the update of
+	 * an application that takes longer than this timeout.
+	 */
+	public long getRequestTimeout() {
+		int timeout = getAttribute(PROP_REQUEST_TIMEOUT, -1);
+		return timeout > 0 ? timeout : CloudOperationsConstants.DEFAULT_CF_CLIENT_REQUEST_TIMEOUT;
+	}
 }
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.domain.CloudDomain;
+import org.cloudfoundry.client.lib.domain.CloudRoute;
+import org.eclipse.cft.server.core.internal.client.CloudFoundryServerBehaviour;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Index of the routes of the active space, per domain and host. Used to check
+ * if a host is already owned by the space (e.g. when validating an application
+ * URL) without fetching and scanning all the routes of the domain every time.
+ * <p/>
+ * The routes of a domain are fetched when first needed, and again once they
+ * are older than {@link #ROUTES_TTL}. Routes reserved or deleted through the
+ * server behaviour update the index directly.
+ * <p/>
+ * The client API does not support querying a single route, so the index is
+ * always populated with all the routes of a domain.
+ */
+public class CloudRouteIndex {
+
+	public static final long ROUTES_TTL = 60 * 1000;
+
+	private final CloudFoundryServerBehaviour behaviour;
+
+	/**
+	 * Synchronize on this map when accessing it or its routes
+	 */
+	private final Map<String, DomainRoutes> routesPerDomain = new HashMap<String, DomainRoutes>();
+
+	/**
+	 * Incremented whenever routes are reserved, deleted or invalidated, so
+	 * that routes fetched before such a change do not overwrite it. Guarded
+	 * by {@link #routesPerDomain}.
+	 */
+	private int generation;
+
+	public CloudRouteIndex(CloudFoundryServerBehaviour behaviour) {
+		this.behaviour = behaviour;
+	}
+
+	/**
+	 * Returns the route of the given host in the given domain, if it is owned
+	 * by the active space. The routes of the domain are fetched if not indexed
+	 * or expired.
+	 * @param host
+	 * @param domainName
+	 * @param monitor
+	 * @return route owned by the space, or null if the space does not own the
+	 * route (the route may still be owned by another space)
+	 * @throws CoreException if failed to fetch the routes of the domain
+	 */
+	public CloudRoute getRoute(String host, String domainName, IProgressMonitor monitor) throws CoreException {
+		DomainRoutes domainRoutes;
+		synchronized (routesPerDomain) {
+			domainRoutes = routesPerDomain.get(domainName);
+		}
+		if (domainRoutes == null || domainRoutes.isExpired()) {
+			domainRoutes = index(domainName, monitor);
+		}
+		synchronized (routesPerDomain) {
+			return domainRoutes.routes.get(toKey(host));
+		}
+	}
+
+	/**
+	 * Records a route that was reserved by the space and is not used by any
+	 * application yet. Has no effect if the routes of the domain are not
+	 * indexed.
+	 */
+	public void routeReserved(String host, String domainName) {
+		synchronized (routesPerDomain) {
+			DomainRoutes domainRoutes = routesPerDomain.get(domainName);
+			if (domainRoutes != null) {
+				domainRoutes.routes.put(toKey(host), new CloudRoute(null, host, new CloudDomain(null, domainName, null), 0));
+			}
+			generation++;
+		}
+	}
+
+	public void routeDeleted(String host, String domainName) {
+		synchronized (routesPerDomain) {
+			DomainRoutes domainRoutes = routesPerDomain.get(domainName);
+			if (domainRoutes != null) {
+				domainRoutes.routes.remove(toKey(host));
+			}
+			generation++;
+		}
+	}
+
+	/**
+	 * Clears the routes of all domains, for example when the active space
+	 * changes.
+	 */
+	public void invalidate() {
+		synchronized (routesPerDomain) {
+			routesPerDomain.clear();
+			generation++;
+		}
+	}
+
+	protected DomainRoutes index(String domainName, IProgressMonitor monitor) throws CoreException {
+		int fetchGeneration;
+		synchronized (routesPerDomain) {
+			fetchGeneration = generation;
+		}
+
+		// Not fetched while holding the lock, so that checks in other domains
+		// are not blocked
+		List<CloudRoute> routes = fetchRoutes(domainName, monitor);
+
+		DomainRoutes domainRoutes = new DomainRoutes();
+		if (routes != null) {
+			for (CloudRoute route : routes) {
+				if (route.getHost() != null) {
+					domainRoutes.routes.put(toKey(route.getHost()), route);
+				}
+			}
+		}
+		synchronized (routesPerDomain) {
+			// Routes changed while fetching. The fetched routes are returned
+			// to the caller, but not indexed, so they are fetched again
+			if (fetchGeneration == generation) {
+				routesPerDomain.put(domainName, domainRoutes);
+			}
+		}
+		return domainRoutes;
+	}
+
+	protected List<CloudRoute> fetchRoutes(String domainName, IProgressMonitor monitor) throws CoreException {
+		return behaviour.getRoutes(domainName, monitor);
+	}
+
+	/**
+	 * Hosts are compared ignoring case
+	 */
+	protected static String toKey(String host) {
+		return host != null ? host.toLowerCase(Locale.ENGLISH) : null;
+	}
+
+	protected static class DomainRoutes {
+
+		private final Map<String, CloudRoute> routes = new HashMap<String, CloudRoute>();
+
+		private final long indexedAt = System.currentTimeMillis();
+
+		public boolean isExpired() {
+			return System.currentTimeMillis() - indexedAt >= ROUTES_TTL;
+		}
+	}
+}
@@ -28,10 +28,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -55,6 +59,7 @@ import org.eclipse.jst.server.core.IWebModule;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IModuleType;
+import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.core.internal.ProgressUtil;
 import org.eclipse.wst.server.core.internal.Server;
 import org.eclipse.wst.server.core.internal.ServerPlugin;
@@ -98,56 +103,81 @@ public class CloudUtil {
 	 * Creates a partial war file containing only the resources listed in the
 	 * list to filter in. Note that at least one content must be present in the
 	 * list to filter in, otherwise null is returned.
+	 * <p/>
+	 * The war file is created in the {@link ArtifactStore}, under the given
+	 * key. Partial wars are specific to a single publish, so the key should
+	 * be obtained from {@link #newPartialWarArtifactKey(IModule)}, and the
+	 * caller must discard the artifact once the war file is no longer needed.
 	 * @param resources
 	 * @param module
-	 * @param server
+	 * @param artifactKey key of the artifact folder for the war file
 	 * @param monitor
 	 * @return partial war file with resources specified in the filter in list,
 	 * or null if filter list is empty or null
 	 * @throws CoreException
 	 */
 	public static File createWarFile(List<IModuleResource> allResources, IModule module,
-			Set<IModuleResource> filterInResources, IProgressMonitor monitor) throws CoreException {
+			Set<IModuleResource> filterInResources, String artifactKey, IProgressMonitor monitor)
+			throws CoreException {
 		if (allResources == null || allResources.isEmpty() || filterInResources == null
 				|| filterInResources.isEmpty()) {
 			return null;
 		}
 		List<IStatus> result = new ArrayList<IStatus>();
+		ArtifactStore store = CloudFoundryPlugin.getArtifactStore();
+		boolean created = false;
 		try {
-			File tempDirectory = getTempFolder(module);
-			// tempFile needs to be in the same location as the war file
-			// otherwise PublishHelper will fail
+			File artifactFolder = store.acquire(artifactKey);
 			String fileName = module.getName() + ".war"; //$NON-NLS-1$
 
-			File warFile = new File(tempDirectory, fileName);
+			File warFile = new File(artifactFolder, fileName);
+			warFile.delete();
 			warFile.createNewFile();
-			warFile.deleteOnExit();
-			List<IModuleResource> newResources = new ArrayList<IModuleResource>();
-			for (IModuleResource mr : allResources) {
-				newResources.add(processModuleResource(mr));
-			}
 
 			IStatus[] status = publishZip(allResources, warFile, filterInResources, monitor);
 			merge(result, status);
 			throwException(result, "Publishing of : " + module.getName() + " failed"); //$NON-NLS-1$ //$NON-NLS-2$
 
+			created = true;
 			return warFile;
 		}
 		catch (IOException e) {
 			throw new CoreException(new Status(IStatus.ERROR, CloudFoundryPlugin.PLUGIN_ID,
 					"Failed to create war file: " + e.getMessage(), e)); //$NON-NLS-1$
 		}
+		finally {
+			if (!created) {
+				store.discard(artifactKey);
+			}
+		}
 	}
 
+	/**
+	 * Creates a war file for the given modules, including jars for any child
+	 * modules.
+	 * <p/>
+	 * The war file is created in the {@link ArtifactStore}, replacing the war
+	 * file of a previous publish of the same module to the same server. The
+	 * caller must release the artifact once the war file is no longer needed,
+	 * using the key from {@link #getWarArtifactKey(IServer, IModule)}.
+	 * @param modules
+	 * @param server
+	 * @param monitor
+	 * @return non-null war file
+	 * @throws CoreException if failed to create the war file
+	 */
 	public static File createWarFile(IModule[] modules, Server server, IProgressMonitor monitor) throws CoreException {
 		List<IStatus> result = new ArrayList<IStatus>();
+		ArtifactStore store = CloudFoundryPlugin.getArtifactStore();
+		String artifactKey = getWarArtifactKey(server, modules[0]);
+		List<String> childArtifactKeys = new ArrayList<String>();
+		boolean created = false;
 		try {
-			File tempFile = getTempFolder(modules[0]);
-			// tempFile needs to be in the same location as the war file
-			// otherwise PublishHelper will fail
-			File targetFile = new File(tempFile, modules[0].getName() + ".war"); //$NON-NLS-1$
-			targetFile.deleteOnExit();
-			PublishHelper helper = new PublishHelper(tempFile);
+			// Reuse the artifact folder of the previous publish. The war file
+			// (and any binary child module) is overwritten in place.
+			File artifactFolder = store.acquire(artifactKey);
+			File targetFile = new File(artifactFolder, modules[0].getName() + ".war"); //$NON-NLS-1$
+			PublishHelper helper = new PublishHelper(artifactFolder);
 
 			ArrayList<IModuleResource> resources = new ArrayList<IModuleResource>(
 					Arrays.asList(server.getResources(modules)));
@@ -176,7 +206,7 @@ public class CloudUtil {
 								childUri = "WEB-INF/lib/" + child.getName(); //$NON-NLS-1$
 							}
 							IPath jarPath = new Path(childUri);
-							File jarFile = new File(tempFile, jarPath.lastSegment());
+							File jarFile = new File(artifactFolder, jarPath.lastSegment());
 							jarPath = jarPath.removeLastSegments(1);
 
 							IModuleResource[] mr = server.getResources(new IModule[] { child });
@@ -186,17 +216,7 @@ public class CloudUtil {
 						}
 						else {
 							// other modules are assembled into a jar
-							if (childUri == null) {
-								childUri = "WEB-INF/lib/" + child.getName() + ".jar"; //$NON-NLS-1$ //$NON-NLS-2$
-							}
-							IPath jarPath = new Path(childUri);
-							File jarFile = new File(tempFile, jarPath.lastSegment());
-							jarPath = jarPath.removeLastSegments(1);
-
-							IModuleResource[] mr = server.getResources(new IModule[] { child });
-							IStatus[] status = helper.publishZip(mr, new Path(jarFile.getAbsolutePath()), monitor);
-							merge(result, status);
-							resources.add(new ModuleFile(jarFile, jarFile.getName(), jarPath));
+							resources.add(getChildModuleJar(child, childUri, server, childArtifactKeys, monitor));
 						}
 					}
 				}
@@ -212,15 +232,135 @@ public class CloudUtil {
 			merge(result, status);
 			throwException(result, "Publishing of " + modules[0].getName() + " failed"); //$NON-NLS-1$ //$NON-NLS-2$
 
+			created = true;
 			return targetFile;
 		}
 		catch (IOException e) {
 			throw new CoreException(new Status(IStatus.ERROR, CloudFoundryPlugin.PLUGIN_ID,
 					"Failed to create war file: " + e.getMessage(), e)); //$NON-NLS-1$
 		}
+		finally {
+			// Child jars are only needed while the war is assembled
+			for (String childKey : childArtifactKeys) {
+				store.release(childKey);
+			}
+			if (!created) {
+				store.release(artifactKey);
+			}
+		}
 
 	}
 
+	/**
+	 * Resolves a jar file for each child module of the given web module, as
+	 * it would appear in the WAR (by default in WEB-INF/lib). Jars of
+	 * non-binary child modules are obtained from the
+	 * {@link ChildModuleJarCache}, so the jar of a child that has not changed
+	 * since the last publish is neither rebuilt nor does its sha1 change.
+	 * Binary child modules are referenced in place.
+	 * <p/>
+	 * The keys of any artifacts acquired for the child jars are added to the
+	 * given list, and must be released by the caller once the jars are no
+	 * longer needed, even if this method fails.
+	 * @param modules
+	 * @param server
+	 * @param childArtifactKeys list to which acquired artifact keys are added
+	 * @param monitor
+	 * @return module files for the child jars, with the module relative path
+	 * of the jar in the WAR, or null if a binary child module does not consist
+	 * of a single local file
+	 * @throws CoreException if failed to create a child jar
+	 */
+	public static List<IModuleFile> getChildModuleJars(IModule[] modules, Server server,
+			List<String> childArtifactKeys, IProgressMonitor monitor) throws CoreException {
+		List<IModuleFile> jars = new ArrayList<IModuleFile>();
+		IWebModule webModule = getWebModule(modules);
+		IModule[] children = webModule != null ? webModule.getModules() : null;
+		if (children == null) {
+			return jars;
+		}
+
+		for (IModule child : children) {
+			String childUri = webModule.getURI(child);
+			IJ2EEModule childModule = (IJ2EEModule) child.loadAdapter(IJ2EEModule.class, monitor);
+			if (childModule != null && childModule.isBinary()) {
+				if (childUri == null) {
+					childUri = "WEB-INF/lib/" + child.getName(); //$NON-NLS-1$
+				}
+				IModuleResource[] mr = server.getResources(new IModule[] { child });
+				File jarFile = mr != null && mr.length == 1 ? getLocalFile(mr[0]) : null;
+				if (jarFile == null) {
+					return null;
+				}
+				IPath jarPath = new Path(childUri);
+				jars.add(new ModuleFile(jarFile, jarPath.lastSegment(), jarPath.removeLastSegments(1)));
+			}
+			else {
+				jars.add(getChildModuleJar(child, childUri, server, childArtifactKeys, monitor));
+			}
+		}
+		return jars;
+	}
+
+	/**
+	 * Assembles the jar of a non-binary child module, reusing the jar from a
+	 * previous build if the child has not changed. Cached jars are
+	 * deterministic, so their sha1 stays stable across publishes.
+	 */
+	private static IModuleFile getChildModuleJar(IModule child, String childUri, Server server,
+			List<String> childArtifactKeys, IProgressMonitor monitor) throws CoreException {
+		if (childUri == null) {
+			childUri = "WEB-INF/lib/" + child.getName() + ".jar"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		IPath jarPath = new Path(childUri);
+		String jarName = jarPath.lastSegment();
+		jarPath = jarPath.removeLastSegments(1);
+
+		IModuleResource[] mr = server.getResources(new IModule[] { child });
+		File jarFile = CloudFoundryPlugin.getChildModuleJarCache().getJar(child, mr, jarName, childArtifactKeys,
+				monitor);
+		return new ModuleFile(jarFile, jarName, jarPath);
+	}
+
+	/**
+	 * @return local file of the given resource, or null if it is not a file
+	 * in the local file system
+	 */
+	private static File getLocalFile(IModuleResource resource) {
+		if (!(resource instanceof IModuleFile)) {
+			return null;
+		}
+		IFile iFile = (IFile) resource.getAdapter(IFile.class);
+		if (iFile != null) {
+			IPath location = iFile.getLocation();
+			return location != null ? location.toFile() : null;
+		}
+		File file = (File) resource.getAdapter(File.class);
+		return file != null && file.isFile() ? file : null;
+	}
+
+	/**
+	 * @param server
+	 * @param module
+	 * @return key in the {@link ArtifactStore} of the war file for the given
+	 * module. The key is specific to the server, as the same module may be
+	 * published to different servers at the same time.
+	 */
+	public static String getWarArtifactKey(IServer server, IModule module) {
+		return ArtifactStore.toKey("war", server.getId(), module.getId()); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param module
+	 * @return new key in the {@link ArtifactStore} for a partial war file used
+	 * for incremental publishing of the given module. Each call returns a
+	 * different key, so concurrent publishes of the module do not share the
+	 * partial war file.
+	 */
+	public static String newPartialWarArtifactKey(IModule module) {
+		return ArtifactStore.toKey("partialWar", module.getId(), UUID.randomUUID().toString()); //$NON-NLS-1$
+	}
+
 	private static IModuleResource processModuleResource(IModuleResource or) {
 		if (or instanceof IModuleFolder) {
 			IModuleFolder of = (IModuleFolder) or;
@@ -239,13 +379,6 @@ public class CloudUtil {
 		return or;
 	}
 
-	private static File getTempFolder(IModule module) throws IOException {
-		File tempFile = File.createTempFile("tempFileForWar", null); //$NON-NLS-1$
-		tempFile.delete();
-		tempFile.mkdirs();
-		return tempFile;
-	}
-
 	protected static void throwException(List<IStatus> status, String message) throws CoreException {
 		if (status == null || status.size() == 0) {
 			return;
@@ -274,13 +407,100 @@ public class CloudUtil {
 			return new Status[] { new Status(IStatus.ERROR, ServerPlugin.PLUGIN_ID, 0,
 					NLS.bind(Messages.ERROR_CREATE_ZIP, tempFile.getName(), e.getLocalizedMessage()), e) };
 		}
+		return EMPTY_STATUS;
+	}
+
+	/**
+	 * Entry time used for deterministic zips, so that the content of a zip
+	 * created from unchanged resources is always the same
+	 */
+	private static final long DETERMINISTIC_ENTRY_TIME = new GregorianCalendar(1980, Calendar.FEBRUARY, 1)
+			.getTimeInMillis();
+
+	/**
+	 * Creates a zip file containing the given resources, where entries are
+	 * sorted by name and all entries have the same fixed timestamp. Zipping
+	 * the same resources with the same content therefore always produces the
+	 * same bytes, and the same sha1.
+	 * @param resources to zip
+	 * @param zipFile target zip file
+	 * @param monitor
+	 * @return non-null status. Empty if zip creation was successful
+	 */
+	public static IStatus[] publishDeterministicZip(IModuleResource[] resources, File zipFile,
+			IProgressMonitor monitor) {
+		monitor = ProgressUtil.getMonitorFor(monitor);
+
+		Map<String, IModuleResource> sortedResources = new TreeMap<String, IModuleResource>();
+		collectZipEntries(resources, sortedResources);
+
+		ZipOutputStream zout = null;
+		try {
+			zout = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)));
+			byte[] buffer = new byte[BUFFER];
+			for (Entry<String, IModuleResource> entry : sortedResources.entrySet()) {
+				if (monitor.isCanceled()) {
+					return new IStatus[] { Status.CANCEL_STATUS };
+				}
+				ZipEntry zipEntry = new ZipEntry(entry.getKey());
+				zipEntry.setTime(DETERMINISTIC_ENTRY_TIME);
+				zout.putNextEntry(zipEntry);
+				if (entry.getValue() instanceof IModuleFile) {
+					InputStream input = getInputStream((IModuleFile) entry.getValue());
+					try {
+						int n = 0;
+						while ((n = input.read(buffer)) != -1) {
+							zout.write(buffer, 0, n);
+						}
+					}
+					finally {
+						input.close();
+					}
+				}
+				zout.closeEntry();
+			}
+		}
+		catch (CoreException e) {
+			return new IStatus[] { e.getStatus() };
+		}
+		catch (Exception e) {
+			return new Status[] { new Status(IStatus.ERROR, ServerPlugin.PLUGIN_ID, 0,
+					NLS.bind(Messages.ERROR_CREATE_ZIP, zipFile.getName(), e.getLocalizedMessage()), e) };
+		}
 		finally {
-			if (tempFile != null && tempFile.exists())
-				tempFile.deleteOnExit();
+			if (zout != null) {
+				try {
+					zout.close();
+				}
+				catch (IOException e) {
+					// Ignore
+				}
+			}
 		}
 		return EMPTY_STATUS;
 	}
 
+	private static void collectZipEntries(IModuleResource[] resources, Map<String, IModuleResource> entries) {
+		if (resources == null) {
+			return;
+		}
+		for (IModuleResource resource : resources) {
+			entries.put(getZipRelativeName(resource), resource);
+			if (resource instanceof IModuleFolder) {
+				collectZipEntries(((IModuleFolder) resource).members(), entries);
+			}
+		}
+	}
+
+	private static InputStream getInputStream(IModuleFile moduleFile) throws CoreException, IOException {
+		IFile iFile = (IFile) moduleFile.getAdapter(IFile.class);
+		if (iFile != null) {
+			return iFile.getContents();
+		}
+		File file = (File) moduleFile.getAdapter(File.class);
+		return new FileInputStream(file);
+	}
+
 	private static final int BUFFER = 65536;
 
 	private static byte[] buf = new byte[BUFFER];
@@ -28,6 +28,10 @@ import java.util.Map;
  * deployed resources. This avoid recalculating hash entries for resources that
  * have not changed in the server. A server poll may still required to obtain a
  * list of unchanged resources.
+ * <p/>
+ * Entries are kept per application and only reflect what was last deployed for
+ * that application. Digests of file contents are shared across applications
+ * by the {@link ResourceDigestCache}.
  * 
  */
 public class DeployedResourceCache {
@@ -48,6 +48,8 @@ public class Messages extends NLS {
 	public static String ApplicationUrlLookupService_ERROR_GET_CLOUD_URL;
 
 	public static String ApplicationUrlLookupService_ERROR_GETDEFAULT_APP_URL;
+
+	public static String ApplicationUrlLookupService_REFRESHING_DOMAINS;
 	
 	public static String CloudFoundryApplicationModule_MODULE_ERROR;
 
@@ -258,6 +260,8 @@ public class Messages extends NLS {
 
 	public static String CFRebelServerIntegration_UPDATING_JREBEL_REMOTING;
 
+	public static String CFRebelServerIntegration_UPDATING_JREBEL_REMOTING_SERVER;
+
 	public static String CFRebelServerIntegration_MESSAGE_PREFIX;
 
 	public static String CFRebelServerIntegration_UPDATED_URL;
@@ -318,6 +322,14 @@ public class Messages extends NLS {
 	
 	public static String ModulesOperation_NO_MODULE;
 
+	public static String FleetOperation_OPERATION_NAME;
+
+	public static String FleetOperation_MODULE_COMPLETED;
+
+	public static String FleetOperation_MODULE_SKIPPED;
+
+	public static String FleetOperation_ERROR;
+
 	public static String REFRESHING_MODULES;
 
 	public static String RefreshModulesHandler_REFRESH_FAILURE;
@@ -328,6 +340,8 @@ public class Messages extends NLS {
 
 	public static String RemapModuleProjectCommand_JOB_LABEL;
 
+	public static String ResourceDigestPrefetcher_JOB_LABEL;
+
 	public static String RestartOperation_STARTING_APP;
 	
 	public static String StartOperation_MANIFEST_PROPERTIES_CHANGED;
@@ -377,6 +391,10 @@ public class Messages extends NLS {
 	public static String APPLICATION_MODULE_RUNSTATE_UNKNOWN;
 	
 	public static String UpdateAllOperation_OPERATION_MESSAGE;
+
+	public static String UpdateAllOperation_APP_REFRESH_TIMEOUT;
+
+	public static String UpdateAllOperation_REFRESH_QUEUE_STATISTICS;
 	
 	public static String UpdateModuleOperation_OPERATION_MESSAGE;
 	
@@ -20,6 +20,7 @@
  ********************************************************************************/
 package org.eclipse.cft.server.core.internal;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -30,6 +31,7 @@ import java.util.Set;
 
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -404,9 +406,36 @@ public class ModuleCache {
 		return data;
 	}
 
+	/**
+	 * @return projects of local modules that are mapped to cloud modules, in
+	 * any server. Never null.
+	 */
+	public Set<IProject> getMappedProjects() {
+		List<ServerData> allData;
+		synchronized (this) {
+			allData = new ArrayList<ServerData>(dataByServer.values());
+		}
+		Set<IProject> projects = new HashSet<IProject>();
+		for (ServerData data : allData) {
+			for (CloudFoundryApplicationModule appModule : data.getExistingCloudModules()) {
+				IModule localModule = appModule.getLocalModule();
+				IProject project = localModule != null ? localModule.getProject() : null;
+				if (project != null) {
+					projects.add(project);
+				}
+			}
+		}
+		return projects;
+	}
+
 	protected synchronized void remove(IServer server) {
 		dataByServer.remove(server);
 
+		File snapshotFile = CloudFoundryPlugin.getModuleStateSnapshotFile(server.getId());
+		if (snapshotFile != null && snapshotFile.exists() && !snapshotFile.delete()) {
+			CloudFoundryPlugin.logError("Failed to delete module state snapshot " + snapshotFile); //$NON-NLS-1$
+		}
+
 		CloudFoundryServer cfs =  (CloudFoundryServer)server.loadAdapter(CloudFoundryServer.class, null);
 		
 		String serverId =  cfs.getServerId(); 
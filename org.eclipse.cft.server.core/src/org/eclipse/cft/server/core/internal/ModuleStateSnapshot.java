@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.client.lib.domain.CloudEntity.Meta;
+import org.cloudfoundry.client.lib.domain.InstanceState;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.client.lib.domain.Staging;
+import org.eclipse.cft.server.core.CFServiceInstance;
+import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.cft.server.core.internal.client.SpaceSummarySupport;
+import org.eclipse.cft.server.core.internal.spaces.CloudFoundrySpace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Last known applications and services of a server, persisted after each
+ * refresh so that they can be shown as soon as the workbench starts, before
+ * the server is refreshed again. For each application, it keeps the state,
+ * number of instances and running instances, memory, disk quota, URLs and
+ * bound services, which is the same information as the space summary.
+ * <p/>
+ * A snapshot is only valid for the target URL, org and space it was taken
+ * from.
+ */
+public class ModuleStateSnapshot {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final long timestamp;
+
+	private final String url;
+
+	private final String orgName;
+
+	private final String spaceName;
+
+	private final List<CloudApplication> applications;
+
+	private final List<CFServiceInstance> services;
+
+	public ModuleStateSnapshot(long timestamp, String url, String orgName, String spaceName,
+			List<CloudApplication> applications, List<CFServiceInstance> services) {
+		this.timestamp = timestamp;
+		this.url = url;
+		this.orgName = orgName;
+		this.spaceName = spaceName;
+		this.applications = applications != null ? applications : new ArrayList<CloudApplication>();
+		this.services = services != null ? services : new ArrayList<CFServiceInstance>();
+	}
+
+	/**
+	 * Takes a snapshot of the existing applications of the given modules.
+	 * Modules that are not deployed are skipped.
+	 */
+	public static ModuleStateSnapshot create(CloudFoundryServer cloudServer,
+			Collection<CloudFoundryApplicationModule> modules, List<CFServiceInstance> services) {
+		List<CloudApplication> applications = new ArrayList<CloudApplication>();
+		for (CloudFoundryApplicationModule appModule : modules) {
+			CloudApplication application = appModule.getApplication();
+			if (application != null && application.getName() != null) {
+				// Running instances are only known from the stats after a
+				// complete update
+				CloudApplication copy = copy(application);
+				if (appModule.getApplicationStats() != null) {
+					copy.setRunningInstances(getRunningInstances(appModule.getApplicationStats()));
+				}
+				applications.add(copy);
+			}
+		}
+		CloudFoundrySpace space = cloudServer.getCloudFoundrySpace();
+		return new ModuleStateSnapshot(System.currentTimeMillis(), cloudServer.getUrl(),
+				space != null ? space.getOrgName() : null, space != null ? space.getSpaceName() : null, applications,
+				services);
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return true if the snapshot was taken from the target and space of
+	 * the given server
+	 */
+	public boolean isSnapshotOf(CloudFoundryServer cloudServer) {
+		CloudFoundrySpace space = cloudServer.getCloudFoundrySpace();
+		return space != null && equals(url, cloudServer.getUrl()) && equals(orgName, space.getOrgName())
+				&& equals(spaceName, space.getSpaceName());
+	}
+
+	/**
+	 * @return applications by name
+	 */
+	public Map<String, CloudApplication> getApplications() {
+		Map<String, CloudApplication> applicationsByName = new LinkedHashMap<String, CloudApplication>();
+		for (CloudApplication application : applications) {
+			applicationsByName.put(application.getName(), application);
+		}
+		return applicationsByName;
+	}
+
+	/**
+	 * @return stats of the applications by name, with one running record per
+	 * running instance
+	 */
+	public Map<String, ApplicationStats> getApplicationStats() {
+		Map<String, ApplicationStats> stats = new LinkedHashMap<String, ApplicationStats>();
+		for (CloudApplication application : applications) {
+			stats.put(application.getName(), SpaceSummarySupport.getRunningStats(application.getRunningInstances()));
+		}
+		return stats;
+	}
+
+	public List<CFServiceInstance> getServices() {
+		return services;
+	}
+
+	/**
+	 * @param file
+	 * @return snapshot in the given file, or null if the file does not exist
+	 * or is not a valid snapshot
+	 */
+	@SuppressWarnings("unchecked")
+	public static ModuleStateSnapshot load(File file) {
+		if (file == null || !file.isFile()) {
+			return null;
+		}
+		try {
+			Map<String, Object> values = MAPPER.readValue(file, Map.class);
+			if (getInt(values, "format") != FORMAT_VERSION) { //$NON-NLS-1$
+				return null;
+			}
+			List<CloudApplication> applications = new ArrayList<CloudApplication>();
+			List<Map<String, Object>> apps = getValue(values, "apps", List.class); //$NON-NLS-1$
+			if (apps != null) {
+				for (Map<String, Object> app : apps) {
+					CloudApplication application = toApplication(app);
+					if (application != null) {
+						applications.add(application);
+					}
+				}
+			}
+			List<CFServiceInstance> services = new ArrayList<CFServiceInstance>();
+			List<Map<String, Object>> serviceValues = getValue(values, "services", List.class); //$NON-NLS-1$
+			if (serviceValues != null) {
+				for (Map<String, Object> serviceValue : serviceValues) {
+					String name = getValue(serviceValue, "name", String.class); //$NON-NLS-1$
+					if (name != null) {
+						CFServiceInstance service = new CFServiceInstance(name);
+						service.setService(getValue(serviceValue, "service", String.class)); //$NON-NLS-1$
+						service.setPlan(getValue(serviceValue, "plan", String.class)); //$NON-NLS-1$
+						service.setVersion(getValue(serviceValue, "version", String.class)); //$NON-NLS-1$
+						services.add(service);
+					}
+				}
+			}
+			Number timestamp = getValue(values, "timestamp", Number.class); //$NON-NLS-1$
+			return new ModuleStateSnapshot(timestamp != null ? timestamp.longValue() : 0,
+					getValue(values, "url", String.class), getValue(values, "org", String.class), //$NON-NLS-1$ //$NON-NLS-2$
+					getValue(values, "space", String.class), applications, services); //$NON-NLS-1$
+		}
+		catch (IOException e) {
+			CloudFoundryPlugin.logError("Failed to read module state snapshot from " + file, e); //$NON-NLS-1$
+		}
+		catch (RuntimeException e) {
+			// Invalid snapshot, e.g. unknown app state
+			CloudFoundryPlugin.logError("Invalid module state snapshot " + file, e); //$NON-NLS-1$
+		}
+		return null;
+	}
+
+	/**
+	 * Saves the snapshot, replacing any previous snapshot in the file.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		values.put("format", FORMAT_VERSION); //$NON-NLS-1$
+		values.put("timestamp", timestamp); //$NON-NLS-1$
+		values.put("url", url); //$NON-NLS-1$
+		values.put("org", orgName); //$NON-NLS-1$
+		values.put("space", spaceName); //$NON-NLS-1$
+
+		List<Map<String, Object>> apps = new ArrayList<Map<String, Object>>();
+		for (CloudApplication application : applications) {
+			apps.add(toMap(application));
+		}
+		values.put("apps", apps); //$NON-NLS-1$
+
+		List<Map<String, Object>> serviceValues = new ArrayList<Map<String, Object>>();
+		for (CFServiceInstance service : services) {
+			Map<String, Object> serviceValue = new LinkedHashMap<String, Object>();
+			serviceValue.put("name", service.getName()); //$NON-NLS-1$
+			serviceValue.put("service", service.getService()); //$NON-NLS-1$
+			serviceValue.put("plan", service.getPlan()); //$NON-NLS-1$
+			serviceValue.put("version", service.getVersion()); //$NON-NLS-1$
+			serviceValues.add(serviceValue);
+		}
+		values.put("services", serviceValues); //$NON-NLS-1$
+
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		// Write to a temporary file first, so that a snapshot is never left
+		// half written
+		File tempFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		MAPPER.writeValue(tempFile, values);
+		if (file.exists() && !file.delete()) {
+			tempFile.delete();
+			throw new IOException("Failed to replace " + file); //$NON-NLS-1$
+		}
+		if (!tempFile.renameTo(file)) {
+			tempFile.delete();
+			throw new IOException("Failed to write " + file); //$NON-NLS-1$
+		}
+	}
+
+	protected static Map<String, Object> toMap(CloudApplication application) {
+		Map<String, Object> app = new LinkedHashMap<String, Object>();
+		app.put("name", application.getName()); //$NON-NLS-1$
+		if (application.getMeta() != null && application.getMeta().getGuid() != null) {
+			app.put("guid", application.getMeta().getGuid().toString()); //$NON-NLS-1$
+		}
+		if (application.getState() != null) {
+			app.put("state", application.getState().name()); //$NON-NLS-1$
+		}
+		app.put("instances", application.getInstances()); //$NON-NLS-1$
+		app.put("running_instances", application.getRunningInstances()); //$NON-NLS-1$
+		app.put("memory", application.getMemory()); //$NON-NLS-1$
+		app.put("disk_quota", application.getDiskQuota()); //$NON-NLS-1$
+		app.put("urls", application.getUris()); //$NON-NLS-1$
+		app.put("service_names", application.getServices()); //$NON-NLS-1$
+		Staging staging = application.getStaging();
+		if (staging != null) {
+			app.put("command", staging.getCommand()); //$NON-NLS-1$
+			app.put("buildpack", staging.getBuildpackUrl()); //$NON-NLS-1$
+		}
+		return app;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static CloudApplication toApplication(Map<String, Object> app) {
+		String name = getValue(app, "name", String.class); //$NON-NLS-1$
+		if (name == null) {
+			return null;
+		}
+		String guid = getValue(app, "guid", String.class); //$NON-NLS-1$
+		CloudApplication application = new CloudApplication(
+				new Meta(guid != null ? UUID.fromString(guid) : null, null, null), name);
+		String state = getValue(app, "state", String.class); //$NON-NLS-1$
+		if (state != null) {
+			application.setState(AppState.valueOf(state));
+		}
+		application.setInstances(getInt(app, "instances")); //$NON-NLS-1$
+		application.setRunningInstances(getInt(app, "running_instances")); //$NON-NLS-1$
+		application.setMemory(getInt(app, "memory")); //$NON-NLS-1$
+		application.setDiskQuota(getInt(app, "disk_quota")); //$NON-NLS-1$
+		List<String> urls = getValue(app, "urls", List.class); //$NON-NLS-1$
+		application.setUris(urls != null ? urls : new ArrayList<String>());
+		List<String> serviceNames = getValue(app, "service_names", List.class); //$NON-NLS-1$
+		application.setServices(serviceNames != null ? serviceNames : new ArrayList<String>());
+		application.setStaging(Staging.builder().command(getValue(app, "command", String.class)) //$NON-NLS-1$
+				.buildpack(getValue(app, "buildpack", String.class)).build()); //$NON-NLS-1$
+		return application;
+	}
+
+	protected static CloudApplication copy(CloudApplication application) {
+		return toApplication(toMap(application));
+	}
+
+	protected static int getRunningInstances(ApplicationStats stats) {
+		int running = 0;
+		if (stats.getRecords() != null) {
+			for (InstanceStats instance : stats.getRecords()) {
+				if (instance != null && instance.getState() == InstanceState.RUNNING) {
+					running++;
+				}
+			}
+		}
+		return running;
+	}
+
+	protected static int getInt(Map<String, Object> values, String key) {
+		Number value = getValue(values, key, Number.class);
+		return value != null ? value.intValue() : 0;
+	}
+
+	protected static <T> T getValue(Map<String, Object> values, String key, Class<T> type) {
+		Object value = values.get(key);
+		return type.isInstance(value) ? type.cast(value) : null;
+	}
+
+	private static boolean equals(String first, String second) {
+		return first == null ? second == null : first.equals(second);
+	}
+}
@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cft.server.core.internal.PublishTelemetry.Phase;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * History of {@link PublishTelemetry} per module, persisted as a CSV file so
+ * that publish timings can be exported and compared across versions of the
+ * tools. Each record includes the version of the plugin that published the
+ * module.
+ * <p/>
+ * Only the most recent records of each module are kept. Records are appended
+ * to the file as they are added, and the file is compacted when it is loaded.
+ * If no file is given, the history is only kept in memory.
+ */
+public class PublishHistory {
+
+	/**
+	 * Maximum number of records kept per module
+	 */
+	public static final int MAX_RECORDS_PER_MODULE = 50;
+
+	private static final String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+	private static final char SEPARATOR = ',';
+
+	private final File file;
+
+	private final String version;
+
+	private Map<String, LinkedList<Record>> records;
+
+	/**
+	 * @param file CSV file where the history is persisted, or null to only
+	 * keep the history in memory
+	 * @param version version of the tools that publish modules
+	 */
+	public PublishHistory(File file, String version) {
+		this.file = file;
+		this.version = version != null ? version : ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * Adds the telemetry of a completed publish to the history of its module.
+	 * Errors persisting the record are logged, and do not affect the publish.
+	 * @param telemetry
+	 */
+	public synchronized void add(PublishTelemetry telemetry) {
+		if (telemetry == null || telemetry.getModuleName() == null) {
+			return;
+		}
+		Record record = new Record(version, telemetry);
+		addRecord(getRecords(), record);
+		if (file != null) {
+			try {
+				append(record);
+			}
+			catch (IOException e) {
+				CloudFoundryPlugin.logError("Failed to save publish history to " + file, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * @param moduleName
+	 * @return non-null records of the given module, from oldest to most recent
+	 */
+	public synchronized List<Record> getHistory(String moduleName) {
+		LinkedList<Record> moduleRecords = getRecords().get(moduleName);
+		return moduleRecords != null ? new ArrayList<Record>(moduleRecords) : new ArrayList<Record>();
+	}
+
+	/**
+	 * Exports the history as CSV, with a header line.
+	 * @param target file to export to. Replaced if it exists.
+	 * @param moduleName module to export, or null to export all modules
+	 * @throws CoreException if the history could not be written
+	 */
+	public synchronized void export(File target, String moduleName) throws CoreException {
+		List<Record> exported = new ArrayList<Record>();
+		for (Map.Entry<String, LinkedList<Record>> entry : getRecords().entrySet()) {
+			if (moduleName == null || moduleName.equals(entry.getKey())) {
+				exported.addAll(entry.getValue());
+			}
+		}
+		try {
+			write(target, exported);
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+	}
+
+	public synchronized void clear() {
+		records = new LinkedHashMap<String, LinkedList<Record>>();
+		if (file != null && file.exists() && !file.delete()) {
+			CloudFoundryPlugin.logError("Failed to delete publish history " + file); //$NON-NLS-1$
+		}
+	}
+
+	protected Map<String, LinkedList<Record>> getRecords() {
+		if (records == null) {
+			records = new LinkedHashMap<String, LinkedList<Record>>();
+			if (file != null && file.isFile()) {
+				load();
+			}
+		}
+		return records;
+	}
+
+	protected static void addRecord(Map<String, LinkedList<Record>> records, Record record) {
+		String moduleName = record.getTelemetry().getModuleName();
+		LinkedList<Record> moduleRecords = records.get(moduleName);
+		if (moduleRecords == null) {
+			moduleRecords = new LinkedList<Record>();
+			records.put(moduleName, moduleRecords);
+		}
+		moduleRecords.add(record);
+		while (moduleRecords.size() > MAX_RECORDS_PER_MODULE) {
+			moduleRecords.removeFirst();
+		}
+	}
+
+	protected void load() {
+		int lines = 0;
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+			String line = reader.readLine();
+			// Skip the header
+			while ((line = reader.readLine()) != null) {
+				lines++;
+				Record record = Record.parse(line);
+				if (record != null) {
+					addRecord(records, record);
+				}
+			}
+		}
+		catch (IOException e) {
+			CloudFoundryPlugin.logError("Failed to read publish history from " + file, e); //$NON-NLS-1$
+			return;
+		}
+		finally {
+			close(reader);
+		}
+
+		// Compact the file if records were dropped, or lines were invalid
+		List<Record> all = new ArrayList<Record>();
+		for (LinkedList<Record> moduleRecords : records.values()) {
+			all.addAll(moduleRecords);
+		}
+		if (all.size() < lines) {
+			try {
+				write(file, all);
+			}
+			catch (IOException e) {
+				CloudFoundryPlugin.logError("Failed to compact publish history " + file, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	protected void append(Record record) throws IOException {
+		boolean newFile = !file.isFile();
+		if (newFile && file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), UTF_8);
+		try {
+			if (newFile) {
+				writer.write(getHeader());
+				writer.write('\n');
+			}
+			writer.write(record.toCsv());
+			writer.write('\n');
+		}
+		finally {
+			close(writer);
+		}
+	}
+
+	protected static void write(File target, List<Record> records) throws IOException {
+		if (target.getParentFile() != null) {
+			target.getParentFile().mkdirs();
+		}
+		Writer writer = new OutputStreamWriter(new FileOutputStream(target), UTF_8);
+		try {
+			writer.write(getHeader());
+			writer.write('\n');
+			for (Record record : records) {
+				writer.write(record.toCsv());
+				writer.write('\n');
+			}
+		}
+		finally {
+			close(writer);
+		}
+	}
+
+	public static String getHeader() {
+		List<String> columns = new ArrayList<String>();
+		columns.add("timestamp"); //$NON-NLS-1$
+		columns.add("version"); //$NON-NLS-1$
+		columns.add("module"); //$NON-NLS-1$
+		columns.add("application"); //$NON-NLS-1$
+		columns.add("incremental"); //$NON-NLS-1$
+		columns.add("success"); //$NON-NLS-1$
+		for (Phase phase : Phase.values()) {
+			columns.add(phase.name().toLowerCase(Locale.ENGLISH) + "_ms"); //$NON-NLS-1$
+		}
+		columns.add("total_files"); //$NON-NLS-1$
+		columns.add("total_bytes"); //$NON-NLS-1$
+		columns.add("matched_files"); //$NON-NLS-1$
+		columns.add("matched_bytes"); //$NON-NLS-1$
+		columns.add("uploaded_files"); //$NON-NLS-1$
+		columns.add("uploaded_bytes"); //$NON-NLS-1$
+		return join(columns);
+	}
+
+	protected static String join(List<String> values) {
+		StringBuilder builder = new StringBuilder();
+		for (String value : values) {
+			if (builder.length() > 0) {
+				builder.append(SEPARATOR);
+			}
+			if (value.indexOf(SEPARATOR) >= 0 || value.indexOf('"') >= 0) {
+				builder.append('"').append(value.replace("\"", "\"\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			else {
+				builder.append(value);
+			}
+		}
+		return builder.toString();
+	}
+
+	protected static List<String> split(String line) {
+		List<String> values = new ArrayList<String>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						value.append(c);
+						i++;
+					}
+					else {
+						quoted = false;
+					}
+				}
+				else {
+					value.append(c);
+				}
+			}
+			else if (c == '"') {
+				quoted = true;
+			}
+			else if (c == SEPARATOR) {
+				values.add(value.toString());
+				value.setLength(0);
+			}
+			else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	protected static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * Telemetry of a publish, and the version of the tools that performed it
+	 */
+	public static class Record {
+
+		private final String version;
+
+		private final PublishTelemetry telemetry;
+
+		public Record(String version, PublishTelemetry telemetry) {
+			this.version = version;
+			this.telemetry = telemetry;
+		}
+
+		public String getVersion() {
+			return version;
+		}
+
+		public PublishTelemetry getTelemetry() {
+			return telemetry;
+		}
+
+		public String toCsv() {
+			List<String> values = new ArrayList<String>();
+			values.add(Long.toString(telemetry.getTimestamp()));
+			values.add(version);
+			values.add(telemetry.getModuleName());
+			values.add(telemetry.getAppName() != null ? telemetry.getAppName() : ""); //$NON-NLS-1$
+			values.add(Boolean.toString(telemetry.isIncremental()));
+			values.add(Boolean.toString(telemetry.isSuccess()));
+			for (Phase phase : Phase.values()) {
+				values.add(Long.toString(telemetry.getTimeMillis(phase)));
+			}
+			values.add(Integer.toString(telemetry.getTotalFiles()));
+			values.add(Long.toString(telemetry.getTotalBytes()));
+			values.add(Integer.toString(telemetry.getMatchedFiles()));
+			values.add(Long.toString(telemetry.getMatchedBytes()));
+			values.add(Integer.toString(telemetry.getUploadedFiles()));
+			values.add(Long.toString(telemetry.getUploadedBytes()));
+			return join(values);
+		}
+
+		/**
+		 * @param line
+		 * @return record in the given CSV line, or null if the line is not a
+		 * valid record
+		 */
+		public static Record parse(String line) {
+			List<String> values = split(line);
+			int phases = Phase.values().length;
+			if (values.size() != 6 + phases + 6) {
+				return null;
+			}
+			try {
+				int index = 0;
+				long timestamp = Long.parseLong(values.get(index++));
+				String version = values.get(index++);
+				String moduleName = values.get(index++);
+				String appName = values.get(index++);
+				boolean incremental = Boolean.parseBoolean(values.get(index++));
+				boolean success = Boolean.parseBoolean(values.get(index++));
+
+				PublishTelemetry telemetry = new PublishTelemetry(moduleName, appName, incremental, timestamp);
+				telemetry.setSuccess(success);
+				for (Phase phase : Phase.values()) {
+					telemetry.addTime(phase, TimeUnit.MILLISECONDS.toNanos(Long.parseLong(values.get(index++))));
+				}
+				int totalFiles = Integer.parseInt(values.get(index++));
+				long totalBytes = Long.parseLong(values.get(index++));
+				int matchedFiles = Integer.parseInt(values.get(index++));
+				long matchedBytes = Long.parseLong(values.get(index++));
+				// Uploaded files are derived from total and matched files
+				index++;
+				telemetry.setResources(totalFiles, totalBytes, matchedFiles, matchedBytes);
+				telemetry.setUploadedBytes(Long.parseLong(values.get(index++)));
+				return new Record(version, telemetry);
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings and resource counts of a single application publish, used to
+ * understand where time is spent when pushing an application, and how much
+ * incremental publishing saves.
+ * <p/>
+ * Time is accumulated per {@link Phase}, so a phase that runs several times
+ * (e.g. digesting entries as they are requested by the client) reports its
+ * total time. Counters are set once the resources are matched by the Cloud
+ * Foundry server. Phases that did not run (e.g. staging when the application is
+ * deployed stopped) report no time.
+ * <p/>
+ * Instances are not thread safe, except for phase timings, which may be
+ * recorded from the client threads that request archive entries.
+ */
+public class PublishTelemetry {
+
+	public enum Phase {
+		PACKAGING, DIGESTING, RESOURCE_MATCHING, PARTIAL_ARCHIVE, UPLOAD, STAGING, START_TRACKING
+	}
+
+	private final String moduleName;
+
+	private final String appName;
+
+	private final boolean incremental;
+
+	private final long timestamp;
+
+	private final long[] phaseNanos = new long[Phase.values().length];
+
+	private int totalFiles;
+
+	private long totalBytes;
+
+	private int matchedFiles;
+
+	private long matchedBytes;
+
+	private long uploadedBytes;
+
+	private boolean success;
+
+	public PublishTelemetry(String moduleName, String appName, boolean incremental) {
+		this(moduleName, appName, incremental, System.currentTimeMillis());
+	}
+
+	public PublishTelemetry(String moduleName, String appName, boolean incremental, long timestamp) {
+		this.moduleName = moduleName;
+		this.appName = appName;
+		this.incremental = incremental;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * @return start time to pass to {@link #end(Phase, long)}
+	 */
+	public static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Adds the time elapsed since the given start time to the phase.
+	 * @param phase
+	 * @param startNanos value returned by {@link #start()}
+	 */
+	public void end(Phase phase, long startNanos) {
+		addTime(phase, System.nanoTime() - startNanos);
+	}
+
+	public void addTime(Phase phase, long nanos) {
+		if (nanos > 0) {
+			synchronized (phaseNanos) {
+				phaseNanos[phase.ordinal()] += nanos;
+			}
+		}
+	}
+
+	public long getTime(Phase phase) {
+		synchronized (phaseNanos) {
+			return phaseNanos[phase.ordinal()];
+		}
+	}
+
+	public long getTimeMillis(Phase phase) {
+		return TimeUnit.NANOSECONDS.toMillis(getTime(phase));
+	}
+
+	public long getTotalTimeMillis() {
+		long total = 0;
+		for (Phase phase : Phase.values()) {
+			total += getTime(phase);
+		}
+		return TimeUnit.NANOSECONDS.toMillis(total);
+	}
+
+	/**
+	 * Adds a file of the application archive.
+	 * @param size size of the file in bytes
+	 * @param matched true if the file already exists in the Cloud, and
+	 * therefore is not uploaded
+	 */
+	public void addFile(long size, boolean matched) {
+		long bytes = Math.max(size, 0);
+		totalFiles++;
+		totalBytes += bytes;
+		if (matched) {
+			matchedFiles++;
+			matchedBytes += bytes;
+		}
+	}
+
+	public void setResources(int totalFiles, long totalBytes, int matchedFiles, long matchedBytes) {
+		this.totalFiles = totalFiles;
+		this.totalBytes = totalBytes;
+		this.matchedFiles = matchedFiles;
+		this.matchedBytes = matchedBytes;
+	}
+
+	public void setUploadedBytes(long uploadedBytes) {
+		this.uploadedBytes = uploadedBytes;
+	}
+
+	public void setSuccess(boolean success) {
+		this.success = success;
+	}
+
+	public String getModuleName() {
+		return moduleName;
+	}
+
+	public String getAppName() {
+		return appName;
+	}
+
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public int getTotalFiles() {
+		return totalFiles;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public int getMatchedFiles() {
+		return matchedFiles;
+	}
+
+	public long getMatchedBytes() {
+		return matchedBytes;
+	}
+
+	public int getUploadedFiles() {
+		return totalFiles - matchedFiles;
+	}
+
+	public long getUploadedBytes() {
+		return uploadedBytes;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	/**
+	 * @return one line summary of the publish, suitable for the application
+	 * console
+	 */
+	public String getSummary() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("Publish of ").append(appName).append(" took ").append(formatMillis(getTotalTimeMillis())); //$NON-NLS-1$ //$NON-NLS-2$
+		builder.append(" ("); //$NON-NLS-1$
+		boolean first = true;
+		for (Phase phase : Phase.values()) {
+			if (getTime(phase) > 0) {
+				if (!first) {
+					builder.append(", "); //$NON-NLS-1$
+				}
+				builder.append(phase.name().toLowerCase(Locale.ENGLISH).replace('_', ' ')).append(' ')
+						.append(formatMillis(getTimeMillis(phase)));
+				first = false;
+			}
+		}
+		builder.append("). Files: ").append(totalFiles).append(" total, ").append(matchedFiles) //$NON-NLS-1$ //$NON-NLS-2$
+				.append(" matched, ").append(getUploadedFiles()).append(" uploaded. Bytes: ") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(totalBytes).append(" total, ").append(matchedBytes).append(" matched, ") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(uploadedBytes).append(" uploaded"); //$NON-NLS-1$
+		return builder.toString();
+	}
+
+	protected static String formatMillis(long millis) {
+		return String.format(Locale.ENGLISH, "%.2fs", millis / 1000.0); //$NON-NLS-1$
+	}
+
+	@Override
+	public String toString() {
+		return getSummary();
+	}
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Cache of sha1 digests and sizes of local files, shared by all applications
+ * and servers. Entries are keyed by file identity (absolute location, size,
+ * modification time and, for workspace files, the resource modification
+ * stamp), so a file that is part of several applications (e.g. the same
+ * library jar in many WARs) is only hashed once, and a digest remains valid if
+ * the application is renamed.
+ * <p/>
+ * File identity does not prove that the content is unchanged: a file may be
+ * rewritten with the same size within the file system time resolution. The
+ * workspace modification stamp changes on every change made through the
+ * workspace, and callers that know a file changed compute its digest again
+ * and replace the cached one through {@link #put(FileIdentity, ResourceDigest)}.
+ * <p/>
+ * This complements {@link DeployedResourceCache}, which only tracks the entries
+ * that were last deployed for each application.
+ * <p/>
+ * The cache is bounded both by number of entries and by an estimate of the
+ * memory used by the entries. The least recently used entries are evicted
+ * first.
+ */
+public class ResourceDigestCache {
+
+	/**
+	 * Default maximum number of cached digests
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+	/**
+	 * Default maximum estimated memory used by cached digests, in bytes
+	 */
+	public static final long DEFAULT_MAX_MEMORY = 16L * 1024 * 1024;
+
+	/**
+	 * Estimated memory used by an entry, excluding the file path: map entry,
+	 * key and digest objects, and the 20 byte sha1
+	 */
+	private static final int ENTRY_OVERHEAD = 160;
+
+	private final int maxEntries;
+
+	private final long maxMemory;
+
+	private long memory;
+
+	private final LinkedHashMap<FileIdentity, ResourceDigest> digests = new LinkedHashMap<FileIdentity, ResourceDigest>(
+			16, 0.75f, true);
+
+	public ResourceDigestCache() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_MEMORY);
+	}
+
+	public ResourceDigestCache(int maxEntries, long maxMemory) {
+		this.maxEntries = maxEntries;
+		this.maxMemory = maxMemory;
+	}
+
+	/**
+	 * @param file
+	 * @return cached digest for the current content of the given file, or null
+	 * if the file is not cached or changed since it was cached
+	 */
+	public synchronized ResourceDigest get(FileIdentity file) {
+		return file != null ? digests.get(file) : null;
+	}
+
+	public synchronized void put(FileIdentity file, ResourceDigest digest) {
+		if (file == null || digest == null) {
+			return;
+		}
+		ResourceDigest previous = digests.put(file, digest);
+		if (previous == null) {
+			memory += getMemory(file);
+		}
+		evict();
+	}
+
+	/**
+	 * Returns the digest of the given file, computing it only if the file is
+	 * not cached or changed since it was cached.
+	 * @param file
+	 * @return non-null digest of the current file content
+	 * @throws CoreException if the file could not be read
+	 */
+	public ResourceDigest getDigest(File file) throws CoreException {
+		return getDigest(file, IResource.NULL_STAMP);
+	}
+
+	/**
+	 * Returns the digest of the given file, computing it only if the file is
+	 * not cached or changed since it was cached.
+	 * @param file
+	 * @param modificationStamp workspace modification stamp of the file, or
+	 * {@link IResource#NULL_STAMP} if it is not a workspace file
+	 * @return non-null digest of the current file content
+	 * @throws CoreException if the file could not be read
+	 */
+	public ResourceDigest getDigest(File file, long modificationStamp) throws CoreException {
+		FileIdentity identity = FileIdentity.of(file, modificationStamp);
+		ResourceDigest digest = get(identity);
+		if (digest == null) {
+			// Digest outside the lock, so that hashing a large file does not
+			// block lookups of other files
+			digest = computeDigest(file);
+			put(identity, digest);
+		}
+		return digest;
+	}
+
+	/**
+	 * @return number of cached digests
+	 */
+	public synchronized int size() {
+		return digests.size();
+	}
+
+	/**
+	 * @return estimated memory used by cached digests, in bytes
+	 */
+	public synchronized long getMemory() {
+		return memory;
+	}
+
+	public synchronized void clear() {
+		digests.clear();
+		memory = 0;
+	}
+
+	protected void evict() {
+		Iterator<Map.Entry<FileIdentity, ResourceDigest>> it = digests.entrySet().iterator();
+		while ((digests.size() > maxEntries || memory > maxMemory) && it.hasNext()) {
+			Map.Entry<FileIdentity, ResourceDigest> eldest = it.next();
+			memory -= getMemory(eldest.getKey());
+			it.remove();
+		}
+	}
+
+	protected static long getMemory(FileIdentity file) {
+		return ENTRY_OVERHEAD + 2L * file.path.length();
+	}
+
+	public static ResourceDigest computeDigest(File file) throws CoreException {
+		InputStream input = null;
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA"); //$NON-NLS-1$
+			input = new FileInputStream(file);
+			byte[] buffer = new byte[8192];
+			long size = 0;
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+				size += read;
+			}
+			return new ResourceDigest(digest.digest(), size);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+		finally {
+			if (input != null) {
+				try {
+					input.close();
+				}
+				catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sha1 and size of a file content
+	 */
+	public static class ResourceDigest {
+
+		private final byte[] sha1;
+
+		private final long size;
+
+		public ResourceDigest(byte[] sha1, long size) {
+			this.sha1 = sha1;
+			this.size = size;
+		}
+
+		public byte[] getSha1() {
+			return sha1;
+		}
+
+		public long getSize() {
+			return size;
+		}
+	}
+
+	/**
+	 * Identity of a local file and its current content, based on its absolute
+	 * location, size, modification time and workspace modification stamp.
+	 */
+	public static final class FileIdentity {
+
+		private final String path;
+
+		private final long size;
+
+		private final long lastModified;
+
+		private final long modificationStamp;
+
+		public FileIdentity(String path, long size, long lastModified) {
+			this(path, size, lastModified, IResource.NULL_STAMP);
+		}
+
+		public FileIdentity(String path, long size, long lastModified, long modificationStamp) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.modificationStamp = modificationStamp;
+		}
+
+		/**
+		 * @param file
+		 * @return identity of the file, or null if it does not exist
+		 */
+		public static FileIdentity of(File file) {
+			return of(file, IResource.NULL_STAMP);
+		}
+
+		/**
+		 * @param file
+		 * @param modificationStamp workspace modification stamp of the file,
+		 * or {@link IResource#NULL_STAMP} if it is not a workspace file
+		 * @return identity of the file, or null if it does not exist
+		 */
+		public static FileIdentity of(File file, long modificationStamp) {
+			if (file == null || !file.isFile()) {
+				return null;
+			}
+			return new FileIdentity(file.getAbsolutePath(), file.length(), file.lastModified(), modificationStamp);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + path.hashCode();
+			result = prime * result + (int) (size ^ (size >>> 32));
+			result = prime * result + (int) (lastModified ^ (lastModified >>> 32));
+			result = prime * result + (int) (modificationStamp ^ (modificationStamp >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof FileIdentity)) {
+				return false;
+			}
+			FileIdentity other = (FileIdentity) obj;
+			return size == other.size && lastModified == other.lastModified
+					&& modificationStamp == other.modificationStamp && path.equals(other.path);
+		}
+
+		@Override
+		public String toString() {
+			return path;
+		}
+	}
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Computes digests of changed files in the background, so that they are
+ * already in the {@link ResourceDigestCache} when the application is
+ * published, instead of being computed while the user waits for the publish.
+ * <p/>
+ * Files are queued from workspace resource deltas, but only for projects
+ * that are mapped to a cloud module in the {@link ModuleCache}. Digests are
+ * computed by a low priority system job, which waits for workspace builds to
+ * complete, as a build typically changes many of the same files again (e.g.
+ * class files). The job is cancelled when the prefetcher is disposed.
+ * <p/>
+ * Prefetching is skipped when incremental publishing is disabled, as digests
+ * are then not used.
+ */
+public class ResourceDigestPrefetcher {
+
+	/**
+	 * Delay after the last resource change before digests are computed, so
+	 * that a burst of changes (e.g. a save all) is handled in one run
+	 */
+	private static final long SCHEDULE_DELAY = 500;
+
+	/**
+	 * Delay before checking again whether a workspace build completed
+	 */
+	private static final long BUILD_DELAY = 2000;
+
+	/**
+	 * Maximum number of files waiting for a digest. Changes beyond this limit
+	 * (e.g. when switching branches) are not prefetched, and their digests are
+	 * computed on publish instead.
+	 */
+	private static final int MAX_PENDING_FILES = 10000;
+
+	/**
+	 * Number of files digested between checks for a running build
+	 */
+	private static final int BUILD_CHECK_INTERVAL = 50;
+
+	private final IWorkspace workspace;
+
+	private final Set<IFile> pendingFiles = new LinkedHashSet<IFile>();
+
+	private final PrefetchJob job = new PrefetchJob();
+
+	private final IResourceChangeListener listener = new IResourceChangeListener() {
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta = event.getDelta();
+			if (delta == null || !isEnabled()) {
+				return;
+			}
+
+			final Set<IProject> projects = CloudFoundryPlugin.getModuleCache().getMappedProjects();
+			if (projects.isEmpty()) {
+				return;
+			}
+
+			final Set<IFile> changedFiles = new LinkedHashSet<IFile>();
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+
+					public boolean visit(IResourceDelta delta) throws CoreException {
+						IResource resource = delta.getResource();
+						switch (resource.getType()) {
+						case IResource.PROJECT:
+							return projects.contains(resource);
+						case IResource.FILE:
+							if (isContentChange(delta)) {
+								changedFiles.add((IFile) resource);
+							}
+							return false;
+						default:
+							return true;
+						}
+					}
+				});
+			}
+			catch (CoreException e) {
+				CloudFoundryPlugin.logError(e);
+			}
+
+			if (!changedFiles.isEmpty()) {
+				queue(changedFiles);
+			}
+		}
+	};
+
+	public ResourceDigestPrefetcher(IWorkspace workspace) {
+		this.workspace = workspace;
+		workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	public void dispose() {
+		workspace.removeResourceChangeListener(listener);
+		job.cancel();
+		synchronized (pendingFiles) {
+			pendingFiles.clear();
+		}
+	}
+
+	protected boolean isEnabled() {
+		CloudFoundryPlugin plugin = CloudFoundryPlugin.getDefault();
+		return plugin != null && plugin.getIncrementalPublish();
+	}
+
+	protected static boolean isContentChange(IResourceDelta delta) {
+		switch (delta.getKind()) {
+		case IResourceDelta.ADDED:
+			return true;
+		case IResourceDelta.CHANGED:
+			return (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0;
+		default:
+			return false;
+		}
+	}
+
+	protected void queue(Set<IFile> files) {
+		synchronized (pendingFiles) {
+			for (IFile file : files) {
+				if (pendingFiles.size() >= MAX_PENDING_FILES) {
+					CloudFoundryPlugin.trace("Too many changed files to prefetch digests. Remaining digests are computed on publish"); //$NON-NLS-1$
+					break;
+				}
+				pendingFiles.add(file);
+			}
+		}
+		job.schedule(SCHEDULE_DELAY);
+	}
+
+	/**
+	 * @return next file to digest, or null if none are pending
+	 */
+	protected IFile nextFile() {
+		synchronized (pendingFiles) {
+			Iterator<IFile> it = pendingFiles.iterator();
+			if (!it.hasNext()) {
+				return null;
+			}
+			IFile file = it.next();
+			it.remove();
+			return file;
+		}
+	}
+
+	protected static boolean isBuilding() {
+		IJobManager jobManager = Job.getJobManager();
+		return jobManager.find(ResourcesPlugin.FAMILY_AUTO_BUILD).length > 0
+				|| jobManager.find(ResourcesPlugin.FAMILY_MANUAL_BUILD).length > 0;
+	}
+
+	protected void prefetch(IFile file) {
+		IPath location = file.getLocation();
+		if (!file.exists() || location == null) {
+			return;
+		}
+		try {
+			// Same identity as used on publish, including the workspace
+			// modification stamp
+			CloudFoundryPlugin.getResourceDigestCache().getDigest(location.toFile(), file.getModificationStamp());
+		}
+		catch (CoreException e) {
+			// The file may have been deleted or locked since it changed. Its
+			// digest is computed on publish instead
+			CloudFoundryPlugin.trace("Failed to prefetch digest of " + location + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private class PrefetchJob extends Job {
+
+		public PrefetchJob() {
+			super(Messages.ResourceDigestPrefetcher_JOB_LABEL);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			int digested = 0;
+			while (true) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				if (digested % BUILD_CHECK_INTERVAL == 0 && isBuilding()) {
+					// Pending files are kept, and digested after the build
+					schedule(BUILD_DELAY);
+					return Status.OK_STATUS;
+				}
+				IFile file = nextFile();
+				if (file == null) {
+					return Status.OK_STATUS;
+				}
+				prefetch(file);
+				digested++;
+			}
+		}
+	}
+}
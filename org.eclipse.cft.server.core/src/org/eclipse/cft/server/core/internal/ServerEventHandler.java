@@ -21,6 +21,8 @@
 package org.eclipse.cft.server.core.internal;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.cft.server.core.CFServiceInstance;
@@ -34,7 +36,11 @@ import org.eclipse.wst.server.core.IModule;
 /**
  * Fires server refresh events. Only one handler is active per workbench runtime
  * session.
- * 
+ * <p/>
+ * Events of the same server are delivered one at a time, in the order they are
+ * fired. Events of different servers are delivered independently, so a
+ * listener that is slow to handle the events of one server does not block
+ * the events of other servers.
  */
 public class ServerEventHandler {
 
@@ -49,6 +55,10 @@ public class ServerEventHandler {
 
 	private final List<CloudServerListener> applicationListeners = new CopyOnWriteArrayList<CloudServerListener>();
 
+	private final ConcurrentMap<String, Object> serverLocks = new ConcurrentHashMap<String, Object>();
+
+	private final Object noServerLock = new Object();
+
 	public synchronized void addServerListener(CloudServerListener listener) {
 		if (listener != null && !applicationListeners.contains(listener)) {
 			applicationListeners.add(listener);
@@ -94,10 +104,28 @@ public class ServerEventHandler {
 				Status.OK_STATUS));
 	}
 
-	public synchronized void fireServerEvent(CloudServerEvent event) {
-		CloudServerListener[] listeners = applicationListeners.toArray(new CloudServerListener[0]);
-		for (CloudServerListener listener : listeners) {
-			listener.serverChanged(event);
+	public void fireServerEvent(CloudServerEvent event) {
+		synchronized (getServerLock(event.getServer())) {
+			CloudServerListener[] listeners = applicationListeners.toArray(new CloudServerListener[0]);
+			for (CloudServerListener listener : listeners) {
+				listener.serverChanged(event);
+			}
+		}
+	}
+
+	protected Object getServerLock(CloudFoundryServer server) {
+		if (server == null || server.getServer() == null || server.getServer().getId() == null) {
+			return noServerLock;
+		}
+		String id = server.getServer().getId();
+		Object lock = serverLocks.get(id);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = serverLocks.putIfAbsent(id, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
 		}
+		return lock;
 	}
 }
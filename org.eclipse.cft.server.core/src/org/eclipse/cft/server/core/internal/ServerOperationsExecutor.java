@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor for the background requests of a single Cloud server (e.g.
+ * fetching the complete information of each application during a refresh).
+ * Each server has its own executor, so that a slow or unresponsive target only
+ * delays the work of its own server.
+ * <p/>
+ * The executor has a fixed maximum number of threads and a bounded queue. When
+ * the queue is full, the task is run in the thread that submitted it, which
+ * slows down the submitter instead of dropping the task.
+ * <p/>
+ * Queue statistics are available through {@link #getStatistics()}.
+ */
+public class ServerOperationsExecutor {
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final String serverName;
+
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicLong submitted = new AtomicLong();
+
+	private final AtomicLong completed = new AtomicLong();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private final AtomicLong totalWaitMillis = new AtomicLong();
+
+	private final AtomicLong maxWaitMillis = new AtomicLong();
+
+	/**
+	 * @param serverName name of the server, used for thread names and
+	 * statistics
+	 * @param threads maximum number of tasks run at the same time
+	 * @param queueCapacity maximum number of tasks waiting to run
+	 */
+	public ServerOperationsExecutor(String serverName, int threads, int queueCapacity) {
+		this.serverName = serverName;
+		int poolSize = Math.max(1, threads);
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(Math.max(1, queueCapacity)), new ServerThreadFactory(serverName),
+				new RunInSubmitterPolicy());
+		// Idle servers do not keep threads
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	public String getServerName() {
+		return serverName;
+	}
+
+	/**
+	 * Submits a task to run on one of the threads of the server.
+	 * @param task
+	 * @return future of the task result
+	 * @throws java.util.concurrent.RejectedExecutionException if the executor
+	 * is disposed
+	 */
+	public <T> Future<T> submit(final Callable<T> task) {
+		final long queuedAt = System.currentTimeMillis();
+		FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+
+			public T call() throws Exception {
+				recordWait(System.currentTimeMillis() - queuedAt);
+				try {
+					return task.call();
+				}
+				finally {
+					completed.incrementAndGet();
+				}
+			}
+		});
+		submitted.incrementAndGet();
+		executor.execute(future);
+		return future;
+	}
+
+	protected void recordWait(long waitMillis) {
+		totalWaitMillis.addAndGet(waitMillis);
+		long max = maxWaitMillis.get();
+		while (waitMillis > max && !maxWaitMillis.compareAndSet(max, waitMillis)) {
+			max = maxWaitMillis.get();
+		}
+	}
+
+	/**
+	 * @return snapshot of the queue statistics of the server
+	 */
+	public Statistics getStatistics() {
+		long completedTasks = completed.get();
+		return new Statistics(serverName, executor.getQueue().size(), executor.getActiveCount(), submitted.get(),
+				completedTasks, rejected.get(), completedTasks > 0 ? totalWaitMillis.get() / completedTasks : 0,
+				maxWaitMillis.get());
+	}
+
+	public boolean isDisposed() {
+		return executor.isShutdown();
+	}
+
+	/**
+	 * Stops the threads of the server. Queued tasks are cancelled without
+	 * running, so that callers waiting for them are released, and running
+	 * tasks are interrupted.
+	 */
+	public void dispose() {
+		for (Runnable queued : executor.shutdownNow()) {
+			if (queued instanceof Future<?>) {
+				((Future<?>) queued).cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Runs a task in the submitting thread when the queue is full, unless the
+	 * executor is disposed.
+	 */
+	private class RunInSubmitterPolicy implements RejectedExecutionHandler {
+
+		private final RejectedExecutionHandler callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+
+		private final RejectedExecutionHandler abort = new ThreadPoolExecutor.AbortPolicy();
+
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor pool) {
+			rejected.incrementAndGet();
+			if (pool.isShutdown()) {
+				abort.rejectedExecution(runnable, pool);
+			}
+			else {
+				callerRuns.rejectedExecution(runnable, pool);
+			}
+		}
+	}
+
+	private static class ServerThreadFactory implements ThreadFactory {
+
+		private final String serverName;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public ServerThreadFactory(String serverName) {
+			this.serverName = serverName;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable,
+					"Cloud Foundry server " + serverName + " worker " + count.incrementAndGet()); //$NON-NLS-1$ //$NON-NLS-2$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * Queue statistics of a server executor at a given time
+	 */
+	public static class Statistics {
+
+		private final String serverName;
+
+		private final int queued;
+
+		private final int active;
+
+		private final long submitted;
+
+		private final long completed;
+
+		private final long rejected;
+
+		private final long averageWaitMillis;
+
+		private final long maxWaitMillis;
+
+		public Statistics(String serverName, int queued, int active, long submitted, long completed, long rejected,
+				long averageWaitMillis, long maxWaitMillis) {
+			this.serverName = serverName;
+			this.queued = queued;
+			this.active = active;
+			this.submitted = submitted;
+			this.completed = completed;
+			this.rejected = rejected;
+			this.averageWaitMillis = averageWaitMillis;
+			this.maxWaitMillis = maxWaitMillis;
+		}
+
+		public String getServerName() {
+			return serverName;
+		}
+
+		/**
+		 * @return number of tasks waiting to run
+		 */
+		public int getQueued() {
+			return queued;
+		}
+
+		/**
+		 * @return number of tasks running
+		 */
+		public int getActive() {
+			return active;
+		}
+
+		public long getSubmitted() {
+			return submitted;
+		}
+
+		public long getCompleted() {
+			return completed;
+		}
+
+		/**
+		 * @return number of tasks that were run by the submitting thread
+		 * because the queue was full
+		 */
+		public long getRejected() {
+			return rejected;
+		}
+
+		/**
+		 * @return average time tasks waited in the queue before running
+		 */
+		public long getAverageWaitMillis() {
+			return averageWaitMillis;
+		}
+
+		/**
+		 * @return longest time a task waited in the queue before running
+		 */
+		public long getMaxWaitMillis() {
+			return maxWaitMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "Server " + serverName + " queue: queued=" + queued + ", active=" + active + ", submitted=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					+ submitted + ", completed=" + completed + ", runInSubmitter=" + rejected + ", averageWaitMs=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ averageWaitMillis + ", maxWaitMs=" + maxWaitMillis; //$NON-NLS-1$
+		}
+	}
+}
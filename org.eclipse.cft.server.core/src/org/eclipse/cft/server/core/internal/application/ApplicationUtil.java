@@ -28,12 +28,25 @@ import java.util.List;
 import org.cloudfoundry.client.lib.archive.ApplicationArchive;
 import org.eclipse.cft.server.core.ArchiveEntry;
 import org.eclipse.cft.server.core.CFApplicationArchive;
+import org.eclipse.cft.server.core.internal.PublishTelemetry;
+import org.eclipse.cft.server.core.internal.PublishTelemetry.Phase;
 
 public class ApplicationUtil {
 
 	public static ApplicationArchive asV1ApplicationArchive(CFApplicationArchive cfArchive) {
+		return asV1ApplicationArchive(cfArchive, null);
+	}
+
+	/**
+	 * @param cfArchive
+	 * @param telemetry if not null, time spent obtaining the sizes and
+	 * digests of entries is recorded as {@link Phase#DIGESTING}
+	 * @return v1 client archive, or null if the given archive is null
+	 */
+	public static ApplicationArchive asV1ApplicationArchive(CFApplicationArchive cfArchive,
+			PublishTelemetry telemetry) {
 		if (cfArchive != null) {
-			return new V1ApplicationArchiveAdapter(cfArchive);
+			return new V1ApplicationArchiveAdapter(cfArchive, telemetry);
 		}
 		return null;
 	}
@@ -42,8 +55,11 @@ public class ApplicationUtil {
 
 		private final CFApplicationArchive cfArchive;
 
-		public V1ApplicationArchiveAdapter(CFApplicationArchive cfArchive) {
+		private final PublishTelemetry telemetry;
+
+		public V1ApplicationArchiveAdapter(CFApplicationArchive cfArchive, PublishTelemetry telemetry) {
 			this.cfArchive = cfArchive;
+			this.telemetry = telemetry;
 		}
 
 		@Override
@@ -57,7 +73,7 @@ public class ApplicationUtil {
 			List<ApplicationArchive.Entry> legacyEntries = new ArrayList<ApplicationArchive.Entry>();
 			if (cfEntries != null) {
 				for (ArchiveEntry entry : cfEntries) {
-					legacyEntries.add(new V1ArchiveEntry(entry));
+					legacyEntries.add(new V1ArchiveEntry(entry, telemetry));
 				}
 			}
 			return legacyEntries;
@@ -68,8 +84,11 @@ public class ApplicationUtil {
 
 		private final ArchiveEntry cfEntry;
 
-		public V1ArchiveEntry(ArchiveEntry cfEntry) {
+		private final PublishTelemetry telemetry;
+
+		public V1ArchiveEntry(ArchiveEntry cfEntry, PublishTelemetry telemetry) {
 			this.cfEntry = cfEntry;
+			this.telemetry = telemetry;
 		}
 
 		@Override
@@ -84,12 +103,31 @@ public class ApplicationUtil {
 
 		@Override
 		public long getSize() {
-			return cfEntry.getSize();
+			if (telemetry == null) {
+				return cfEntry.getSize();
+			}
+			// Entries may compute the digest when the size is first requested
+			long start = PublishTelemetry.start();
+			try {
+				return cfEntry.getSize();
+			}
+			finally {
+				telemetry.end(Phase.DIGESTING, start);
+			}
 		}
 
 		@Override
 		public byte[] getSha1Digest() {
-			return cfEntry.getSha1Digest();
+			if (telemetry == null) {
+				return cfEntry.getSha1Digest();
+			}
+			long start = PublishTelemetry.start();
+			try {
+				return cfEntry.getSha1Digest();
+			}
+			finally {
+				telemetry.end(Phase.DIGESTING, start);
+			}
 		}
 
 		@Override
@@ -24,9 +24,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,10 +37,17 @@ import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 import org.eclipse.cft.server.core.ArchiveEntry;
+import org.eclipse.cft.server.core.internal.ArtifactStore;
+import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudUtil;
 import org.eclipse.cft.server.core.internal.DeployedResourceCache.CachedDeployedApplication;
 import org.eclipse.cft.server.core.internal.DeployedResourceCache.DeployedResourceEntry;
+import org.eclipse.cft.server.core.internal.ResourceDigestCache;
+import org.eclipse.cft.server.core.internal.ResourceDigestCache.FileIdentity;
+import org.eclipse.cft.server.core.internal.ResourceDigestCache.ResourceDigest;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.model.IModuleFile;
@@ -70,6 +79,15 @@ import org.eclipse.wst.server.core.model.IModuleResource;
  * indicates have not changed. This is done through a callback handler, which
  * then builds the partial war file with only those resources that have changed.
  * 
+ * <p/>
+ * Child modules of the application (e.g. utility projects) are included as
+ * jars, one entry per child. Jars of unchanged children are cached and
+ * deterministic, so their sha1 is stable and the server already knows them.
+ * Only the jars of children that changed are added to the partial war file.
+ * <p/>
+ * Digests of changed files are obtained from the {@link ResourceDigestCache}
+ * shared by all applications, so a file that another application already
+ * deployed is not hashed again.
  */
 public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
@@ -79,11 +97,62 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
 	private final CachedDeployedApplication appID;
 
+	/**
+	 * Partial war file containing changed resources, if generated.
+	 */
+	private ZipFile partialWarZipFile;
+
+	/**
+	 * Key of the artifact holding the partial war file, if it was generated
+	 * in the artifact store. The artifact is discarded when the archive is
+	 * closed.
+	 */
+	private String partialWarKey;
+
+	/**
+	 * Jars of child modules, which are also part of the module resources
+	 */
+	private final Set<IModuleFile> childJars;
+
+	/**
+	 * Artifacts holding child jars, released when the archive is closed
+	 */
+	private final List<String> childArtifactKeys;
+
 	public CachingApplicationArchive(List<IModuleResource> allResources, List<IModuleResource> changedResources,
 			IModule module, String appName) {
-		super(module, allResources);
+		this(allResources, changedResources, Collections.<IModuleFile> emptyList(),
+				Collections.<String> emptyList(), module, appName);
+	}
+
+	/**
+	 * @param allResources resources of the parent module
+	 * @param changedResources parent module resources that changed since the
+	 * last publish
+	 * @param childJars jars of the child modules, with the module relative
+	 * path of the jar in the war file
+	 * @param childArtifactKeys keys of artifacts acquired for the child jars.
+	 * They are released when the archive is closed.
+	 * @param module
+	 * @param appName
+	 */
+	public CachingApplicationArchive(List<IModuleResource> allResources, List<IModuleResource> changedResources,
+			List<IModuleFile> childJars, List<String> childArtifactKeys, IModule module, String appName) {
+		super(module, withChildJars(allResources, childJars));
 		this.appID = new CachedDeployedApplication(appName);
 		this.changedResources = changedResourcesAsZipNames(changedResources);
+		this.childJars = Collections.newSetFromMap(new IdentityHashMap<IModuleFile, Boolean>());
+		this.childJars.addAll(childJars);
+		this.childArtifactKeys = new ArrayList<String>(childArtifactKeys);
+	}
+
+	private static List<IModuleResource> withChildJars(List<IModuleResource> resources, List<IModuleFile> childJars) {
+		if (childJars.isEmpty()) {
+			return resources;
+		}
+		List<IModuleResource> allResources = new ArrayList<IModuleResource>(resources);
+		allResources.addAll(childJars);
+		return allResources;
 	}
 
 	protected Set<String> changedResourcesAsZipNames(List<IModuleResource> changedResources) {
@@ -103,9 +172,15 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 	}
 
 	protected ModuleFileEntryAdapter getFileResourceEntryAdapter(IModuleFile file) {
+		// Child jars are not part of the resource deltas. The jar of a changed
+		// child is a new file, and a cached jar never changes once built, so
+		// their digest is looked up by file identity on every publish
 		String zipName = CloudUtil.getZipRelativeName(file);
+		if (childJars.contains(file)) {
+			return new ZipModuleFileEntryAdapter(file, appID, false, true);
+		}
 		boolean changed = changedResources != null && changedResources.contains(zipName);
-		return new ZipModuleFileEntryAdapter(file, appID, changed);
+		return new ZipModuleFileEntryAdapter(file, appID, changed, false);
 	}
 
 	public void generatePartialWarFile(Set<String> knownResourceNames) {
@@ -124,11 +199,19 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 		// Build war file with changed/missing resources
 		try {
 
-			File partialWar = CloudUtil.createWarFile(getModuleResources(), getModule(), missingChangedResources, null);
+			String artifactKey = CloudUtil.newPartialWarArtifactKey(getModule());
+			File partialWar = CloudUtil.createWarFile(getModuleResources(), getModule(), missingChangedResources,
+					artifactKey, null);
+
+			if (partialWar == null) {
+				return;
+			}
+			partialWarKey = artifactKey;
 
 			if (partialWar.exists()) {
 				fileName = partialWar.getName();
 				ZipFile zipPartialWar = new ZipFile(partialWar);
+				partialWarZipFile = zipPartialWar;
 				Enumeration<? extends ZipEntry> zipEntries = zipPartialWar.entries();
 				List<ArchiveEntry> toDeploy = new ArrayList<ArchiveEntry>();
 				while (zipEntries.hasMoreElements()) {
@@ -243,12 +326,24 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
 		private final boolean recalculate;
 
+		private final boolean lookupDigest;
+
+		/**
+		 * @param moduleFile
+		 * @param appName
+		 * @param recalculate true if the file changed since the last publish,
+		 * in which case its digest is always computed again
+		 * @param lookupDigest true if the digest is to be looked up in the
+		 * shared digest cache even if the file did not change, as the file
+		 * recorded for the last publish may not be the same file
+		 */
 		public ZipModuleFileEntryAdapter(IModuleFile moduleFile, CachedDeployedApplication appName,
-				boolean recalculate) {
+				boolean recalculate, boolean lookupDigest) {
 			super(moduleFile);
 
 			this.appName = appName;
 			this.recalculate = recalculate;
+			this.lookupDigest = lookupDigest;
 		}
 
 		@Override
@@ -262,16 +357,41 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 			DeployedResourceEntry deployedResourcesEntry = CloudFoundryPlugin.getDefault().getDeployedResourcesCache()
 					.getEntry(appName, getName());
 
-			if (canComputeResourceEntry() && (recalculate || deployedResourcesEntry == null)) {
-				byte[] sha1 = super.getSha1Digest();
-				long fileSize = super.getSize();
-				deployedResourcesEntry = new DeployedResourceEntry(sha1, fileSize, getName());
+			if (canComputeResourceEntry() && (recalculate || lookupDigest || deployedResourcesEntry == null)) {
+				ResourceDigest digest = getResourceDigest();
+				deployedResourcesEntry = new DeployedResourceEntry(digest.getSha1(), digest.getSize(), getName());
 				CloudFoundryPlugin.getDefault().getDeployedResourcesCache().add(appName, deployedResourcesEntry);
 			}
 
 			return deployedResourcesEntry;
 		}
 
+		/**
+		 * @return digest of the file. If the file changed since the last
+		 * publish, the digest is computed again and replaces the one in the
+		 * shared digest cache. Otherwise it is only computed if no application
+		 * has deployed the same file before.
+		 */
+		protected ResourceDigest getResourceDigest() {
+			ResourceDigestCache cache = CloudFoundryPlugin.getResourceDigestCache();
+			FileIdentity identity = FileIdentity.of(file, getModificationStamp());
+			// A changed file may keep its size and modification time, so the
+			// cached digest is not trusted
+			ResourceDigest digest = recalculate ? null : cache.get(identity);
+			if (digest == null) {
+				digest = new ResourceDigest(super.getSha1Digest(), super.getSize());
+				if (digest.getSha1() != null) {
+					cache.put(identity, digest);
+				}
+			}
+			return digest;
+		}
+
+		protected long getModificationStamp() {
+			IFile iFile = (IFile) getResource().getAdapter(IFile.class);
+			return iFile != null ? iFile.getModificationStamp() : IResource.NULL_STAMP;
+		}
+
 		public byte[] getSha1Digest() {
 			DeployedResourceEntry entry = getDeployedResourcesEntry();
 			return entry != null ? entry.getSha1() : null;
@@ -284,6 +404,31 @@ public class CachingApplicationArchive extends AbstractModuleResourceArchive {
 
 	@Override
 	public void close() throws CoreException {
-		// nothing
+		try {
+			if (partialWarZipFile != null) {
+				partialWarZipFile.close();
+			}
+		}
+		catch (IOException e) {
+			throw CloudErrorUtil.toCoreException(e);
+		}
+		finally {
+			partialWarZipFile = null;
+			if (partialWarKey != null) {
+				// Partial wars are only useful for the current publish, so
+				// discard them once uploaded
+				CloudFoundryPlugin.getArtifactStore().discard(partialWarKey);
+				partialWarKey = null;
+			}
+			releaseChildJars();
+		}
+	}
+
+	protected void releaseChildJars() {
+		ArtifactStore store = CloudFoundryPlugin.getArtifactStore();
+		for (String childKey : childArtifactKeys) {
+			store.release(childKey);
+		}
+		childArtifactKeys.clear();
 	}
 }
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal.application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.cft.server.core.internal.CloudErrorUtil;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Workspace-level cache of parsed manifest files. Entries are keyed by the
+ * manifest {@link IFile} and its modification stamp, so a manifest is parsed
+ * once per edit, regardless of how many wizards, editor parts or deployment
+ * operations read it.
+ * <p/>
+ * The cached manifests are unmodifiable. Each caller receives its own deep
+ * copy, as callers merge nested manifest values into their own deployment
+ * information and may modify them. Copying the parsed values is much cheaper
+ * than parsing the file again.
+ * <p/>
+ * Entries are invalidated through a resource change listener when the
+ * manifest file is changed, moved or deleted.
+ */
+public class ManifestCache {
+
+	private final Map<IFile, CachedManifest> manifests = new HashMap<IFile, CachedManifest>();
+
+	private final IWorkspace workspace;
+
+	private final IResourceChangeListener listener = new IResourceChangeListener() {
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta = event.getDelta();
+			if (delta == null || isEmpty()) {
+				return;
+			}
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+
+					public boolean visit(IResourceDelta delta) throws CoreException {
+						IResource resource = delta.getResource();
+						if (resource.getType() == IResource.FILE) {
+							if ((delta.getKind() & (IResourceDelta.REMOVED | IResourceDelta.CHANGED)) != 0) {
+								invalidate((IFile) resource);
+							}
+							return false;
+						}
+						return true;
+					}
+				});
+			}
+			catch (CoreException e) {
+				CloudFoundryPlugin.logError(e);
+			}
+		}
+	};
+
+	public ManifestCache(IWorkspace workspace) {
+		this.workspace = workspace;
+		workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	public void dispose() {
+		workspace.removeResourceChangeListener(listener);
+		synchronized (this) {
+			manifests.clear();
+		}
+	}
+
+	/**
+	 * Returns the parsed content of the given manifest file. The manifest is
+	 * only parsed if it has not been parsed before, or it has changed since.
+	 * @param file manifest file
+	 * @return new modifiable copy of the manifest values, or null if the file
+	 * does not exist
+	 * @throws CoreException if the manifest could not be read or parsed
+	 */
+	public Map<Object, Object> getManifest(IFile file) throws CoreException {
+		if (file == null || !file.exists()) {
+			return null;
+		}
+
+		long stamp = file.getModificationStamp();
+		synchronized (this) {
+			CachedManifest cached = manifests.get(file);
+			if (cached != null && cached.stamp == stamp) {
+				return copyMap(cached.getContent());
+			}
+		}
+
+		CachedManifest parsed;
+		try {
+			parsed = new CachedManifest(stamp, unmodifiableMap(parse(file)), null);
+		}
+		catch (CoreException e) {
+			// Remember failures too, so that an invalid manifest is not
+			// parsed again until it changes
+			parsed = new CachedManifest(stamp, null, e);
+		}
+
+		synchronized (this) {
+			manifests.put(file, parsed);
+		}
+		return copyMap(parsed.getContent());
+	}
+
+	public synchronized void invalidate(IFile file) {
+		manifests.remove(file);
+	}
+
+	protected synchronized boolean isEmpty() {
+		return manifests.isEmpty();
+	}
+
+	/**
+	 * Parses the given manifest file, without using the cache.
+	 * @param file manifest file
+	 * @return map of manifest values, or null if the file does not exist
+	 * @throws CoreException if the manifest could not be read or parsed
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<Object, Object> parse(IFile file) throws CoreException {
+		if (file == null || !file.exists()) {
+			return null;
+		}
+
+		InputStream inputStream = file.getContents();
+		try {
+			Object results = new Yaml().load(inputStream);
+
+			if (results instanceof Map<?, ?>) {
+				return (Map<Object, Object>) results;
+			}
+			else {
+				throw CloudErrorUtil.toCoreException("Expected a map of values for manifest file: " //$NON-NLS-1$
+						+ file.getProjectRelativePath() + ". Unable to load manifest content.  Actual results: " //$NON-NLS-1$
+						+ results);
+			}
+		}
+		finally {
+			try {
+				inputStream.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static Object unmodifiable(Object value) {
+		if (value instanceof Map<?, ?>) {
+			return unmodifiableMap((Map<Object, Object>) value);
+		}
+		else if (value instanceof List<?>) {
+			List<Object> list = new ArrayList<Object>();
+			for (Object element : (List<?>) value) {
+				list.add(unmodifiable(element));
+			}
+			return Collections.unmodifiableList(list);
+		}
+		return value;
+	}
+
+	protected static Map<Object, Object> unmodifiableMap(Map<Object, Object> map) {
+		if (map == null) {
+			return null;
+		}
+		// Preserve the manifest ordering
+		Map<Object, Object> copy = new LinkedHashMap<Object, Object>();
+		for (Entry<Object, Object> entry : map.entrySet()) {
+			copy.put(entry.getKey(), unmodifiable(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static Object copy(Object value) {
+		if (value instanceof Map<?, ?>) {
+			return copyMap((Map<Object, Object>) value);
+		}
+		else if (value instanceof List<?>) {
+			List<Object> list = new ArrayList<Object>();
+			for (Object element : (List<?>) value) {
+				list.add(copy(element));
+			}
+			return list;
+		}
+		return value;
+	}
+
+	/**
+	 * @return deep modifiable copy of the given manifest values, in the same
+	 * order
+	 */
+	protected static Map<Object, Object> copyMap(Map<Object, Object> map) {
+		if (map == null) {
+			return null;
+		}
+		Map<Object, Object> copy = new LinkedHashMap<Object, Object>();
+		for (Entry<Object, Object> entry : map.entrySet()) {
+			copy.put(entry.getKey(), copy(entry.getValue()));
+		}
+		return copy;
+	}
+
+	static class CachedManifest {
+
+		final long stamp;
+
+		private final Map<Object, Object> content;
+
+		private final CoreException error;
+
+		CachedManifest(long stamp, Map<Object, Object> content, CoreException error) {
+			this.stamp = stamp;
+			this.content = content;
+			this.error = error;
+		}
+
+		Map<Object, Object> getContent() throws CoreException {
+			if (error != null) {
+				throw error;
+			}
+			return content;
+		}
+	}
+}
@@ -22,8 +22,6 @@
 package org.eclipse.cft.server.core.internal.application;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -590,46 +588,13 @@ public class ManifestParser {
 	/**
 	 * 
 	 * @return map of parsed manifest file, if the file exists. If the file does
-	 * not exist, return null.
+	 * not exist, return null. The map is a copy of the content cached by the
+	 * {@link ManifestCache}, so callers may modify it.
 	 * @throws CoreException if manifest file exists, but error occurred that
 	 * prevents a map to be generated.
 	 */
 	protected Map<Object, Object> parseManifestFromFile() throws CoreException {
-
-		InputStream inputStream = null;
-		IFile resource = getFile();
-
-		if (resource != null && resource.exists()) {
-			inputStream = resource.getContents();
-		}
-
-		if (inputStream != null) {
-			Yaml yaml = new Yaml();
-
-			try {
-
-				Object results = yaml.load(inputStream);
-
-				if (results instanceof Map<?, ?>) {
-					return (Map<Object, Object>) results;
-				}
-				else {
-					throw CloudErrorUtil.toCoreException("Expected a map of values for manifest file: " + relativePath //$NON-NLS-1$
-							+ ". Unable to load manifest content.  Actual results: " + results); //$NON-NLS-1$
-				}
-
-			}
-			finally {
-				try {
-					inputStream.close();
-				}
-				catch (IOException e) {
-					// Ignore
-				}
-			}
-
-		}
-		return null;
+		return CloudFoundryPlugin.getManifestCache().getManifest(getFile());
 	}
 
 	/**
@@ -21,6 +21,7 @@
 package org.eclipse.cft.server.core.internal.application;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.zip.ZipFile;
 
 import org.eclipse.cft.server.core.CFApplicationArchive;
@@ -52,7 +53,18 @@ public class WarApplicationArchiver implements ICloudFoundryArchiver {
 
 				CloudFoundryPlugin.trace("War file " + warFile.getName() + " created"); //$NON-NLS-1$ //$NON-NLS-2$
 
-				return new ZipArchive(new ZipFile(warFile));
+				// The war artifact is released when the archive is closed, or
+				// here if the archive could not be opened
+				String artifactKey = CloudUtil.getWarArtifactKey(server, module);
+				ZipFile zipFile;
+				try {
+					zipFile = new ZipFile(warFile);
+				}
+				catch (IOException e) {
+					CloudFoundryPlugin.getArtifactStore().release(artifactKey);
+					throw e;
+				}
+				return new ZipArchive(zipFile, artifactKey);
 			}
 			else {
 				throw CloudErrorUtil.toCoreException("Expected server: " + server.getId() + " to be of type: "
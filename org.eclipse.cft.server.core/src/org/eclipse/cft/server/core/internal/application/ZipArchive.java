@@ -32,7 +32,9 @@ import java.util.zip.ZipFile;
 
 import org.eclipse.cft.server.core.ArchiveEntry;
 import org.eclipse.cft.server.core.CFApplicationArchive;
+import org.eclipse.cft.server.core.internal.ArtifactStore;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.core.runtime.CoreException;
 
 public class ZipArchive implements CFApplicationArchive {
@@ -43,9 +45,23 @@ public class ZipArchive implements CFApplicationArchive {
 
 	private String name;
 
+	private final String artifactKey;
+
 	public ZipArchive(ZipFile zipFile) {
+		this(zipFile, null);
+	}
+
+	/**
+	 * 
+	 * @param zipFile
+	 * @param artifactKey key of the zip file in the {@link ArtifactStore}, if
+	 * the zip file was generated in the artifact store. The artifact is
+	 * released when the archive is closed. May be null.
+	 */
+	public ZipArchive(ZipFile zipFile, String artifactKey) {
 		this.zipFile = zipFile;
 		this.name = new File(zipFile.getName()).getName();
+		this.artifactKey = artifactKey;
 	}
 
 	private List<ArchiveEntry> getEntries(ZipFile zipFile) {
@@ -77,6 +93,11 @@ public class ZipArchive implements CFApplicationArchive {
 		catch (IOException e) {
 			throw CloudErrorUtil.toCoreException(e);
 		}
+		finally {
+			if (artifactKey != null) {
+				CloudFoundryPlugin.getArtifactStore().release(artifactKey);
+			}
+		}
 	}
 
 	class ZipArchiveEntry extends AbstractArchiveEntry {
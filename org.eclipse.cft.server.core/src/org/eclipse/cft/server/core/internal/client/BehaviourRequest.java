@@ -21,6 +21,7 @@
 package org.eclipse.cft.server.core.internal.client;
 
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -50,4 +51,15 @@ abstract public class BehaviourRequest<T> extends LocalServerRequest<T> {
 		return this.behaviour.getCloudFoundryServer();
 	}
 
+	@Override
+	protected long getTotalTimeWait() {
+		try {
+			return getCloudServer().getRequestTimeout();
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+			return super.getTotalTimeWait();
+		}
+	}
+
 }
\ No newline at end of file
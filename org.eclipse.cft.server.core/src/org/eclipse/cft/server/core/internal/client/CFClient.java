@@ -43,4 +43,12 @@ public interface CFClient {
 
 	public List<CloudLog> getRecentLogs(String appName) throws CoreException;
 
+	/**
+	 * Releases connections held by the client. The client should not be used
+	 * afterward.
+	 */
+	public default void dispose() {
+		// Nothing to release by default
+	}
+
 }
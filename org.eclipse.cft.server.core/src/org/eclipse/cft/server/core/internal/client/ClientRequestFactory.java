@@ -39,6 +39,7 @@ import org.cloudfoundry.client.lib.domain.CloudDomain;
 import org.cloudfoundry.client.lib.domain.CloudRoute;
 import org.cloudfoundry.client.lib.domain.CloudServiceBinding;
 import org.cloudfoundry.client.lib.domain.CloudServiceInstance;
+import org.cloudfoundry.client.lib.domain.CloudSpace;
 import org.cloudfoundry.client.lib.domain.InstancesInfo;
 import org.eclipse.cft.server.core.CFServiceInstance;
 import org.eclipse.cft.server.core.CFServiceOffering;
@@ -51,6 +52,7 @@ import org.eclipse.cft.server.core.internal.CloudServicesUtil;
 import org.eclipse.cft.server.core.internal.CloudUtil;
 import org.eclipse.cft.server.core.internal.Messages;
 import org.eclipse.cft.server.core.internal.ServerEventHandler;
+import org.eclipse.cft.server.core.internal.spaces.CloudFoundrySpace;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -74,6 +76,8 @@ public class ClientRequestFactory {
 
 	protected CFInfo cachedInfo;
 
+	protected CloudSpace cachedSummarySpace;
+
 	public ClientRequestFactory(CloudFoundryServerBehaviour behaviour) {
 		this.behaviour = behaviour;
 	}
@@ -543,6 +547,56 @@ public class ClientRequestFactory {
 
 	}
 
+	/**
+	 * Fetches all applications in the active session Cloud space with a single
+	 * space summary request. Unlike {@link #getBasicApplications()}, each app
+	 * includes mapped URLs, bound services and the number of running
+	 * instances, but not detailed instance stats.
+	 * @return request, whose result is null if space summaries are not
+	 * supported by the Cloud Controller
+	 * @throws CoreException
+	 */
+	public BaseClientRequest<List<CFV1Application>> getSpaceSummaryApplications() throws CoreException {
+		final CloudFoundryServer cloudServer = behaviour.getCloudFoundryServer();
+		return new BehaviourRequest<List<CFV1Application>>(
+				NLS.bind(Messages.CloudFoundryServerBehaviour_GET_ALL_APPS, cloudServer.getServer().getId()),
+				behaviour) {
+
+			@Override
+			protected List<CFV1Application> doRun(CloudFoundryOperations client, SubMonitor progress)
+					throws CoreException {
+				SpaceSummarySupport support = SpaceSummarySupport.create(client, getCloudInfo(),
+						cloudServer.getProxyConfiguration(), cloudServer, cloudServer.isSelfSigned());
+
+				CloudFoundrySpace cloudFoundrySpace = cloudServer.getCloudFoundrySpace();
+				if (cloudFoundrySpace == null) {
+					return null;
+				}
+
+				// Resolve the space guid only once, unless the server was
+				// switched to another space
+				CloudSpace space = cachedSummarySpace;
+				if (!isSpace(space, cloudFoundrySpace)) {
+					space = cloudFoundrySpace.getSpace();
+					if (!isSpace(space, cloudFoundrySpace) || space.getMeta().getGuid() == null) {
+						space = support.getSpace(cloudFoundrySpace.getOrgName(), cloudFoundrySpace.getSpaceName());
+					}
+					if (space == null) {
+						return null;
+					}
+					cachedSummarySpace = space;
+				}
+				return support.getApplications(space);
+			}
+		};
+	}
+
+	private static boolean isSpace(CloudSpace space, CloudFoundrySpace cloudFoundrySpace) {
+		return space != null && space.getMeta() != null && space.getOrganization() != null
+				&& cloudFoundrySpace.getSpaceName().equals(space.getName())
+				&& cloudFoundrySpace.getOrgName().equals(space.getOrganization().getName());
+	}
+
 	/**
 	 * Fetches list of all applications in the Cloud space. No module updates
 	 * occur, as this is a low-level API meant to interact with the underlying
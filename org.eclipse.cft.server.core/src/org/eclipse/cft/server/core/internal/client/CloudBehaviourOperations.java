@@ -280,6 +280,31 @@ public class CloudBehaviourOperations {
 		return operation;
 	}
 
+	/**
+	 * Resolves an operation that performs the given action on many
+	 * applications, with the maximum number of applications processed at the
+	 * same time from the preferences.
+	 * @param modules root modules of the applications
+	 * @param action
+	 * @param failFast if true, applications that have not started processing
+	 * are skipped after an application fails. Otherwise all applications are
+	 * processed.
+	 * @return non-null operation
+	 * @throws CoreException if no modules are specified
+	 */
+	public FleetOperation fleetDeployment(List<IModule> modules, ApplicationAction action, boolean failFast)
+			throws CoreException {
+		return fleetDeployment(modules, action, CloudFoundryPlugin.getDefault().getFleetParallelism(), failFast);
+	}
+
+	public FleetOperation fleetDeployment(List<IModule> modules, ApplicationAction action, int parallelism,
+			boolean failFast) throws CoreException {
+		if (modules == null || modules.isEmpty()) {
+			throw CloudErrorUtil.toCoreException(INTERNAL_ERROR_NO_WST_MODULE);
+		}
+		return new FleetOperation(behaviour, modules, action, parallelism, failFast);
+	}
+
 	/**
 	 * Update all modules, services, and the instance info and stats for the
 	 * given optional module.
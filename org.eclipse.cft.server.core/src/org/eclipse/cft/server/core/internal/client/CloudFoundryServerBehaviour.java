@@ -22,6 +22,8 @@
  ********************************************************************************/
 package org.eclipse.cft.server.core.internal.client;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -55,19 +57,23 @@ import org.eclipse.cft.server.core.ISshClientSupport;
 import org.eclipse.cft.server.core.internal.ApplicationAction;
 import org.eclipse.cft.server.core.internal.ApplicationInstanceRunningTracker;
 import org.eclipse.cft.server.core.internal.ApplicationUrlLookupService;
+import org.eclipse.cft.server.core.internal.ArtifactStore;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryLoginHandler;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.core.internal.CloudFoundryServerTarget;
 import org.eclipse.cft.server.core.internal.CloudFoundryTargetManager;
+import org.eclipse.cft.server.core.internal.CloudRouteIndex;
 import org.eclipse.cft.server.core.internal.CloudServerEvent;
 import org.eclipse.cft.server.core.internal.CloudServerUtil;
 import org.eclipse.cft.server.core.internal.CloudUtil;
 import org.eclipse.cft.server.core.internal.Messages;
 import org.eclipse.cft.server.core.internal.ModuleResourceDeltaWrapper;
+import org.eclipse.cft.server.core.internal.ModuleStateSnapshot;
 import org.eclipse.cft.server.core.internal.OperationScheduler;
 import org.eclipse.cft.server.core.internal.ServerEventHandler;
+import org.eclipse.cft.server.core.internal.ServerOperationsExecutor;
 import org.eclipse.cft.server.core.internal.UpdateOperationsScheduler;
 import org.eclipse.cft.server.core.internal.application.ApplicationRegistry;
 import org.eclipse.cft.server.core.internal.application.CachingApplicationArchive;
@@ -144,16 +150,31 @@ import org.springframework.http.HttpStatus;
 @SuppressWarnings("restriction")
 public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
+	/**
+	 * Maximum number of background requests of a server waiting to run
+	 */
+	private static final int SERVER_QUEUE_CAPACITY = 256;
+
 	private CloudFoundryOperations client;
 	
 	private CFClient hybridClient;
+
+	/**
+	 * Guards creation and disposal of the hybrid client, so that concurrent
+	 * requests do not create (and leak) more than one
+	 */
+	private final Object hybridClientLock = new Object();
 	
 	private boolean logStreamWebsocketError = false;
 
 	private UpdateOperationsScheduler operationsScheduler;
 
+	private ServerOperationsExecutor operationsExecutor;
+
 	private ApplicationUrlLookupService applicationUrlLookup;
 
+	private CloudRouteIndex routeIndex;
+
 	private CloudBehaviourOperations cloudBehaviourOperations;
 
 	private ClientRequestFactory requestFactory;
@@ -290,6 +311,20 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 	}
 
+	/**
+	 * Executor for background requests of this server only, like fetching
+	 * application details during a refresh. Requests of other servers run on
+	 * their own executors, so a slow target does not delay other servers.
+	 * @return Non-null executor
+	 */
+	public synchronized ServerOperationsExecutor getOperationsExecutor() {
+		if (operationsExecutor == null) {
+			operationsExecutor = new ServerOperationsExecutor(getServer().getId(),
+					CloudFoundryPlugin.getDefault().getServerParallelism(), SERVER_QUEUE_CAPACITY);
+		}
+		return operationsExecutor;
+	}
+
 	/**
 	 * 
 	 * @return non-null debug launcher
@@ -460,6 +495,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 	public void dispose() {
 		super.dispose();
 		getServer().removeServerListener(serverListener);
+		disposeHybridClient();
+		synchronized (this) {
+			if (operationsExecutor != null) {
+				operationsExecutor.dispose();
+				operationsExecutor = null;
+			}
+		}
 	}
 
 	/**
@@ -731,6 +773,15 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return getRequestFactory().getCompleteApplication(application).run(monitor);
 	}
 
+	/**
+	 * @return all applications in the space with their number of running
+	 * instances, fetched with a single request, or null if not supported by
+	 * the Cloud Controller
+	 */
+	public List<CFV1Application> getSpaceSummaryApplications(IProgressMonitor monitor) throws CoreException {
+		return getRequestFactory().getSpaceSummaryApplications().run(monitor);
+	}
+
 	public ApplicationStats getApplicationStats(String appName, IProgressMonitor monitor) throws CoreException {
 		return getRequestFactory().getApplicationStats(appName).run(monitor);
 	}
@@ -806,13 +857,31 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 	protected void internalResetClient() {
 		client = null;
-		hybridClient = null;
-		applicationUrlLookup = null;
+		disposeHybridClient();
+		if (applicationUrlLookup != null) {
+			// Components still holding the old lookup (e.g. open wizards)
+			// should not use domains of a previous space
+			applicationUrlLookup.invalidateDomains();
+			applicationUrlLookup = null;
+		}
+		if (routeIndex != null) {
+			routeIndex.invalidate();
+			routeIndex = null;
+		}
 		cloudBehaviourOperations = null;
 		operationsScheduler = null;
 		logStreamWebsocketError = false;
 	}
 
+	private void disposeHybridClient() {
+		synchronized (hybridClientLock) {
+			if (hybridClient != null) {
+				hybridClient.dispose();
+				hybridClient = null;
+			}
+		}
+	}
+
 	@Override
 	public void startModule(IModule[] modules, IProgressMonitor monitor) throws CoreException {
 		operations().applicationDeployment(modules, ApplicationAction.RESTART).run(monitor);
@@ -1181,7 +1250,11 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				return;
 			}
 
-			getApplicationUrlLookup().refreshDomains(monitor);
+			// Show the applications of the previous session right away.
+			// Domains are fetched when first needed (see
+			// ApplicationUrlLookupService#getDomains()), so that opening the
+			// workspace only sends the refresh requests below
+			restoreModuleStateSnapshot();
 
 			// Important: Must perform a refresh operation
 			// as any operation that calls the CF client first
@@ -1551,11 +1624,31 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 	}
 
+	/**
+	 * Returns the route with the given host in the given domain if it is owned
+	 * by the active space. Uses the cached routes of the domain, see
+	 * {@link CloudRouteIndex}.
+	 * @return route owned by the space, or null if not owned by the space
+	 */
+	public CloudRoute findRoute(String host, String domainName, IProgressMonitor monitor) throws CoreException {
+		return getRouteIndex().getRoute(host, domainName, monitor);
+	}
+
+	public synchronized CloudRouteIndex getRouteIndex() {
+		if (routeIndex == null) {
+			routeIndex = new CloudRouteIndex(this);
+		}
+		return routeIndex;
+	}
+
 	public void deleteRoute(final List<CloudRoute> routes, IProgressMonitor monitor) throws CoreException {
 
 		BaseClientRequest<?> request = getRequestFactory().deleteRoute(routes);
 		if (request != null) {
 			request.run(monitor);
+			for (CloudRoute route : routes) {
+				getRouteIndex().routeDeleted(route.getHost(), route.getDomain().getName());
+			}
 		}
 	}
 
@@ -1564,6 +1657,7 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		BaseClientRequest<?> request = getRequestFactory().deleteRoute(host, domainName);
 		if (request != null) {
 			request.run(monitor);
+			getRouteIndex().routeDeleted(host, domainName);
 		}
 	}
 
@@ -1582,6 +1676,9 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		Boolean result = t.runAndWaitForCompleteOrCancelled();
 
 		if (result != null) {
+			if (result) {
+				getRouteIndex().routeReserved(host, domainName);
+			}
 			return result;
 		}
 
@@ -1828,27 +1925,13 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 				getCloudFoundryServer().getServer(), resources, monitor);
 
 		// If no application archive was provided,then attempt an incremental
-		// publish. Incremental publish is only supported for apps without child
-		// modules.
-		if (archive == null && incrementalPublish && !hasChildModules(modules)) {
-			// Determine if an incremental publish
-			// should
-			// occur
-			// For the time being support incremental
-			// publish
-			// only if the app does not have child
-			// modules
-			// To compute incremental deltas locally,
-			// modules must be provided
-			// Computes deltas locally before publishing
-			// to
-			// the server.
-			// Potentially more efficient. Should be
-			// used
-			// only on incremental
-			// builds
-
-			archive = getIncrementalPublishArchive(deploymentInfo, modules);
+		// publish. Computes deltas locally before publishing to the server, so
+		// it should be used only on incremental builds. Child modules are
+		// included as jars, of which only changed ones are uploaded.
+		if (archive == null && incrementalPublish) {
+			archive = hasChildModules(modules)
+					? getIncrementalPublishArchive(deploymentInfo, modules, server, monitor)
+					: getIncrementalPublishArchive(deploymentInfo, modules);
 		}
 		return archive;
 
@@ -1908,6 +1991,43 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return moduleArchive;
 	}
 
+	/**
+	 * Incremental publish archive for a module with child modules. Jars of
+	 * child modules are obtained from the child module jar cache, so that
+	 * jars of unchanged children keep the same sha1 and are not uploaded
+	 * again.
+	 * @return archive, or null if a child module cannot be included
+	 * incrementally, in which case a full war file should be created instead
+	 * @throws CoreException if failed to create a child module jar
+	 */
+	protected CFApplicationArchive getIncrementalPublishArchive(final ApplicationDeploymentInfo deploymentInfo,
+			IModule[] modules, Server server, IProgressMonitor monitor) throws CoreException {
+		List<String> childArtifactKeys = new ArrayList<String>();
+		boolean created = false;
+		try {
+			List<IModuleFile> childJars = CloudUtil.getChildModuleJars(modules, server, childArtifactKeys, monitor);
+			if (childJars == null) {
+				return null;
+			}
+			IModuleResource[] allResources = getResources(modules);
+			IModuleResourceDelta[] deltas = getPublishedResourceDelta(modules);
+			List<IModuleResource> changedResources = getChangedResources(deltas);
+			CFApplicationArchive moduleArchive = new CachingApplicationArchive(Arrays.asList(allResources),
+					changedResources, childJars, childArtifactKeys, modules[0], deploymentInfo.getDeploymentName());
+			created = true;
+			return moduleArchive;
+		}
+		finally {
+			// Once created, the archive releases the child jars when closed
+			if (!created) {
+				ArtifactStore store = CloudFoundryPlugin.getArtifactStore();
+				for (String childKey : childArtifactKeys) {
+					store.release(childKey);
+				}
+			}
+		}
+	}
+
 	/** Convert a call to publishModule(...) to a String, for debugging */
 	private static String convertPublishModuleToString(int deltaKind, IModule[] module) { 
 		try {
@@ -2054,6 +2174,53 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 		return getRequestFactory().getCloudInfo();
 	}
 
+	/**
+	 * Shows the applications and services of the last refresh of a previous
+	 * session, if they were taken from the current target and space. The
+	 * modules are marked as stale until the server is refreshed.
+	 * @return true if a snapshot was restored
+	 */
+	protected boolean restoreModuleStateSnapshot() {
+		try {
+			CloudFoundryServer cloudServer = getCloudFoundryServer();
+			ModuleStateSnapshot snapshot = ModuleStateSnapshot
+					.load(CloudFoundryPlugin.getModuleStateSnapshotFile(getServer().getId()));
+			if (snapshot == null || !snapshot.isSnapshotOf(cloudServer)) {
+				return false;
+			}
+			cloudServer.restoreModules(snapshot);
+			ServerEventHandler.getDefault().fireServicesUpdated(cloudServer, snapshot.getServices());
+			ServerEventHandler.getDefault().fireModulesUpdated(cloudServer, getServer().getModules());
+			return true;
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+		return false;
+	}
+
+	/**
+	 * Saves the applications of the server and the given services, so that
+	 * they can be shown when the workbench starts again. Errors are logged.
+	 * @param services
+	 */
+	public void saveModuleStateSnapshot(List<CFServiceInstance> services) {
+		File file = CloudFoundryPlugin.getModuleStateSnapshotFile(getServer().getId());
+		if (file == null) {
+			return;
+		}
+		try {
+			CloudFoundryServer cloudServer = getCloudFoundryServer();
+			ModuleStateSnapshot.create(cloudServer, cloudServer.getExistingCloudModules(), services).save(file);
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+		catch (IOException e) {
+			CloudFoundryPlugin.logError("Failed to save module state snapshot to " + file, e); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Asynchronously updates all modules and services with information from
 	 * Cloud Foundry.
@@ -2122,30 +2289,31 @@ public class CloudFoundryServerBehaviour extends ServerBehaviourDelegate {
 
 
 	private CFClient getHybridClient(IProgressMonitor monitor) throws CoreException {
+		synchronized (hybridClientLock) {
+			if (hybridClient != null) {
+				return hybridClient;
+			}
 
-		if (hybridClient != null) {
-			return hybridClient;
-		}
-
-		CFClientProvider clientProvider = CFClientProviderRegistry.INSTANCE
-				.getClientProvider(getCloudFoundryServer().getUrl(), getCloudInfo());
-		CloudFoundryOperations v1Client = getClient(monitor);
+			CFClientProvider clientProvider = CFClientProviderRegistry.INSTANCE
+					.getClientProvider(getCloudFoundryServer().getUrl(), getCloudInfo());
+			CloudFoundryOperations v1Client = getClient(monitor);
 
-		if (clientProvider != null) {
+			if (clientProvider != null) {
 
-			CloudFoundryServer cloudServer = getCloudFoundryServer();
-			CFCloudCredentials credentials = CloudServerUtil.getCredentials(cloudServer);
-			CloudFoundrySpace cloudFoundrySpace = cloudServer.getCloudFoundrySpace();
-			if (cloudFoundrySpace != null) {
-				CFClient otherClient = clientProvider.getClient(cloudServer.getServer(), credentials, cloudFoundrySpace.getOrgName(), cloudFoundrySpace.getSpaceName()
-						, monitor);
-				if (otherClient != null) {
-					hybridClient = new HybridClient(v1Client, otherClient);
+				CloudFoundryServer cloudServer = getCloudFoundryServer();
+				CFCloudCredentials credentials = CloudServerUtil.getCredentials(cloudServer);
+				CloudFoundrySpace cloudFoundrySpace = cloudServer.getCloudFoundrySpace();
+				if (cloudFoundrySpace != null) {
+					CFClient otherClient = clientProvider.getClient(cloudServer.getServer(), credentials,
+							cloudFoundrySpace.getOrgName(), cloudFoundrySpace.getSpaceName(), monitor);
+					if (otherClient != null) {
+						hybridClient = new HybridClient(v1Client, otherClient);
+					}
 				}
 			}
-		}
 
-		return hybridClient;
+			return hybridClient;
+		}
 	}
 
 	public List<CloudLog> getRecentAppLogs(final String appName, IProgressMonitor monitor) throws CoreException {
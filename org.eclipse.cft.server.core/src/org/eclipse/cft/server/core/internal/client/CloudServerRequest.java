@@ -253,7 +253,7 @@ public abstract class CloudServerRequest<T> {
 	 * @return
 	 */
 	protected long getRetryTimeout() {
-		return CloudOperationsConstants.DEFAULT_CF_CLIENT_REQUEST_TIMEOUT;
+		return cloudServer.getRequestTimeout();
 	}
 
 	public T promptCredentialsAndRun(IProgressMonitor monitor) throws CoreException {
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cft.server.core.internal.ApplicationAction;
+import org.eclipse.cft.server.core.internal.ApplicationRunningStatePoller;
+import org.eclipse.cft.server.core.internal.CloudErrorUtil;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.cft.server.core.internal.Messages;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.IModule;
+
+/**
+ * Performs the same application operation (e.g. restart or stop) on many
+ * applications of a server, with a bounded number of applications processed at
+ * the same time. Each application is processed by the regular operation for
+ * the given {@link ApplicationAction}, so module states, consoles and events
+ * are the same as when the application is processed on its own.
+ * <p/>
+ * Applications that are started are tracked with one
+ * {@link ApplicationRunningStatePoller} shared by all applications, so a bulk
+ * restart takes roughly the time of the slowest application, without an
+ * increase in requests for each additional application.
+ * <p/>
+ * The operation either continues when an application fails, or stops
+ * processing applications that have not started yet. Applications already
+ * being processed always complete. The status of each application is
+ * available once the operation completes.
+ */
+public class FleetOperation extends CFOperation {
+
+	private static final long CANCEL_CHECK_INTERVAL = 200;
+
+	private final List<IModule> modules;
+
+	private final ApplicationAction action;
+
+	private final int parallelism;
+
+	private final boolean failFast;
+
+	private final Map<IModule, IStatus> results = Collections.synchronizedMap(new LinkedHashMap<IModule, IStatus>());
+
+	private volatile boolean stopped;
+
+	/**
+	 * @param behaviour
+	 * @param modules root modules of the applications
+	 * @param action
+	 * @param parallelism maximum number of applications processed at the same
+	 * time
+	 * @param failFast if true, applications that have not started processing
+	 * are skipped after an application fails
+	 */
+	public FleetOperation(CloudFoundryServerBehaviour behaviour, List<IModule> modules, ApplicationAction action,
+			int parallelism, boolean failFast) {
+		super(behaviour);
+		this.modules = new ArrayList<IModule>(modules);
+		this.action = action;
+		this.parallelism = Math.max(1, parallelism);
+		this.failFast = failFast;
+	}
+
+	@Override
+	public String getOperationName() {
+		return NLS.bind(Messages.FleetOperation_OPERATION_NAME, modules.size());
+	}
+
+	/**
+	 * @return status of each application processed by the last run, in the
+	 * order the applications completed. Skipped applications have a cancel
+	 * status.
+	 */
+	public Map<IModule, IStatus> getResults() {
+		synchronized (results) {
+			return new LinkedHashMap<IModule, IStatus>(results);
+		}
+	}
+
+	public void run(IProgressMonitor monitor) throws CoreException {
+		results.clear();
+		stopped = false;
+		if (modules.isEmpty()) {
+			return;
+		}
+
+		SubMonitor progress = SubMonitor.convert(monitor, getOperationName(), modules.size());
+		final SharedCancelMonitor fleetMonitor = new SharedCancelMonitor(monitor);
+		final ApplicationRunningStatePoller poller = new ApplicationRunningStatePoller(getBehaviour());
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, modules.size()),
+				new FleetThreadFactory());
+		CompletionService<IStatus> completionService = new ExecutorCompletionService<IStatus>(executor);
+		Map<Future<IStatus>, IModule> futures = new LinkedHashMap<Future<IStatus>, IModule>();
+		int failed = 0;
+
+		try {
+			for (final IModule module : modules) {
+				Future<IStatus> future = completionService.submit(new Callable<IStatus>() {
+
+					public IStatus call() throws Exception {
+						return runOnModule(module, poller, fleetMonitor);
+					}
+				});
+				futures.put(future, module);
+			}
+
+			int completed = 0;
+			while (completed < futures.size()) {
+				Future<IStatus> future;
+				try {
+					future = completionService.poll(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					fleetMonitor.setCanceled(true);
+					stopPending(futures.keySet());
+					throw new OperationCanceledException();
+				}
+
+				if (future == null) {
+					if (progress.isCanceled()) {
+						// Running operations are cancelled through the shared
+						// monitor. Operations that did not start are skipped.
+						stopPending(futures.keySet());
+					}
+					continue;
+				}
+
+				completed++;
+				IModule module = futures.get(future);
+				IStatus status = getStatus(module, future);
+				results.put(module, status);
+
+				if (status.getSeverity() == IStatus.ERROR) {
+					failed++;
+					if (failFast) {
+						stopPending(futures.keySet());
+					}
+				}
+
+				progress.subTask(NLS.bind(Messages.FleetOperation_MODULE_COMPLETED,
+						new Object[] { module.getName(), completed, futures.size() }));
+				progress.worked(1);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		if (progress.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+
+		if (failed > 0) {
+			MultiStatus status = new MultiStatus(CloudFoundryPlugin.PLUGIN_ID, IStatus.ERROR,
+					NLS.bind(Messages.FleetOperation_ERROR, failed, modules.size()), null);
+			for (IStatus result : getResults().values()) {
+				if (!result.isOK()) {
+					status.add(result);
+				}
+			}
+			throw new CoreException(status);
+		}
+	}
+
+	protected IStatus runOnModule(IModule module, ApplicationRunningStatePoller poller, IProgressMonitor monitor) {
+		if (stopped || monitor.isCanceled()) {
+			return getSkippedStatus(module);
+		}
+		try {
+			ICloudFoundryOperation operation = getBehaviour().operations()
+					.applicationDeployment(new IModule[] { module }, action);
+			if (operation instanceof RestartOperation) {
+				((RestartOperation) operation).setRunningStatePoller(poller);
+			}
+			operation.run(monitor);
+			return Status.OK_STATUS;
+		}
+		catch (CoreException e) {
+			return e.getStatus();
+		}
+		catch (OperationCanceledException e) {
+			return getSkippedStatus(module);
+		}
+		catch (RuntimeException e) {
+			// Report unexpected errors on the application, instead of
+			// failing the whole operation
+			return CloudErrorUtil.toCoreException(e).getStatus();
+		}
+	}
+
+	protected IStatus getStatus(IModule module, Future<IStatus> future) {
+		try {
+			return future.get();
+		}
+		catch (CancellationException e) {
+			return getSkippedStatus(module);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return getSkippedStatus(module);
+		}
+		catch (ExecutionException e) {
+			return CloudErrorUtil.toCoreException(e.getCause()).getStatus();
+		}
+	}
+
+	protected IStatus getSkippedStatus(IModule module) {
+		return new Status(IStatus.CANCEL, CloudFoundryPlugin.PLUGIN_ID,
+				NLS.bind(Messages.FleetOperation_MODULE_SKIPPED, module.getName()));
+	}
+
+	/**
+	 * Skips applications that did not start processing yet
+	 * @param futures
+	 */
+	protected void stopPending(Iterable<Future<IStatus>> futures) {
+		stopped = true;
+		for (Future<IStatus> future : futures) {
+			// Do not interrupt operations that are running, as they update
+			// module states when they complete
+			future.cancel(false);
+		}
+	}
+
+	private static class FleetThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Cloud Foundry fleet operation " + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -77,4 +77,9 @@ public class HybridClient implements CFClient {
 		return otherClient.getRecentLogs(appName);
 	}
 
+	@Override
+	public void dispose() {
+		otherClient.dispose();
+	}
+
 }
@@ -23,9 +23,13 @@ package org.eclipse.cft.server.core.internal.client;
 import org.cloudfoundry.client.lib.StartingInfo;
 import org.eclipse.cft.server.core.AbstractAppStateTracker;
 import org.eclipse.cft.server.core.internal.ApplicationAction;
+import org.eclipse.cft.server.core.internal.ApplicationInstanceRunningTracker;
+import org.eclipse.cft.server.core.internal.ApplicationRunningStatePoller;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.Messages;
+import org.eclipse.cft.server.core.internal.PublishTelemetry;
+import org.eclipse.cft.server.core.internal.PublishTelemetry.Phase;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -46,8 +50,12 @@ import org.eclipse.wst.server.core.internal.Server;
 public class RestartOperation extends ApplicationOperation {
 
 	/**
-	 * 
+	 * Telemetry of the current publish, or null if the application resources
+	 * are not published by this operation
 	 */
+	protected PublishTelemetry telemetry;
+
+	private ApplicationRunningStatePoller runningStatePoller;
 
 	public RestartOperation(CloudFoundryServerBehaviour behaviour, IModule[] modules, boolean clearConsole) {
 		super(behaviour, modules, clearConsole);
@@ -58,6 +66,15 @@ public class RestartOperation extends ApplicationOperation {
 		return Messages.RestartOperation_STARTING_APP;
 	}
 
+	/**
+	 * @param runningStatePoller poller shared with other operations that start
+	 * applications at the same time, used to track whether the application
+	 * started. If null, the application is tracked separately.
+	 */
+	public void setRunningStatePoller(ApplicationRunningStatePoller runningStatePoller) {
+		this.runningStatePoller = runningStatePoller;
+	}
+
 	@Override
 	protected void performDeployment(CloudFoundryApplicationModule appModule, IProgressMonitor monitor)
 			throws CoreException {
@@ -127,12 +144,20 @@ public class RestartOperation extends ApplicationOperation {
 			getBehaviour().operations().updateModule(getFirstModule()).run(monitor);
 
 			// Perform the actual restarting in the client
+			long stagingStart = PublishTelemetry.start();
 			StartingInfo info = getBehaviour().getRequestFactory().restartApplication(deploymentName, startLabel)
 					.run(monitor.newChild(20));
+			if (telemetry != null) {
+				telemetry.end(Phase.STAGING, stagingStart);
+			}
 
 			appModule.setStartingInfo(info);
 
+			long trackingStart = PublishTelemetry.start();
 			updatedState = trackApplicationRunningState(appModule, startLabel, monitor);
+			if (telemetry != null) {
+				telemetry.end(Phase.START_TRACKING, trackingStart);
+			}
 		}
 		catch (OperationCanceledException oce) {
 			updatedState = IServer.STATE_UNKNOWN;
@@ -163,8 +188,10 @@ public class RestartOperation extends ApplicationOperation {
 		// TODO: integrate with Application tracker used below.
 		// Get the running state of the application based on the instance state
 		// using the default tracker
-		int updatedState = RestartOperation.this.getBehaviour().getApplicationInstanceRunningTracker(cloudModule)
-				.track(progress);
+		ApplicationInstanceRunningTracker runningTracker = RestartOperation.this.getBehaviour()
+				.getApplicationInstanceRunningTracker(cloudModule);
+		runningTracker.setStatePoller(runningStatePoller);
+		int updatedState = runningTracker.track(progress);
 
 		CloudFoundryPlugin.trace("Default tracker: application " + deploymentName + " tracking completed"); //$NON-NLS-1$ //$NON-NLS-2$
 
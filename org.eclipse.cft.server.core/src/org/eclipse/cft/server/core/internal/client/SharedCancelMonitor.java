@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal.client;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Monitor shared by requests that run in parallel on behalf of a single
+ * operation. It is cancelled when the parent monitor is cancelled, or when
+ * cancelled directly. It does not report progress, which the operation
+ * reports itself instead, as the parent monitor is not thread safe.
+ */
+public class SharedCancelMonitor extends NullProgressMonitor {
+
+	private final IProgressMonitor parent;
+
+	public SharedCancelMonitor(IProgressMonitor parent) {
+		this.parent = parent;
+	}
+
+	@Override
+	public boolean isCanceled() {
+		return super.isCanceled() || (parent != null && parent.isCanceled());
+	}
+}
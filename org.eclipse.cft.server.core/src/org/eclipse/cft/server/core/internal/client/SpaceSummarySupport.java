@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.cloudfoundry.client.lib.HttpProxyConfiguration;
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.client.lib.domain.CloudEntity.Meta;
+import org.cloudfoundry.client.lib.domain.CloudSpace;
+import org.cloudfoundry.client.lib.domain.HealthCheckType;
+import org.cloudfoundry.client.lib.domain.InstanceState;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.client.lib.domain.Staging;
+import org.cloudfoundry.client.lib.util.CloudEntityResourceMapper;
+import org.cloudfoundry.client.lib.util.JsonUtil;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.cft.server.core.internal.CloudFoundryServer;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+/**
+ * Fetches all applications in a space with a single request to the space
+ * summary ( /v2/spaces/:guid/summary ), which includes for each app the
+ * mapped URLs, bound service names, and the number of running instances.
+ * <p/>
+ * This is much faster than fetching each application and its stats
+ * separately, which requires two requests per app. The summary does not
+ * include per-instance stats (e.g. CPU and memory usage), so the stats of each
+ * application only contain one running record per running instance, which is
+ * enough to determine the run state of the app.
+ */
+public class SpaceSummarySupport extends CFClientV1Support {
+
+	private final CloudEntityResourceMapper resourceMapper = new CloudEntityResourceMapper();
+
+	public SpaceSummarySupport(CloudFoundryOperations cfClient, CFInfo cloudInfo,
+			HttpProxyConfiguration httpProxyConfiguration, CloudFoundryServer cfServer, boolean trustSelfSigned) {
+		super(cfClient, /* space is resolved separately */ null, cloudInfo, httpProxyConfiguration, cfServer,
+				trustSelfSigned);
+	}
+
+	/**
+	 * @return space with the given name in the given org, or null if not
+	 * found
+	 */
+	@SuppressWarnings("unchecked")
+	public CloudSpace getSpace(String orgName, String spaceName) {
+		Map<String, Object> urlVars = new HashMap<String, Object>();
+		urlVars.put("name", spaceName); //$NON-NLS-1$
+		String url = getUrl("/v2/spaces?inline-relations-depth=1&q=name:{name}"); //$NON-NLS-1$
+
+		while (url != null) {
+			String json = restTemplate.getForObject(url, String.class, urlVars);
+			Map<String, Object> page = json != null ? JsonUtil.convertJsonToMap(json) : null;
+			if (page == null) {
+				return null;
+			}
+			List<Map<String, Object>> resources = (List<Map<String, Object>>) page.get("resources"); //$NON-NLS-1$
+			if (resources != null) {
+				for (Map<String, Object> resource : resources) {
+					CloudSpace space = resourceMapper.mapResource(resource, CloudSpace.class);
+					if (space != null && space.getOrganization() != null
+							&& orgName.equals(space.getOrganization().getName())) {
+						return space;
+					}
+				}
+			}
+			String nextUrl = (String) page.get("next_url"); //$NON-NLS-1$
+			url = nextUrl != null ? getUrl(nextUrl) : null;
+			urlVars = Collections.emptyMap();
+		}
+		return null;
+	}
+
+	/**
+	 * @param space
+	 * @return all applications in the space, or null if the Cloud Controller
+	 * does not support space summaries
+	 */
+	@SuppressWarnings("unchecked")
+	public List<CFV1Application> getApplications(CloudSpace space) {
+		Map<String, Object> urlVars = new HashMap<String, Object>();
+		urlVars.put("guid", space.getMeta().getGuid()); //$NON-NLS-1$
+
+		String json;
+		try {
+			json = restTemplate.getForObject(getUrl("/v2/spaces/{guid}/summary"), String.class, urlVars); //$NON-NLS-1$
+		}
+		catch (HttpClientErrorException e) {
+			if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+				return null;
+			}
+			throw e;
+		}
+
+		Map<String, Object> summary = json != null ? JsonUtil.convertJsonToMap(json) : null;
+		if (summary == null) {
+			return null;
+		}
+
+		List<CFV1Application> applications = new ArrayList<CFV1Application>();
+		List<Map<String, Object>> apps = (List<Map<String, Object>>) summary.get("apps"); //$NON-NLS-1$
+		if (apps != null) {
+			for (Map<String, Object> app : apps) {
+				CloudApplication application = mapApplication(app, space);
+				if (application != null) {
+					applications.add(
+							new CFV1Application(getRunningStats(application.getRunningInstances()), application));
+				}
+			}
+		}
+		return applications;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected CloudApplication mapApplication(Map<String, Object> app, CloudSpace space) {
+		String name = getValue(app, "name", String.class); //$NON-NLS-1$
+		String guid = getValue(app, "guid", String.class); //$NON-NLS-1$
+		if (name == null || guid == null) {
+			return null;
+		}
+
+		CloudApplication application = new CloudApplication(getMeta(app, guid), name);
+		application.setSpace(space);
+		application.setInstances(getInt(app, "instances")); //$NON-NLS-1$
+		application.setRunningInstances(getInt(app, "running_instances")); //$NON-NLS-1$
+		application.setMemory(getInt(app, "memory")); //$NON-NLS-1$
+		application.setDiskQuota(getInt(app, "disk_quota")); //$NON-NLS-1$
+
+		String state = getValue(app, "state", String.class); //$NON-NLS-1$
+		if (state != null) {
+			try {
+				application.setState(AppState.valueOf(state));
+			}
+			catch (IllegalArgumentException e) {
+				// State added in a newer Cloud Controller. Leave the state
+				// unknown rather than failing the whole refresh
+				CloudFoundryPlugin.logWarning("Unknown state " + state + " of application " + name); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		List<String> urls = getValue(app, "urls", List.class); //$NON-NLS-1$
+		application.setUris(urls != null ? urls : new ArrayList<String>());
+		List<String> serviceNames = getValue(app, "service_names", List.class); //$NON-NLS-1$
+		application.setServices(serviceNames != null ? serviceNames : new ArrayList<String>());
+
+		Map<Object, Object> env = getValue(app, "environment_json", Map.class); //$NON-NLS-1$
+		if (env != null) {
+			application.setEnv(env);
+		}
+
+		Boolean diego = getValue(app, "diego", Boolean.class); //$NON-NLS-1$
+		application.setDiego(diego != null && diego);
+		Boolean enableSsh = getValue(app, "enable_ssh", Boolean.class); //$NON-NLS-1$
+		application.setEnableSsh(enableSsh != null && enableSsh);
+
+		Number healthCheckTimeout = getValue(app, "health_check_timeout", Number.class); //$NON-NLS-1$
+		application.setStaging(Staging.builder().command(getValue(app, "command", String.class)) //$NON-NLS-1$
+				.buildpack(getValue(app, "buildpack", String.class)) //$NON-NLS-1$
+				.detectedBuildpack(getValue(app, "detected_buildpack", String.class)) //$NON-NLS-1$
+				.healthCheckTimeout(healthCheckTimeout != null ? healthCheckTimeout.intValue() : null)
+				.healthCheckHttpEndpoint(getValue(app, "health_check_http_endpoint", String.class)) //$NON-NLS-1$
+				.healthCheckType(HealthCheckType.from(getValue(app, "health_check_type", String.class))) //$NON-NLS-1$
+				.build());
+
+		return application;
+	}
+
+	/**
+	 * Summary apps have no metadata section. Timestamps are read from the app
+	 * itself. If the app has no update timestamp, the time its package was
+	 * last updated is used instead.
+	 */
+	protected Meta getMeta(Map<String, Object> app, String guid) {
+		Map<String, Object> metadata = new HashMap<String, Object>();
+		metadata.put("guid", guid); //$NON-NLS-1$
+		metadata.put("created_at", getValue(app, "created_at", String.class)); //$NON-NLS-1$ //$NON-NLS-2$
+		String updated = getValue(app, "updated_at", String.class); //$NON-NLS-1$
+		metadata.put("updated_at", updated != null ? updated : getValue(app, "package_updated_at", String.class)); //$NON-NLS-1$ //$NON-NLS-2$
+		// Dates are parsed as for applications fetched individually
+		return CloudEntityResourceMapper.getMeta(Collections.<String, Object> singletonMap("metadata", metadata)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return stats with one running record per running instance, or null if
+	 * no instances are running
+	 */
+	public static ApplicationStats getRunningStats(int runningInstances) {
+		if (runningInstances <= 0) {
+			return null;
+		}
+		List<InstanceStats> records = new ArrayList<InstanceStats>(runningInstances);
+		for (int i = 0; i < runningInstances; i++) {
+			Map<String, Object> attributes = new HashMap<String, Object>();
+			attributes.put("state", InstanceState.RUNNING.name()); //$NON-NLS-1$
+			records.add(new InstanceStats(String.valueOf(i), attributes));
+		}
+		return new ApplicationStats(records);
+	}
+
+	protected static int getInt(Map<String, Object> values, String key) {
+		Number value = getValue(values, key, Number.class);
+		return value != null ? value.intValue() : 0;
+	}
+
+	protected static <T> T getValue(Map<String, Object> values, String key, Class<T> type) {
+		Object value = values.get(key);
+		return type.isInstance(value) ? type.cast(value) : null;
+	}
+
+	public static SpaceSummarySupport create(CloudFoundryOperations client, CFInfo cloudInfo,
+			HttpProxyConfiguration proxyConf, CloudFoundryServer cfServer, boolean selfSigned) {
+		return new SpaceSummarySupport(client, cloudInfo, proxyConf, cfServer, selfSigned);
+	}
+}
@@ -30,12 +30,15 @@ import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.cloudfoundry.client.lib.UploadStatusCallback;
 import org.cloudfoundry.client.lib.archive.ApplicationArchive;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.eclipse.cft.server.core.ArchiveEntry;
 import org.eclipse.cft.server.core.CFApplicationArchive;
 import org.eclipse.cft.server.core.internal.ApplicationAction;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.core.internal.Messages;
+import org.eclipse.cft.server.core.internal.PublishTelemetry;
+import org.eclipse.cft.server.core.internal.PublishTelemetry.Phase;
 import org.eclipse.cft.server.core.internal.application.ApplicationUtil;
 import org.eclipse.cft.server.core.internal.application.CachingApplicationArchive;
 import org.eclipse.core.runtime.CoreException;
@@ -113,6 +116,47 @@ public class StartOperation extends RestartOperation {
 	@Override
 	protected void performDeployment(CloudFoundryApplicationModule appModule, IProgressMonitor monitor)
 			throws CoreException {
+		IModule actualModule = getModules() != null && getModules().length > 0 ? getModules()[0] : null;
+		telemetry = actualModule != null && !actualModule.isExternal()
+				? new PublishTelemetry(actualModule.getName(), appModule.getDeployedApplicationName(),
+						incrementalPublish)
+				: null;
+		boolean success = false;
+		try {
+			pushAndStartApplication(appModule, monitor);
+			success = true;
+		}
+		finally {
+			publishCompleted(appModule, success);
+		}
+	}
+
+	/**
+	 * Records the telemetry of the publish in the module history, and shows a
+	 * summary in the application console if the publish succeeded
+	 * @param appModule
+	 * @param success
+	 */
+	protected void publishCompleted(CloudFoundryApplicationModule appModule, boolean success) {
+		if (telemetry == null) {
+			return;
+		}
+		telemetry.setSuccess(success);
+		CloudFoundryPlugin.trace(telemetry.getSummary());
+		CloudFoundryPlugin.getPublishHistory().add(telemetry);
+		if (success) {
+			try {
+				getBehaviour().printlnToConsole(appModule, telemetry.getSummary());
+			}
+			catch (CoreException e) {
+				// The publish succeeded. Only the summary is not shown.
+				CloudFoundryPlugin.logError(e);
+			}
+		}
+	}
+
+	protected void pushAndStartApplication(CloudFoundryApplicationModule appModule, IProgressMonitor monitor)
+			throws CoreException {
 		final Server server = (Server) getBehaviour().getServer();
 		final CloudFoundryServer cloudServer = getBehaviour().getCloudFoundryServer();
 
@@ -139,9 +183,13 @@ public class StartOperation extends RestartOperation {
 			SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
 
 			subMonitor.subTask(generatingArchiveLabel);
+			long packagingStart = PublishTelemetry.start();
 			CFApplicationArchive applicationArchive = getBehaviour().generateApplicationArchiveFile(
 					appModule.getDeploymentInfo(), appModule, getModules(), server, incrementalPublish,
 					subMonitor.newChild(20));
+			if (telemetry != null) {
+				telemetry.end(Phase.PACKAGING, packagingStart);
+			}
 			if (applicationArchive == null) {
 				// An app archive must be always available, so if we reached
 				// this point and we have none
@@ -262,56 +310,12 @@ public class StartOperation extends RestartOperation {
 				// AFTER
 				// the server determines the list of missing file names.
 				try {
-					if (applicationArchive instanceof CachingApplicationArchive) {
-						final CachingApplicationArchive cachingArchive = (CachingApplicationArchive) applicationArchive;
-						ApplicationArchive v1ArchiveWrapper = ApplicationUtil.asV1ApplicationArchive(cachingArchive);
-						client.uploadApplication(appName, v1ArchiveWrapper, new UploadStatusCallback() {
-
-							public void onProcessMatchedResources(int length) {
-
-							}
-
-							public void onMatchedFileNames(Set<String> matchedFileNames) {
-								cachingArchive.generatePartialWarFile(matchedFileNames);
-							}
-
-							public void onCheckResources() {
-
-							}
-
-							public boolean onProgress(String status) {
-								return false;
-							}
-						});
-
-						// Once the application has run, do a clean up of the
-						// sha1
-						// cache for deleted resources
-
-					}
-					else {
-						ApplicationArchive v1ArchiveWrapper = ApplicationUtil
-								.asV1ApplicationArchive(applicationArchive);
-
-						client.uploadApplication(appName, v1ArchiveWrapper, new UploadStatusCallback() {
-
-							public void onProcessMatchedResources(int length) {
-
-							}
-
-							public void onMatchedFileNames(Set<String> matchedFileNames) {
-
-							}
-
-							public void onCheckResources() {
-
-							}
+					ApplicationArchive v1ArchiveWrapper = ApplicationUtil.asV1ApplicationArchive(applicationArchive,
+							telemetry);
+					PublishStatusCallback callback = new PublishStatusCallback(applicationArchive);
+					client.uploadApplication(appName, v1ArchiveWrapper, callback);
+					callback.uploadCompleted();
 
-							public boolean onProgress(String status) {
-								return false;
-							}
-						});
-					}
 					// Check for cancel
 					if (monitor.isCanceled()) {
 						throw new OperationCanceledException(
@@ -364,4 +368,83 @@ public class StartOperation extends RestartOperation {
 			CloudFoundryPlugin.logError(e);
 		}
 	}
+
+	/**
+	 * Generates the partial archive of an incremental publish once the
+	 * resources that already exist in the Cloud are known, and records the
+	 * time spent in each phase of the upload.
+	 */
+	protected class PublishStatusCallback implements UploadStatusCallback {
+
+		private final CFApplicationArchive applicationArchive;
+
+		private long phaseStart;
+
+		private long digestingAtPhaseStart;
+
+		public PublishStatusCallback(CFApplicationArchive applicationArchive) {
+			this.applicationArchive = applicationArchive;
+			startPhase();
+		}
+
+		protected void startPhase() {
+			phaseStart = PublishTelemetry.start();
+			digestingAtPhaseStart = telemetry != null ? telemetry.getTime(Phase.DIGESTING) : 0;
+		}
+
+		public void onCheckResources() {
+			if (telemetry != null) {
+				// The client digests the entries before asking the server for
+				// the known resources, so only the remaining time is matching
+				long elapsed = System.nanoTime() - phaseStart;
+				long digesting = telemetry.getTime(Phase.DIGESTING) - digestingAtPhaseStart;
+				telemetry.addTime(Phase.RESOURCE_MATCHING, elapsed - digesting);
+			}
+		}
+
+		public void onMatchedFileNames(Set<String> matchedFileNames) {
+			if (telemetry != null) {
+				Iterable<ArchiveEntry> entries = applicationArchive.getEntries();
+				if (entries != null) {
+					for (ArchiveEntry entry : entries) {
+						if (!entry.isDirectory()) {
+							telemetry.addFile(entry.getSize(),
+									matchedFileNames != null && matchedFileNames.contains(entry.getName()));
+						}
+					}
+				}
+			}
+
+			if (applicationArchive instanceof CachingApplicationArchive) {
+				long start = PublishTelemetry.start();
+				((CachingApplicationArchive) applicationArchive).generatePartialWarFile(matchedFileNames);
+				if (telemetry != null) {
+					telemetry.end(Phase.PARTIAL_ARCHIVE, start);
+				}
+			}
+			startPhase();
+		}
+
+		public void onProcessMatchedResources(int length) {
+			if (telemetry != null) {
+				telemetry.setUploadedBytes(length);
+			}
+		}
+
+		public boolean onProgress(String status) {
+			return false;
+		}
+
+		/**
+		 * Records the time since the partial archive was generated as upload
+		 * time, including the time for the server to process the upload
+		 */
+		public void uploadCompleted() {
+			if (telemetry != null) {
+				long elapsed = System.nanoTime() - phaseStart;
+				long digesting = telemetry.getTime(Phase.DIGESTING) - digestingAtPhaseStart;
+				telemetry.addTime(Phase.UPLOAD, elapsed - digesting);
+			}
+		}
+	}
 }
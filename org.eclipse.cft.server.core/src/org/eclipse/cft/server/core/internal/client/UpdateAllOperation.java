@@ -20,29 +20,59 @@
  ********************************************************************************/
 package org.eclipse.cft.server.core.internal.client;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.cloudfoundry.client.lib.domain.ApplicationStats;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.client.lib.domain.InstanceState;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
 import org.eclipse.cft.server.core.CFServiceInstance;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.core.internal.Messages;
 import org.eclipse.cft.server.core.internal.ServerEventHandler;
+import org.eclipse.cft.server.core.internal.ServerOperationsExecutor;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
 
 /**
  * Updates all modules and services in the server
+ * <p/>
+ * Apps are updated from the space summary, which lists all apps with their
+ * number of running instances in one request. Complete app information and
+ * instance stats are then only fetched for apps that need them: apps deployed
+ * from the workspace, apps that changed since the last refresh, and apps
+ * whose instances are not all running. If the Cloud Controller does not
+ * support space summaries, all apps are fetched individually instead.
+ * <p/>
+ * Complete app information is fetched on the executor of the server (see
+ * {@link CloudFoundryServerBehaviour#getOperationsExecutor()}), so that the
+ * refresh of a slow target does not delay the refresh of other servers.
  *
  */
 public class UpdateAllOperation extends CFOperation {
 
+	private static final long CANCEL_CHECK_INTERVAL = 200;
+
 	public UpdateAllOperation(CloudFoundryServerBehaviour behaviour) {
 		super(behaviour);
 	}
@@ -76,19 +106,172 @@ public class UpdateAllOperation extends CFOperation {
 			return;
 		}
 
-		// Split refresh of apps into two parts:
+		if (updateAppsFromSpaceSummary(cloudServer, subMonitor.newChild(80))) {
+			saveSnapshot(services, subMonitor);
+			return;
+		}
+
+		// Otherwise split refresh of apps into two parts:
 
 		// 1. Faster update of apps with basic info to refresh Servers view
 		// quicker
 		List<CloudApplication> applications = updateBasicListOfApps(cloudServer, subMonitor.newChild(30));
+		cloudServer.setModuleStateStale(false);
 		ServerEventHandler.getDefault().fireModulesUpdated(cloudServer, cloudServer.getServer().getModules());
 
 		// 2. Slower update of apps with stats, service bindings, etc..
 		updateCompleteApps(applications, cloudServer, subMonitor.newChild(70));
 
+		saveSnapshot(services, subMonitor);
 		subMonitor.worked(20);
 	}
 
+	/**
+	 * Saves the refreshed apps and services, so that they are shown right
+	 * away when the workbench starts again. Nothing is saved if the refresh
+	 * was cancelled, as some apps may not be updated.
+	 */
+	protected void saveSnapshot(List<CFServiceInstance> services, IProgressMonitor monitor) {
+		if (!isCanceled(monitor)) {
+			getBehaviour().saveModuleStateSnapshot(services);
+		}
+	}
+
+	/**
+	 * Updates all apps from the space summary, and fetches complete app
+	 * information and stats only for apps that require it.
+	 * @return true if apps were updated, false if space summaries are not
+	 * supported
+	 */
+	protected boolean updateAppsFromSpaceSummary(CloudFoundryServer cloudServer, SubMonitor subMonitor)
+			throws CoreException {
+		List<CFV1Application> summaryApps = getBehaviour().getSpaceSummaryApplications(subMonitor.newChild(30));
+		if (summaryApps == null) {
+			return false;
+		}
+
+		if (isCanceled(subMonitor)) {
+			return true;
+		}
+
+		// Modules are updated in place, so keep the app and stats that each
+		// module had before this refresh to find apps that changed
+		Map<String, CloudFoundryApplicationModule> previousModules = new HashMap<String, CloudFoundryApplicationModule>();
+		Map<String, CFV1Application> previousApps = new HashMap<String, CFV1Application>();
+		for (CloudFoundryApplicationModule appModule : cloudServer.getExistingCloudModules()) {
+			String name = appModule.getDeployedApplicationName();
+			previousModules.put(name, appModule);
+			previousApps.put(name, new CFV1Application(appModule.getApplicationStats(), appModule.getApplication()));
+		}
+
+		Map<String, CloudApplication> deployedApplicationsByName = new LinkedHashMap<String, CloudApplication>();
+		Map<String, ApplicationStats> stats = new LinkedHashMap<String, ApplicationStats>();
+		List<CloudApplication> completeUpdates = new ArrayList<CloudApplication>();
+
+		for (CFV1Application summaryApp : summaryApps) {
+			CloudApplication application = summaryApp.getApplication();
+			String name = application.getName();
+			CFV1Application previousApp = previousApps.get(name);
+
+			deployedApplicationsByName.put(name, application);
+
+			boolean changed = previousApp == null || hasChanged(previousApp, application);
+			if (requiresCompleteUpdate(application, previousModules.get(name), changed)) {
+				completeUpdates.add(application);
+			}
+
+			// Keep detailed stats of a previous refresh while the app is
+			// unchanged, as the summary only has the number of running
+			// instances
+			stats.put(name, !changed && previousApp.getStats() != null ? previousApp.getStats() : summaryApp.getStats());
+		}
+
+		// Unlike basic apps, summary apps have complete deployment
+		// information, so existing modules can be updated as well
+		boolean updateCloudMappingInExistingModules = true;
+		cloudServer.addAndDeleteModules(deployedApplicationsByName, stats, updateCloudMappingInExistingModules);
+
+		// Skip modules that are starting
+		cloudServer.updateModulesState(new int[] { IServer.STATE_STARTING });
+
+		for (IModule module : cloudServer.getServer().getModules()) {
+			CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(module);
+			if (appModule != null && appModule.exists()) {
+				try {
+					appModule.validateAndUpdateStatus();
+				}
+				catch (CoreException e) {
+					CloudFoundryPlugin.logError(e);
+				}
+			}
+		}
+		cloudServer.setModuleStateStale(false);
+		ServerEventHandler.getDefault().fireModulesUpdated(cloudServer, cloudServer.getServer().getModules());
+
+		if (!isCanceled(subMonitor)) {
+			updateCompleteApps(completeUpdates, cloudServer, subMonitor.newChild(50));
+		}
+		return true;
+	}
+
+	/**
+	 * @param application app from the space summary
+	 * @param appModule module of the app before the refresh, or null if the
+	 * app is new
+	 * @param changed whether the app changed since the previous refresh
+	 * @return true if complete app information and instance stats should be
+	 * fetched for the app
+	 */
+	protected boolean requiresCompleteUpdate(CloudApplication application, CloudFoundryApplicationModule appModule,
+			boolean changed) {
+		// Instances that are starting, crashed or flapping are only known from
+		// the stats
+		if (application.getState() == AppState.STARTED
+				&& application.getRunningInstances() < application.getInstances()) {
+			return true;
+		}
+		// New apps are shown with summary information until they change, so
+		// that the first refresh of a large space does not fetch every app
+		if (appModule == null) {
+			return false;
+		}
+		// Apps deployed from the workspace are those that are published,
+		// debugged and shown in the editor
+		return changed || !appModule.isExternal();
+	}
+
+	protected boolean hasChanged(CFV1Application previousApp, CloudApplication application) {
+		CloudApplication previous = previousApp.getApplication();
+		if (previous == null) {
+			return true;
+		}
+		return previous.getState() != application.getState() || previous.getInstances() != application.getInstances()
+				|| getRunningInstances(previousApp.getStats()) != application.getRunningInstances()
+				|| previous.getMemory() != application.getMemory()
+				|| previous.getDiskQuota() != application.getDiskQuota()
+				|| !isSameElements(previous.getUris(), application.getUris())
+				|| !isSameElements(previous.getServices(), application.getServices());
+	}
+
+	protected static int getRunningInstances(ApplicationStats stats) {
+		int running = 0;
+		if (stats != null && stats.getRecords() != null) {
+			for (InstanceStats instance : stats.getRecords()) {
+				if (instance != null && instance.getState() == InstanceState.RUNNING) {
+					running++;
+				}
+			}
+		}
+		return running;
+	}
+
+	protected static boolean isSameElements(Collection<String> first, Collection<String> second) {
+		if (first == null || first.isEmpty()) {
+			return second == null || second.isEmpty();
+		}
+		return second != null && new HashSet<String>(first).equals(new HashSet<String>(second));
+	}
+
 	protected List<CloudApplication> updateBasicListOfApps(CloudFoundryServer cloudServer, SubMonitor subMonitor)
 			throws CoreException {
 		// Get updated list of cloud applications from the server
@@ -119,29 +302,130 @@ public class UpdateAllOperation extends CFOperation {
 
 	protected void updateCompleteApps(List<CloudApplication> applications, CloudFoundryServer cloudServer,
 			SubMonitor subMonitor) throws CoreException {
-		if (applications == null) {
+		if (applications == null || applications.isEmpty()) {
+			return;
+		}
+		subMonitor.setWorkRemaining(applications.size());
+
+		// Requests share a monitor that is only used for cancellation, as
+		// the sub monitor is not thread safe
+		final IProgressMonitor requestMonitor = new SharedCancelMonitor(subMonitor);
+		ServerOperationsExecutor executor = getBehaviour().getOperationsExecutor();
+		long runInSubmitter = executor.getStatistics().getRejected();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		try {
+			for (final CloudApplication cloudApp : applications) {
+				futures.add(executor.submit(new Callable<Void>() {
+
+					public Void call() throws Exception {
+						updateCompleteApp(cloudApp, cloudServer, requestMonitor);
+						return null;
+					}
+				}));
+			}
+		}
+		catch (RejectedExecutionException e) {
+			// Server was disposed while refreshing
+			cancel(futures);
 			return;
 		}
-		applications.parallelStream().forEach((cloudApp) -> {
-			if (isCanceled(subMonitor)) {
-				return;
+
+		// Requests are only retried within the request timeout, but a request
+		// may hang on an unresponsive server. Each app update is therefore
+		// given the request timeout, so that one app does not block the
+		// refresh of the others
+		long timeout = cloudServer.getRequestTimeout();
+		int timedOut = 0;
+		for (int i = 0; i < futures.size(); i++) {
+			if (!waitForCompletion(futures.get(i), timeout, subMonitor)) {
+				timedOut++;
+				CloudFoundryPlugin.logWarning(NLS.bind(Messages.UpdateAllOperation_APP_REFRESH_TIMEOUT,
+						new Object[] { applications.get(i).getName(), cloudServer.getServer().getName(), timeout }));
 			}
+			subMonitor.worked(1);
+		}
+
+		ServerOperationsExecutor.Statistics statistics = executor.getStatistics();
+		if (timedOut > 0 || statistics.getRejected() > runInSubmitter) {
+			// The queue was full or requests hung, so the server may need a
+			// lower parallelism or a longer timeout
+			CloudFoundryPlugin.logInfo(NLS.bind(Messages.UpdateAllOperation_REFRESH_QUEUE_STATISTICS,
+					new Object[] { cloudServer.getServer().getName(), timedOut, statistics }));
+		}
+		else {
+			CloudFoundryPlugin.trace(statistics.toString());
+		}
+	}
+
+	protected void updateCompleteApp(CloudApplication cloudApp, CloudFoundryServer cloudServer,
+			IProgressMonitor monitor) {
+		if (isCanceled(monitor)) {
+			return;
+		}
+		try {
+			CFV1Application updatedApplication = getBehaviour().getCompleteApplication(cloudApp, monitor);
+			if (updatedApplication != null && updatedApplication.getStats() != null) {
+				CloudFoundryApplicationModule appModule = cloudServer.updateModule(updatedApplication.getApplication(),
+						updatedApplication.getApplication().getName(), updatedApplication.getStats(), monitor);
+				if (appModule != null) {
+					appModule.validateAndUpdateStatus();
+					ServerEventHandler.getDefault().fireModuleUpdated(cloudServer, appModule.getLocalModule());
+				}
+			}
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+		}
+		catch (OperationCanceledException e) {
+			// Refresh was cancelled
+		}
+	}
+
+	/**
+	 * Waits for an app update to complete. Apps that have not started updating
+	 * are skipped if the refresh is cancelled.
+	 * @param future of the app update
+	 * @param timeout time in milliseconds to wait for the update before it is
+	 * cancelled. The running request is interrupted.
+	 * @param monitor
+	 * @return false if the update timed out, true otherwise
+	 */
+	protected boolean waitForCompletion(Future<?> future, long timeout, IProgressMonitor monitor) {
+		long deadline = System.currentTimeMillis() + timeout;
+		while (true) {
 			try {
-				CFV1Application updatedApplication = getBehaviour().getCompleteApplication(cloudApp, subMonitor);
-				if (updatedApplication != null && updatedApplication.getStats() != null) {
-					CloudFoundryApplicationModule appModule = cloudServer.updateModule(
-							updatedApplication.getApplication(), updatedApplication.getApplication().getName(),
-							updatedApplication.getStats(), subMonitor);
-					if (appModule != null) {
-						appModule.validateAndUpdateStatus();
-						ServerEventHandler.getDefault().fireModuleUpdated(cloudServer, appModule.getLocalModule());
-					}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					future.cancel(true);
+					return future.isDone() && !future.isCancelled();
 				}
+				future.get(Math.min(CANCEL_CHECK_INTERVAL, remaining), TimeUnit.MILLISECONDS);
+				return true;
 			}
-			catch (CoreException e) {
-				CloudFoundryPlugin.logError(e);
+			catch (TimeoutException e) {
+				if (isCanceled(monitor)) {
+					future.cancel(false);
+					return true;
+				}
 			}
-			subMonitor.worked(1);
-		});
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.cancel(false);
+				return true;
+			}
+			catch (ExecutionException e) {
+				CloudFoundryPlugin.logError(e.getCause());
+				return true;
+			}
+			catch (CancellationException e) {
+				return true;
+			}
+		}
+	}
+
+	protected void cancel(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			future.cancel(false);
+		}
 	}
 }
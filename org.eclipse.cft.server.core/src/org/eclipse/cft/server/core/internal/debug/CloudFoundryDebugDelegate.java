@@ -56,6 +56,12 @@ public abstract class CloudFoundryDebugDelegate extends AbstractJavaLaunchConfig
 
 	public static final String CLOUD_DEBUG_REMOTE_DEBUG_PORT = "cloudDebugRemoteDebugPort"; //$NON-NLS-1$
 
+	/**
+	 * Names of the workspace projects mapped to the application module and
+	 * its child modules, used to look up sources.
+	 */
+	public static final String CLOUD_DEBUG_SOURCE_PROJECTS = "cloudDebugSourceProjects"; //$NON-NLS-1$
+
 	public static final String TIME_OUT = "timeout"; //$NON-NLS-1$
 
 	public static final String HOST_NAME = "hostname"; //$NON-NLS-1$
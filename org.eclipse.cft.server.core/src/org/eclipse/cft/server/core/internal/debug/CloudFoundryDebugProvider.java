@@ -20,6 +20,9 @@
  ********************************************************************************/
 package org.eclipse.cft.server.core.internal.debug;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.cft.server.core.AbstractDebugProvider;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
@@ -122,6 +125,8 @@ public abstract class CloudFoundryDebugProvider extends AbstractDebugProvider {
 			wc.setAttribute(CloudFoundryDebugDelegate.CLOUD_DEBUG_APP_NAME, appModule.getDeployedApplicationName());
 			wc.setAttribute(CloudFoundryDebugDelegate.CLOUD_DEBUG_APP_INSTANCE, appInstance);
 			wc.setAttribute(CloudFoundryDebugDelegate.CLOUD_DEBUG_REMOTE_DEBUG_PORT, remoteDebugPort);
+			wc.setAttribute(CloudFoundryDebugDelegate.CLOUD_DEBUG_SOURCE_PROJECTS,
+					getSourceProjectNames(module, server, monitor));
 			wc.setAttribute(CloudFoundryDebugDelegate.CLOUD_DEBUG_APP_LAUNCH_ID,
 					getApplicationDebugLaunchId(module, server, appInstance));
 
@@ -134,6 +139,30 @@ public abstract class CloudFoundryDebugProvider extends AbstractDebugProvider {
 
 	}
 
+	/**
+	 * @return names of the accessible projects of the given module and its
+	 * child modules. Debug launches only look up sources in these projects
+	 * (and the projects they require).
+	 */
+	protected List<String> getSourceProjectNames(IModule module, IServer server, IProgressMonitor monitor) {
+		List<String> names = new ArrayList<String>();
+		addProjectName(module, names);
+		IModule[] children = server.getChildModules(new IModule[] { module }, monitor);
+		if (children != null) {
+			for (IModule child : children) {
+				addProjectName(child, names);
+			}
+		}
+		return names;
+	}
+
+	private void addProjectName(IModule module, List<String> names) {
+		IProject project = module.getProject();
+		if (project != null && project.isAccessible() && !names.contains(project.getName())) {
+			names.add(project.getName());
+		}
+	}
+
 	/**
 	 * Get the CloudFoundryServer for the given IServer
 	 * @param server The server
@@ -21,8 +21,12 @@
 package org.eclipse.cft.server.core.internal.debug;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -48,12 +52,7 @@ public class CloudFoundryDebugSourceLocator implements ISourcePathComputer {
 
 	public ISourceContainer[] computeSourceContainers(ILaunchConfiguration configuration, IProgressMonitor monitor)
 			throws CoreException {
-		List<IRuntimeClasspathEntry> entries = new ArrayList<IRuntimeClasspathEntry>();
-
 		IRuntimeClasspathEntry jreEntry = JavaRuntime.computeJREEntry(configuration);
-		if (jreEntry != null) {
-			entries.add(jreEntry);
-		}
 
 		String projectName = configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_PROJECT_NAME, ""); //$NON-NLS-1$
 		
@@ -61,16 +60,48 @@ public class CloudFoundryDebugSourceLocator implements ISourcePathComputer {
 			return null;
 		}
 
-		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
-			IJavaProject javaProject = JavaCore.create(project);
-			if (javaProject != null && javaProject.isOpen() && ("".equals(projectName) || projectName.equals(javaProject.getElementName()))) { //$NON-NLS-1$
-				entries.add(JavaRuntime.newDefaultProjectClasspathEntry(javaProject));
+		// Resolving the source lookup path is expensive, so it is cached
+		// until a classpath changes
+		IRuntimeClasspathEntry[] resolved = CloudFoundryPlugin.getSourceLookupCache().getSourceLookupPath(
+				configuration, jreEntry, getSourceProjects(configuration, projectName));
+		return JavaRuntime.getSourceContainers(resolved);
+	}
+
+	/**
+	 * Returns the projects to look up sources in, sorted by name. These are
+	 * the projects mapped to the application module, if known. All open Java
+	 * projects in the workspace are only used if the launch has no mapped
+	 * projects.
+	 */
+	protected List<IJavaProject> getSourceProjects(ILaunchConfiguration configuration, String projectName)
+			throws CoreException {
+		List<String> projectNames = new ArrayList<String>(configuration.getAttribute(
+				CloudFoundryDebugDelegate.CLOUD_DEBUG_SOURCE_PROJECTS, Collections.<String> emptyList()));
+		if (!"".equals(projectName) && !projectNames.contains(projectName)) { //$NON-NLS-1$
+			projectNames.add(projectName);
+		}
+
+		Map<String, IJavaProject> projects = new TreeMap<String, IJavaProject>();
+		if (projectNames.isEmpty()) {
+			for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+				addJavaProject(project, projects);
+			}
+		}
+		else {
+			for (String name : projectNames) {
+				addJavaProject(ResourcesPlugin.getWorkspace().getRoot().getProject(name), projects);
 			}
 		}
+		return new ArrayList<IJavaProject>(projects.values());
+	}
 
-		IRuntimeClasspathEntry[] resolved = JavaRuntime.resolveSourceLookupPath( //
-				entries.toArray(new IRuntimeClasspathEntry[entries.size()]), configuration);
-		return JavaRuntime.getSourceContainers(resolved);
+	private void addJavaProject(IProject project, Map<String, IJavaProject> projects) {
+		if (project.isAccessible()) {
+			IJavaProject javaProject = JavaCore.create(project);
+			if (javaProject != null && javaProject.isOpen()) {
+				projects.put(javaProject.getElementName(), javaProject);
+			}
+		}
 	}
 
 	public String getId() {
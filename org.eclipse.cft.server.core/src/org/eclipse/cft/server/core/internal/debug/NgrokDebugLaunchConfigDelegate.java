@@ -158,32 +158,17 @@ public class NgrokDebugLaunchConfigDelegate extends CloudFoundryDebugDelegate {
 
 		configureApp(appModule, cloudServer, appInstance, remoteDebugPort, subMonitor);
 
-		String fileContent = NgrokDebugProvider.getFileContent(appModule, cloudServer, remoteNgrokOutputFile,
-				subMonitor);
-
-		if (fileContent.indexOf("Tunnel established at tcp://ngrok.com:") > -1) { //$NON-NLS-1$
-			String pattern = "Tunnel established at tcp://ngrok.com:"; //$NON-NLS-1$
-			int start = fileContent.indexOf(pattern);
-			String sub = fileContent.substring(start);
-			int end = sub.indexOf('\n');
-			sub = sub.substring(pattern.length(), end);
-			int port = Integer.parseInt(sub.trim());
-
-			DebugConnectionDescriptor descriptor = new DebugConnectionDescriptor("ngrok.com", port); //$NON-NLS-1$
-
-			if (!descriptor.isValid()) {
-				throw CloudErrorUtil.toCoreException(
-						"Invalid port:" + descriptor.getPort() + " or ngrok server address: " + descriptor.getHost() //$NON-NLS-1$ //$NON-NLS-2$
-								+ " parsed from ngrok output file in the Cloud."); //$NON-NLS-1$
-			}
-			return descriptor;
-		}
-		else {
+		// Resolves as soon as the tunnel is known, from the app logs or the
+		// ngrok output file
+		DebugConnectionDescriptor descriptor = new NgrokTunnelWatcher(appModule, cloudServer, remoteNgrokOutputFile)
+				.waitForTunnel(subMonitor);
+
+		if (!descriptor.isValid()) {
 			throw CloudErrorUtil.toCoreException(
-					"Unable to parse port or ngrok server address from the ngrok output file in the Cloud for " //$NON-NLS-1$
-							+ appModule.getDeployedApplicationName()
-							+ ". Please verify that ngrok executable is present in the application deployment and running in the Cloud"); //$NON-NLS-1$
+					"Invalid port:" + descriptor.getPort() + " or ngrok server address: " + descriptor.getHost() //$NON-NLS-1$ //$NON-NLS-2$
+							+ " parsed from ngrok output file in the Cloud."); //$NON-NLS-1$
 		}
+		return descriptor;
 	}
 
 }
@@ -20,14 +20,10 @@
  ********************************************************************************/
 package org.eclipse.cft.server.core.internal.debug;
 
-import org.cloudfoundry.client.lib.domain.CloudApplication;
-import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
 import org.eclipse.cft.server.core.EnvironmentVariable;
-import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryProjectUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
-import org.eclipse.cft.server.core.internal.client.AbstractWaitWithProgressJob;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -35,9 +31,6 @@ import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.OperationCanceledException;
-import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaModelException;
@@ -52,79 +45,6 @@ public class NgrokDebugProvider extends CloudFoundryDebugProvider {
 
 	public static final String JAVA_OPTS = "JAVA_OPTS"; //$NON-NLS-1$
 
-	/**
-	 * @return non-null file content
-	 * @throws CoreException if error occurred, or file not found
-	 */
-	public static String getFileContent(final CloudFoundryApplicationModule appModule,
-			final CloudFoundryServer cloudServer, final String outputFilePath, IProgressMonitor monitor)
-					throws CoreException, OperationCanceledException {
-
-		final int attempts = 100;
-		SubMonitor subMonitor = SubMonitor.convert(monitor, 100 * attempts);
-		String content = null;
-		CoreException error = null;
-		try {
-			content = new AbstractWaitWithProgressJob<String>(attempts, 3000, true) {
-
-				protected String runInWait(IProgressMonitor monitor) throws CoreException {
-					if (monitor.isCanceled()) {
-						return null;
-					}
-					SubMonitor subMonitor = SubMonitor.convert(monitor);
-					CloudApplication app = null;
-					try {
-						app = cloudServer.getBehaviour().getCloudApplication(appModule.getDeployedApplicationName(),
-								subMonitor.newChild(50));
-					}
-					catch (CoreException e) {
-						// Handle app errors separately
-						CloudFoundryPlugin.logError(e);
-					}
-
-					// Stop checking for the file if the application no longer
-					// exists or is not running
-					if (app != null && app.getState() == AppState.STARTED) {
-						boolean isDir = false;
-						return cloudServer.getBehaviour().getFile(appModule.getApplication(), 0,
-								outputFilePath, isDir, subMonitor.newChild(50));
-					}
-					else {
-						return null;
-					}
-				}
-
-				// Any result is valid for this operation, as errors are handled
-				// via exception
-				protected boolean isValid(String result) {
-					return true;
-				}
-
-			}.run(subMonitor);
-		}
-		catch (CoreException e) {
-			error = e;
-		}
-
-		if (subMonitor.isCanceled()) {
-			throw new OperationCanceledException();
-		}
-
-		if (content == null) {
-			String message = "Failed to connect debugger to Cloud application - Timed out fetching ngrok output file for: "//$NON-NLS-1$
-					+ appModule.getDeployedApplicationName()
-					+ ". Please verify that the ngrok output file exists in the Cloud or that the application is running correctly.";//$NON-NLS-1$
-			if (error != null) {
-				throw CloudErrorUtil.asCoreException(message, error, false);
-			}
-			else {
-				throw CloudErrorUtil.toCoreException(message);
-			}
-		}
-
-		return content;
-	}
-
 	@Override
 	public boolean isDebugSupported(IModule module, IServer server) {
 		try {
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal.debug;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.eclipse.cft.server.core.internal.CloudErrorUtil;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.cft.server.core.internal.CloudFoundryServer;
+import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.cft.server.core.internal.log.CFApplicationLogListener;
+import org.eclipse.cft.server.core.internal.log.CFStreamingLogToken;
+import org.eclipse.cft.server.core.internal.log.CloudLog;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Waits for the ngrok tunnel of an application to be established, and
+ * resolves its address.
+ * <p/>
+ * The ngrok output file in the Cloud is fetched with an adaptive back off:
+ * checks start after a short delay, which doubles after each attempt that
+ * does not find the tunnel. While waiting, the application log stream is
+ * watched. A log line with the tunnel address resolves it right away, without
+ * fetching the file. Other log output from ngrok means that the tunnel is
+ * starting, so the next check is done immediately and the delay is reset.
+ * Unrelated application output does not affect the checks.
+ * <p/>
+ * The application state is only checked periodically, instead of on every
+ * attempt, to reduce the number of requests while waiting.
+ */
+public class NgrokTunnelWatcher implements CFApplicationLogListener {
+
+	public static final String NGROK_HOST = "ngrok.com"; //$NON-NLS-1$
+
+	public static final String TUNNEL_ESTABLISHED = "Tunnel established at tcp://" + NGROK_HOST + ":"; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final long INITIAL_DELAY = 250;
+
+	private static final long MAX_DELAY = 4000;
+
+	private static final long APP_STATE_CHECK_INTERVAL = 10000;
+
+	private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+	private final CloudFoundryApplicationModule appModule;
+
+	private final CloudFoundryServer cloudServer;
+
+	private final String outputFilePath;
+
+	private final Object lock = new Object();
+
+	private DebugConnectionDescriptor tunnel;
+
+	private boolean wakeUp;
+
+	public NgrokTunnelWatcher(CloudFoundryApplicationModule appModule, CloudFoundryServer cloudServer,
+			String outputFilePath) {
+		this.appModule = appModule;
+		this.cloudServer = cloudServer;
+		this.outputFilePath = outputFilePath;
+	}
+
+	/**
+	 * Waits until the tunnel is established.
+	 * @param monitor
+	 * @return non-null address of the tunnel
+	 * @throws CoreException if the tunnel was not established in time, or the
+	 * application is not running
+	 * @throws OperationCanceledException if the monitor was cancelled
+	 */
+	public DebugConnectionDescriptor waitForTunnel(IProgressMonitor monitor)
+			throws CoreException, OperationCanceledException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor);
+		CFStreamingLogToken logToken = null;
+		try {
+			logToken = cloudServer.getBehaviour().startAppLogStreaming(appModule.getDeployedApplicationName(), this,
+					subMonitor.newChild(1));
+		}
+		catch (CoreException e) {
+			// Not critical. The output file is still checked
+			CloudFoundryPlugin.logError(e);
+		}
+
+		try {
+			return pollForTunnel(subMonitor);
+		}
+		finally {
+			if (logToken != null) {
+				logToken.cancel();
+			}
+		}
+	}
+
+	protected DebugConnectionDescriptor pollForTunnel(SubMonitor monitor) throws CoreException {
+		long start = System.currentTimeMillis();
+		long nextStateCheck = start;
+		long delay = INITIAL_DELAY;
+		CoreException lastError = null;
+
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+
+			DebugConnectionDescriptor descriptor = getTunnelFromLog();
+			if (descriptor != null) {
+				return descriptor;
+			}
+
+			long now = System.currentTimeMillis();
+			if (now - start > TIMEOUT) {
+				String message = "Failed to connect debugger to Cloud application - Timed out fetching ngrok output file for: "//$NON-NLS-1$
+						+ appModule.getDeployedApplicationName()
+						+ ". Please verify that the ngrok output file exists in the Cloud or that the application is running correctly.";//$NON-NLS-1$
+				if (lastError != null) {
+					throw CloudErrorUtil.asCoreException(message, lastError, false);
+				}
+				throw CloudErrorUtil.toCoreException(message);
+			}
+
+			if (now >= nextStateCheck) {
+				checkApplicationRunning(monitor);
+				nextStateCheck = now + APP_STATE_CHECK_INTERVAL;
+			}
+
+			try {
+				String content = cloudServer.getBehaviour().getFile(appModule.getApplication(), 0, outputFilePath,
+						false, monitor.newChild(1));
+				descriptor = parseTunnel(content);
+				if (descriptor != null) {
+					return descriptor;
+				}
+			}
+			catch (CoreException e) {
+				// Typically, the file does not exist yet
+				lastError = e;
+			}
+
+			if (waitForActivity(delay)) {
+				delay = INITIAL_DELAY;
+			}
+			else {
+				delay = Math.min(delay * 2, MAX_DELAY);
+			}
+		}
+	}
+
+	protected void checkApplicationRunning(IProgressMonitor monitor) throws CoreException {
+		CloudApplication app = null;
+		try {
+			app = cloudServer.getBehaviour().getCloudApplication(appModule.getDeployedApplicationName(), monitor);
+		}
+		catch (CoreException e) {
+			// Handle app errors separately
+			CloudFoundryPlugin.logError(e);
+			return;
+		}
+
+		// Stop checking for the file if the application no longer exists or
+		// is not running
+		if (app == null || app.getState() != AppState.STARTED) {
+			throw CloudErrorUtil.toCoreException("Failed to connect debugger to Cloud application - " //$NON-NLS-1$
+					+ appModule.getDeployedApplicationName()
+					+ " is not running. Please verify that the application is running correctly."); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Waits for the given delay, or until ngrok log output is received.
+	 * @return true if woken up by log output
+	 */
+	protected boolean waitForActivity(long delay) {
+		synchronized (lock) {
+			if (!wakeUp && tunnel == null) {
+				try {
+					lock.wait(delay);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+			}
+			boolean woken = wakeUp;
+			wakeUp = false;
+			return woken;
+		}
+	}
+
+	protected DebugConnectionDescriptor getTunnelFromLog() {
+		synchronized (lock) {
+			return tunnel;
+		}
+	}
+
+	public void onMessage(CloudLog log) {
+		// Log messages are single lines without a line terminator
+		String message = log != null ? log.getMessage() : null;
+		DebugConnectionDescriptor descriptor = message != null ? parseTunnel(message + '\n') : null;
+		if (descriptor == null && (message == null || !message.toLowerCase().contains("ngrok"))) { //$NON-NLS-1$
+			return;
+		}
+		synchronized (lock) {
+			if (descriptor != null) {
+				tunnel = descriptor;
+			}
+			wakeUp = true;
+			lock.notifyAll();
+		}
+	}
+
+	public void onComplete() {
+		// Nothing to do. The output file is still checked
+	}
+
+	public void onError(Throwable exception) {
+		CloudFoundryPlugin.logError("Error while streaming logs of " + appModule.getDeployedApplicationName() //$NON-NLS-1$
+				+ " for the ngrok debug connection", exception); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param content ngrok output, or a log message
+	 * @return tunnel address in the given content, or null if the content
+	 * does not contain an address
+	 */
+	public static DebugConnectionDescriptor parseTunnel(String content) {
+		int start = content != null ? content.indexOf(TUNNEL_ESTABLISHED) : -1;
+		if (start < 0) {
+			return null;
+		}
+		String sub = content.substring(start + TUNNEL_ESTABLISHED.length());
+		int end = sub.indexOf('\n');
+		if (end < 0) {
+			// The line may not be complete yet
+			return null;
+		}
+		try {
+			return new DebugConnectionDescriptor(NGROK_HOST, Integer.parseInt(sub.substring(0, end).trim()));
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.core.internal.debug;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cft.server.core.internal.CloudFoundryProjectUtil;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
+import org.eclipse.jdt.launching.JavaRuntime;
+
+/**
+ * Workspace-level cache of resolved source lookup paths for Cloud Foundry
+ * debug launches. Resolving the source lookup path of a set of projects
+ * requires resolving their full classpaths, which is slow in large
+ * workspaces, and the result is the same for every launch until a classpath
+ * changes.
+ * <p/>
+ * Entries are keyed by the JRE and the set of projects of the launch. All
+ * entries are invalidated through a Java element change listener when the
+ * classpath of a project changes, or a project is added, removed, opened or
+ * closed, as the resolved path includes required projects.
+ * <p/>
+ * Only the resolved classpath entries are cached. Source containers are
+ * created for each launch, as they are disposed with the source lookup
+ * director of the launch.
+ */
+public class SourceLookupCache {
+
+	private final Map<String, IRuntimeClasspathEntry[]> lookupPaths = new HashMap<String, IRuntimeClasspathEntry[]>();
+
+	/**
+	 * Incremented on every invalidation, so that a path resolved before a
+	 * classpath change is not cached.
+	 */
+	private int generation;
+
+	private final IElementChangedListener listener = new IElementChangedListener() {
+
+		public void elementChanged(ElementChangedEvent event) {
+			if (CloudFoundryProjectUtil.affectsClasspath(event.getDelta())) {
+				invalidate();
+			}
+		}
+	};
+
+	public SourceLookupCache() {
+		JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE);
+	}
+
+	public void dispose() {
+		JavaCore.removeElementChangedListener(listener);
+		invalidate();
+	}
+
+	/**
+	 * Returns the resolved source lookup path of the given projects. The path
+	 * is only resolved if it is not cached, or a classpath has changed since.
+	 * @param configuration launch configuration used to resolve the path
+	 * @param jreEntry JRE of the launch, or null
+	 * @param projects projects of the launch
+	 * @return non-null resolved source lookup path
+	 * @throws CoreException if failed to resolve the path
+	 */
+	public IRuntimeClasspathEntry[] getSourceLookupPath(ILaunchConfiguration configuration,
+			IRuntimeClasspathEntry jreEntry, Collection<IJavaProject> projects) throws CoreException {
+		String key = getKey(jreEntry, projects);
+		int resolvedGeneration;
+		synchronized (this) {
+			IRuntimeClasspathEntry[] cached = lookupPaths.get(key);
+			if (cached != null) {
+				return cached;
+			}
+			resolvedGeneration = generation;
+		}
+
+		List<IRuntimeClasspathEntry> entries = new ArrayList<IRuntimeClasspathEntry>();
+		if (jreEntry != null) {
+			entries.add(jreEntry);
+		}
+		for (IJavaProject project : projects) {
+			entries.add(JavaRuntime.newDefaultProjectClasspathEntry(project));
+		}
+
+		IRuntimeClasspathEntry[] resolved = JavaRuntime.resolveSourceLookupPath(
+				entries.toArray(new IRuntimeClasspathEntry[entries.size()]), configuration);
+
+		synchronized (this) {
+			if (resolvedGeneration == generation) {
+				lookupPaths.put(key, resolved);
+			}
+		}
+		return resolved;
+	}
+
+	public synchronized void invalidate() {
+		generation++;
+		lookupPaths.clear();
+	}
+
+	protected String getKey(IRuntimeClasspathEntry jreEntry, Collection<IJavaProject> projects) {
+		StringBuilder key = new StringBuilder();
+		if (jreEntry != null && jreEntry.getPath() != null) {
+			key.append(jreEntry.getPath().toString());
+		}
+		for (IJavaProject project : projects) {
+			key.append('|');
+			key.append(project.getElementName());
+		}
+		return key.toString();
+	}
+}
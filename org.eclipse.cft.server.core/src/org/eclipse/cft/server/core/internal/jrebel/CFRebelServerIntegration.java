@@ -21,7 +21,11 @@
 package org.eclipse.cft.server.core.internal.jrebel;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
@@ -31,6 +35,7 @@ import org.eclipse.cft.server.core.internal.Messages;
 import org.eclipse.cft.server.core.internal.application.ModuleChangeEvent;
 import org.eclipse.cft.server.core.internal.client.AppUrlChangeEvent;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.cft.server.core.internal.client.ModulesUpdatedEvent;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -38,16 +43,56 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.IServerLifecycleListener;
 
 /**
  * Note: This class is in core plugin due to dependencies on springframework
  * http libraries which cannot be exported outside of the core plugin. Therefore
  * this is the reason that this server integration is "split" between Core and
  * UI components
+ * <p/>
+ * Remoting URL updates are batched per server: events received within a
+ * short delay are collapsed per module, and all modules of a server are
+ * updated by a single job. Modules that were refreshed recently are not
+ * fetched again from the Cloud. The job of a server is cancelled and
+ * discarded when the server is disconnected or removed.
  *
  */
 public abstract class CFRebelServerIntegration implements CloudServerListener {
 
+	/**
+	 * Time to wait for more events before updating the URLs of a server
+	 */
+	private static final long UPDATE_DELAY = 500;
+
+	/**
+	 * Modules refreshed within this time are not fetched again to get their
+	 * URLs
+	 */
+	private static final long FRESH_MODULE_INTERVAL = 10 * 1000;
+
+	private final Map<String, RebelUpdateJob> updateJobs = new HashMap<String, RebelUpdateJob>();
+
+	/**
+	 * Discards the update job of a removed server. Registered by
+	 * implementations together with the server listener.
+	 */
+	protected final IServerLifecycleListener serverLifecycleListener = new IServerLifecycleListener() {
+
+		public void serverAdded(IServer server) {
+			// ignore
+		}
+
+		public void serverChanged(IServer server) {
+			// ignore
+		}
+
+		public void serverRemoved(IServer server) {
+			removeUpdateJob(server.getId());
+		}
+	};
+
 	abstract public void register();
 
 	// Order in registry determines invocation priority.
@@ -76,6 +121,60 @@ public abstract class CFRebelServerIntegration implements CloudServerListener {
 				updateModulesWithRebelProjects(modules, event);
 			}
 		}
+		else if (event.getServer() != null && event.getType() == CloudServerEvent.EVENT_SERVER_DISCONNECTED) {
+			removeUpdateJob(event.getServer().getServer().getId());
+		}
+		else if (event.getServer() != null && event.getType() == CloudServerEvent.EVENT_MODULE_UPDATED
+				&& event instanceof ModuleChangeEvent) {
+			moduleUpdated(event.getServer(), ((ModuleChangeEvent) event).getModule());
+		}
+		else if (event.getServer() != null && event instanceof ModulesUpdatedEvent
+				&& ((ModulesUpdatedEvent) event).getModules() != null) {
+			for (IModule module : ((ModulesUpdatedEvent) event).getModules()) {
+				moduleUpdated(event.getServer(), module);
+			}
+		}
+	}
+
+	protected void moduleUpdated(CloudFoundryServer cloudServer, IModule module) {
+		if (module != null) {
+			getUpdateJob(cloudServer).moduleUpdated(module);
+		}
+	}
+
+	/**
+	 * @return true if the module was refreshed recently enough that its URLs
+	 * do not need to be fetched again
+	 */
+	protected boolean isRecentlyUpdated(CloudFoundryServer cloudServer, IModule module) {
+		return getUpdateJob(cloudServer).isRecentlyUpdated(module);
+	}
+
+	protected RebelUpdateJob getUpdateJob(CloudFoundryServer cloudServer) {
+		String serverId = cloudServer.getServer().getId();
+		synchronized (updateJobs) {
+			RebelUpdateJob job = updateJobs.get(serverId);
+			if (job == null) {
+				job = new RebelUpdateJob(serverId);
+				updateJobs.put(serverId, job);
+			}
+			return job;
+		}
+	}
+
+	/**
+	 * Cancels the update job of the given server, and discards its pending
+	 * updates and module update times.
+	 * @param serverId
+	 */
+	protected void removeUpdateJob(String serverId) {
+		RebelUpdateJob job;
+		synchronized (updateJobs) {
+			job = updateJobs.remove(serverId);
+		}
+		if (job != null) {
+			job.cancel();
+		}
 	}
 
 	/**
@@ -94,26 +193,7 @@ public abstract class CFRebelServerIntegration implements CloudServerListener {
 			// operation
 			CloudFoundryServer cloudServer = event != null ?  event.getServer() : null;
 			if (JRebelIntegrationUtility.isJRebelEnabled(module, cloudServer)) {
-
-				final String consoleMessage = NLS.bind(Messages.CFRebelServerIntegration_UPDATING_JREBEL_REMOTING,
-						module.getName());
-				Job job = new Job(consoleMessage) {
-
-					@Override
-					protected IStatus run(IProgressMonitor monitor) {
-						try {
-							handleRebelProject(moduleEvent, mod, consoleMessage, monitor);
-						}
-						catch (CoreException e) {
-							CloudFoundryPlugin.logError(e);
-							return e.getStatus();
-						}
-
-						return Status.OK_STATUS;
-					}
-				};
-
-				job.schedule();
+				getUpdateJob(cloudServer).add(mod, moduleEvent);
 			}
 		}
 	}
@@ -142,14 +222,17 @@ public abstract class CFRebelServerIntegration implements CloudServerListener {
 
 			if (cloudAppModule != null) {
 
-				CFRebelConsoleUtil.printToConsole(cloudAppModule, cloudServer,
-						Messages.CFRebelServerIntegration_UPDATING_APP_MODULE);
+				// Update the module to get the latest URLS in Cloud Foundry,
+				// unless it was just refreshed
+				if (!isRecentlyUpdated(cloudServer, module)) {
+					CFRebelConsoleUtil.printToConsole(cloudAppModule, cloudServer,
+							Messages.CFRebelServerIntegration_UPDATING_APP_MODULE);
 
-				// Update the module to get the latest URLS in Cloud Foundry
-				cloudAppModule = cloudServer.getBehaviour().updateDeployedModule(module, monitor);
+					cloudAppModule = cloudServer.getBehaviour().updateDeployedModule(module, monitor);
 
-				CFRebelConsoleUtil.printToConsole(cloudAppModule, cloudServer,
-						Messages.CFRebelServerIntegration_UPDATED_APP_MODULE);
+					CFRebelConsoleUtil.printToConsole(cloudAppModule, cloudServer,
+							Messages.CFRebelServerIntegration_UPDATED_APP_MODULE);
+				}
 
 				if (cloudAppModule != null && cloudAppModule.getDeploymentInfo() != null) {
 					currentUrls = cloudAppModule.getDeploymentInfo().getUris();
@@ -182,4 +265,110 @@ public abstract class CFRebelServerIntegration implements CloudServerListener {
 		return HANDLER_REGISTRY;
 	}
 
+	/**
+	 * Updates the remoting URLs of all pending modules of a server in one
+	 * pass. Events received while the job waits to run are added to the same
+	 * batch.
+	 */
+	protected class RebelUpdateJob extends Job {
+
+		private final Map<IModule, PendingUpdate> pending = new LinkedHashMap<IModule, PendingUpdate>();
+
+		private final Map<IModule, Long> moduleUpdateTimes = new ConcurrentHashMap<IModule, Long>();
+
+		public RebelUpdateJob(String serverId) {
+			super(NLS.bind(Messages.CFRebelServerIntegration_UPDATING_JREBEL_REMOTING_SERVER, serverId));
+		}
+
+		public void add(IModule module, CloudServerEvent event) {
+			synchronized (pending) {
+				PendingUpdate update = pending.get(module);
+				if (update == null) {
+					update = new PendingUpdate();
+					pending.put(module, update);
+				}
+				update.add(event);
+			}
+			// Has no effect if the job is already waiting to run, in which
+			// case the event is handled by that run
+			schedule(UPDATE_DELAY);
+		}
+
+		public void moduleUpdated(IModule module) {
+			moduleUpdateTimes.put(module, System.currentTimeMillis());
+		}
+
+		public boolean isRecentlyUpdated(IModule module) {
+			Long updateTime = moduleUpdateTimes.get(module);
+			return updateTime != null && System.currentTimeMillis() - updateTime < FRESH_MODULE_INTERVAL;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			Map<IModule, PendingUpdate> updates;
+			synchronized (pending) {
+				updates = new LinkedHashMap<IModule, PendingUpdate>(pending);
+				pending.clear();
+			}
+
+			for (Map.Entry<IModule, PendingUpdate> entry : updates.entrySet()) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				IModule module = entry.getKey();
+				String consoleMessage = NLS.bind(Messages.CFRebelServerIntegration_UPDATING_JREBEL_REMOTING,
+						module.getName());
+				for (CloudServerEvent event : entry.getValue().getEvents()) {
+					try {
+						handleRebelProject(event, module, consoleMessage, monitor);
+					}
+					catch (CoreException e) {
+						// Continue with the other modules
+						CloudFoundryPlugin.logError(e);
+					}
+				}
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * Events of a module that are waiting to be handled. URL changes are
+	 * merged into one change from the oldest to the most recent URLs, and
+	 * remoting updates are handled once.
+	 */
+	protected static class PendingUpdate {
+
+		private AppUrlChangeEvent urlChange;
+
+		private CloudServerEvent remotingUpdate;
+
+		public void add(CloudServerEvent event) {
+			if (event instanceof AppUrlChangeEvent) {
+				AppUrlChangeEvent change = (AppUrlChangeEvent) event;
+				if (urlChange == null) {
+					urlChange = change;
+				}
+				else {
+					urlChange = new AppUrlChangeEvent(change.getServer(), change.getType(), change.getModule(),
+							change.getStatus(), urlChange.getOldUrls(), change.getCurrentUrls());
+				}
+			}
+			else {
+				remotingUpdate = event;
+			}
+		}
+
+		public List<CloudServerEvent> getEvents() {
+			List<CloudServerEvent> events = new ArrayList<CloudServerEvent>();
+			if (urlChange != null) {
+				events.add(urlChange);
+			}
+			if (remotingUpdate != null) {
+				events.add(remotingUpdate);
+			}
+			return events;
+		}
+	}
+
 }
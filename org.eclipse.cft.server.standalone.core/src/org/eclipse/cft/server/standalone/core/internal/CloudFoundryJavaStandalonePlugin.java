@@ -20,6 +20,7 @@
  ********************************************************************************/
 package org.eclipse.cft.server.standalone.core.internal;
 
+import org.eclipse.cft.server.standalone.core.internal.application.RuntimeClasspathCache;
 import org.eclipse.core.runtime.Plugin;
 import org.osgi.framework.BundleContext;
 
@@ -33,6 +34,8 @@ public class CloudFoundryJavaStandalonePlugin extends Plugin {
 
 	// The shared instance
 	private static CloudFoundryJavaStandalonePlugin plugin;
+
+	private static RuntimeClasspathCache runtimeClasspathCache;
 	
 	/**
 	 * The constructor
@@ -54,6 +57,12 @@ public class CloudFoundryJavaStandalonePlugin extends Plugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		synchronized (CloudFoundryJavaStandalonePlugin.class) {
+			if (runtimeClasspathCache != null) {
+				runtimeClasspathCache.dispose();
+				runtimeClasspathCache = null;
+			}
+		}
 		plugin = null;
 		super.stop(context);
 	}
@@ -67,4 +76,14 @@ public class CloudFoundryJavaStandalonePlugin extends Plugin {
 		return plugin;
 	}
 
+	/**
+	 * @return non-null cache of resolved runtime classpaths of Java projects
+	 */
+	public static synchronized RuntimeClasspathCache getRuntimeClasspathCache() {
+		if (runtimeClasspathCache == null) {
+			runtimeClasspathCache = new RuntimeClasspathCache();
+		}
+		return runtimeClasspathCache;
+	}
+
 }
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.standalone.core.internal.application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cft.server.core.internal.CloudFoundryProjectUtil;
+import org.eclipse.cft.server.standalone.core.internal.CloudFoundryJavaStandalonePlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
+import org.eclipse.jdt.launching.JavaRuntime;
+
+/**
+ * Workspace-level cache of resolved runtime classpaths of Java projects,
+ * shared by the standalone module delegate and the Java application archiver.
+ * Resolving the runtime classpath of projects with many dependencies (e.g.
+ * large Maven projects) is slow, and the result does not change between
+ * publishes unless a classpath changes.
+ * <p/>
+ * All entries are invalidated through a Java element change listener when the
+ * classpath of any project changes, or a project is added, removed, opened or
+ * closed, as resolved classpaths include required projects.
+ */
+public class RuntimeClasspathCache {
+
+	private final Map<String, IRuntimeClasspathEntry[]> runtimeClasspaths = new HashMap<String, IRuntimeClasspathEntry[]>();
+
+	private final Map<String, IPath[]> userClasspaths = new HashMap<String, IPath[]>();
+
+	/**
+	 * Incremented on every invalidation, so that a classpath resolved before
+	 * a classpath change is not cached.
+	 */
+	private int generation;
+
+	private final IElementChangedListener listener = new IElementChangedListener() {
+
+		public void elementChanged(ElementChangedEvent event) {
+			if (CloudFoundryProjectUtil.affectsClasspath(event.getDelta())) {
+				invalidate();
+			}
+		}
+	};
+
+	/**
+	 * @return the workspace cache, owned by the standalone core plugin. Other
+	 * bundles should use this method, as the plugin package is not exported.
+	 */
+	public static RuntimeClasspathCache getDefault() {
+		return CloudFoundryJavaStandalonePlugin.getRuntimeClasspathCache();
+	}
+
+	public RuntimeClasspathCache() {
+		JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE);
+	}
+
+	public void dispose() {
+		JavaCore.removeElementChangedListener(listener);
+		invalidate();
+	}
+
+	public synchronized void invalidate() {
+		generation++;
+		runtimeClasspaths.clear();
+		userClasspaths.clear();
+	}
+
+	/**
+	 * Returns the resolved runtime classpath entries of the given project,
+	 * excluding the JRE. Callers must not modify the returned array.
+	 * @param javaProject
+	 * @return non-null resolved runtime classpath entries
+	 * @throws CoreException if failed to resolve the runtime classpath
+	 */
+	public IRuntimeClasspathEntry[] getRuntimeClasspath(final IJavaProject javaProject) throws CoreException {
+		return get(runtimeClasspaths, javaProject.getElementName(), new Resolver<IRuntimeClasspathEntry[]>() {
+
+			public IRuntimeClasspathEntry[] resolve() throws CoreException {
+				return resolveRuntimeClasspath(javaProject);
+			}
+		});
+	}
+
+	/**
+	 * Returns the user classpath locations to launch the given main type, as
+	 * resolved by the given resolver if not cached. Callers must not modify
+	 * the returned array.
+	 * @param mainType
+	 * @param resolver resolves the user classpath if it is not cached
+	 * @return user classpath locations
+	 * @throws CoreException if failed to resolve the classpath
+	 */
+	public IPath[] getUserClasspath(IType mainType, Resolver<IPath[]> resolver) throws CoreException {
+		String key = mainType.getJavaProject().getElementName() + '/' + mainType.getFullyQualifiedName();
+		return get(userClasspaths, key, resolver);
+	}
+
+	protected <T> T get(Map<String, T> entries, String key, Resolver<T> resolver) throws CoreException {
+		int resolvedGeneration;
+		synchronized (this) {
+			T cached = entries.get(key);
+			if (cached != null) {
+				return cached;
+			}
+			resolvedGeneration = generation;
+		}
+
+		// Not resolved while holding the lock, as resolving may take long
+		T resolved = resolver.resolve();
+
+		synchronized (this) {
+			if (resolved != null && resolvedGeneration == generation) {
+				entries.put(key, resolved);
+			}
+		}
+		return resolved;
+	}
+
+	protected IRuntimeClasspathEntry[] resolveRuntimeClasspath(IJavaProject javaProject) throws CoreException {
+		IRuntimeClasspathEntry[] unresolved = JavaRuntime.computeUnresolvedRuntimeClasspath(javaProject);
+		IRuntimeClasspathEntry jreEntry = JavaRuntime.computeJREEntry(javaProject);
+		List<IRuntimeClasspathEntry> resolved = new ArrayList<IRuntimeClasspathEntry>();
+
+		// Resolve all runtime entries, and skip the jre entry
+		for (IRuntimeClasspathEntry rcEntry : unresolved) {
+			if (!rcEntry.equals(jreEntry)) {
+				IRuntimeClasspathEntry[] entries = JavaRuntime.resolveRuntimeClasspathEntry(rcEntry, javaProject);
+				if (entries != null) {
+					resolved.addAll(Arrays.asList(entries));
+				}
+			}
+		}
+		return resolved.toArray(new IRuntimeClasspathEntry[resolved.size()]);
+	}
+
+	/**
+	 * Resolves a classpath that is not cached
+	 */
+	public static interface Resolver<T> {
+
+		public T resolve() throws CoreException;
+
+	}
+}
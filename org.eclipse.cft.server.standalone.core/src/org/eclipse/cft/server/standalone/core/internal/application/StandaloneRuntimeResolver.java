@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.cft.server.standalone.core.internal.CloudFoundryJavaStandalonePlugin;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -40,7 +41,6 @@ import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
-import org.eclipse.jdt.launching.JavaRuntime;
 
 /**
  * Given a java project, two separate lists are resolved: <br/>
@@ -223,26 +223,12 @@ public class StandaloneRuntimeResolver {
 	protected void computeRuntimeClassPath() throws CoreException {
 		runtimeDependencies = new ArrayList<String>();
 
-		IRuntimeClasspathEntry[] unresolved = JavaRuntime
-				.computeUnresolvedRuntimeClasspath(javaProject);
-		IRuntimeClasspathEntry jreEntry = JavaRuntime
-				.computeJREEntry(javaProject);
-		List<IRuntimeClasspathEntry> resolved = new ArrayList<IRuntimeClasspathEntry>();
-
-		// Resolve all runtime entries, and skip the jre entry
-		for (IRuntimeClasspathEntry rcEntry : unresolved) {
-
-			if (rcEntry.equals(jreEntry)) {
-				continue;
-			} else {
-				IRuntimeClasspathEntry[] entries = JavaRuntime
-						.resolveRuntimeClasspathEntry(rcEntry, javaProject);
-
-				if (entries != null) {
-					resolved.addAll(Arrays.asList(entries));
-				}
-			}
-		}
+		// Resolved runtime entries, without the jre entry, are shared with
+		// other resolvers until the classpath changes
+		List<IRuntimeClasspathEntry> resolved = new ArrayList<IRuntimeClasspathEntry>(
+				Arrays.asList(CloudFoundryJavaStandalonePlugin
+						.getRuntimeClasspathCache().getRuntimeClasspath(
+								javaProject)));
 
 		// Separate dependency entries like archives from other runtime entries
 		List<IRuntimeClasspathEntry> toSeparate = new ArrayList<IRuntimeClasspathEntry>(
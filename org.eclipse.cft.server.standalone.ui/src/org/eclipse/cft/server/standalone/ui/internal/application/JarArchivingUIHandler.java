@@ -24,8 +24,10 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 
+import org.eclipse.cft.server.core.internal.ArtifactStore;
 import org.eclipse.cft.server.core.internal.CFConsoleHandler;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
 import org.eclipse.cft.server.standalone.core.internal.application.DeploymentErrorHandler;
@@ -47,6 +49,7 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
 import org.springframework.boot.loader.tools.Libraries;
 import org.springframework.boot.loader.tools.Library;
 import org.springframework.boot.loader.tools.LibraryCallback;
@@ -68,29 +71,36 @@ class JarArchivingUIHandler {
 		this.errorHandler = errorHandler;
 	}
 
+	/**
+	 * 
+	 * @param server
+	 * @param module
+	 * @return key in the artifact store of the packaged jar for the given
+	 *         module. The key is specific to the server, as the same module
+	 *         may be published to different servers at the same time.
+	 */
+	public static String getArtifactKey(IServer server, IModule module) {
+		return ArtifactStore.toKey("javaAppJar", server.getId(), module.getId()); //$NON-NLS-1$
+	}
+
 	protected String getTempJarPath(IModule module) throws CoreException {
 		try {
-			File tempFolder = File.createTempFile("tempFolderForJavaAppJar", //$NON-NLS-1$
-					null);
-			tempFolder.delete();
-			tempFolder.mkdirs();
-
-			if (!tempFolder.exists()) {
-				throw CloudErrorUtil.toCoreException(
-						NLS.bind(Messages.JavaCloudFoundryArchiver_ERROR_CREATE_TEMP_DIR, tempFolder.getPath()));
-			}
+			// Reuse the artifact folder of the previous publish. The jar is
+			// overwritten in place
+			File artifactFolder = CloudFoundryPlugin.getArtifactStore()
+					.acquire(getArtifactKey(cloudServer.getServer(), module));
 
-			File targetFile = new File(tempFolder, module.getName() + ".jar"); //$NON-NLS-1$
-			targetFile.deleteOnExit();
+			File targetFile = new File(artifactFolder, module.getName() + ".jar"); //$NON-NLS-1$
+			targetFile.delete();
 
 			String path = new Path(targetFile.getAbsolutePath()).toString();
 
 			return path;
 
 		} catch (IOException io) {
-			CloudErrorUtil.toCoreException(io);
+			throw CloudErrorUtil.toCoreException(NLS.bind(Messages.JavaCloudFoundryArchiver_ERROR_CREATE_TEMP_DIR,
+					CloudFoundryPlugin.getArtifactStore().getRoot().getPath()), io);
 		}
-		return null;
 	}
 
 	protected IJarBuilder getDefaultLibJarBuilder() {
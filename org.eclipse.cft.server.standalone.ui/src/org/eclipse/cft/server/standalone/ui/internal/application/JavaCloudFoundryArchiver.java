@@ -31,6 +31,7 @@ import java.util.zip.ZipFile;
 
 import org.eclipse.cft.server.core.CFApplicationArchive;
 import org.eclipse.cft.server.core.internal.CFConsoleHandler;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryProjectUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.core.internal.CloudServerUtil;
@@ -89,6 +90,22 @@ public class JavaCloudFoundryArchiver implements ICloudFoundryArchiver {
 
 	public CFApplicationArchive getApplicationArchive(IModule module, IServer server, IModuleResource[] resources,
 			IProgressMonitor monitor) throws CoreException {
+		// The packaged jar is generated in the artifact store. It is released
+		// when the archive is closed after the application is pushed, or here
+		// if packaging fails
+		CFApplicationArchive archive = null;
+		try {
+			archive = packageApplication(module, server, monitor);
+			return archive;
+		} finally {
+			if (archive == null && module != null && server != null) {
+				CloudFoundryPlugin.getArtifactStore().release(JarArchivingUIHandler.getArtifactKey(server, module));
+			}
+		}
+	}
+
+	protected CFApplicationArchive packageApplication(IModule module, IServer server, IProgressMonitor monitor)
+			throws CoreException {
 		CloudFoundryServer cloudServer = CloudServerUtil.getCloudServer(server);
 		Assert.isNotNull(module,
 				"Unable to package standalone application. No WTP module found for application. Refresh server and try again."); //$NON-NLS-1$
@@ -246,7 +263,7 @@ public class JavaCloudFoundryArchiver implements ICloudFoundryArchiver {
 
 		// At this stage a packaged file should have been created or found
 		try {
-			archive = new ZipArchive(new ZipFile(packagedFile));
+			archive = new ZipArchive(new ZipFile(packagedFile), JarArchivingUIHandler.getArtifactKey(server, module));
 		} catch (IOException ioe) {
 			errorHandler.handleApplicationDeploymentFailure(
 					NLS.bind(Messages.JavaCloudFoundryArchiver_ERROR_CREATE_CF_ARCHIVE, ioe.getMessage()));
@@ -27,6 +27,7 @@ import java.util.List;
 import org.eclipse.cft.server.core.internal.CloudErrorUtil;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
+import org.eclipse.cft.server.standalone.core.internal.application.RuntimeClasspathCache;
 import org.eclipse.cft.server.standalone.ui.internal.Messages;
 import org.eclipse.cft.server.standalone.ui.internal.startcommand.JavaTypeResolver;
 import org.eclipse.core.resources.IProject;
@@ -73,18 +74,25 @@ public class JavaPackageFragmentRootHandler {
 
 	public IPackageFragmentRoot[] getPackageFragmentRoots(
 			IProgressMonitor monitor) throws CoreException {
-		IType type = getMainType(monitor);
-
-		IPath[] classpathEntries = null;
-		ILaunchConfiguration configuration = null;
-		try {
-			configuration = createConfiguration(type);
-			classpathEntries = getRuntimeClasspaths(configuration);
-		} finally {
-			if (configuration != null) {
-				configuration.delete();
-			}
-		}
+		final IType type = getMainType(monitor);
+
+		// Resolving the runtime classpath requires a temporary launch
+		// configuration, so the result is reused until the classpath changes
+		IPath[] classpathEntries = RuntimeClasspathCache.getDefault().getUserClasspath(type,
+				new RuntimeClasspathCache.Resolver<IPath[]>() {
+
+					public IPath[] resolve() throws CoreException {
+						ILaunchConfiguration configuration = null;
+						try {
+							configuration = createConfiguration(type);
+							return getRuntimeClasspaths(configuration);
+						} finally {
+							if (configuration != null) {
+								configuration.delete();
+							}
+						}
+					}
+				});
 
 		List<IPackageFragmentRoot> pckRoots = new ArrayList<IPackageFragmentRoot>();
 
@@ -20,16 +20,25 @@
  ********************************************************************************/
 package org.eclipse.cft.server.tests;
 
+import org.eclipse.cft.server.tests.core.ApplicationStatsPollerTest;
+import org.eclipse.cft.server.tests.core.ApplicationUrlLookupServiceTest;
+import org.eclipse.cft.server.tests.core.ArtifactStoreTest;
 import org.eclipse.cft.server.tests.core.BehaviourOperationsTest;
 import org.eclipse.cft.server.tests.core.CloudFoundryClientConnectionTest;
 import org.eclipse.cft.server.tests.core.CloudFoundryProxyTest;
 import org.eclipse.cft.server.tests.core.CloudFoundryServerBehaviourTest;
 import org.eclipse.cft.server.tests.core.CloudFoundryServerTest;
 import org.eclipse.cft.server.tests.core.CloudFoundryServicesTest;
+import org.eclipse.cft.server.tests.core.CloudRouteIndexTest;
 import org.eclipse.cft.server.tests.core.CloudUtilTest;
 import org.eclipse.cft.server.tests.core.DeploymentURLTest;
 import org.eclipse.cft.server.tests.core.ModuleRefreshTest;
+import org.eclipse.cft.server.tests.core.ModuleStateSnapshotTest;
+import org.eclipse.cft.server.tests.core.PublishHistoryTest;
+import org.eclipse.cft.server.tests.core.ResourceDigestCacheTest;
 import org.eclipse.cft.server.tests.core.ServerCredentialsStoreTest;
+import org.eclipse.cft.server.tests.core.ServerOperationsExecutorTest;
+import org.eclipse.cft.server.tests.core.ServiceIconCacheTest;
 import org.eclipse.cft.server.tests.sts.util.ManagedTestSuite;
 
 import junit.framework.Test;
@@ -57,6 +66,15 @@ public class AllCloudFoundryTests {
 		suite.addTestSuite(ServerCredentialsStoreTest.class);
 		suite.addTestSuite(CloudFoundryServerTest.class);
 		suite.addTestSuite(CloudUtilTest.class);
+		suite.addTestSuite(ArtifactStoreTest.class);
+		suite.addTestSuite(ResourceDigestCacheTest.class);
+		suite.addTestSuite(PublishHistoryTest.class);
+		suite.addTestSuite(ServerOperationsExecutorTest.class);
+		suite.addTestSuite(ModuleStateSnapshotTest.class);
+		suite.addTestSuite(ApplicationUrlLookupServiceTest.class);
+		suite.addTestSuite(CloudRouteIndexTest.class);
+		suite.addTestSuite(ApplicationStatsPollerTest.class);
+		suite.addTestSuite(ServiceIconCacheTest.class);
 
 		suite.addTestSuite(DeploymentURLTest.class);
 		suite.addTestSuite(CloudFoundryServicesTest.class);
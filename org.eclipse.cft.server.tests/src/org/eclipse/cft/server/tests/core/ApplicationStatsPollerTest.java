@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.InstanceState;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.eclipse.cft.server.ui.internal.editor.ApplicationStatsPoller;
+
+import junit.framework.TestCase;
+
+public class ApplicationStatsPollerTest extends TestCase {
+
+	public void testSteadyInterval() throws Exception {
+		assertEquals(ApplicationStatsPoller.STEADY_INTERVAL, ApplicationStatsPoller.getPollInterval(null, 1));
+		assertEquals(ApplicationStatsPoller.STEADY_INTERVAL,
+				ApplicationStatsPoller.getPollInterval(getStats(InstanceState.RUNNING, InstanceState.RUNNING), 2));
+	}
+
+	public void testTransitionInterval() throws Exception {
+		assertEquals(ApplicationStatsPoller.TRANSITION_INTERVAL,
+				ApplicationStatsPoller.getPollInterval(getStats(InstanceState.RUNNING, InstanceState.STARTING), 2));
+		assertEquals(ApplicationStatsPoller.TRANSITION_INTERVAL,
+				ApplicationStatsPoller.getPollInterval(getStats(InstanceState.CRASHED), 1));
+
+		// Scaling up
+		assertEquals(ApplicationStatsPoller.TRANSITION_INTERVAL,
+				ApplicationStatsPoller.getPollInterval(getStats(InstanceState.RUNNING), 2));
+	}
+
+	protected ApplicationStats getStats(InstanceState... states) {
+		List<InstanceStats> records = new ArrayList<InstanceStats>();
+		for (int i = 0; i < states.length; i++) {
+			Map<String, Object> attributes = new HashMap<String, Object>();
+			attributes.put("state", states[i].name());
+			records.add(new InstanceStats(String.valueOf(i), attributes));
+		}
+		return new ApplicationStats(records);
+	}
+}
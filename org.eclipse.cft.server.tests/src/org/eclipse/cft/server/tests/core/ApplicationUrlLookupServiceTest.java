@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudfoundry.client.lib.domain.CloudDomain;
+import org.eclipse.cft.server.core.internal.ApplicationUrlLookupService;
+import org.eclipse.cft.server.core.internal.ApplicationUrlLookupService.DomainsListener;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import junit.framework.TestCase;
+
+public class ApplicationUrlLookupServiceTest extends TestCase {
+
+	public void testDomainsFetchedOnce() throws Exception {
+		TestLookupService lookup = new TestLookupService();
+		final List<List<CloudDomain>> notified = new ArrayList<List<CloudDomain>>();
+		lookup.addDomainsListener(new DomainsListener() {
+
+			public void domainsUpdated(List<CloudDomain> domains) {
+				notified.add(domains);
+			}
+		});
+
+		List<CloudDomain> domains = lookup.getDomains();
+		assertEquals("cfapps.io", domains.get(0).getName());
+		assertSame(domains, lookup.getDomains());
+		lookup.refreshDomains(new NullProgressMonitor());
+
+		assertEquals(1, lookup.fetches);
+		assertEquals(1, notified.size());
+		assertEquals("sub.cfapps.io", lookup.getCloudApplicationURL("sub.cfapps.io").getUrl());
+	}
+
+	public void testInvalidatedFetchDiscarded() throws Exception {
+		TestLookupService lookup = new TestLookupService();
+		// Simulates a space change while the domains are being fetched
+		lookup.invalidateDuringFetch = true;
+		lookup.refreshDomains(new NullProgressMonitor());
+		assertFalse(lookup.isCacheValid());
+
+		lookup.invalidateDuringFetch = false;
+		lookup.refreshDomains(new NullProgressMonitor());
+		assertTrue(lookup.isCacheValid());
+		assertEquals(2, lookup.fetches);
+
+		lookup.invalidateDomains();
+		assertFalse(lookup.isCacheValid());
+	}
+
+	private static class TestLookupService extends ApplicationUrlLookupService {
+
+		int fetches;
+
+		boolean invalidateDuringFetch;
+
+		TestLookupService() {
+			super(null);
+		}
+
+		@Override
+		protected List<CloudDomain> getDomainsForSpace(IProgressMonitor monitor) throws CoreException {
+			fetches++;
+			if (invalidateDuringFetch) {
+				invalidateDomains();
+			}
+			return Arrays.asList(new CloudDomain(null, "cfapps.io", null));
+		}
+
+		@Override
+		public boolean isCacheValid() {
+			return super.isCacheValid();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.cft.server.core.internal.ArtifactStore;
+
+import junit.framework.TestCase;
+
+public class ArtifactStoreTest extends TestCase {
+
+	private File root;
+
+	@Override
+	protected void setUp() throws Exception {
+		root = File.createTempFile("artifactStoreTest", null);
+		root.delete();
+		root.mkdirs();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		new ArtifactStore(root, 0).clear();
+		root.delete();
+	}
+
+	public void testFolderReused() throws Exception {
+		ArtifactStore store = new ArtifactStore(root, 1024);
+		File first = store.acquire("war-module:one");
+		store.release("war-module:one");
+		File second = store.acquire("war-module:one");
+		store.release("war-module:one");
+
+		assertEquals(first, second);
+		assertTrue(second.isDirectory());
+	}
+
+	public void testLeastRecentlyUsedEvicted() throws Exception {
+		ArtifactStore store = new ArtifactStore(root, 150);
+
+		File older = store.acquire("older");
+		writeFile(new File(older, "app.war"), 100);
+		store.release("older");
+		older.setLastModified(System.currentTimeMillis() - 60000);
+
+		File newer = store.acquire("newer");
+		writeFile(new File(newer, "app.war"), 100);
+		store.release("newer");
+
+		assertFalse(older.exists());
+		assertTrue(newer.exists());
+		assertTrue(store.getSize() <= 150);
+	}
+
+	public void testInUseNotEvicted() throws Exception {
+		ArtifactStore store = new ArtifactStore(root, 150);
+
+		File inUse = store.acquire("inUse");
+		writeFile(new File(inUse, "app.war"), 100);
+		inUse.setLastModified(System.currentTimeMillis() - 60000);
+
+		File other = store.acquire("other");
+		writeFile(new File(other, "app.war"), 100);
+		store.release("other");
+
+		assertTrue(inUse.exists());
+		assertFalse(other.exists());
+
+		store.release("inUse");
+	}
+
+	public void testDiscardDeletesFolder() throws Exception {
+		ArtifactStore store = new ArtifactStore(root, 1024);
+		File folder = store.acquire("partialWar");
+		writeFile(new File(folder, "app.war"), 100);
+		store.acquire("partialWar");
+
+		// Still in use by the second acquire
+		store.discard("partialWar");
+		assertTrue(folder.exists());
+
+		store.discard("partialWar");
+		assertFalse(folder.exists());
+	}
+
+	public void testUnusedVersionsDeleted() throws Exception {
+		ArtifactStore store = new ArtifactStore(root, 1024);
+		File inUse = store.acquire("jar-module-aaaa");
+		File unused = store.acquire("jar-module-bbbb");
+		store.release("jar-module-bbbb");
+		File otherModule = store.acquire("jar-module-x-cccc");
+		store.release("jar-module-x-cccc");
+
+		store.deleteUnusedVersions("jar-module-", 4);
+
+		assertTrue(inUse.exists());
+		assertFalse(unused.exists());
+		assertTrue(otherModule.exists());
+
+		store.release("jar-module-aaaa");
+	}
+
+	public void testDistinctKeysUseDistinctFolders() throws Exception {
+		assertFalse(ArtifactStore.toFolderName("war-module:one").equals(ArtifactStore.toFolderName("war-module_one")));
+		assertFalse(ArtifactStore.toKey("war", "server-a", "module")
+				.equals(ArtifactStore.toKey("war", "server", "a-module")));
+		assertFalse(ArtifactStore.toKey("war", "server/a", "module")
+				.equals(ArtifactStore.toKey("war", "server", "a/module")));
+
+		ArtifactStore store = new ArtifactStore(root, 1024);
+		File first = store.acquire(ArtifactStore.toKey("war", "server", "a/module"));
+		File second = store.acquire(ArtifactStore.toKey("war", "server/a", "module"));
+		assertFalse(first.equals(second));
+		assertEquals(root, first.getParentFile());
+
+		store.release(ArtifactStore.toKey("war", "server", "a/module"));
+		store.release(ArtifactStore.toKey("war", "server/a", "module"));
+	}
+
+	public void testSizeTracked() throws Exception {
+		ArtifactStore store = new ArtifactStore(root, 1024);
+		File folder = store.acquire("war");
+		writeFile(new File(folder, "app.war"), 100);
+		store.release("war");
+		assertEquals(100, store.getSize());
+
+		store.discard("war");
+		assertEquals(0, store.getSize());
+	}
+
+	protected void writeFile(File file, int size) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(new byte[size]);
+		}
+		finally {
+			out.close();
+		}
+	}
+}
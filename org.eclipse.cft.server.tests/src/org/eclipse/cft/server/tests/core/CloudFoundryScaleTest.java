@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.cft.server.core.internal.client.UpdateAllOperation;
+import org.eclipse.cft.server.tests.server.FakeCloudController;
+import org.eclipse.cft.server.tests.util.CloudFoundryTestFixture;
+import org.eclipse.cft.server.tests.util.HarnessProperties;
+import org.eclipse.cft.server.tests.util.HarnessPropertiesBuilder;
+import org.eclipse.cft.server.tests.util.ScaleReport;
+import org.eclipse.cft.server.tests.util.ScaleReport.Measurement;
+import org.eclipse.cft.server.ui.internal.ModuleDeploymentDecoration;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.server.core.IModule;
+
+/**
+ * Measures refresh, publish and editor model operations against a
+ * {@link FakeCloudController} with an increasing number of apps, and writes
+ * the timings as a {@link ScaleReport}.
+ * <p/>
+ * For each number of apps, the following are measured:
+ * <ul>
+ * <li>a full {@link UpdateAllOperation} when no apps are known yet, and a
+ * second one when none of the apps changed</li>
+ * <li>{@link org.eclipse.cft.server.core.internal.CloudFoundryServer#addAndDeleteModules(Map, Map, boolean)}
+ * on its own, with the list of apps already fetched</li>
+ * <li>the model behind the applications table of the server editor: module
+ * refresh, plus module lookup and label decoration for every module</li>
+ * <li>publishing a web project as a new app</li>
+ * </ul>
+ * This test does not require a Cloud Foundry target and is not part of
+ * {@link org.eclipse.cft.server.tests.AllCloudFoundryTests}. It is configured
+ * through system properties, e.g. -Dcft.scale.appCounts=10,100
+ * -Dcft.scale.latency=50. See the README for all properties.
+ */
+public class CloudFoundryScaleTest extends AbstractCloudFoundryTest {
+
+	public static final String APP_COUNTS = "cft.scale.appCounts";
+
+	public static final String SERVICES = "cft.scale.services";
+
+	public static final String ROUTES_PER_APP = "cft.scale.routesPerApp";
+
+	public static final String LATENCY = "cft.scale.latency";
+
+	public static final String LATENCY_JITTER = "cft.scale.latencyJitter";
+
+	public static final String ERROR_RATE = "cft.scale.errorRate";
+
+	public static final String ERROR_STATUS = "cft.scale.errorStatus";
+
+	public static final String REPORT = "cft.scale.report";
+
+	public static final String BASELINE = "cft.scale.baseline";
+
+	private static final String DEFAULT_APP_COUNTS = "10,100,1000,5000";
+
+	protected FakeCloudController controller;
+
+	protected long latency;
+
+	protected long latencyJitter;
+
+	protected double errorRate;
+
+	protected int errorStatus;
+
+	protected interface ScaleOperation {
+		void run() throws Exception;
+	}
+
+	@Override
+	protected CloudFoundryTestFixture createTestFixture() throws Exception {
+		controller = new FakeCloudController();
+		controller.setServiceCount(Integer.getInteger(SERVICES, 10));
+		controller.setRoutesPerApp(Integer.getInteger(ROUTES_PER_APP, 1));
+		controller.start();
+		controller.reset(0);
+
+		HarnessProperties properties = HarnessPropertiesBuilder.instance()
+				.target(controller.getUrl(), FakeCloudController.ORG_NAME, FakeCloudController.SPACE_NAME, false)
+				.credentials("scale-user", "scale-password").service("cftjunit-scale-service", "scaledb", "free")
+				.build();
+		return new CloudFoundryTestFixture(properties);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		try {
+			if (controller != null) {
+				disableFaults();
+			}
+			super.tearDown();
+		}
+		finally {
+			if (controller != null) {
+				controller.stop();
+			}
+		}
+	}
+
+	public void testScale() throws Exception {
+		latency = Long.getLong(LATENCY, 0);
+		latencyJitter = Long.getLong(LATENCY_JITTER, 0);
+		errorRate = Double.parseDouble(System.getProperty(ERROR_RATE, "0"));
+		errorStatus = Integer.getInteger(ERROR_STATUS, 503);
+
+		ScaleReport report = new ScaleReport();
+		report.setSetting(LATENCY, latency);
+		report.setSetting(LATENCY_JITTER, latencyJitter);
+		report.setSetting(ERROR_RATE, errorRate);
+		report.setSetting(ERROR_STATUS, errorStatus);
+		report.setSetting(SERVICES, Integer.getInteger(SERVICES, 10));
+		report.setSetting(ROUTES_PER_APP, Integer.getInteger(ROUTES_PER_APP, 1));
+
+		String baseline = System.getProperty(BASELINE);
+		if (baseline != null) {
+			report.loadBaseline(new File(baseline));
+		}
+
+		IProject project = createWebApplicationProject();
+
+		for (int appCount : getAppCounts()) {
+			// Start each run without any modules from the previous one
+			disableFaults();
+			controller.reset(0);
+			new UpdateAllOperation(serverBehavior).run(new NullProgressMonitor());
+			controller.reset(appCount);
+			enableFaults();
+
+			measure(report, "refresh (initial)", appCount, () -> {
+				new UpdateAllOperation(serverBehavior).run(new NullProgressMonitor());
+			});
+
+			measure(report, "refresh (unchanged)", appCount, () -> {
+				new UpdateAllOperation(serverBehavior).run(new NullProgressMonitor());
+			});
+
+			measureAddAndDeleteModules(report, appCount);
+
+			measure(report, "editor model", appCount, () -> {
+				refreshEditorModel();
+			});
+
+			measure(report, "publish", appCount, () -> {
+				publish(project);
+			});
+		}
+
+		File reportFile = new File(
+				System.getProperty(REPORT, new File(System.getProperty("java.io.tmpdir"), "cft-scale-report.csv")
+						.getPath()));
+		report.write(reportFile);
+		debug(report.toString());
+		debug("Scale report written to: " + reportFile.getAbsolutePath());
+
+		if (errorRate == 0) {
+			assertTrue("Scale operations failed. See the report for details: " + reportFile.getAbsolutePath(),
+					report.isAllSucceeded());
+		}
+	}
+
+	protected void measureAddAndDeleteModules(ScaleReport report, int appCount) throws CoreException {
+		// Only the module update is measured, not the requests to fetch the
+		// apps
+		disableFaults();
+		List<CloudApplication> applications = serverBehavior.getBasicApplications(new NullProgressMonitor());
+		assertEquals(appCount, applications.size());
+
+		final Map<String, CloudApplication> applicationsByName = new LinkedHashMap<String, CloudApplication>();
+		for (CloudApplication application : applications) {
+			applicationsByName.put(application.getName(), application);
+		}
+
+		measure(report, "addAndDeleteModules", appCount, () -> {
+			cloudServer.addAndDeleteModules(applicationsByName, new LinkedHashMap<String, ApplicationStats>(), true);
+		});
+		assertTrue(cloudServer.getExistingCloudModules().size() >= appCount);
+		enableFaults();
+	}
+
+	/**
+	 * Applies the configured latency and errors to the following requests.
+	 */
+	protected void enableFaults() {
+		controller.setLatency(latency, latencyJitter);
+		controller.setErrors(errorRate, errorStatus);
+	}
+
+	/**
+	 * Setup and cleanup requests run without latency and errors, so that
+	 * they do not fail and only measured operations are slowed down.
+	 */
+	protected void disableFaults() {
+		controller.setLatency(0, 0);
+		controller.setErrors(0, 503);
+	}
+
+	/**
+	 * Computes what the applications table of the server editor shows after a
+	 * refresh, without opening the editor.
+	 */
+	protected void refreshEditorModel() throws CoreException {
+		IStatus status = cloudServer.refreshCloudModules();
+		if (status.getSeverity() == IStatus.ERROR) {
+			throw new CoreException(status);
+		}
+
+		ModuleDeploymentDecoration<StringBuffer> decoration = ModuleDeploymentDecoration.getModuleTextDecoration();
+		for (IModule module : cloudServer.getServerOriginal().getModules()) {
+			CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(module);
+			StringBuffer label = new StringBuffer(module.getName());
+			decoration.decorateText(label, appModule);
+			decoration.getImageDecoration(appModule);
+		}
+	}
+
+	protected void publish(IProject project) throws Exception {
+		// Apps are not started, as staging and start are simulated by the
+		// controller and would only measure polling intervals
+		String appName = harness.getWebAppName("scale");
+		getTestFixture().configureForApplicationDeployment(appName, false);
+
+		IModule module = getWstModule(project.getName());
+		IStatus status = serverBehavior.publishAdd(module.getName(), new NullProgressMonitor());
+		if (!status.isOK()) {
+			throw new CoreException(status);
+		}
+	}
+
+	protected void measure(ScaleReport report, String operation, int appCount, ScaleOperation scaleOperation) {
+		controller.resetCounters();
+		boolean succeeded = true;
+		long start = System.nanoTime();
+		try {
+			scaleOperation.run();
+		}
+		catch (Exception e) {
+			succeeded = false;
+			debug("Failed " + operation + " with " + appCount + " apps: " + e.getMessage());
+		}
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		report.add(new Measurement(operation, appCount, millis, controller.getRequestCount(),
+				controller.getInjectedErrorCount(), succeeded));
+		debug(operation + " with " + appCount + " apps: " + millis + " ms, " + controller.getRequestCount()
+				+ " requests");
+	}
+
+	protected List<Integer> getAppCounts() {
+		List<Integer> counts = new ArrayList<Integer>();
+		for (String count : System.getProperty(APP_COUNTS, DEFAULT_APP_COUNTS).split(",")) {
+			if (count.trim().length() > 0) {
+				counts.add(Integer.parseInt(count.trim()));
+			}
+		}
+		return counts;
+	}
+}
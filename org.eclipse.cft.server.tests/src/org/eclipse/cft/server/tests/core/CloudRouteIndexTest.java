@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudfoundry.client.lib.domain.CloudDomain;
+import org.cloudfoundry.client.lib.domain.CloudRoute;
+import org.eclipse.cft.server.core.internal.CloudRouteIndex;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import junit.framework.TestCase;
+
+public class CloudRouteIndexTest extends TestCase {
+
+	public void testRoutesIndexedPerDomain() throws Exception {
+		TestRouteIndex index = new TestRouteIndex();
+		IProgressMonitor monitor = new NullProgressMonitor();
+
+		CloudRoute route = index.getRoute("MyApp", "cfapps.io", monitor);
+		assertNotNull(route);
+		assertTrue(route.inUse());
+		assertFalse(index.getRoute("other", "cfapps.io", monitor).inUse());
+		assertNull(index.getRoute("missing", "cfapps.io", monitor));
+		assertEquals(1, index.fetches);
+
+		assertNull(index.getRoute("myapp", "example.com", monitor));
+		assertEquals(2, index.fetches);
+	}
+
+	public void testReservedAndDeletedRoutes() throws Exception {
+		TestRouteIndex index = new TestRouteIndex();
+		IProgressMonitor monitor = new NullProgressMonitor();
+
+		assertNull(index.getRoute("newapp", "cfapps.io", monitor));
+		index.routeReserved("newapp", "cfapps.io");
+		CloudRoute reserved = index.getRoute("newapp", "cfapps.io", monitor);
+		assertNotNull(reserved);
+		assertFalse(reserved.inUse());
+
+		index.routeDeleted("myapp", "cfapps.io");
+		assertNull(index.getRoute("myapp", "cfapps.io", monitor));
+		assertEquals(1, index.fetches);
+
+		index.invalidate();
+		assertNotNull(index.getRoute("myapp", "cfapps.io", monitor));
+		assertEquals(2, index.fetches);
+	}
+
+	public void testChangeDuringFetchNotOverwritten() throws Exception {
+		TestRouteIndex index = new TestRouteIndex() {
+
+			@Override
+			protected List<CloudRoute> fetchRoutes(String domainName, IProgressMonitor monitor)
+					throws CoreException {
+				List<CloudRoute> routes = super.fetchRoutes(domainName, monitor);
+				if (fetches == 1) {
+					// Deleted after the routes were read, but before they are
+					// indexed
+					routeDeleted("myapp", domainName);
+				}
+				return routes;
+			}
+		};
+		IProgressMonitor monitor = new NullProgressMonitor();
+
+		index.getRoute("myapp", "cfapps.io", monitor);
+		assertEquals(1, index.fetches);
+
+		// The routes of the first fetch were not indexed
+		index.getRoute("myapp", "cfapps.io", monitor);
+		assertEquals(2, index.fetches);
+		index.getRoute("myapp", "cfapps.io", monitor);
+		assertEquals(2, index.fetches);
+	}
+
+	private static class TestRouteIndex extends CloudRouteIndex {
+
+		int fetches;
+
+		TestRouteIndex() {
+			super(null);
+		}
+
+		@Override
+		protected List<CloudRoute> fetchRoutes(String domainName, IProgressMonitor monitor) throws CoreException {
+			fetches++;
+			CloudDomain domain = new CloudDomain(null, domainName, null);
+			if ("cfapps.io".equals(domainName)) {
+				return Arrays.asList(new CloudRoute(null, "myapp", domain, 1), new CloudRoute(null, "other", domain, 0));
+			}
+			return Arrays.asList(new CloudRoute(null, "another", domain, 2));
+		}
+	}
+}
@@ -88,4 +88,33 @@ public class CloudUtilTest extends TestCase {
 		assertEquals(expected, files);
 	}
 
+	public void testCreateWarFileReusesChildModuleJar() throws Exception {
+		harness.createProject("appclient-module");
+		project = harness.createProject("dynamic-webapp-with-appclient-module");
+		harness.addModule(project);
+
+		IModule[] modules = ServerUtil.getModules(project);
+		File file = CloudUtil.createWarFile(modules, (Server) server, new NullProgressMonitor());
+		long firstCrc = getEntry(file, "WEB-INF/lib/appclient-module.jar").getCrc();
+
+		// Child module has not changed, therefore the jar content, and its
+		// sha1, should be the same
+		file = CloudUtil.createWarFile(modules, (Server) server, new NullProgressMonitor());
+		long secondCrc = getEntry(file, "WEB-INF/lib/appclient-module.jar").getCrc();
+
+		assertEquals(firstCrc, secondCrc);
+	}
+
+	protected ZipEntry getEntry(File file, String name) throws Exception {
+		ZipFile zipFile = new ZipFile(file);
+		try {
+			ZipEntry entry = zipFile.getEntry(name);
+			assertNotNull("Missing entry: " + name, entry);
+			return entry;
+		}
+		finally {
+			zipFile.close();
+		}
+	}
+
 }
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.CloudApplication.AppState;
+import org.cloudfoundry.client.lib.domain.CloudEntity.Meta;
+import org.eclipse.cft.server.core.CFServiceInstance;
+import org.eclipse.cft.server.core.internal.ModuleStateSnapshot;
+
+import junit.framework.TestCase;
+
+public class ModuleStateSnapshotTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("moduleStateSnapshotTest", ".json");
+		file.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	public void testSnapshotPersisted() throws Exception {
+		CloudApplication application = new CloudApplication(new Meta(UUID.randomUUID(), null, null), "app");
+		application.setState(AppState.STARTED);
+		application.setInstances(3);
+		application.setRunningInstances(2);
+		application.setMemory(512);
+		application.setDiskQuota(1024);
+		application.setUris(Arrays.asList("app.cfapps.io"));
+		application.setServices(Arrays.asList("db"));
+
+		CFServiceInstance service = new CFServiceInstance("db");
+		service.setService("mysql");
+		service.setPlan("free");
+
+		List<CloudApplication> applications = new ArrayList<CloudApplication>();
+		applications.add(application);
+		new ModuleStateSnapshot(1000, "https://api.run.pivotal.io", "org", "space", applications,
+				Arrays.asList(service)).save(file);
+
+		ModuleStateSnapshot snapshot = ModuleStateSnapshot.load(file);
+		assertNotNull(snapshot);
+		assertEquals(1000, snapshot.getTimestamp());
+
+		Map<String, CloudApplication> restored = snapshot.getApplications();
+		assertEquals(1, restored.size());
+		CloudApplication restoredApp = restored.get("app");
+		assertEquals(application.getMeta().getGuid(), restoredApp.getMeta().getGuid());
+		assertEquals(AppState.STARTED, restoredApp.getState());
+		assertEquals(3, restoredApp.getInstances());
+		assertEquals(2, restoredApp.getRunningInstances());
+		assertEquals(512, restoredApp.getMemory());
+		assertEquals(1024, restoredApp.getDiskQuota());
+		assertEquals(Arrays.asList("app.cfapps.io"), restoredApp.getUris());
+		assertEquals(Arrays.asList("db"), restoredApp.getServices());
+
+		ApplicationStats stats = snapshot.getApplicationStats().get("app");
+		assertEquals(2, stats.getRecords().size());
+
+		assertEquals(1, snapshot.getServices().size());
+		assertEquals("db", snapshot.getServices().get(0).getName());
+		assertEquals("mysql", snapshot.getServices().get(0).getService());
+		assertEquals("free", snapshot.getServices().get(0).getPlan());
+	}
+
+	public void testInvalidSnapshotIgnored() throws Exception {
+		assertNull(ModuleStateSnapshot.load(file));
+
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write("{\"format\":1,\"apps\":[{\"name\":\"app\",\"state\":\"NOT_A_STATE\"}]}");
+		}
+		finally {
+			writer.close();
+		}
+		assertNull(ModuleStateSnapshot.load(file));
+	}
+}
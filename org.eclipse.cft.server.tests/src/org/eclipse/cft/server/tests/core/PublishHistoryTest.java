@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cft.server.core.internal.PublishHistory;
+import org.eclipse.cft.server.core.internal.PublishHistory.Record;
+import org.eclipse.cft.server.core.internal.PublishTelemetry;
+import org.eclipse.cft.server.core.internal.PublishTelemetry.Phase;
+
+import junit.framework.TestCase;
+
+public class PublishHistoryTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("publishHistoryTest", ".csv");
+		file.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	public void testHistoryPersisted() throws Exception {
+		PublishHistory history = new PublishHistory(file, "1.0.0");
+		history.add(createTelemetry("my, module", 1000));
+
+		List<Record> records = new PublishHistory(file, "2.0.0").getHistory("my, module");
+		assertEquals(1, records.size());
+
+		Record record = records.get(0);
+		PublishTelemetry telemetry = record.getTelemetry();
+		assertEquals("1.0.0", record.getVersion());
+		assertEquals("my, module", telemetry.getModuleName());
+		assertEquals("app", telemetry.getAppName());
+		assertEquals(1000, telemetry.getTimestamp());
+		assertTrue(telemetry.isIncremental());
+		assertTrue(telemetry.isSuccess());
+		assertEquals(1500, telemetry.getTimeMillis(Phase.UPLOAD));
+		assertEquals(0, telemetry.getTimeMillis(Phase.STAGING));
+		assertEquals(2, telemetry.getTotalFiles());
+		assertEquals(300, telemetry.getTotalBytes());
+		assertEquals(1, telemetry.getMatchedFiles());
+		assertEquals(100, telemetry.getMatchedBytes());
+		assertEquals(1, telemetry.getUploadedFiles());
+		assertEquals(250, telemetry.getUploadedBytes());
+	}
+
+	public void testHistoryBounded() throws Exception {
+		PublishHistory history = new PublishHistory(file, "1.0.0");
+		int count = PublishHistory.MAX_RECORDS_PER_MODULE + 5;
+		for (int i = 0; i < count; i++) {
+			history.add(createTelemetry("module", i));
+		}
+		history.add(createTelemetry("other", 0));
+
+		List<Record> records = history.getHistory("module");
+		assertEquals(PublishHistory.MAX_RECORDS_PER_MODULE, records.size());
+		// Oldest records are dropped first
+		assertEquals(5, records.get(0).getTelemetry().getTimestamp());
+		assertEquals(count - 1, records.get(records.size() - 1).getTelemetry().getTimestamp());
+
+		records = new PublishHistory(file, "1.0.0").getHistory("module");
+		assertEquals(PublishHistory.MAX_RECORDS_PER_MODULE, records.size());
+		assertEquals(1, new PublishHistory(file, "1.0.0").getHistory("other").size());
+	}
+
+	public void testExportModule() throws Exception {
+		PublishHistory history = new PublishHistory(null, "1.0.0");
+		history.add(createTelemetry("module", 1));
+		history.add(createTelemetry("other", 2));
+
+		File exported = File.createTempFile("publishHistoryExport", ".csv");
+		try {
+			history.export(exported, "module");
+			List<Record> records = new PublishHistory(exported, null).getHistory("module");
+			assertEquals(1, records.size());
+			assertTrue(new PublishHistory(exported, null).getHistory("other").isEmpty());
+		}
+		finally {
+			exported.delete();
+		}
+	}
+
+	protected PublishTelemetry createTelemetry(String moduleName, long timestamp) {
+		PublishTelemetry telemetry = new PublishTelemetry(moduleName, "app", true, timestamp);
+		telemetry.addTime(Phase.UPLOAD, TimeUnit.MILLISECONDS.toNanos(1500));
+		telemetry.addFile(100, true);
+		telemetry.addFile(200, false);
+		telemetry.setUploadedBytes(250);
+		telemetry.setSuccess(true);
+		return telemetry;
+	}
+}
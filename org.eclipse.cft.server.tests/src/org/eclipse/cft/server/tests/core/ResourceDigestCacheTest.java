@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.eclipse.cft.server.core.internal.ResourceDigestCache;
+import org.eclipse.cft.server.core.internal.ResourceDigestCache.FileIdentity;
+import org.eclipse.cft.server.core.internal.ResourceDigestCache.ResourceDigest;
+
+import junit.framework.TestCase;
+
+public class ResourceDigestCacheTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("resourceDigestCacheTest", ".jar");
+		writeFile(file, "first");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	public void testDigestReused() throws Exception {
+		ResourceDigestCache cache = new ResourceDigestCache();
+		ResourceDigest first = cache.getDigest(file);
+		ResourceDigest second = cache.getDigest(file);
+
+		assertSame(first, second);
+		assertEquals(file.length(), first.getSize());
+		assertEquals(1, cache.size());
+	}
+
+	public void testChangedFileDigestedAgain() throws Exception {
+		ResourceDigestCache cache = new ResourceDigestCache();
+		ResourceDigest first = cache.getDigest(file);
+
+		writeFile(file, "second content");
+		file.setLastModified(file.lastModified() + 2000);
+		ResourceDigest second = cache.getDigest(file);
+
+		assertNotSame(first, second);
+		assertFalse(Arrays.equals(first.getSha1(), second.getSha1()));
+		assertEquals(file.length(), second.getSize());
+	}
+
+	public void testChangeWithSameSizeAndTimeDigestedAgain() throws Exception {
+		ResourceDigestCache cache = new ResourceDigestCache();
+		long lastModified = file.lastModified();
+		ResourceDigest first = cache.getDigest(file, 1);
+
+		// Same size and modification time, e.g. a save within the file system
+		// time resolution. Only the workspace modification stamp changes
+		writeFile(file, "fir5t");
+		file.setLastModified(lastModified);
+		ResourceDigest second = cache.getDigest(file, 2);
+
+		assertEquals(first.getSize(), second.getSize());
+		assertFalse(Arrays.equals(first.getSha1(), second.getSha1()));
+		assertTrue(Arrays.equals(ResourceDigestCache.computeDigest(file).getSha1(), second.getSha1()));
+	}
+
+	public void testPutReplacesDigest() throws Exception {
+		ResourceDigestCache cache = new ResourceDigestCache();
+		FileIdentity identity = FileIdentity.of(file);
+		cache.put(identity, new ResourceDigest(new byte[20], 5));
+		long memory = cache.getMemory();
+
+		// A file known to have changed is digested again under the same
+		// identity
+		ResourceDigest recomputed = ResourceDigestCache.computeDigest(file);
+		cache.put(identity, recomputed);
+
+		assertSame(recomputed, cache.get(identity));
+		assertEquals(1, cache.size());
+		assertEquals(memory, cache.getMemory());
+	}
+
+	public void testLeastRecentlyUsedEvicted() throws Exception {
+		ResourceDigestCache cache = new ResourceDigestCache(2, Long.MAX_VALUE);
+		FileIdentity first = new FileIdentity("/first.jar", 1, 1);
+		FileIdentity second = new FileIdentity("/second.jar", 1, 1);
+		FileIdentity third = new FileIdentity("/third.jar", 1, 1);
+		ResourceDigest digest = new ResourceDigest(new byte[20], 1);
+
+		cache.put(first, digest);
+		cache.put(second, digest);
+		// Use the first entry, so that the second one is evicted
+		assertNotNull(cache.get(first));
+		cache.put(third, digest);
+
+		assertEquals(2, cache.size());
+		assertNotNull(cache.get(first));
+		assertNull(cache.get(second));
+		assertNotNull(cache.get(third));
+	}
+
+	public void testMemoryBound() throws Exception {
+		ResourceDigestCache cache = new ResourceDigestCache(Integer.MAX_VALUE, 1024);
+		ResourceDigest digest = new ResourceDigest(new byte[20], 1);
+		for (int i = 0; i < 100; i++) {
+			cache.put(new FileIdentity("/lib/dependency-" + i + ".jar", 1, 1), digest);
+		}
+
+		assertTrue(cache.getMemory() <= 1024);
+		assertTrue(cache.size() > 0);
+		assertTrue(cache.size() < 100);
+	}
+
+	protected void writeFile(File file, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cft.server.core.internal.ServerOperationsExecutor;
+import org.eclipse.cft.server.core.internal.ServerOperationsExecutor.Statistics;
+
+import junit.framework.TestCase;
+
+public class ServerOperationsExecutorTest extends TestCase {
+
+	public void testSlowServerDoesNotBlockOtherServer() throws Exception {
+		ServerOperationsExecutor slow = new ServerOperationsExecutor("slow", 1, 10);
+		ServerOperationsExecutor fast = new ServerOperationsExecutor("fast", 1, 10);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			Future<Boolean> hung = slow.submit(new Callable<Boolean>() {
+
+				public Boolean call() throws Exception {
+					return release.await(10, TimeUnit.SECONDS);
+				}
+			});
+
+			Future<String> result = fast.submit(new Callable<String>() {
+
+				public String call() throws Exception {
+					return "done";
+				}
+			});
+			assertEquals("done", result.get(5, TimeUnit.SECONDS));
+			assertFalse(hung.isDone());
+
+			Statistics statistics = slow.getStatistics();
+			assertEquals("slow", statistics.getServerName());
+			assertEquals(1, statistics.getSubmitted());
+			assertEquals(0, statistics.getCompleted());
+
+			release.countDown();
+			assertTrue(hung.get(5, TimeUnit.SECONDS));
+		}
+		finally {
+			release.countDown();
+			slow.dispose();
+			fast.dispose();
+		}
+	}
+
+	public void testFullQueueRunsInSubmitter() throws Exception {
+		ServerOperationsExecutor executor = new ServerOperationsExecutor("server", 1, 1);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			Callable<Thread> blocking = new Callable<Thread>() {
+
+				public Thread call() throws Exception {
+					release.await(10, TimeUnit.SECONDS);
+					return Thread.currentThread();
+				}
+			};
+			Callable<Thread> current = new Callable<Thread>() {
+
+				public Thread call() throws Exception {
+					return Thread.currentThread();
+				}
+			};
+
+			// One task running, one task queued
+			executor.submit(blocking);
+			Future<Thread> queued = executor.submit(current);
+			Future<Thread> overflow = executor.submit(current);
+
+			assertTrue(overflow.isDone());
+			assertSame(Thread.currentThread(), overflow.get());
+			assertEquals(1, executor.getStatistics().getRejected());
+			assertEquals(1, executor.getStatistics().getQueued());
+
+			release.countDown();
+			assertNotSame(Thread.currentThread(), queued.get(5, TimeUnit.SECONDS));
+			assertEquals(3, executor.getStatistics().getSubmitted());
+		}
+		finally {
+			release.countDown();
+			executor.dispose();
+		}
+	}
+
+	public void testDisposeCancelsQueuedTasks() throws Exception {
+		ServerOperationsExecutor executor = new ServerOperationsExecutor("server", 1, 10);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.submit(new Callable<Boolean>() {
+
+				public Boolean call() throws Exception {
+					return release.await(10, TimeUnit.SECONDS);
+				}
+			});
+			Future<String> queued = executor.submit(new Callable<String>() {
+
+				public String call() throws Exception {
+					return "done";
+				}
+			});
+
+			executor.dispose();
+
+			// Waiting for a task that will never run must not block
+			assertTrue(queued.isCancelled());
+			assertTrue(executor.isDisposed());
+		}
+		finally {
+			release.countDown();
+			executor.dispose();
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+
+import org.eclipse.cft.server.ui.internal.wizards.ServiceIconCache;
+
+import junit.framework.TestCase;
+
+public class ServiceIconCacheTest extends TestCase {
+
+	private static final String ETAG = "\"v1\"";
+
+	private static final byte[] ICON = new byte[] { 1, 2, 3, 4, 5, 6 };
+
+	private int downloads;
+
+	private int notModified;
+
+	private boolean offline;
+
+	private byte[] body = ICON;
+
+	private String contentLength;
+
+	private int bytesRead;
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("serviceIconCacheTest", "");
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	public void testIconPersistedAndRevalidated() throws Exception {
+		URL url = new URL("http://localhost/mysql.png");
+		ServiceIconCache cache = new TestIconCache(1024, 60000);
+		assertTrue(Arrays.equals(ICON, cache.getIcon("mysql-core", url)));
+		assertTrue(Arrays.equals(ICON, cache.getIcon("mysql-core", url)));
+		assertEquals(1, downloads);
+		assertEquals(0, notModified);
+		cache.dispose();
+
+		// Icon is read from disk by a new cache, and revalidated with its ETag
+		// once the revalidation interval expired
+		cache = new TestIconCache(1024, 0);
+		assertTrue(cache.isCached("mysql-core", url));
+		assertTrue(Arrays.equals(ICON, cache.getIcon("mysql-core", url)));
+		assertEquals(1, downloads);
+		assertEquals(1, notModified);
+
+		// Cached icon is used if the server is not reachable
+		offline = true;
+		assertTrue(Arrays.equals(ICON, cache.getIcon("mysql-core", url)));
+	}
+
+	public void testLeastRecentlyUsedIconRemoved() throws Exception {
+		URL mysql = new URL("http://localhost/mysql.png");
+		URL redis = new URL("http://localhost/redis.png");
+		URL rabbit = new URL("http://localhost/rabbit.png");
+		ServiceIconCache cache = new TestIconCache(2 * ICON.length, 60000);
+		cache.getIcon("mysql-core", mysql);
+		cache.getIcon("redis-core", redis);
+		// Access the mysql icon, so that the redis icon is the least
+		// recently used
+		cache.getIcon("mysql-core", mysql);
+		cache.getIcon("rabbit-core", rabbit);
+
+		assertTrue(cache.isCached("mysql-core", mysql));
+		assertFalse(cache.isCached("redis-core", redis));
+		assertTrue(cache.isCached("rabbit-core", rabbit));
+		assertEquals(2 * ICON.length, cache.getSize());
+		assertEquals(3, downloads);
+	}
+
+	public void testOversizedIconNotDownloaded() throws Exception {
+		URL url = new URL("http://localhost/large.png");
+		ServiceIconCache cache = new TestIconCache(1024, 60000);
+
+		// Rejected on the Content-Length, without reading the response
+		body = new byte[64 * 1024];
+		contentLength = Integer.toString(body.length);
+		assertNull(cache.getIcon("large-core", url));
+		assertEquals(0, bytesRead);
+
+		// Reading stops once the maximum size is exceeded
+		contentLength = null;
+		assertNull(cache.getIcon("large-core", url));
+		assertTrue(bytesRead < body.length);
+		assertFalse(cache.isCached("large-core", url));
+		assertEquals(0, cache.getSize());
+	}
+
+	/**
+	 * Cache that serves a single icon version, without network requests
+	 */
+	private class TestIconCache extends ServiceIconCache {
+
+		public TestIconCache(long maxSize, long revalidateInterval) {
+			super(directory, maxSize, revalidateInterval);
+		}
+
+		@Override
+		protected URLConnection openConnection(URL url) throws IOException {
+			if (offline) {
+				throw new IOException("Server not reachable");
+			}
+			return new HttpURLConnection(url) {
+
+				@Override
+				public int getResponseCode() throws IOException {
+					if (ETAG.equals(getRequestProperty("If-None-Match"))) {
+						notModified++;
+						return HTTP_NOT_MODIFIED;
+					}
+					downloads++;
+					return HTTP_OK;
+				}
+
+				@Override
+				public InputStream getInputStream() throws IOException {
+					return new ByteArrayInputStream(body) {
+
+						@Override
+						public synchronized int read(byte[] b, int off, int len) {
+							int read = super.read(b, off, len);
+							bytesRead += Math.max(read, 0);
+							return read;
+						}
+					};
+				}
+
+				@Override
+				public String getHeaderField(String name) {
+					if ("content-length".equalsIgnoreCase(name)) {
+						return contentLength;
+					}
+					return "ETag".equals(name) ? ETAG : null;
+				}
+
+				@Override
+				public void connect() throws IOException {
+				}
+
+				@Override
+				public void disconnect() {
+				}
+
+				@Override
+				public boolean usingProxy() {
+					return false;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,1431 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudfoundry.client.lib.util.JsonUtil;
+
+/**
+ * Embedded stand-in for a Cloud Foundry Cloud Controller (v2 API) and UAA,
+ * serving the subset of endpoints used by CFT through the v1 Java client:
+ * info, token, orgs and spaces, space summary, paginated apps, stats, routes,
+ * domains, stacks, service instances and bindings, app creation, resource matching
+ * and bits upload.
+ * <p/>
+ * The number of apps, services and routes per app is configurable, so that
+ * refresh and publish can be measured against targets of any size without a
+ * live foundation. Responses can be delayed by a fixed latency plus random
+ * jitter, and a percentage of Cloud Controller requests can fail with a
+ * configurable HTTP error, to measure behaviour of slow or unreliable
+ * targets.
+ * <p/>
+ * State is held in memory and is regenerated by {@link #reset(int)}. Apps
+ * are STARTED with one running instance, except every tenth app, which is
+ * STOPPED. Apps pushed through the controller are created STOPPED, and
+ * uploaded bits are discarded.
+ * <p/>
+ * The controller is a minimal HTTP/1.1 server on a loopback socket, with
+ * keep-alive and chunked request bodies, but no TLS. Targets must therefore
+ * be configured with the "http" URL returned by {@link #getUrl()}.
+ */
+public class FakeCloudController {
+
+	public static final String ORG_NAME = "scale-org"; //$NON-NLS-1$
+
+	public static final String SPACE_NAME = "scale-space"; //$NON-NLS-1$
+
+	public static final String DOMAIN_NAME = "scale.example.com"; //$NON-NLS-1$
+
+	public static final String STACK_NAME = "cflinuxfs2"; //$NON-NLS-1$
+
+	public static final String APP_NAME_PREFIX = "scale-app-"; //$NON-NLS-1$
+
+	public static final String SERVICE_NAME_PREFIX = "scale-service-"; //$NON-NLS-1$
+
+	public static final int DEFAULT_PAGE_SIZE = 50;
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private static final String TIMESTAMP = "2017-06-01T12:00:00Z"; //$NON-NLS-1$
+
+	private static final String USAGE_TIME = "2017-06-01 12:00:00 +0000"; //$NON-NLS-1$
+
+	private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+
+	private static final Map<Integer, String> REASONS = new HashMap<Integer, String>();
+
+	static {
+		REASONS.put(200, "OK"); //$NON-NLS-1$
+		REASONS.put(201, "Created"); //$NON-NLS-1$
+		REASONS.put(204, "No Content"); //$NON-NLS-1$
+		REASONS.put(400, "Bad Request"); //$NON-NLS-1$
+		REASONS.put(401, "Unauthorized"); //$NON-NLS-1$
+		REASONS.put(404, "Not Found"); //$NON-NLS-1$
+		REASONS.put(500, "Internal Server Error"); //$NON-NLS-1$
+		REASONS.put(502, "Bad Gateway"); //$NON-NLS-1$
+		REASONS.put(503, "Service Unavailable"); //$NON-NLS-1$
+	}
+
+	private final Object lock = new Object();
+
+	private final Random random = new Random();
+
+	private final AtomicInteger requestCount = new AtomicInteger();
+
+	private final AtomicInteger injectedErrorCount = new AtomicInteger();
+
+	/*
+	 * Configuration. Counts take effect on the next reset, latency and errors
+	 * on the next request.
+	 */
+
+	private int serviceCount = 10;
+
+	private int routesPerApp = 1;
+
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	private volatile long latency;
+
+	private volatile long latencyJitter;
+
+	private volatile double errorRate;
+
+	private volatile int errorStatus = 503;
+
+	/*
+	 * Cloud Controller state, guarded by the lock
+	 */
+
+	private final Resource org = new Resource("organization", ORG_NAME); //$NON-NLS-1$
+
+	private final Resource space = new Resource("space", SPACE_NAME); //$NON-NLS-1$
+
+	private final Resource domain = new Resource("domain", DOMAIN_NAME); //$NON-NLS-1$
+
+	private final Resource stack = new Resource("stack", STACK_NAME); //$NON-NLS-1$
+
+	private final Map<UUID, Resource> apps = new LinkedHashMap<UUID, Resource>();
+
+	private final Map<UUID, Resource> routes = new LinkedHashMap<UUID, Resource>();
+
+	private final Map<UUID, Resource> services = new LinkedHashMap<UUID, Resource>();
+
+	private final Map<UUID, Resource> bindings = new LinkedHashMap<UUID, Resource>();
+
+	private final Map<UUID, Set<UUID>> appRoutes = new HashMap<UUID, Set<UUID>>();
+
+	private final Map<UUID, Set<UUID>> appBindings = new HashMap<UUID, Set<UUID>>();
+
+	private final Resource servicePlan = new Resource("service_plan", "free"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final Resource serviceOffering = new Resource("service", "scaledb"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private ServerSocket serverSocket;
+
+	private ExecutorService executor;
+
+	private String url;
+
+	private volatile boolean stopped;
+
+	public FakeCloudController() {
+		org.entity.put("billing_enabled", false); //$NON-NLS-1$
+		org.entity.put("status", "active"); //$NON-NLS-1$ //$NON-NLS-2$
+		space.entity.put("organization_guid", org.guid.toString()); //$NON-NLS-1$
+		domain.entity.put("owning_organization_guid", null); //$NON-NLS-1$
+		stack.entity.put("description", "Cloud Foundry Linux-based filesystem"); //$NON-NLS-1$ //$NON-NLS-2$
+		serviceOffering.entity.put("label", "scaledb"); //$NON-NLS-1$ //$NON-NLS-2$
+		serviceOffering.entity.put("provider", null); //$NON-NLS-1$
+		serviceOffering.entity.put("version", null); //$NON-NLS-1$
+		serviceOffering.entity.put("description", "Fake database service"); //$NON-NLS-1$ //$NON-NLS-2$
+		serviceOffering.entity.put("active", true); //$NON-NLS-1$
+		serviceOffering.entity.put("bindable", true); //$NON-NLS-1$
+		servicePlan.entity.put("service_guid", serviceOffering.guid.toString()); //$NON-NLS-1$
+		servicePlan.entity.put("free", true); //$NON-NLS-1$
+		servicePlan.entity.put("public", true); //$NON-NLS-1$
+	}
+
+	/**
+	 * Starts the controller on a free loopback port.
+	 * @throws IOException if the server socket cannot be opened
+	 */
+	public void start() throws IOException {
+		serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1")); //$NON-NLS-1$
+		url = "http://127.0.0.1:" + serverSocket.getLocalPort(); //$NON-NLS-1$
+
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Fake Cloud Controller " + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.execute(new Runnable() {
+
+			public void run() {
+				while (!stopped) {
+					try {
+						final Socket socket = serverSocket.accept();
+						executor.execute(new Runnable() {
+
+							public void run() {
+								serve(socket);
+							}
+						});
+					}
+					catch (IOException e) {
+						// Socket closed on stop()
+					}
+				}
+			}
+		});
+	}
+
+	public void stop() {
+		stopped = true;
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		}
+		catch (IOException e) {
+			// Ignore
+		}
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return base URL of the Cloud Controller and UAA, e.g.
+	 * http://127.0.0.1:41234
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Regenerates the Cloud Controller content with the given number of apps,
+	 * and the configured number of services and routes per app. Apps pushed
+	 * since the last reset are removed.
+	 */
+	public void reset(int appCount) {
+		synchronized (lock) {
+			apps.clear();
+			routes.clear();
+			services.clear();
+			bindings.clear();
+			appRoutes.clear();
+			appBindings.clear();
+
+			List<Resource> serviceList = new ArrayList<Resource>();
+			for (int i = 0; i < serviceCount; i++) {
+				Resource service = new Resource("service_instance", SERVICE_NAME_PREFIX + i); //$NON-NLS-1$
+				service.entity.put("credentials", Collections.emptyMap()); //$NON-NLS-1$
+				service.entity.put("service_plan_guid", servicePlan.guid.toString()); //$NON-NLS-1$
+				service.entity.put("space_guid", space.guid.toString()); //$NON-NLS-1$
+				service.entity.put("dashboard_url", null); //$NON-NLS-1$
+				service.entity.put("type", "managed_service_instance"); //$NON-NLS-1$ //$NON-NLS-2$
+				services.put(service.guid, service);
+				serviceList.add(service);
+			}
+
+			for (int i = 0; i < appCount; i++) {
+				String name = APP_NAME_PREFIX + i;
+				Resource app = createApp(name);
+				if (i % 10 != 9) {
+					app.entity.put("state", "STARTED"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				for (int j = 0; j < routesPerApp; j++) {
+					bindRoute(app, createRoute(j == 0 ? name : name + '-' + j));
+				}
+				if (!serviceList.isEmpty()) {
+					createBinding(app, serviceList.get(i % serviceList.size()));
+				}
+			}
+		}
+	}
+
+	public void setServiceCount(int serviceCount) {
+		this.serviceCount = serviceCount;
+	}
+
+	public void setRoutesPerApp(int routesPerApp) {
+		this.routesPerApp = routesPerApp;
+	}
+
+	/**
+	 * @param pageSize default number of resources per page, if the request
+	 * does not specify one
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Delays each response by the given latency plus a random jitter.
+	 * @param latency in milliseconds
+	 * @param jitter maximum random delay added to the latency, in
+	 * milliseconds
+	 */
+	public void setLatency(long latency, long jitter) {
+		this.latency = latency;
+		this.latencyJitter = jitter;
+	}
+
+	/**
+	 * Fails the given fraction of Cloud Controller requests with the given
+	 * HTTP status. Info and token requests never fail, so that clients can
+	 * always connect.
+	 * @param errorRate between 0 (no errors) and 1 (all requests fail)
+	 * @param errorStatus e.g. 500 or 503
+	 */
+	public void setErrors(double errorRate, int errorStatus) {
+		this.errorRate = errorRate;
+		this.errorStatus = errorStatus;
+	}
+
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+
+	public int getInjectedErrorCount() {
+		return injectedErrorCount.get();
+	}
+
+	public void resetCounters() {
+		requestCount.set(0);
+		injectedErrorCount.set(0);
+	}
+
+	public int getAppCount() {
+		synchronized (lock) {
+			return apps.size();
+		}
+	}
+
+	/*
+	 * HTTP
+	 */
+
+	protected void serve(Socket socket) {
+		try {
+			socket.setTcpNoDelay(true);
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+
+			boolean keepAlive = true;
+			while (keepAlive && !stopped) {
+				String requestLine = readLine(in);
+				if (requestLine == null) {
+					break;
+				}
+				if (requestLine.length() == 0) {
+					continue;
+				}
+				String[] segments = requestLine.split(" "); //$NON-NLS-1$
+				if (segments.length < 2) {
+					break;
+				}
+
+				Map<String, String> headers = new HashMap<String, String>();
+				String header;
+				while ((header = readLine(in)) != null && header.length() > 0) {
+					int colon = header.indexOf(':');
+					if (colon > 0) {
+						headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ENGLISH),
+								header.substring(colon + 1).trim());
+					}
+				}
+
+				if ("100-continue".equalsIgnoreCase(headers.get("expect"))) { //$NON-NLS-1$ //$NON-NLS-2$
+					out.write(CONTINUE);
+					out.flush();
+				}
+
+				byte[] body = readBody(in, headers);
+				keepAlive = !"close".equalsIgnoreCase(headers.get("connection")); //$NON-NLS-1$ //$NON-NLS-2$
+
+				Response response = handle(segments[0], segments[1], body);
+				write(out, response, keepAlive);
+			}
+		}
+		catch (SocketException e) {
+			// Connection closed by the client
+		}
+		catch (IOException e) {
+			// Connection closed by the client
+		}
+		finally {
+			try {
+				socket.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	protected static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != -1) {
+			if (c == '\n') {
+				int length = line.length();
+				if (length > 0 && line.charAt(length - 1) == '\r') {
+					line.setLength(length - 1);
+				}
+				return line.toString();
+			}
+			line.append((char) c);
+		}
+		return line.length() > 0 ? line.toString() : null;
+	}
+
+	protected static byte[] readBody(InputStream in, Map<String, String> headers) throws IOException {
+		if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) { //$NON-NLS-1$ //$NON-NLS-2$
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			while (true) {
+				String sizeLine = readLine(in);
+				if (sizeLine == null) {
+					throw new EOFException();
+				}
+				int extension = sizeLine.indexOf(';');
+				int size = Integer.parseInt((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+				if (size == 0) {
+					// Trailers
+					String trailer;
+					while ((trailer = readLine(in)) != null && trailer.length() > 0) {
+						// Ignore
+					}
+					return body.toByteArray();
+				}
+				body.write(readFully(in, size));
+				readLine(in);
+			}
+		}
+
+		String contentLength = headers.get("content-length"); //$NON-NLS-1$
+		if (contentLength != null) {
+			return readFully(in, Integer.parseInt(contentLength.trim()));
+		}
+		return new byte[0];
+	}
+
+	protected static byte[] readFully(InputStream in, int length) throws IOException {
+		byte[] buffer = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int read = in.read(buffer, offset, length - offset);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			offset += read;
+		}
+		return buffer;
+	}
+
+	protected static void write(OutputStream out, Response response, boolean keepAlive) throws IOException {
+		byte[] body = response.body != null ? response.body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		String reason = REASONS.get(response.status);
+
+		StringBuilder head = new StringBuilder();
+		head.append("HTTP/1.1 ").append(response.status).append(' ').append(reason != null ? reason : "Unknown") //$NON-NLS-1$ //$NON-NLS-2$
+				.append("\r\n"); //$NON-NLS-1$
+		if (body.length > 0) {
+			head.append("Content-Type: application/json;charset=UTF-8\r\n"); //$NON-NLS-1$
+		}
+		head.append("Content-Length: ").append(body.length).append("\r\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+		out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+		out.write(body);
+		out.flush();
+	}
+
+	/*
+	 * Request handling
+	 */
+
+	protected Response handle(String method, String target, byte[] body) {
+		requestCount.incrementAndGet();
+
+		String path = target;
+		String query = null;
+		int queryStart = target.indexOf('?');
+		if (queryStart >= 0) {
+			path = target.substring(0, queryStart);
+			query = target.substring(queryStart + 1);
+		}
+		if (path.length() > 1 && path.endsWith("/")) { //$NON-NLS-1$
+			path = path.substring(0, path.length() - 1);
+		}
+
+		delay();
+
+		if (isInjectingError(path)) {
+			injectedErrorCount.incrementAndGet();
+			return error(errorStatus, 10001, "CF-InjectedError", "Injected error for " + method + ' ' + path); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		try {
+			Response response = route(method, path, new Query(path, query), body);
+			if (response != null) {
+				return response;
+			}
+			return error(404, 10000, "CF-NotFound", "Unknown request: " + method + ' ' + path); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		catch (RuntimeException e) {
+			return error(500, 10001, "CF-ServerError", e.toString()); //$NON-NLS-1$
+		}
+	}
+
+	protected void delay() {
+		long delay = latency;
+		if (latencyJitter > 0) {
+			synchronized (random) {
+				delay += (long) (random.nextDouble() * latencyJitter);
+			}
+		}
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	protected boolean isInjectingError(String path) {
+		if (errorRate <= 0 || !path.startsWith("/v2/") || path.equals("/v2/info")) { //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+		synchronized (random) {
+			return random.nextDouble() < errorRate;
+		}
+	}
+
+	protected Response route(String method, String path, Query query, byte[] body) {
+		if (path.equals("/info")) { //$NON-NLS-1$
+			return ok(getLegacyInfo());
+		}
+		if (path.equals("/v2/info")) { //$NON-NLS-1$
+			return ok(getInfo());
+		}
+		if (path.equals("/oauth/token")) { //$NON-NLS-1$
+			return ok(getToken());
+		}
+		if (path.equals("/userinfo")) { //$NON-NLS-1$
+			Map<String, Object> user = new LinkedHashMap<String, Object>();
+			user.put("user_id", org.guid.toString()); //$NON-NLS-1$
+			user.put("user_name", "scale-user"); //$NON-NLS-1$ //$NON-NLS-2$
+			return ok(user);
+		}
+		if (!path.startsWith("/v2/")) { //$NON-NLS-1$
+			return null;
+		}
+
+		String[] segments = path.substring("/v2/".length()).split("/"); //$NON-NLS-1$ //$NON-NLS-2$
+		String collection = segments[0];
+		String last = segments[segments.length - 1];
+
+		synchronized (lock) {
+			if ("GET".equals(method)) { //$NON-NLS-1$
+				return get(segments, collection, last, query);
+			}
+			else if ("POST".equals(method)) { //$NON-NLS-1$
+				return post(collection, parseJson(body));
+			}
+			else if ("PUT".equals(method)) { //$NON-NLS-1$
+				return put(segments, collection, body);
+			}
+			else if ("DELETE".equals(method)) { //$NON-NLS-1$
+				return delete(segments, collection);
+			}
+		}
+		return null;
+	}
+
+	protected Response get(String[] segments, String collection, String last, Query query) {
+		int depth = query.getInlineRelationsDepth();
+
+		// Nested collections, e.g. /v2/spaces/{guid}/apps, are served from the
+		// same content as the top-level collections as there is only one org
+		// and space
+		if ("organizations".equals(last)) { //$NON-NLS-1$
+			return page(Collections.singletonList(org), query, depth);
+		}
+		if ("spaces".equals(last)) { //$NON-NLS-1$
+			return page(Collections.singletonList(space), query, depth);
+		}
+		if ("domains".equals(last) || "shared_domains".equals(last)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return page(Collections.singletonList(domain), query, depth);
+		}
+		if ("private_domains".equals(last) || "crashes".equals(last) || "events".equals(last) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				|| "buildpacks".equals(last) || "security_groups".equals(last)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return page(Collections.<Resource> emptyList(), query, depth);
+		}
+		if ("stacks".equals(last)) { //$NON-NLS-1$
+			return page(Collections.singletonList(stack), query, depth);
+		}
+		if ("services".equals(last)) { //$NON-NLS-1$
+			return page(Collections.singletonList(serviceOffering), query, depth);
+		}
+		if ("service_plans".equals(last)) { //$NON-NLS-1$
+			return page(Collections.singletonList(servicePlan), query, depth);
+		}
+		if ("service_instances".equals(last)) { //$NON-NLS-1$
+			return page(new ArrayList<Resource>(services.values()), query, depth);
+		}
+		if ("service_bindings".equals(last)) { //$NON-NLS-1$
+			if ("apps".equals(collection) && segments.length == 3) { //$NON-NLS-1$
+				Resource app = apps.get(toGuid(segments[1]));
+				if (app == null) {
+					return notFound("app", segments[1]); //$NON-NLS-1$
+				}
+				return page(getBindings(app), query, depth);
+			}
+			return page(new ArrayList<Resource>(bindings.values()), query, depth);
+		}
+		if ("routes".equals(last)) { //$NON-NLS-1$
+			if ("apps".equals(collection) && segments.length == 3) { //$NON-NLS-1$
+				Resource app = apps.get(toGuid(segments[1]));
+				if (app == null) {
+					return notFound("app", segments[1]); //$NON-NLS-1$
+				}
+				return page(getRoutes(app), query, depth);
+			}
+			return page(new ArrayList<Resource>(routes.values()), query, depth);
+		}
+		if ("apps".equals(last)) { //$NON-NLS-1$
+			return page(new ArrayList<Resource>(apps.values()), query, depth);
+		}
+
+		if ("spaces".equals(collection) && segments.length == 3 && "summary".equals(last)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return ok(getSpaceSummary());
+		}
+
+		if ("jobs".equals(collection) && segments.length == 2) { //$NON-NLS-1$
+			return ok(getFinishedJob(segments[1]));
+		}
+
+		if (segments.length == 2) {
+			Resource resource = getResource(collection, segments[1]);
+			return resource != null ? ok(render(resource, depth)) : notFound(collection, segments[1]);
+		}
+
+		if ("apps".equals(collection) && segments.length == 3) { //$NON-NLS-1$
+			Resource app = apps.get(toGuid(segments[1]));
+			if (app == null) {
+				return notFound("app", segments[1]); //$NON-NLS-1$
+			}
+			if ("stats".equals(last)) { //$NON-NLS-1$
+				return getStats(app);
+			}
+			if ("instances".equals(last)) { //$NON-NLS-1$
+				return getInstances(app);
+			}
+			if ("env".equals(last)) { //$NON-NLS-1$
+				Map<String, Object> env = new LinkedHashMap<String, Object>();
+				env.put("environment_json", app.entity.get("environment_json")); //$NON-NLS-1$ //$NON-NLS-2$
+				return ok(env);
+			}
+		}
+
+		return null;
+	}
+
+	protected Response post(String collection, Map<String, Object> body) {
+		if ("apps".equals(collection)) { //$NON-NLS-1$
+			String name = (String) body.get("name"); //$NON-NLS-1$
+			if (findByName(apps.values(), name) != null) {
+				return error(400, 100002, "CF-AppNameTaken", "The app name is taken: " + name); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			Resource app = createApp(name);
+			update(app, body);
+			return created(render(app, 0));
+		}
+		if ("routes".equals(collection)) { //$NON-NLS-1$
+			String host = (String) body.get("host"); //$NON-NLS-1$
+			for (Resource route : routes.values()) {
+				if (host != null && host.equals(route.entity.get("host"))) { //$NON-NLS-1$
+					return error(400, 210003, "CF-RouteHostTaken", "The host is taken: " + host); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+			return created(render(createRoute(host), 0));
+		}
+		if ("service_bindings".equals(collection)) { //$NON-NLS-1$
+			Resource app = apps.get(toGuid((String) body.get("app_guid"))); //$NON-NLS-1$
+			Resource service = services.get(toGuid((String) body.get("service_instance_guid"))); //$NON-NLS-1$
+			if (app == null || service == null) {
+				return error(400, 1001, "CF-MessageParseError", "Invalid service binding"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return created(render(createBinding(app, service), 0));
+		}
+		return null;
+	}
+
+	protected Response put(String[] segments, String collection, byte[] body) {
+		if ("resource_match".equals(collection)) { //$NON-NLS-1$
+			// Nothing is cached, so all resources have to be uploaded
+			return new Response(200, "[]"); //$NON-NLS-1$
+		}
+		if (!"apps".equals(collection) || segments.length < 2) { //$NON-NLS-1$
+			return null;
+		}
+
+		Resource app = apps.get(toGuid(segments[1]));
+		if (app == null) {
+			return notFound("app", segments[1]); //$NON-NLS-1$
+		}
+		if (segments.length == 2) {
+			update(app, parseJson(body));
+			return created(render(app, 0));
+		}
+		if (segments.length == 3 && "bits".equals(segments[2])) { //$NON-NLS-1$
+			// Bits are discarded. Report the upload as an already finished
+			// job
+			app.entity.put("package_state", "STAGED"); //$NON-NLS-1$ //$NON-NLS-2$
+			return created(getFinishedJob(UUID.randomUUID().toString()));
+		}
+		if (segments.length == 4 && "routes".equals(segments[2])) { //$NON-NLS-1$
+			Resource route = routes.get(toGuid(segments[3]));
+			if (route == null) {
+				return notFound("route", segments[3]); //$NON-NLS-1$
+			}
+			bindRoute(app, route);
+			return created(render(app, 0));
+		}
+		return null;
+	}
+
+	protected Response delete(String[] segments, String collection) {
+		if (segments.length == 2) {
+			UUID guid = toGuid(segments[1]);
+			Resource deleted = null;
+			if ("apps".equals(collection)) { //$NON-NLS-1$
+				deleted = apps.remove(guid);
+				appRoutes.remove(guid);
+				Set<UUID> bound = appBindings.remove(guid);
+				if (bound != null) {
+					bindings.keySet().removeAll(bound);
+				}
+			}
+			else if ("routes".equals(collection)) { //$NON-NLS-1$
+				deleted = routes.remove(guid);
+				for (Set<UUID> bound : appRoutes.values()) {
+					bound.remove(guid);
+				}
+			}
+			else if ("service_instances".equals(collection)) { //$NON-NLS-1$
+				deleted = services.remove(guid);
+			}
+			else if ("service_bindings".equals(collection)) { //$NON-NLS-1$
+				deleted = bindings.remove(guid);
+				for (Set<UUID> bound : appBindings.values()) {
+					bound.remove(guid);
+				}
+			}
+			return deleted != null ? new Response(204, null) : notFound(collection, segments[1]);
+		}
+		if (segments.length == 4 && "apps".equals(collection) && "routes".equals(segments[2])) { //$NON-NLS-1$ //$NON-NLS-2$
+			Set<UUID> bound = appRoutes.get(toGuid(segments[1]));
+			if (bound != null) {
+				bound.remove(toGuid(segments[3]));
+			}
+			return new Response(204, null);
+		}
+		return null;
+	}
+
+	/*
+	 * Content
+	 */
+
+	protected Resource createApp(String name) {
+		Resource app = new Resource("app", name); //$NON-NLS-1$
+		app.entity.put("production", false); //$NON-NLS-1$
+		app.entity.put("space_guid", space.guid.toString()); //$NON-NLS-1$
+		app.entity.put("stack_guid", stack.guid.toString()); //$NON-NLS-1$
+		app.entity.put("buildpack", null); //$NON-NLS-1$
+		app.entity.put("detected_buildpack", "java-buildpack"); //$NON-NLS-1$ //$NON-NLS-2$
+		app.entity.put("environment_json", new LinkedHashMap<String, Object>()); //$NON-NLS-1$
+		app.entity.put("memory", 512); //$NON-NLS-1$
+		app.entity.put("instances", 1); //$NON-NLS-1$
+		app.entity.put("disk_quota", 1024); //$NON-NLS-1$
+		app.entity.put("state", "STOPPED"); //$NON-NLS-1$ //$NON-NLS-2$
+		app.entity.put("version", UUID.randomUUID().toString()); //$NON-NLS-1$
+		app.entity.put("command", null); //$NON-NLS-1$
+		app.entity.put("console", false); //$NON-NLS-1$
+		app.entity.put("debug", null); //$NON-NLS-1$
+		app.entity.put("staging_task_id", null); //$NON-NLS-1$
+		app.entity.put("package_state", "STAGED"); //$NON-NLS-1$ //$NON-NLS-2$
+		app.entity.put("health_check_type", "port"); //$NON-NLS-1$ //$NON-NLS-2$
+		app.entity.put("health_check_timeout", null); //$NON-NLS-1$
+		app.entity.put("health_check_http_endpoint", null); //$NON-NLS-1$
+		app.entity.put("staging_failed_reason", null); //$NON-NLS-1$
+		app.entity.put("diego", true); //$NON-NLS-1$
+		app.entity.put("enable_ssh", false); //$NON-NLS-1$
+		app.entity.put("ports", Collections.singletonList(8080)); //$NON-NLS-1$
+		apps.put(app.guid, app);
+		appRoutes.put(app.guid, new LinkedHashSet<UUID>());
+		appBindings.put(app.guid, new LinkedHashSet<UUID>());
+		return app;
+	}
+
+	protected void update(Resource app, Map<String, Object> values) {
+		for (Entry<String, Object> entry : values.entrySet()) {
+			if (!entry.getKey().endsWith("_guid")) { //$NON-NLS-1$
+				app.entity.put(entry.getKey(), entry.getValue());
+			}
+		}
+		app.metadata.put("updated_at", TIMESTAMP); //$NON-NLS-1$
+	}
+
+	protected Resource createRoute(String host) {
+		Resource route = new Resource("route", null); //$NON-NLS-1$
+		route.entity.put("host", host); //$NON-NLS-1$
+		route.entity.put("path", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		route.entity.put("domain_guid", domain.guid.toString()); //$NON-NLS-1$
+		route.entity.put("space_guid", space.guid.toString()); //$NON-NLS-1$
+		routes.put(route.guid, route);
+		return route;
+	}
+
+	protected void bindRoute(Resource app, Resource route) {
+		Set<UUID> bound = appRoutes.get(app.guid);
+		if (bound != null) {
+			bound.add(route.guid);
+		}
+	}
+
+	protected List<Resource> getRoutes(Resource app) {
+		List<Resource> result = new ArrayList<Resource>();
+		Set<UUID> bound = appRoutes.get(app.guid);
+		if (bound != null) {
+			for (UUID guid : bound) {
+				Resource route = routes.get(guid);
+				if (route != null) {
+					result.add(route);
+				}
+			}
+		}
+		return result;
+	}
+
+	protected Resource createBinding(Resource app, Resource service) {
+		Resource binding = new Resource("service_binding", null); //$NON-NLS-1$
+		binding.entity.put("app_guid", app.guid.toString()); //$NON-NLS-1$
+		binding.entity.put("service_instance_guid", service.guid.toString()); //$NON-NLS-1$
+		binding.entity.put("credentials", Collections.emptyMap()); //$NON-NLS-1$
+		binding.entity.put("binding_options", Collections.emptyMap()); //$NON-NLS-1$
+		binding.entity.put("syslog_drain_url", null); //$NON-NLS-1$
+		bindings.put(binding.guid, binding);
+		Set<UUID> bound = appBindings.get(app.guid);
+		if (bound != null) {
+			bound.add(binding.guid);
+		}
+		return binding;
+	}
+
+	protected List<Resource> getBindings(Resource app) {
+		List<Resource> result = new ArrayList<Resource>();
+		Set<UUID> bound = appBindings.get(app.guid);
+		if (bound != null) {
+			for (UUID guid : bound) {
+				Resource binding = bindings.get(guid);
+				if (binding != null) {
+					result.add(binding);
+				}
+			}
+		}
+		return result;
+	}
+
+	protected Resource getResource(String collection, String guid) {
+		UUID id = toGuid(guid);
+		if ("apps".equals(collection)) { //$NON-NLS-1$
+			return apps.get(id);
+		}
+		if ("routes".equals(collection)) { //$NON-NLS-1$
+			return routes.get(id);
+		}
+		if ("service_instances".equals(collection)) { //$NON-NLS-1$
+			return services.get(id);
+		}
+		if ("service_bindings".equals(collection)) { //$NON-NLS-1$
+			return bindings.get(id);
+		}
+		for (Resource resource : new Resource[] { org, space, domain, stack, servicePlan, serviceOffering }) {
+			if (resource.guid.equals(id)) {
+				return resource;
+			}
+		}
+		return null;
+	}
+
+	protected static Resource findByName(Iterable<Resource> resources, String name) {
+		for (Resource resource : resources) {
+			if (name != null && name.equals(resource.entity.get("name"))) { //$NON-NLS-1$
+				return resource;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Renders the resource, with to-one and to-many relations inlined if the
+	 * inline relations depth is at least 1. As in the Cloud Controller,
+	 * relations of inlined resources are only referenced by URL.
+	 */
+	protected Map<String, Object> render(Resource resource, int depth) {
+		Map<String, Object> entity = new LinkedHashMap<String, Object>(resource.entity);
+		String url = (String) resource.metadata.get("url"); //$NON-NLS-1$
+
+		if ("app".equals(resource.type)) { //$NON-NLS-1$
+			entity.put("space_url", "/v2/spaces/" + space.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("stack_url", "/v2/stacks/" + stack.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("routes_url", url + "/routes"); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("service_bindings_url", url + "/service_bindings"); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("events_url", url + "/events"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (depth > 0) {
+				entity.put("space", render(space, 0)); //$NON-NLS-1$
+				entity.put("stack", render(stack, 0)); //$NON-NLS-1$
+				List<Object> appBindingList = new ArrayList<Object>();
+				for (Resource binding : getBindings(resource)) {
+					appBindingList.add(render(binding, 0));
+				}
+				entity.put("service_bindings", appBindingList); //$NON-NLS-1$
+				List<Object> appRouteList = new ArrayList<Object>();
+				for (Resource route : getRoutes(resource)) {
+					appRouteList.add(render(route, 0));
+				}
+				entity.put("routes", appRouteList); //$NON-NLS-1$
+			}
+		}
+		else if ("route".equals(resource.type)) { //$NON-NLS-1$
+			entity.put("domain_url", "/v2/domains/" + domain.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("space_url", "/v2/spaces/" + space.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("apps_url", url + "/apps"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (depth > 0) {
+				entity.put("domain", render(domain, 0)); //$NON-NLS-1$
+				entity.put("space", render(space, 0)); //$NON-NLS-1$
+				List<Object> routeApps = new ArrayList<Object>();
+				for (Entry<UUID, Set<UUID>> entry : appRoutes.entrySet()) {
+					if (entry.getValue().contains(resource.guid) && apps.containsKey(entry.getKey())) {
+						routeApps.add(render(apps.get(entry.getKey()), 0));
+					}
+				}
+				entity.put("apps", routeApps); //$NON-NLS-1$
+			}
+		}
+		else if ("service_binding".equals(resource.type)) { //$NON-NLS-1$
+			entity.put("app_url", "/v2/apps/" + resource.entity.get("app_guid")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			entity.put("service_instance_url", //$NON-NLS-1$
+					"/v2/service_instances/" + resource.entity.get("service_instance_guid")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		else if ("service_instance".equals(resource.type)) { //$NON-NLS-1$
+			entity.put("space_url", "/v2/spaces/" + space.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("service_plan_url", "/v2/service_plans/" + servicePlan.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("service_bindings_url", url + "/service_bindings"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (depth > 0) {
+				// The client reads the offering label from the plan, so it is
+				// inlined one level deeper than the requested depth
+				Map<String, Object> plan = render(servicePlan, 0);
+				getEntity(plan).put("service", render(serviceOffering, 0)); //$NON-NLS-1$
+				entity.put("service_plan", plan); //$NON-NLS-1$
+				entity.put("space", render(space, 0)); //$NON-NLS-1$
+			}
+		}
+		else if ("space".equals(resource.type)) { //$NON-NLS-1$
+			entity.put("organization_url", "/v2/organizations/" + org.guid); //$NON-NLS-1$ //$NON-NLS-2$
+			if (depth > 0) {
+				entity.put("organization", render(org, 0)); //$NON-NLS-1$
+			}
+		}
+		else if ("organization".equals(resource.type)) { //$NON-NLS-1$
+			entity.put("spaces_url", url + "/spaces"); //$NON-NLS-1$ //$NON-NLS-2$
+			entity.put("quota_definition_guid", null); //$NON-NLS-1$
+			if (depth > 0) {
+				entity.put("spaces", Collections.singletonList(render(space, 0))); //$NON-NLS-1$
+			}
+		}
+
+		Map<String, Object> rendered = new LinkedHashMap<String, Object>();
+		rendered.put("metadata", new LinkedHashMap<String, Object>(resource.metadata)); //$NON-NLS-1$
+		rendered.put("entity", entity); //$NON-NLS-1$
+		return rendered;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static Map<String, Object> getEntity(Map<String, Object> rendered) {
+		return (Map<String, Object>) rendered.get("entity"); //$NON-NLS-1$
+	}
+
+	protected Response page(List<Resource> resources, Query query, int depth) {
+		List<Resource> filtered = new ArrayList<Resource>();
+		for (Resource resource : resources) {
+			if (query.matches(resource)) {
+				filtered.add(resource);
+			}
+		}
+
+		int perPage = Math.min(MAX_PAGE_SIZE, Math.max(1, query.getInt("results-per-page", pageSize))); //$NON-NLS-1$
+		int total = filtered.size();
+		int totalPages = Math.max(1, (total + perPage - 1) / perPage);
+		int pageNumber = Math.min(totalPages, Math.max(1, query.getInt("page", 1))); //$NON-NLS-1$
+
+		List<Object> pageResources = new ArrayList<Object>();
+		for (int i = (pageNumber - 1) * perPage; i < Math.min(total, pageNumber * perPage); i++) {
+			pageResources.add(render(filtered.get(i), depth));
+		}
+
+		Map<String, Object> page = new LinkedHashMap<String, Object>();
+		page.put("total_results", total); //$NON-NLS-1$
+		page.put("total_pages", totalPages); //$NON-NLS-1$
+		page.put("prev_url", pageNumber > 1 ? query.getPageUrl(pageNumber - 1, perPage) : null); //$NON-NLS-1$
+		page.put("next_url", pageNumber < totalPages ? query.getPageUrl(pageNumber + 1, perPage) : null); //$NON-NLS-1$
+		page.put("resources", pageResources); //$NON-NLS-1$
+		return ok(page);
+	}
+
+	protected Response getStats(Resource app) {
+		if (!"STARTED".equals(app.entity.get("state"))) { //$NON-NLS-1$ //$NON-NLS-2$
+			return error(400, 200003, "CF-AppStoppedStatsError", //$NON-NLS-1$
+					"Could not fetch stats for stopped app: " + app.entity.get("name")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		List<String> uris = new ArrayList<String>();
+		for (Resource route : getRoutes(app)) {
+			uris.add(route.entity.get("host") + "." + DOMAIN_NAME); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		int instances = ((Number) app.entity.get("instances")).intValue(); //$NON-NLS-1$
+		for (int i = 0; i < instances; i++) {
+			Map<String, Object> usage = new LinkedHashMap<String, Object>();
+			usage.put("time", USAGE_TIME); //$NON-NLS-1$
+			usage.put("cpu", 0.01); //$NON-NLS-1$
+			usage.put("mem", 128 * 1024 * 1024); //$NON-NLS-1$
+			usage.put("disk", 64 * 1024 * 1024); //$NON-NLS-1$
+
+			Map<String, Object> instanceStats = new LinkedHashMap<String, Object>();
+			instanceStats.put("name", app.entity.get("name")); //$NON-NLS-1$ //$NON-NLS-2$
+			instanceStats.put("uris", uris); //$NON-NLS-1$
+			instanceStats.put("host", "10.0.0." + (i + 1)); //$NON-NLS-1$ //$NON-NLS-2$
+			instanceStats.put("port", 61000 + i); //$NON-NLS-1$
+			instanceStats.put("uptime", 3600); //$NON-NLS-1$
+			instanceStats.put("mem_quota", ((Number) app.entity.get("memory")).longValue() * 1024 * 1024); //$NON-NLS-1$ //$NON-NLS-2$
+			instanceStats.put("disk_quota", ((Number) app.entity.get("disk_quota")).longValue() * 1024 * 1024); //$NON-NLS-1$ //$NON-NLS-2$
+			instanceStats.put("fds_quota", 16384); //$NON-NLS-1$
+			instanceStats.put("usage", usage); //$NON-NLS-1$
+
+			Map<String, Object> instance = new LinkedHashMap<String, Object>();
+			instance.put("state", "RUNNING"); //$NON-NLS-1$ //$NON-NLS-2$
+			instance.put("stats", instanceStats); //$NON-NLS-1$
+			stats.put(String.valueOf(i), instance);
+		}
+		return ok(stats);
+	}
+
+	protected Response getInstances(Resource app) {
+		if (!"STARTED".equals(app.entity.get("state"))) { //$NON-NLS-1$ //$NON-NLS-2$
+			return error(400, 220001, "CF-InstancesError", //$NON-NLS-1$
+					"Instances error: app is stopped: " + app.entity.get("name")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		int instances = ((Number) app.entity.get("instances")).intValue(); //$NON-NLS-1$
+		for (int i = 0; i < instances; i++) {
+			Map<String, Object> instance = new LinkedHashMap<String, Object>();
+			instance.put("state", "RUNNING"); //$NON-NLS-1$ //$NON-NLS-2$
+			instance.put("since", 1496318400.0); //$NON-NLS-1$
+			result.put(String.valueOf(i), instance);
+		}
+		return ok(result);
+	}
+
+	/**
+	 * Space summary, with each app's entity plus its URLs, bound service names
+	 * and number of running instances.
+	 */
+	protected Map<String, Object> getSpaceSummary() {
+		List<Object> appSummaries = new ArrayList<Object>();
+		for (Resource app : apps.values()) {
+			Map<String, Object> appSummary = new LinkedHashMap<String, Object>();
+			appSummary.put("guid", app.guid.toString()); //$NON-NLS-1$
+			appSummary.putAll(app.entity);
+
+			List<Object> urls = new ArrayList<Object>();
+			List<Object> appRouteList = new ArrayList<Object>();
+			for (Resource route : getRoutes(app)) {
+				urls.add(route.entity.get("host") + "." + DOMAIN_NAME); //$NON-NLS-1$ //$NON-NLS-2$
+				Map<String, Object> domainSummary = new LinkedHashMap<String, Object>();
+				domainSummary.put("guid", domain.guid.toString()); //$NON-NLS-1$
+				domainSummary.put("name", DOMAIN_NAME); //$NON-NLS-1$
+				Map<String, Object> routeSummary = new LinkedHashMap<String, Object>();
+				routeSummary.put("guid", route.guid.toString()); //$NON-NLS-1$
+				routeSummary.put("host", route.entity.get("host")); //$NON-NLS-1$ //$NON-NLS-2$
+				routeSummary.put("path", route.entity.get("path")); //$NON-NLS-1$ //$NON-NLS-2$
+				routeSummary.put("domain", domainSummary); //$NON-NLS-1$
+				appRouteList.add(routeSummary);
+			}
+			appSummary.put("urls", urls); //$NON-NLS-1$
+			appSummary.put("routes", appRouteList); //$NON-NLS-1$
+
+			List<Object> serviceNames = new ArrayList<Object>();
+			for (Resource binding : getBindings(app)) {
+				Resource service = services.get(toGuid((String) binding.entity.get("service_instance_guid"))); //$NON-NLS-1$
+				if (service != null) {
+					serviceNames.add(service.entity.get("name")); //$NON-NLS-1$
+				}
+			}
+			appSummary.put("service_count", serviceNames.size()); //$NON-NLS-1$
+			appSummary.put("service_names", serviceNames); //$NON-NLS-1$
+			appSummary.put("running_instances", //$NON-NLS-1$
+					"STARTED".equals(app.entity.get("state")) ? app.entity.get("instances") : 0); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			appSummaries.add(appSummary);
+		}
+
+		List<Object> serviceSummaries = new ArrayList<Object>();
+		for (Resource service : services.values()) {
+			int boundAppCount = 0;
+			for (Resource binding : bindings.values()) {
+				if (service.guid.toString().equals(binding.entity.get("service_instance_guid"))) { //$NON-NLS-1$
+					boundAppCount++;
+				}
+			}
+			Map<String, Object> serviceSummary = new LinkedHashMap<String, Object>();
+			serviceSummary.put("guid", service.guid.toString()); //$NON-NLS-1$
+			serviceSummary.put("name", service.entity.get("name")); //$NON-NLS-1$ //$NON-NLS-2$
+			serviceSummary.put("bound_app_count", boundAppCount); //$NON-NLS-1$
+			serviceSummaries.add(serviceSummary);
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<String, Object>();
+		summary.put("guid", space.guid.toString()); //$NON-NLS-1$
+		summary.put("name", SPACE_NAME); //$NON-NLS-1$
+		summary.put("apps", appSummaries); //$NON-NLS-1$
+		summary.put("services", serviceSummaries); //$NON-NLS-1$
+		return summary;
+	}
+
+	protected Map<String, Object> getFinishedJob(String guid) {
+		Map<String, Object> metadata = new LinkedHashMap<String, Object>();
+		metadata.put("guid", guid); //$NON-NLS-1$
+		metadata.put("created_at", TIMESTAMP); //$NON-NLS-1$
+		metadata.put("url", "/v2/jobs/" + guid); //$NON-NLS-1$ //$NON-NLS-2$
+
+		Map<String, Object> entity = new LinkedHashMap<String, Object>();
+		entity.put("guid", guid); //$NON-NLS-1$
+		entity.put("status", "finished"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		Map<String, Object> job = new LinkedHashMap<String, Object>();
+		job.put("metadata", metadata); //$NON-NLS-1$
+		job.put("entity", entity); //$NON-NLS-1$
+		return job;
+	}
+
+	protected Map<String, Object> getInfo() {
+		Map<String, Object> info = new LinkedHashMap<String, Object>();
+		info.put("name", "Fake Cloud Controller"); //$NON-NLS-1$ //$NON-NLS-2$
+		info.put("build", "scale"); //$NON-NLS-1$ //$NON-NLS-2$
+		info.put("support", url); //$NON-NLS-1$
+		info.put("version", 2); //$NON-NLS-1$
+		info.put("description", "Embedded Cloud Controller for CFT scale tests"); //$NON-NLS-1$ //$NON-NLS-2$
+		info.put("authorization_endpoint", url); //$NON-NLS-1$
+		info.put("token_endpoint", url); //$NON-NLS-1$
+		info.put("min_cli_version", null); //$NON-NLS-1$
+		info.put("min_recommended_cli_version", null); //$NON-NLS-1$
+		info.put("api_version", "2.75.0"); //$NON-NLS-1$ //$NON-NLS-2$
+		info.put("logging_endpoint", url.replace("http:", "ws:")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		info.put("doppler_logging_endpoint", url.replace("http:", "ws:")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		info.put("allow_debug", true); //$NON-NLS-1$
+		return info;
+	}
+
+	protected Map<String, Object> getLegacyInfo() {
+		Map<String, Object> limits = new LinkedHashMap<String, Object>();
+		limits.put("memory", 10240); //$NON-NLS-1$
+		limits.put("app_uris", 1000); //$NON-NLS-1$
+		limits.put("services", 10000); //$NON-NLS-1$
+		limits.put("apps", 10000); //$NON-NLS-1$
+
+		Map<String, Object> usage = new LinkedHashMap<String, Object>();
+		usage.put("memory", 0); //$NON-NLS-1$
+		usage.put("apps", 0); //$NON-NLS-1$
+		usage.put("services", 0); //$NON-NLS-1$
+
+		Map<String, Object> info = getInfo();
+		info.put("user", "scale-user"); //$NON-NLS-1$ //$NON-NLS-2$
+		info.put("limits", limits); //$NON-NLS-1$
+		info.put("usage", usage); //$NON-NLS-1$
+		return info;
+	}
+
+	protected Map<String, Object> getToken() {
+		long expiry = System.currentTimeMillis() / 1000 + 12 * 60 * 60;
+
+		Map<String, Object> claims = new LinkedHashMap<String, Object>();
+		claims.put("jti", UUID.randomUUID().toString()); //$NON-NLS-1$
+		claims.put("user_id", org.guid.toString()); //$NON-NLS-1$
+		claims.put("user_name", "scale-user"); //$NON-NLS-1$ //$NON-NLS-2$
+		claims.put("client_id", "cf"); //$NON-NLS-1$ //$NON-NLS-2$
+		claims.put("scope", Collections.singletonList("cloud_controller.read")); //$NON-NLS-1$ //$NON-NLS-2$
+		claims.put("exp", expiry); //$NON-NLS-1$
+
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String accessToken = encoder.encodeToString("{\"alg\":\"none\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8)) //$NON-NLS-1$
+				+ '.' + encoder.encodeToString(JsonUtil.convertToJson(claims).getBytes(StandardCharsets.UTF_8)) + '.'
+				+ encoder.encodeToString("fake".getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+
+		Map<String, Object> token = new LinkedHashMap<String, Object>();
+		token.put("access_token", accessToken); //$NON-NLS-1$
+		token.put("token_type", "bearer"); //$NON-NLS-1$ //$NON-NLS-2$
+		token.put("refresh_token", UUID.randomUUID().toString()); //$NON-NLS-1$
+		token.put("expires_in", 12 * 60 * 60); //$NON-NLS-1$
+		token.put("scope", "cloud_controller.read cloud_controller.write openid"); //$NON-NLS-1$ //$NON-NLS-2$
+		token.put("jti", claims.get("jti")); //$NON-NLS-1$ //$NON-NLS-2$
+		return token;
+	}
+
+	protected static Map<String, Object> parseJson(byte[] body) {
+		if (body == null || body.length == 0) {
+			return new LinkedHashMap<String, Object>();
+		}
+		Map<String, Object> map = JsonUtil.convertJsonToMap(new String(body, StandardCharsets.UTF_8));
+		return map != null ? map : new LinkedHashMap<String, Object>();
+	}
+
+	protected static UUID toGuid(String guid) {
+		try {
+			return guid != null ? UUID.fromString(guid) : null;
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	protected static Response ok(Object content) {
+		return new Response(200, JsonUtil.convertToJson(content));
+	}
+
+	protected static Response created(Object content) {
+		return new Response(201, JsonUtil.convertToJson(content));
+	}
+
+	protected static Response notFound(String type, String guid) {
+		return error(404, 10000, "CF-NotFound", "The " + type + " could not be found: " + guid); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	protected static Response error(int status, int code, String errorCode, String description) {
+		Map<String, Object> error = new LinkedHashMap<String, Object>();
+		error.put("code", code); //$NON-NLS-1$
+		error.put("description", description); //$NON-NLS-1$
+		error.put("error_code", errorCode); //$NON-NLS-1$
+		return new Response(status, JsonUtil.convertToJson(error));
+	}
+
+	/**
+	 * Cloud Controller resource with metadata and an entity of plain values
+	 * and relation guids. Relations are resolved when the resource is
+	 * rendered.
+	 */
+	protected static class Resource {
+
+		final String type;
+
+		final UUID guid;
+
+		final Map<String, Object> metadata = new LinkedHashMap<String, Object>();
+
+		final Map<String, Object> entity = new LinkedHashMap<String, Object>();
+
+		Resource(String type, String name) {
+			this.type = type;
+			this.guid = UUID.randomUUID();
+			metadata.put("guid", guid.toString()); //$NON-NLS-1$
+			metadata.put("url", "/v2/" + getCollection(type) + '/' + guid); //$NON-NLS-1$ //$NON-NLS-2$
+			metadata.put("created_at", TIMESTAMP); //$NON-NLS-1$
+			metadata.put("updated_at", null); //$NON-NLS-1$
+			if (name != null) {
+				entity.put("name", name); //$NON-NLS-1$
+			}
+		}
+
+		static String getCollection(String type) {
+			if ("service".equals(type)) { //$NON-NLS-1$
+				return "services"; //$NON-NLS-1$
+			}
+			if ("organization".equals(type)) { //$NON-NLS-1$
+				return "organizations"; //$NON-NLS-1$
+			}
+			if ("domain".equals(type)) { //$NON-NLS-1$
+				return "shared_domains"; //$NON-NLS-1$
+			}
+			return type + 's';
+		}
+	}
+
+	/**
+	 * Request query with the Cloud Controller "q" filters, e.g.
+	 * q=name:app;space_guid:guid, and paging parameters.
+	 */
+	protected static class Query {
+
+		private final String path;
+
+		private final Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+
+		private final Map<String, String> filters = new LinkedHashMap<String, String>();
+
+		Query(String path, String query) {
+			this.path = path;
+			if (query == null) {
+				return;
+			}
+			for (String parameter : query.split("&")) { //$NON-NLS-1$
+				if (parameter.length() == 0) {
+					continue;
+				}
+				int equals = parameter.indexOf('=');
+				String name = decode(equals >= 0 ? parameter.substring(0, equals) : parameter);
+				String value = equals >= 0 ? decode(parameter.substring(equals + 1)) : ""; //$NON-NLS-1$
+				List<String> values = parameters.get(name);
+				if (values == null) {
+					values = new ArrayList<String>();
+					parameters.put(name, values);
+				}
+				values.add(value);
+
+				if ("q".equals(name)) { //$NON-NLS-1$
+					for (String filter : value.split(";")) { //$NON-NLS-1$
+						int colon = filter.indexOf(':');
+						if (colon > 0) {
+							filters.put(filter.substring(0, colon), filter.substring(colon + 1));
+						}
+					}
+				}
+			}
+		}
+
+		boolean matches(Resource resource) {
+			for (Entry<String, String> filter : filters.entrySet()) {
+				Object value = resource.entity.get(filter.getKey());
+				if (value == null || !filter.getValue().equals(value.toString())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		int getInlineRelationsDepth() {
+			return getInt("inline-relations-depth", 0); //$NON-NLS-1$
+		}
+
+		int getInt(String name, int defaultValue) {
+			List<String> values = parameters.get(name);
+			if (values == null || values.isEmpty()) {
+				return defaultValue;
+			}
+			try {
+				return Integer.parseInt(values.get(0));
+			}
+			catch (NumberFormatException e) {
+				return defaultValue;
+			}
+		}
+
+		/**
+		 * The URL is relative to the Cloud Controller and not encoded, as
+		 * clients expand it as a URI template.
+		 */
+		String getPageUrl(int page, int perPage) {
+			StringBuilder url = new StringBuilder(path).append('?');
+			for (Entry<String, List<String>> parameter : parameters.entrySet()) {
+				String name = parameter.getKey();
+				if ("page".equals(name) || "results-per-page".equals(name)) { //$NON-NLS-1$ //$NON-NLS-2$
+					continue;
+				}
+				for (String value : parameter.getValue()) {
+					url.append(name).append('=').append(value).append('&');
+				}
+			}
+			return url.append("page=").append(page).append("&results-per-page=").append(perPage).toString(); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		static String decode(String value) {
+			try {
+				return URLDecoder.decode(value, "UTF-8"); //$NON-NLS-1$
+			}
+			catch (UnsupportedEncodingException e) {
+				return value;
+			}
+		}
+	}
+
+	protected static class Response {
+
+		final int status;
+
+		final String body;
+
+		Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.tests.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Timings of scale test operations, written as a CSV file with one row per
+ * operation and number of apps. The settings of the run (e.g. latency and
+ * error rate) are written as comment lines, so that reports of different
+ * runs or revisions can be compared.
+ * <p/>
+ * If a baseline report from a previous run is given, each row also shows the
+ * baseline time and the change relative to it.
+ */
+public class ScaleReport {
+
+	private static final String COMMENT = "# "; //$NON-NLS-1$
+
+	private static final String HEADER = "operation,apps,millis,requests,injected_errors,status"; //$NON-NLS-1$
+
+	public static class Measurement {
+
+		public final String operation;
+
+		public final int apps;
+
+		public final long millis;
+
+		public final int requests;
+
+		public final int injectedErrors;
+
+		public final boolean succeeded;
+
+		public Measurement(String operation, int apps, long millis, int requests, int injectedErrors,
+				boolean succeeded) {
+			this.operation = operation;
+			this.apps = apps;
+			this.millis = millis;
+			this.requests = requests;
+			this.injectedErrors = injectedErrors;
+			this.succeeded = succeeded;
+		}
+
+		String getKey() {
+			return getKey(operation, apps);
+		}
+
+		static String getKey(String operation, int apps) {
+			return operation + '@' + apps;
+		}
+	}
+
+	private final Map<String, String> settings = new LinkedHashMap<String, String>();
+
+	private final List<Measurement> measurements = new ArrayList<Measurement>();
+
+	private final Map<String, Long> baseline = new HashMap<String, Long>();
+
+	public void setSetting(String name, Object value) {
+		settings.put(name, String.valueOf(value));
+	}
+
+	public void add(Measurement measurement) {
+		measurements.add(measurement);
+	}
+
+	public List<Measurement> getMeasurements() {
+		return measurements;
+	}
+
+	public boolean isAllSucceeded() {
+		for (Measurement measurement : measurements) {
+			if (!measurement.succeeded) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Loads the timings of a previous report to compare against.
+	 * @param file report written by {@link #write(File)}
+	 * @throws IOException if the file cannot be read
+	 */
+	public void loadBaseline(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(COMMENT) || line.startsWith(HEADER) || line.trim().length() == 0) {
+					continue;
+				}
+				String[] values = line.split(","); //$NON-NLS-1$
+				if (values.length >= 3) {
+					try {
+						baseline.put(Measurement.getKey(values[0], Integer.parseInt(values[1])),
+								Long.parseLong(values[2]));
+					}
+					catch (NumberFormatException e) {
+						// Skip malformed rows
+					}
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		settings.put("baseline", file.getAbsolutePath()); //$NON-NLS-1$
+	}
+
+	public void write(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		try {
+			writer.print(toString());
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(COMMENT).append("CFT scale report ") //$NON-NLS-1$
+				.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z", Locale.ENGLISH).format(new Date())).append('\n'); //$NON-NLS-1$
+		report.append(COMMENT).append("java=").append(System.getProperty("java.version")).append('\n'); //$NON-NLS-1$ //$NON-NLS-2$
+		for (Entry<String, String> setting : settings.entrySet()) {
+			report.append(COMMENT).append(setting.getKey()).append('=').append(setting.getValue()).append('\n');
+		}
+
+		report.append(HEADER);
+		if (!baseline.isEmpty()) {
+			report.append(",baseline_millis,change_percent"); //$NON-NLS-1$
+		}
+		report.append('\n');
+
+		for (Measurement measurement : measurements) {
+			report.append(measurement.operation).append(',').append(measurement.apps).append(',')
+					.append(measurement.millis).append(',').append(measurement.requests).append(',')
+					.append(measurement.injectedErrors).append(',')
+					.append(measurement.succeeded ? "OK" : "FAILED"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (!baseline.isEmpty()) {
+				Long baselineMillis = baseline.get(measurement.getKey());
+				report.append(',');
+				if (baselineMillis != null) {
+					report.append(baselineMillis).append(',');
+					if (baselineMillis > 0) {
+						report.append(String.format(Locale.ENGLISH, "%+.1f", //$NON-NLS-1$
+								100.0 * (measurement.millis - baselineMillis) / baselineMillis));
+					}
+				}
+				else {
+					report.append(',');
+				}
+			}
+			report.append('\n');
+		}
+		return report.toString();
+	}
+}
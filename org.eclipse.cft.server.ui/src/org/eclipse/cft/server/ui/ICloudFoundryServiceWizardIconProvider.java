@@ -21,6 +21,8 @@
 
 package org.eclipse.cft.server.ui;
 
+import java.net.URL;
+
 import org.eclipse.cft.server.core.CFServiceOffering;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.wst.server.core.IServer;
@@ -29,7 +31,10 @@ import org.eclipse.wst.server.core.IServer;
  * Concrete implementations of this class should be thread safe, allowing
  * multiple concurrent calls to its member methods. Returned images will be
  * cached for the lifetime of the wizard dialog, and re-acquired for subsequent
- * wizard invocations.
+ * wizard invocations. Icons located by an HTTP or HTTPS {@link URL} (see
+ * {@link #getServiceIconURL(CFServiceOffering, IServer)}) are also kept in a
+ * persistent cache, and are only downloaded again when they changed on the
+ * server.
  * 
  * Ownership of any returned ImageDescriptor are transferred to the calling
  * service wizard. The service wizard will handle image lifecycle/disposal.
@@ -78,4 +83,25 @@ public interface ICloudFoundryServiceWizardIconProvider {
 	 */
 	public ImageDescriptor getDefaultServiceIcon(CFServiceOffering offering, IServer server);
 
+	/**
+	 * Providers that download icons over HTTP or HTTPS can implement this
+	 * method to return the URL of the icon. The service wizard then downloads
+	 * the icon itself and keeps it in a persistent cache, instead of calling
+	 * getServiceIcon(...) every time the wizard is opened. If null is
+	 * returned, getServiceIcon(...) is used.
+	 * 
+	 * Image descriptors returned by getServiceIcon(...) are only recognized as
+	 * URL images on Eclipse 4.8 (Photon) or later, where JFace adapts them to
+	 * their URL.
+	 * 
+	 * @param offering The specific service offering for which an icon is being
+	 * requested
+	 * @param server The specific server for which the request is being made
+	 * @return URL of the icon, or null. The default implementation returns
+	 * null.
+	 */
+	public default URL getServiceIconURL(CFServiceOffering offering, IServer server) {
+		return null;
+	}
+
 }
@@ -649,7 +649,6 @@ public class CFUiUtil {
 			monitor = new NullProgressMonitor();
 		}
 
-		List<CloudRoute> existingRoutes = null;
 		String userName = server.getUsername();
 		String orgName = server.getCloudFoundrySpace().getOrgName();
 		String spaceName = server.getCloudFoundrySpace().getSpaceName();
@@ -690,28 +689,23 @@ public class CFUiUtil {
 				break;
 			}
 
-			if (existingRoutes == null) {
-				existingRoutes = server.getBehaviour().getRoutes(cloudApplUrl.getDomain(), monitor);
-			}
-
 			boolean isFound = false; // is in route list?
 			boolean isRouteReservedAndUnused = false; // is route reservde and unused?
 			boolean isRouteCreated = false; // did we create the route in reserveRoute?
 
-			// First check the existing cloud routes
-			for (CloudRoute cr : existingRoutes) {
-				// If we own the route...
-				if (cr.getHost().equalsIgnoreCase(cloudApplUrl.getSubdomain())) {
-					isFound = true;
-					isRouteCreated = false;
-
-					if (!cr.inUse()) {
-						isRouteReservedAndUnused = true;
-					} else {
-						isRouteReservedAndUnused = false;
-					}
-
-					break;
+			// First check the existing cloud routes, using the cached route
+			// index of the domain
+			CloudRoute cr = server.getBehaviour().findRoute(cloudApplUrl.getSubdomain(), cloudApplUrl.getDomain(),
+					monitor);
+			// If we own the route...
+			if (cr != null) {
+				isFound = true;
+				isRouteCreated = false;
+
+				if (!cr.inUse()) {
+					isRouteReservedAndUnused = true;
+				} else {
+					isRouteReservedAndUnused = false;
 				}
 			}
 
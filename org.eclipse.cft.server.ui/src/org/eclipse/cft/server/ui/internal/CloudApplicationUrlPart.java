@@ -27,6 +27,7 @@ import java.util.List;
 
 import org.cloudfoundry.client.lib.domain.CloudDomain;
 import org.eclipse.cft.server.core.internal.ApplicationUrlLookupService;
+import org.eclipse.cft.server.core.internal.ApplicationUrlLookupService.DomainsListener;
 import org.eclipse.cft.server.core.internal.CloudApplicationURL;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
 import org.eclipse.cft.server.core.internal.ValidationEvents;
@@ -42,6 +43,8 @@ import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.jface.wizard.IWizard;
 import org.eclipse.jface.wizard.IWizardPage;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -92,6 +95,25 @@ public class CloudApplicationUrlPart extends UIPart {
 	private Text fullURLText;
 
 	private Combo domainCombo;
+
+	/**
+	 * Updates the domain combo once domains fetched in the background are
+	 * available, so that the UI does not block on the domain lookup
+	 */
+	private final DomainsListener domainsListener = new DomainsListener() {
+
+		public void domainsUpdated(List<CloudDomain> domains) {
+			Display display = Display.getDefault();
+			if (!display.isDisposed()) {
+				display.asyncExec(new Runnable() {
+
+					public void run() {
+						refreshDomains();
+					}
+				});
+			}
+		}
+	};
 	
 	private Button validateButton;
 
@@ -148,6 +170,13 @@ public class CloudApplicationUrlPart extends UIPart {
 		domainCombo = new Combo(subDomainComp, SWT.BORDER | SWT.READ_ONLY);
 		GridDataFactory.fillDefaults().grab(true, false).span(2, 1).applyTo(domainCombo);
 		domainCombo.setEnabled(true);
+		lookupService.addDomainsListener(domainsListener);
+		domainCombo.addDisposeListener(new DisposeListener() {
+
+			public void widgetDisposed(DisposeEvent e) {
+				lookupService.removeDomainsListener(domainsListener);
+			}
+		});
 		domainCombo.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent event) {
@@ -352,7 +381,9 @@ public class CloudApplicationUrlPart extends UIPart {
 	 */
 	protected List<String> getDomains() {
 		List<String> domains = new ArrayList<String>();
-		List<CloudDomain> cloudDomains = lookupService.getDomains();
+		// Never blocks. If domains are not available yet, the combo is
+		// refreshed once they are fetched.
+		List<CloudDomain> cloudDomains = lookupService.getCachedDomains();
 		if (cloudDomains != null) {
 			for (CloudDomain cldm : cloudDomains) {
 				domains.add(cldm.getName());
@@ -22,7 +22,14 @@
  ********************************************************************************/
 package org.eclipse.cft.server.ui.internal;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.cft.server.core.AbstractCloudFoundryUrl;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
@@ -30,10 +37,14 @@ import org.eclipse.cft.server.core.internal.CloudServerEvent;
 import org.eclipse.cft.server.core.internal.CloudServerListener;
 import org.eclipse.cft.server.core.internal.CloudServerUtil;
 import org.eclipse.cft.server.core.internal.ServerEventHandler;
+import org.eclipse.cft.server.core.internal.application.ModuleChangeEvent;
 import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.cft.server.core.internal.client.ModulesUpdatedEvent;
 import org.eclipse.cft.server.core.internal.spaces.CloudFoundrySpace;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.IDecoration;
 import org.eclipse.jface.viewers.ILightweightLabelDecorator;
 import org.eclipse.jface.viewers.LabelProvider;
@@ -46,6 +57,15 @@ import org.eclipse.wst.server.core.internal.Server;
 import org.eclipse.wst.server.ui.internal.view.servers.ModuleServer;
 
 /**
+ * Decorates Cloud servers with their org, space and URL, and Cloud modules
+ * with their deployment state.
+ * <p/>
+ * Server events only update the labels of the server and modules they affect.
+ * Updates are coalesced, so that a refresh of a server with many applications
+ * results in a few label updates rather than one update per event.
+ * Decorations are computed in the decoration thread, without blocking on the
+ * UI thread.
+ * 
  * @author Christian Dupuis
  * @author Terry Denney
  * @author Steffen Pingel
@@ -53,20 +73,130 @@ import org.eclipse.wst.server.ui.internal.view.servers.ModuleServer;
 @SuppressWarnings("restriction")
 public class CloudFoundryDecorator extends LabelProvider implements ILightweightLabelDecorator {
 
+	/**
+	 * Time to wait for more server events before updating labels
+	 */
+	private static final int UPDATE_DELAY = 50;
+
 	private final CloudServerListener listener;
 
+	private final IPropertyChangeListener urlsListener;
+
+	private final Set<Object> pendingElements = new LinkedHashSet<Object>();
+
+	private boolean updateScheduled;
+
+	private volatile boolean disposed;
+
+	/**
+	 * Cloud URLs per server type
+	 */
+	private final Map<String, Set<String>> cloudUrls = new ConcurrentHashMap<String, Set<String>>();
+
 	public CloudFoundryDecorator() {
 		this.listener = new CloudServerListener() {
 			public void serverChanged(final CloudServerEvent event) {
-				Display.getDefault().asyncExec(new Runnable() {
-					public void run() {
-						LabelProviderChangedEvent labelEvent = new LabelProviderChangedEvent(CloudFoundryDecorator.this);
-						fireLabelProviderChanged(labelEvent);
-					}
-				});
+				Collection<Object> elements = getChangedElements(event);
+				if (!elements.isEmpty()) {
+					scheduleUpdate(elements);
+				}
 			}
 		};
 		ServerEventHandler.getDefault().addServerListener(listener);
+
+		this.urlsListener = new IPropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent event) {
+				if (event.getProperty().startsWith(CFUiUtil.ATTR_USER_DEFINED_URLS)) {
+					cloudUrls.clear();
+				}
+			}
+		};
+		CloudFoundryServerUiPlugin.getDefault().getPreferenceStore().addPropertyChangeListener(urlsListener);
+	}
+
+	/**
+	 * @return elements of the Servers view whose decoration may have changed
+	 * after the given event
+	 */
+	protected Collection<Object> getChangedElements(CloudServerEvent event) {
+		List<Object> elements = new ArrayList<Object>();
+		CloudFoundryServer cloudServer = event.getServer();
+		IServer server = cloudServer != null ? cloudServer.getServerOriginal() : null;
+		if (server == null) {
+			return elements;
+		}
+
+		switch (event.getType()) {
+		case CloudServerEvent.EVENT_SERVICES_UPDATED:
+		case CloudServerEvent.EVENT_UPDATE_STARTING:
+		case CloudServerEvent.EVENT_UPDATE_PASSWORD:
+			// Decorations do not depend on services or refresh progress
+			break;
+		default:
+			if (event instanceof ModuleChangeEvent && ((ModuleChangeEvent) event).getModule() != null) {
+				addModuleElement(elements, server, ((ModuleChangeEvent) event).getModule());
+			}
+			else if (event instanceof ModulesUpdatedEvent && ((ModulesUpdatedEvent) event).getModules() != null) {
+				for (IModule module : ((ModulesUpdatedEvent) event).getModules()) {
+					addModuleElement(elements, server, module);
+				}
+			}
+			else {
+				// Any other change to the server (e.g. connected or
+				// disconnected) may change the decoration of the server and
+				// all its modules
+				elements.add(server);
+				for (IModule module : server.getModules()) {
+					addModuleElement(elements, server, module);
+				}
+			}
+		}
+		return elements;
+	}
+
+	protected void addModuleElement(List<Object> elements, IServer server, IModule module) {
+		if (module != null) {
+			elements.add(new ModuleServer(server, new IModule[] { module }));
+		}
+	}
+
+	/**
+	 * Updates the labels of the given elements, together with other elements
+	 * that change before the update runs.
+	 */
+	protected void scheduleUpdate(Collection<Object> elements) {
+		synchronized (pendingElements) {
+			pendingElements.addAll(elements);
+			if (updateScheduled) {
+				return;
+			}
+			updateScheduled = true;
+		}
+
+		final Display display = Display.getDefault();
+		display.asyncExec(new Runnable() {
+			public void run() {
+				if (!display.isDisposed()) {
+					display.timerExec(UPDATE_DELAY, new Runnable() {
+						public void run() {
+							fireUpdate();
+						}
+					});
+				}
+			}
+		});
+	}
+
+	protected void fireUpdate() {
+		Object[] elements;
+		synchronized (pendingElements) {
+			elements = pendingElements.toArray();
+			pendingElements.clear();
+			updateScheduled = false;
+		}
+		if (!disposed && elements.length > 0) {
+			fireLabelProviderChanged(new LabelProviderChangedEvent(this, elements));
+		}
 	}
 
 	public void decorate(Object element, final IDecoration decoration) {
@@ -79,7 +209,9 @@ public class CloudFoundryDecorator extends LabelProvider implements ILightweight
 					
                     ModuleDeploymentDecoration<IDecoration> deploymentDecoration = ModuleDeploymentDecoration.getServersViewDecoration();
 					CloudFoundryServer server = getCloudFoundryServer(moduleServer.getServer());
-					if (server == null || !server.isConnected()) {
+					// Modules restored from the snapshot of a previous session
+					// are decorated before the server connects
+					if (server == null || (!server.isConnected() && !server.isModuleStateStale())) {
 						return;
 
 					}
@@ -91,6 +223,9 @@ public class CloudFoundryDecorator extends LabelProvider implements ILightweight
 					}
 
 					deploymentDecoration.decorateText(decoration, module);
+					if (server.isModuleStateStale()) {
+						decoration.addSuffix(Messages.CloudFoundryDecorator_SUFFIX_STALE);
+					}
 					ImageDescriptor image = deploymentDecoration.getImageDecoration(module);
 				
 					if (image != null) {
@@ -104,51 +239,54 @@ public class CloudFoundryDecorator extends LabelProvider implements ILightweight
 			if (CloudServerUtil.isCloudFoundryServer(server)) {
 				final CloudFoundryServer cfServer = getCloudFoundryServer(server);
 				if (cfServer != null && cfServer.getUsername() != null) {
-					
-					final List<AbstractCloudFoundryUrl> cloudUrls;
-					try {
-						cloudUrls = CloudServerUIUtil.getAllUrls(cfServer.getBehaviour().getServer()
-								.getServerType().getId(), null, false);
-					} catch (CoreException e1) {
-						CloudFoundryServerUiPlugin.logError(e1);
-						return;
-					}
-					
-					// This now runs on a non UI thread, so we need to join this
-					// update to a UI thread.
-					Display.getDefault().syncExec(new Runnable() {
-						
-						@Override
-						public void run() {
-							// decoration.addSuffix(NLS.bind("  [{0}, {1}]",
-							// cfServer.getUsername(), cfServer.getUrl()));
-							if (cfServer.hasCloudSpace()) {
-								CloudFoundrySpace clSpace = cfServer.getCloudFoundrySpace();
-								if (clSpace != null) {
-									decoration
-											.addSuffix(NLS.bind(" - {0} - {1}", clSpace.getOrgName(), clSpace.getSpaceName())); //$NON-NLS-1$
-								}
-							}
-							String url = cfServer.getUrl();
-							// decoration.addSuffix(NLS.bind("  {0}",
-							// cfServer.getUsername()));
-							for (AbstractCloudFoundryUrl cloudUrl : cloudUrls) {
-								if (cloudUrl.getUrl().equals(url)) {
-									decoration.addSuffix(NLS.bind(" - {0}", cloudUrl.getUrl())); //$NON-NLS-1$
-									break;
-								}
-							}
+					// This runs on the decoration thread. Decorations can be
+					// added without waiting for the UI thread.
+					if (cfServer.hasCloudSpace()) {
+						CloudFoundrySpace clSpace = cfServer.getCloudFoundrySpace();
+						if (clSpace != null) {
+							decoration.addSuffix(NLS.bind(" - {0} - {1}", clSpace.getOrgName(), clSpace.getSpaceName())); //$NON-NLS-1$
 						}
-					});
+					}
+					String url = cfServer.getUrl();
+					if (url != null && getCloudUrls(server.getServerType().getId()).contains(url)) {
+						decoration.addSuffix(NLS.bind(" - {0}", url)); //$NON-NLS-1$
+					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * @return known Cloud URLs of the given server type. The URLs are cached
+	 * until user defined URLs change.
+	 */
+	protected Set<String> getCloudUrls(String serverTypeId) {
+		Set<String> urls = cloudUrls.get(serverTypeId);
+		if (urls == null) {
+			urls = new HashSet<String>();
+			try {
+				for (AbstractCloudFoundryUrl cloudUrl : CloudServerUIUtil.getAllUrls(serverTypeId, null, false)) {
+					if (cloudUrl.getUrl() != null) {
+						urls.add(cloudUrl.getUrl());
+					}
+				}
+			}
+			catch (CoreException e) {
+				CloudFoundryServerUiPlugin.logError(e);
+				// Do not cache, so that it is attempted again
+				return urls;
+			}
+			cloudUrls.put(serverTypeId, urls);
+		}
+		return urls;
+	}
+
 	@Override
 	public void dispose() {
+		disposed = true;
 		super.dispose();
 		ServerEventHandler.getDefault().removeServerListener(listener);
+		CloudFoundryServerUiPlugin.getDefault().getPreferenceStore().removePropertyChangeListener(urlsListener);
 	}
 
 	private CloudFoundryServer getCloudFoundryServer(IServer server) {
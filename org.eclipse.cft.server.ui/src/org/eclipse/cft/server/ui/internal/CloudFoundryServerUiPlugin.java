@@ -20,6 +20,13 @@
  ********************************************************************************/
 package org.eclipse.cft.server.ui.internal;
 
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cft.server.ui.internal.wizards.ServiceIconCache;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
@@ -34,6 +41,12 @@ public class CloudFoundryServerUiPlugin extends AbstractUIPlugin {
 
 	private static CloudFoundryServerUiPlugin plugin;
 
+	private static final int SERVICE_ICON_THREADS = 4;
+
+	private static ServiceIconCache serviceIconCache;
+
+	private static ThreadPoolExecutor serviceIconExecutor;
+
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
@@ -42,10 +55,57 @@ public class CloudFoundryServerUiPlugin extends AbstractUIPlugin {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		synchronized (CloudFoundryServerUiPlugin.class) {
+			if (serviceIconExecutor != null) {
+				serviceIconExecutor.shutdownNow();
+				serviceIconExecutor.awaitTermination(5, TimeUnit.SECONDS);
+				serviceIconExecutor = null;
+			}
+			if (serviceIconCache != null) {
+				serviceIconCache.dispose();
+				serviceIconCache = null;
+			}
+		}
 		plugin = null;
 		super.stop(context);
 	}
 
+	/**
+	 * @return persistent cache of the service wizard icons, stored in the
+	 * plugin state location
+	 */
+	public static synchronized ServiceIconCache getServiceIconCache() {
+		if (serviceIconCache == null) {
+			serviceIconCache = new ServiceIconCache(getDefault().getStateLocation().append("serviceIcons").toFile()); //$NON-NLS-1$
+		}
+		return serviceIconCache;
+	}
+
+	/**
+	 * Executor shared by all service wizards to load service icons. Queued
+	 * tasks are run in priority order, and must implement {@link Comparable}.
+	 * The executor is shut down when the plugin stops.
+	 */
+	public static synchronized ThreadPoolExecutor getServiceIconExecutor() {
+		if (serviceIconExecutor == null) {
+			serviceIconExecutor = new ThreadPoolExecutor(SERVICE_ICON_THREADS, SERVICE_ICON_THREADS, 30,
+					TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable,
+									"Cloud Foundry service icon loader " + count.incrementAndGet()); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			// Threads are not kept while no wizard is loading icons
+			serviceIconExecutor.allowCoreThreadTimeOut(true);
+		}
+		return serviceIconExecutor;
+	}
+
 	public static CloudFoundryServerUiPlugin getDefault() {
 		return plugin;
 	}
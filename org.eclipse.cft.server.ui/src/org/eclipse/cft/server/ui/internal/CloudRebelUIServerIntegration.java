@@ -55,6 +55,7 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.ServerCore;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -73,6 +74,7 @@ public class CloudRebelUIServerIntegration extends CFRebelServerIntegration {
 		if (integration == null && JRebelIntegrationUtility.isJRebelIDEInstalled()) {
 			integration = this;
 			ServerEventHandler.getDefault().addServerListener(integration);
+			ServerCore.addServerLifecycleListener(serverLifecycleListener);
 		}
 	}
 
@@ -21,7 +21,6 @@
 package org.eclipse.cft.server.ui.internal;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.List;
 
 import org.cloudfoundry.client.lib.domain.CloudRoute;
 import org.eclipse.cft.server.core.internal.CloudApplicationURL;
@@ -73,23 +72,20 @@ public class HostnameValidator implements IRunnableWithProgress {
 		
 		try {
 			
-			List<CloudRoute> routes = server.getBehaviour().getRoutes(appUrl.getDomain(), monitor);
+			// Uses the cached route index of the domain rather than fetching
+			// all routes on every check
+			CloudRoute cr = server.getBehaviour().findRoute(appUrl.getSubdomain(), appUrl.getDomain(), monitor);
 			
-			for(CloudRoute cr : routes) {
-				// If we own the route...
-				if(cr.getHost().equalsIgnoreCase(appUrl.getSubdomain())) {
-					isRouteOurs = true;
-					isInUse = cr.inUse();
-					
-					if(!isInUse)  {
-						// We own it, but it's not in use by us, so we are ok.
-						status = Status.OK_STATUS;
-						this.routeCreated = false;
-						return;
-					}
-
-					
-					break;
+			// If we own the route...
+			if(cr != null) {
+				isRouteOurs = true;
+				isInUse = cr.inUse();
+				
+				if(!isInUse)  {
+					// We own it, but it's not in use by us, so we are ok.
+					status = Status.OK_STATUS;
+					this.routeCreated = false;
+					return;
 				}
 			}
 						
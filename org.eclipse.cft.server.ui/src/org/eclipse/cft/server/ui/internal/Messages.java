@@ -164,6 +164,8 @@ public class Messages extends NLS {
 
 	public static String ApplicationDetailsPart_JOB_DEBUG;
 
+	public static String ApplicationDetailsPart_JOB_LIVE_STATS;
+
 	public static String ApplicationDetailsPart_TEXT_APP_OP;
 
 	public static String ApplicationDetailsPart_TEXT_APP_SERVICES;
@@ -208,6 +210,10 @@ public class Messages extends NLS {
 
 	public static String ApplicationDetailsPart_TEXT_JREBEL_UPDATE_REMOTING_TOOLTIP;
 
+	public static String ApplicationDetailsPart_TEXT_LIVE_STATS;
+
+	public static String ApplicationDetailsPart_TEXT_LIVE_STATS_TOOLTIP;
+
 	public static String ApplicationDetailsPart_TEXT_MANIFEST_SAVE_CREATE_TOOLTIP;
 
 	public static String ApplicationDetailsPart_TEXT_MANIFEST;
@@ -658,6 +664,8 @@ public class Messages extends NLS {
 
 	public static String CloudFoundryDecorator_SUFFIX_NOT_DEPLOYED;
 
+	public static String CloudFoundryDecorator_SUFFIX_STALE;
+
 	public static String CloudFoundryDeploymentWizardPage_LABEL_START_APP;
 
 	public static String CloudFoundryDeploymentWizardPage_TEXT_DEPLOY_DETAIL;
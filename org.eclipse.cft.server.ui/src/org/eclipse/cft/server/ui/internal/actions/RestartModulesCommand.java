@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.ui.internal.actions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cft.server.core.internal.ApplicationAction;
+import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
+import org.eclipse.cft.server.core.internal.CloudFoundryServer;
+import org.eclipse.cft.server.core.internal.client.FleetOperation;
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.handlers.HandlerUtil;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.ui.IServerModule;
+
+/**
+ * Restarts all the applications selected in the Servers view, with a bounded
+ * number of applications restarted at the same time. Applications of
+ * different servers are restarted by separate jobs. An application that fails
+ * to restart does not prevent the other applications from restarting.
+ */
+public class RestartModulesCommand extends AbstractHandler {
+
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		Map<IServer, List<IModule>> modulesPerServer = getSelectedModules(HandlerUtil.getCurrentSelection(event));
+		for (Map.Entry<IServer, List<IModule>> entry : modulesPerServer.entrySet()) {
+			CloudFoundryServer cloudServer = (CloudFoundryServer) entry.getKey().loadAdapter(CloudFoundryServer.class,
+					null);
+			if (cloudServer != null) {
+				doRun(cloudServer, entry.getValue());
+			}
+		}
+		return null;
+	}
+
+	protected Map<IServer, List<IModule>> getSelectedModules(ISelection selection) {
+		Map<IServer, List<IModule>> modulesPerServer = new LinkedHashMap<IServer, List<IModule>>();
+		if (selection instanceof IStructuredSelection) {
+			for (Object obj : ((IStructuredSelection) selection).toArray()) {
+				if (obj instanceof IServerModule) {
+					IServerModule serverModule = (IServerModule) obj;
+					IModule[] module = serverModule.getModule();
+					// Only root modules are applications
+					if (serverModule.getServer() != null && module != null && module.length == 1) {
+						List<IModule> modules = modulesPerServer.get(serverModule.getServer());
+						if (modules == null) {
+							modules = new ArrayList<IModule>();
+							modulesPerServer.put(serverModule.getServer(), modules);
+						}
+						modules.add(module[0]);
+					}
+				}
+			}
+		}
+		return modulesPerServer;
+	}
+
+	protected void doRun(final CloudFoundryServer cloudServer, final List<IModule> modules) {
+		final FleetOperation operation;
+		try {
+			operation = cloudServer.getBehaviour().operations().fleetDeployment(modules, ApplicationAction.RESTART,
+					false);
+		}
+		catch (CoreException e) {
+			CloudFoundryPlugin.logError(e);
+			return;
+		}
+
+		Job job = new Job(operation.getOperationName()) {
+
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					operation.run(monitor);
+				}
+				catch (CoreException e) {
+					// Errors of each application are also set on the
+					// application module. The job reports the failed
+					// applications.
+					return e.getStatus();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+
+		job.schedule();
+	}
+}
@@ -46,6 +46,10 @@ public class AppStatsContentProvider implements ITreeContentProvider {
 		public InstanceStats getStats() {
 			return stats;
 		}
+
+		public void setStats(InstanceStats stats) {
+			this.stats = stats;
+		}
 		
 		public InstanceInfo getInfo() {
 			return info;
@@ -22,6 +22,7 @@
 package org.eclipse.cft.server.ui.internal.editor;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -98,6 +99,7 @@ import org.eclipse.swt.layout.RowLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.Menu;
@@ -151,6 +153,16 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 
 	private TableViewer instancesViewer;
 
+	private Button liveStatsButton;
+
+	private ApplicationStatsPoller statsPoller;
+
+	/**
+	 * True if live stats were fetched while the editor was hidden, and polling
+	 * is paused until the editor is visible again
+	 */
+	private boolean liveStatsPaused;
+
 	private Link mappedURIsLink;
 
 	private IModule module;
@@ -378,6 +390,17 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		isPublished = appModule != null && appModule.isDeployed();
 	}
 
+	/**
+	 * Refreshes the details only if they show one of the given modules.
+	 * @param modules modules that changed. If null, the details are always
+	 * refreshed.
+	 */
+	public void refreshUI(Collection<IModule> modules) {
+		if (modules == null || (module != null && modules.contains(module))) {
+			refreshUI();
+		}
+	}
+
 	public void refreshUI() {
 		logError(null);
 		resizeTableColumns();
@@ -441,22 +464,8 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 			currentURIs = cloudApplication.getUris();
 
 			ApplicationStats applicationStats = appModule.getApplicationStats();
-			InstancesInfo instancesInfo = appModule.getInstancesInfo();
 			if (applicationStats != null) {
-				List<InstanceStats> statss = applicationStats.getRecords();
-				List<InstanceInfo> infos = instancesInfo != null ? instancesInfo.getInstances() : null;
-				InstanceStatsAndInfo[] statsAndInfos = new InstanceStatsAndInfo[statss.size()];
-
-				for (int i = 0; i < statss.size(); i++) {
-					InstanceStats stats = statss.get(i);
-					InstanceInfo info = null;
-					if (infos != null && infos.size() > i) {
-						info = infos.get(i);
-					}
-
-					statsAndInfos[i] = new InstanceStatsAndInfo(stats, info);
-				}
-				instancesViewer.setInput(statsAndInfos);
+				instancesViewer.setInput(getStatsAndInfos(applicationStats, appModule.getInstancesInfo()));
 			}
 		}
 
@@ -478,11 +487,117 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		refreshServices(appModule);
 		instancesViewer.refresh(true);
 
-		canUpdate = true;
+		updateLiveStats();
+
+		canUpdate = true;
 		
 		setStatus(appModule.getStatus());
 	}
 
+	private InstanceStatsAndInfo[] getStatsAndInfos(ApplicationStats applicationStats, InstancesInfo instancesInfo) {
+		List<InstanceStats> statss = applicationStats.getRecords();
+		List<InstanceInfo> infos = instancesInfo != null ? instancesInfo.getInstances() : null;
+		InstanceStatsAndInfo[] statsAndInfos = new InstanceStatsAndInfo[statss.size()];
+
+		for (int i = 0; i < statss.size(); i++) {
+			InstanceStats stats = statss.get(i);
+			InstanceInfo info = null;
+			if (infos != null && infos.size() > i) {
+				info = infos.get(i);
+			}
+
+			statsAndInfos[i] = new InstanceStatsAndInfo(stats, info);
+		}
+		return statsAndInfos;
+	}
+
+	/**
+	 * Starts or stops polling the stats of the selected application,
+	 * depending on whether live stats are enabled.
+	 */
+	protected void updateLiveStats() {
+		if (liveStatsButton == null || liveStatsButton.isDisposed()) {
+			return;
+		}
+		if (liveStatsButton.getSelection() && module != null) {
+			if (statsPoller == null) {
+				statsPoller = new ApplicationStatsPoller(cloudServer) {
+
+					@Override
+					protected void statsUpdated(final IModule polledModule, final ApplicationStats stats) {
+						Display.getDefault().asyncExec(new Runnable() {
+
+							public void run() {
+								liveStatsUpdated(polledModule, stats);
+							}
+						});
+					}
+				};
+			}
+			if (statsPoller.getModule() != module) {
+				liveStatsPaused = false;
+				statsPoller.start(module);
+			}
+		}
+		else if (statsPoller != null) {
+			liveStatsPaused = false;
+			statsPoller.stop();
+		}
+	}
+
+	/**
+	 * Resumes polling of live stats, if it was paused while the editor was
+	 * hidden.
+	 */
+	public void resumeLiveStats() {
+		if (liveStatsPaused && statsPoller != null) {
+			liveStatsPaused = false;
+			statsPoller.schedule();
+		}
+	}
+
+	protected void liveStatsUpdated(IModule polledModule, ApplicationStats stats) {
+		if (instancesViewer == null || instancesViewer.getTable().isDisposed() || statsPoller == null
+				|| polledModule != statsPoller.getModule()) {
+			return;
+		}
+
+		// Do not poll while the editor is hidden. Polling resumes when the
+		// editor is shown again
+		if (!editorPage.isPageVisible()) {
+			liveStatsPaused = true;
+			return;
+		}
+
+		// Update the existing rows in place if the instances are the same,
+		// instead of replacing the viewer input
+		List<InstanceStats> records = stats != null ? stats.getRecords() : null;
+		Object input = instancesViewer.getInput();
+		if (records != null && input instanceof InstanceStatsAndInfo[]
+				&& ((InstanceStatsAndInfo[]) input).length == records.size()) {
+			InstanceStatsAndInfo[] statsAndInfos = (InstanceStatsAndInfo[]) input;
+			for (int i = 0; i < statsAndInfos.length; i++) {
+				statsAndInfos[i].setStats(records.get(i));
+			}
+			instancesViewer.update(statsAndInfos, null);
+		}
+		else if (stats != null) {
+			CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(polledModule);
+			instancesViewer.setInput(
+					getStatsAndInfos(stats, appModule != null ? appModule.getInstancesInfo() : null));
+		}
+
+		statsPoller.scheduleNext(stats);
+	}
+
+	@Override
+	public void dispose() {
+		if (statsPoller != null) {
+			statsPoller.stop();
+		}
+		super.dispose();
+	}
+
 	private void setStatus(IStatus status) {
 		if (status == null || status.isOK()) {
 			editorPage.setMessage(null);
@@ -1086,6 +1201,15 @@ public class ApplicationDetailsPart extends AbstractFormPart implements IDetails
 		GridDataFactory.fillDefaults().applyTo(client);
 		instancesSection.setClient(client);
 
+		liveStatsButton = toolkit.createButton(client, Messages.ApplicationDetailsPart_TEXT_LIVE_STATS, SWT.CHECK);
+		liveStatsButton.setToolTipText(Messages.ApplicationDetailsPart_TEXT_LIVE_STATS_TOOLTIP);
+		liveStatsButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				updateLiveStats();
+			}
+		});
+
 		Composite container = toolkit.createComposite(client);
 		GridLayoutFactory.fillDefaults().applyTo(container);
 		GridDataFactory.fillDefaults().grab(true, true).applyTo(container);
@@ -20,6 +20,8 @@
  ********************************************************************************/
 package org.eclipse.cft.server.ui.internal.editor;
 
+import java.util.Collection;
+
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.ui.internal.actions.EditorAction.RefreshArea;
 import org.eclipse.swt.SWT;
@@ -92,17 +94,33 @@ public class ApplicationMasterDetailsBlock extends MasterDetailsBlock implements
 	}
 
 	public void refreshUI(RefreshArea area) {
+		refreshUI(area, null);
+	}
+
+	/**
+	 * @param area
+	 * @param modules applications that changed. Only the rows of these
+	 * applications are updated, and the details are only updated if they show
+	 * one of these applications. If null, the whole area is refreshed.
+	 */
+	public void refreshUI(RefreshArea area, Collection<IModule> modules) {
 		if (area == RefreshArea.MASTER || area == RefreshArea.ALL) {
-			masterPart.refreshUI();
+			masterPart.refreshUI(modules);
 		}
 
 		if (area == RefreshArea.DETAIL || area == RefreshArea.ALL) {
 			if (detailsPart != null) {
-				detailsPart.refreshUI();
+				detailsPart.refreshUI(modules);
 			}
 		}
 	}
 
+	public void resumeLiveStats() {
+		if (detailsPart != null) {
+			detailsPart.resumeLiveStats();
+		}
+	}
+
 	@Override
 	protected void createMasterPart(IManagedForm managedForm, Composite parent) {
 		FormToolkit toolkit = managedForm.getToolkit();
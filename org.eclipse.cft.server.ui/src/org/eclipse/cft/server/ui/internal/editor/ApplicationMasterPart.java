@@ -21,9 +21,9 @@
  ********************************************************************************/
 package org.eclipse.cft.server.ui.internal.editor;
 
+import java.util.Collection;
 import java.util.List;
 
-import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.eclipse.cft.server.core.CFServiceInstance;
 import org.eclipse.cft.server.core.internal.CloudFoundryBrandingExtensionPoint;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
@@ -101,6 +101,8 @@ public class ApplicationMasterPart extends SectionPart {
 
 	private TableViewer applicationsViewer;
 
+	private ApplicationsLazyContentProvider applicationsContentProvider;
+
 	private final CloudFoundryServer cloudServer;
 
 	private IModule currentModule;
@@ -163,7 +165,9 @@ public class ApplicationMasterPart extends SectionPart {
 
 		IStatus status = cloudServer.refreshCloudModules();
 
-		applicationsViewer.setInput(cloudServer.getServerOriginal().getModules());
+		// Only visible rows of the virtual table are labelled again
+		applicationsContentProvider.setModules(cloudServer.getServerOriginal().getModules());
+		applicationsViewer.refresh();
 		// Update the sections regardless of any errors in the modules, as some
 		// modules may have no errors
 		updateSections();
@@ -173,6 +177,28 @@ public class ApplicationMasterPart extends SectionPart {
 		}
 	}
 
+	/**
+	 * Refreshes the rows of the given modules only, if the modules are already
+	 * shown in the applications table. Otherwise the whole part is refreshed,
+	 * as the set of modules has changed. The whole part is also refreshed if
+	 * a module was renamed, so that the table is sorted again.
+	 * @param modules modules that changed. If null, the whole part is
+	 * refreshed.
+	 */
+	public void refreshUI(Collection<IModule> modules) {
+		if (modules == null) {
+			refreshUI();
+			return;
+		}
+		for (IModule module : modules) {
+			if (!applicationsContentProvider.contains(module) || applicationsContentProvider.isRenamed(module)) {
+				refreshUI();
+				return;
+			}
+		}
+		applicationsViewer.update(modules.toArray(), null);
+	}
+
 	private class ApplicationViewersDropAdapter extends ServersViewDropAdapter {
 
 		public ApplicationViewersDropAdapter(Viewer viewer) {
@@ -298,8 +324,12 @@ public class ApplicationMasterPart extends SectionPart {
 		final ModuleDeploymentDecoration<StringBuffer> deploymentDecorator = ModuleDeploymentDecoration
 				.getModuleTextDecoration();
 		
-		applicationsViewer = new TableViewer(toolkit.createTable(client, SWT.NONE));
-		applicationsViewer.setContentProvider(new TreeContentProvider());
+		// Virtual table, so that rows are only created and labelled when
+		// visible
+		applicationsViewer = new TableViewer(toolkit.createTable(client, SWT.VIRTUAL));
+		applicationsViewer.setUseHashlookup(true);
+		applicationsContentProvider = new ApplicationsLazyContentProvider();
+		applicationsViewer.setContentProvider(applicationsContentProvider);
 		applicationsViewer.setLabelProvider(new ServerLabelProvider() {
 			@Override
 			public Image getImage(Object element) {
@@ -352,8 +382,9 @@ public class ApplicationMasterPart extends SectionPart {
 			}
 
 		});
-		applicationsViewer.setInput(new CloudApplication[0]);
-		applicationsViewer.setSorter(new CloudFoundryViewerSorter());
+		// Sorted by the content provider, as virtual viewers do not support
+		// sorters
+		applicationsViewer.setInput(new IModule[0]);
 
 		applicationsViewer.addSelectionChangedListener(new ISelectionChangedListener() {
 
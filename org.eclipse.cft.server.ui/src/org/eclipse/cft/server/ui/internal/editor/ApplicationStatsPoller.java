@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.ui.internal.editor;
+
+import java.util.List;
+
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.InstanceState;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.eclipse.cft.server.core.internal.CloudFoundryServer;
+import org.eclipse.cft.server.core.internal.client.CloudFoundryApplicationModule;
+import org.eclipse.cft.server.ui.internal.Messages;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.wst.server.core.IModule;
+
+/**
+ * Polls the instance statistics of a single application, for live monitoring
+ * of the application selected in the editor. Only the application stats are
+ * fetched, without a full module refresh.
+ * <p/>
+ * The poller does not reschedule itself after a successful poll. Once the
+ * stats are delivered to {@link #statsUpdated(IModule, ApplicationStats)}, the
+ * receiver calls {@link #scheduleNext(ApplicationStats)} to continue polling,
+ * or nothing to pause polling (e.g. while the editor is hidden). The polling interval is
+ * shorter while instances are starting or stopping, and longer when all
+ * instances are running.
+ */
+public abstract class ApplicationStatsPoller extends Job {
+
+	/**
+	 * Poll interval while instances are transitioning between states
+	 */
+	public static final long TRANSITION_INTERVAL = 2000;
+
+	/**
+	 * Poll interval when the state of all instances is stable
+	 */
+	public static final long STEADY_INTERVAL = 10000;
+
+	private final CloudFoundryServer cloudServer;
+
+	private volatile IModule module;
+
+	public ApplicationStatsPoller(CloudFoundryServer cloudServer) {
+		super(Messages.ApplicationDetailsPart_JOB_LIVE_STATS);
+		this.cloudServer = cloudServer;
+		setSystem(true);
+	}
+
+	/**
+	 * Starts polling the stats of the given application, replacing any
+	 * application that is currently polled.
+	 * @param module application to poll. If null, polling stops.
+	 */
+	public void start(IModule module) {
+		this.module = module;
+		cancel();
+		if (module != null) {
+			schedule();
+		}
+	}
+
+	public void stop() {
+		start(null);
+	}
+
+	public IModule getModule() {
+		return module;
+	}
+
+	/**
+	 * Schedules the next poll of the current application.
+	 * @param stats stats from the last poll, used to compute the poll
+	 * interval
+	 */
+	public void scheduleNext(ApplicationStats stats) {
+		IModule current = module;
+		if (current == null) {
+			return;
+		}
+		CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(current);
+		int expectedInstances = appModule != null ? appModule.getInstanceCount() : 0;
+		schedule(getPollInterval(stats, expectedInstances));
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		IModule polled = module;
+		if (polled == null || monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+
+		CloudFoundryApplicationModule appModule = cloudServer.getExistingCloudModule(polled);
+		if (appModule == null || !appModule.isDeployed()) {
+			// Nothing to poll until the application is deployed. Checking
+			// again later does not require a request.
+			schedule(STEADY_INTERVAL);
+			return Status.OK_STATUS;
+		}
+
+		ApplicationStats stats;
+		try {
+			stats = cloudServer.getBehaviour().getApplicationStats(appModule.getDeployedApplicationName(), monitor);
+		}
+		catch (CoreException e) {
+			// Errors in live stats are not reported, as the editor reports
+			// errors of the application on refresh (including the
+			// application no longer existing). Retry later.
+			if (polled == module) {
+				schedule(STEADY_INTERVAL);
+			}
+			return Status.OK_STATUS;
+		}
+
+		// Discard the stats if another application was selected while
+		// fetching
+		if (polled != module || monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+
+		appModule.setApplicationStats(stats);
+		statsUpdated(polled, stats);
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Called from the polling thread after the stats of the application were
+	 * fetched. Receivers must call {@link #scheduleNext(ApplicationStats)} to
+	 * continue polling.
+	 * @param module
+	 * @param stats
+	 */
+	protected abstract void statsUpdated(IModule module, ApplicationStats stats);
+
+	/**
+	 * @param stats stats of the application. May be null.
+	 * @param expectedInstances number of instances the application should
+	 * have
+	 * @return {@link #TRANSITION_INTERVAL} if any instance is not running, or
+	 * if the number of instances is not the expected one.
+	 * {@link #STEADY_INTERVAL} otherwise.
+	 */
+	public static long getPollInterval(ApplicationStats stats, int expectedInstances) {
+		List<InstanceStats> records = stats != null ? stats.getRecords() : null;
+		if (records == null || records.isEmpty()) {
+			// Stopped application
+			return STEADY_INTERVAL;
+		}
+		if (records.size() != expectedInstances) {
+			return TRANSITION_INTERVAL;
+		}
+		for (InstanceStats record : records) {
+			if (record.getState() != InstanceState.RUNNING) {
+				return TRANSITION_INTERVAL;
+			}
+		}
+		return STEADY_INTERVAL;
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.ui.internal.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.IIndexableLazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.wst.server.core.IModule;
+
+/**
+ * Content provider for a virtual applications table. Only rows that become
+ * visible are created and labelled, so the cost of refreshing the table
+ * depends on the number of visible rows rather than the number of
+ * applications.
+ * <p/>
+ * Virtual viewers do not support viewer sorters or filters, so modules are
+ * filtered and sorted by name in the content provider. Modules are only
+ * sorted again when the set of modules or the name of a module changes.
+ */
+public class ApplicationsLazyContentProvider implements IIndexableLazyContentProvider {
+
+	private static final Comparator<IModule> MODULE_NAME_COMPARATOR = new Comparator<IModule>() {
+
+		public int compare(IModule m1, IModule m2) {
+			return m1.getName().compareTo(m2.getName());
+		}
+	};
+
+	private TableViewer viewer;
+
+	private IModule[] modules = new IModule[0];
+
+	/**
+	 * Names of the modules when they were sorted
+	 */
+	private String[] names = new String[0];
+
+	private final Map<IModule, Integer> indices = new HashMap<IModule, Integer>();
+
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		this.viewer = (TableViewer) viewer;
+		setModules(newInput instanceof IModule[] ? (IModule[]) newInput : null);
+	}
+
+	/**
+	 * Sets the modules shown in the table. Has no effect if the modules are
+	 * the same as the ones already shown, regardless of their order, and none
+	 * of them was renamed.
+	 * @param newModules modules to show. May be null.
+	 * @return true if the modules shown in the table changed
+	 */
+	public boolean setModules(IModule[] newModules) {
+		List<IModule> filtered = new ArrayList<IModule>();
+		if (newModules != null) {
+			for (IModule module : newModules) {
+				if (select(module)) {
+					filtered.add(module);
+				}
+			}
+		}
+
+		if (filtered.size() == modules.length && indices.keySet().containsAll(filtered) && !isRenamed()) {
+			return false;
+		}
+
+		IModule[] sorted = filtered.toArray(new IModule[filtered.size()]);
+		Arrays.sort(sorted, MODULE_NAME_COMPARATOR);
+		modules = sorted;
+		names = new String[sorted.length];
+		indices.clear();
+		for (int i = 0; i < sorted.length; i++) {
+			names[i] = sorted[i].getName();
+			indices.put(sorted[i], i);
+		}
+		if (viewer != null) {
+			viewer.setItemCount(sorted.length);
+		}
+		return true;
+	}
+
+	protected boolean select(IModule module) {
+		return module != null && module.getName() != null;
+	}
+
+	public void updateElement(int index) {
+		if (viewer != null && index >= 0 && index < modules.length) {
+			viewer.replace(modules[index], index);
+		}
+	}
+
+	public int findElement(Object element) {
+		Integer index = indices.get(element);
+		return index != null ? index : -1;
+	}
+
+	public boolean contains(IModule module) {
+		return indices.containsKey(module);
+	}
+
+	/**
+	 * @return true if the given module is shown, but its name changed since
+	 * the modules were sorted, so its row may be out of order
+	 */
+	public boolean isRenamed(IModule module) {
+		Integer index = indices.get(module);
+		return index != null && !names[index].equals(module.getName());
+	}
+
+	protected boolean isRenamed() {
+		for (IModule module : modules) {
+			if (isRenamed(module)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int getModuleCount() {
+		return modules.length;
+	}
+
+	public void dispose() {
+		modules = new IModule[0];
+		names = new String[0];
+		indices.clear();
+	}
+}
@@ -22,7 +22,9 @@ package org.eclipse.cft.server.ui.internal.editor;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.cft.server.core.CFServiceInstance;
 import org.eclipse.cft.server.core.internal.CloudFoundryPlugin;
@@ -30,6 +32,7 @@ import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.core.internal.CloudServerEvent;
 import org.eclipse.cft.server.core.internal.CloudServerListener;
 import org.eclipse.cft.server.core.internal.ServerEventHandler;
+import org.eclipse.cft.server.core.internal.application.ModuleChangeEvent;
 import org.eclipse.cft.server.core.internal.client.ServicesUpdatedEvent;
 import org.eclipse.cft.server.ui.internal.CloudFoundryImages;
 import org.eclipse.cft.server.ui.internal.Messages;
@@ -187,6 +190,18 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 
 	@Override
 	public void setFocus() {
+		// Apply the refreshes that were received while the page was not
+		// visible
+		if (hasPendingRefresh()) {
+			scheduleRefresh();
+		}
+		if (masterDetailsBlock != null) {
+			masterDetailsBlock.resumeLiveStats();
+		}
+	}
+
+	protected boolean isPageVisible() {
+		return sform != null && !sform.isDisposed() && sform.isVisible();
 	}
 
 	public void setServices(List<CFServiceInstance> services) {
@@ -197,12 +212,25 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 		this.applicationMemoryChoices = applicationMemoryChoices;
 	}
 
-	private synchronized void setRefreshOp(UpdateEditorOperation op) {
-		this.currentRefreshOp = op;
+	private synchronized void addRefreshOp(UpdateEditorOperation op) {
+		// Refreshes received before the pending one runs are merged into it,
+		// so that they are all applied in one UI update
+		if (this.currentRefreshOp == null) {
+			this.currentRefreshOp = op;
+		}
+		else {
+			this.currentRefreshOp.merge(op);
+		}
 	}
 
-	private synchronized UpdateEditorOperation getRefreshOp() {
-		return this.currentRefreshOp;
+	private synchronized boolean hasPendingRefresh() {
+		return this.currentRefreshOp != null;
+	}
+
+	private synchronized UpdateEditorOperation takeRefreshOp() {
+		UpdateEditorOperation op = this.currentRefreshOp;
+		this.currentRefreshOp = null;
+		return op;
 	}
 
 	private class ServerListener implements CloudServerListener, IServerListener {
@@ -233,26 +261,33 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 		public void serverChanged(ServerEvent event) {
 			// refresh when server is saved, e.g. due to add/remove of modules
 			if (event.getKind() == ServerEvent.SERVER_CHANGE) {
-				launchRefresh(new UpdateEditorOperation(CloudServerEvent.EVENT_UPDATE_COMPLETED, RefreshArea.ALL,
-						event.getStatus()));
+				launchRefresh(new UpdateEditorOperation(RefreshArea.ALL));
 			}
 		}
 	}
 
 	protected void launchRefresh(UpdateEditorOperation refreshOp) {
+		addRefreshOp(refreshOp);
+		scheduleRefresh();
+	}
 
-		setRefreshOp(refreshOp);
-
+	protected void scheduleRefresh() {
 		// Only schedule one job per editor page session, in case multiple
-		// refresh requests are received, only the one that is currently
-		// scheduled should execute
+		// refresh requests are received, they are merged and applied by the
+		// job that is currently scheduled
 		if (refreshJob == null) {
 			refreshJob = new UIJob(Messages.CloudFoundryApplicationsEditorPage_JOB_REFRESH) {
 
 				@Override
 				public IStatus runInUIThread(IProgressMonitor monitor) {
 
-					UpdateEditorOperation op = getRefreshOp();
+					// Keep the refresh pending until the page is shown
+					// again
+					if (!isPageVisible()) {
+						return Status.OK_STATUS;
+					}
+
+					UpdateEditorOperation op = takeRefreshOp();
 					if (op != null) {
 						op.run(monitor);
 					}
@@ -265,30 +300,69 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 	}
 
 	/**
-	 * Refresh operation that should only be run in UI thread.
+	 * Refresh operation that should only be run in UI thread. Operations
+	 * received while another one is pending are merged into it.
 	 *
 	 */
 	private class UpdateEditorOperation {
 
-		private CloudServerEvent event;
+		private boolean refreshMaster;
+
+		private boolean refreshDetail;
 
-		private final RefreshArea area;
+		/**
+		 * Applications that changed. Only used if not all applications should
+		 * be refreshed.
+		 */
+		private final Set<IModule> modules = new LinkedHashSet<IModule>();
 
-		private final int type;
+		private boolean allModules;
 
-		private final IStatus status;
+		/**
+		 * Updated list of services, or null if services have not changed
+		 */
+		private List<CFServiceInstance> services;
 
 		public UpdateEditorOperation(CloudServerEvent event, RefreshArea area) {
-			this.event = event;
-			this.area = area;
-			this.type = event.getType();
-			this.status = event.getStatus() != null ? event.getStatus() : Status.OK_STATUS;
+			this(area);
+
+			// Deleted applications are removed from the table through a full
+			// refresh
+			IModule module = event instanceof ModuleChangeEvent ? ((ModuleChangeEvent) event).getModule() : null;
+			if (module != null && event.getType() != CloudServerEvent.EVENT_APP_DELETED) {
+				this.allModules = false;
+				this.modules.add(module);
+			}
+
+			if (event instanceof ServicesUpdatedEvent && event.getType() == CloudServerEvent.EVENT_SERVICES_UPDATED
+					&& (event.getStatus() == null || event.getStatus().getSeverity() != IStatus.ERROR)) {
+				List<CFServiceInstance> updatedServices = ((ServicesUpdatedEvent) event).getServices();
+				this.services = updatedServices != null ? updatedServices
+						: Collections.<CFServiceInstance> emptyList();
+			}
 		}
 
-		public UpdateEditorOperation(int eventType, RefreshArea area, IStatus status) {
-			this.area = area;
-			this.type = eventType;
-			this.status = status != null ? status : Status.OK_STATUS;
+		public UpdateEditorOperation(RefreshArea area) {
+			this.refreshMaster = area == RefreshArea.MASTER || area == RefreshArea.ALL;
+			this.refreshDetail = area == RefreshArea.DETAIL || area == RefreshArea.ALL;
+			this.allModules = true;
+		}
+
+		public void merge(UpdateEditorOperation op) {
+			refreshMaster |= op.refreshMaster;
+			refreshDetail |= op.refreshDetail;
+			allModules |= op.allModules;
+			modules.addAll(op.modules);
+			if (op.services != null) {
+				services = op.services;
+			}
+		}
+
+		protected RefreshArea getArea() {
+			if (refreshMaster && refreshDetail) {
+				return RefreshArea.ALL;
+			}
+			return refreshMaster ? RefreshArea.MASTER : RefreshArea.DETAIL;
 		}
 
 		public void run(IProgressMonitor monitor) {
@@ -298,17 +372,16 @@ public class CloudFoundryApplicationsEditorPage extends ServerEditorPart {
 				return;
 			}
 
-			if (event instanceof ServicesUpdatedEvent && this.type == CloudServerEvent.EVENT_SERVICES_UPDATED
-					&& status.getSeverity() != IStatus.ERROR) {
-				List<CFServiceInstance> services = ((ServicesUpdatedEvent) event).getServices();
-				if (services == null) {
-					services = Collections.emptyList();
-				}
+			if (services != null) {
 				setServices(services);
 			}
 
+			if (!refreshMaster && !refreshDetail) {
+				return;
+			}
+
 			// Refresh the UI
-			masterDetailsBlock.refreshUI(area);
+			masterDetailsBlock.refreshUI(getArea(), allModules ? null : modules);
 		}
 	}
 
@@ -22,22 +22,24 @@
 
 package org.eclipse.cft.server.ui.internal.wizards;
 
+import java.io.ByteArrayInputStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.cft.server.core.CFServiceOffering;
 import org.eclipse.cft.server.core.CFServicePlan;
 import org.eclipse.cft.server.core.internal.CloudFoundryServer;
 import org.eclipse.cft.server.ui.ICloudFoundryServiceWizardIconProvider;
+import org.eclipse.cft.server.ui.internal.CloudFoundryServerUiPlugin;
 import org.eclipse.cft.server.ui.internal.Logger;
 import org.eclipse.cft.server.ui.internal.Messages;
+import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.accessibility.AccessibleAdapter;
@@ -68,6 +70,7 @@ import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.GridData;
@@ -216,7 +219,6 @@ public class CloudFoundryServiceWizardPageLeftPanel {
 		ICloudFoundryServiceWizardIconProvider provider = CloudFoundryServiceWizardIconProviderRegistry.getInstance().getIconProvider(runtimeTypeId);
 		if (provider != null) {
 			loader = new CFServiceWizardDynamicIconLoader(provider, this.parent.getCloudServer());
-			loader.start();
 		}
 		
 		GridLayout gridLayout = new GridLayout(3, false);		
@@ -248,6 +250,13 @@ public class CloudFoundryServiceWizardPageLeftPanel {
 				
 				r.height = c.computeSize(r.width, SWT.DEFAULT).y;
 				c.setBounds(r);
+				prioritizeVisibleIcons();
+			}
+		});
+		scrollComp.getVerticalBar().addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				prioritizeVisibleIcons();
 			}
 		});
 		
@@ -635,6 +644,24 @@ public class CloudFoundryServiceWizardPageLeftPanel {
 		
 		layoutList.layout();
 		scrollComp.layout();
+		prioritizeVisibleIcons();
+	}
+
+	/** Retrieve the icons of the services that are scrolled into view before the other icons */
+	private void prioritizeVisibleIcons() {
+		if (loader == null || availableServices == null || scrollComp == null || scrollComp.isDisposed()) {
+			return;
+		}
+		Rectangle area = scrollComp.getClientArea();
+		for (AvailableService service : availableServices) {
+			Label imgLabel = service.getImageLabel();
+			if (imgLabel != null && !imgLabel.isDisposed() && imgLabel.isVisible()) {
+				Rectangle bounds = scrollComp.getDisplay().map(imgLabel.getParent(), scrollComp, imgLabel.getBounds());
+				if (area.intersects(bounds)) {
+					loader.addIconToFrontOfRetrieveList(service.getOffering(), imgLabel);
+				}
+			}
+		}
 	}
 	
 	/** Creates one or more services instances, and adds them to the right hand side of the wizard */
@@ -836,6 +863,7 @@ public class CloudFoundryServiceWizardPageLeftPanel {
 			}
 	        
 	        scrollComp.setOrigin(origin);					        
+	        prioritizeVisibleIcons();
 		} // end appx loct if
 	}
 
@@ -1252,128 +1280,165 @@ class AvailableService {
 	
 }
 
-/** If an icon provider is specified, this thread will retrieve the service icons and set the label images as needed. */
-class CFServiceWizardDynamicIconLoader extends Thread {
+/**
+ * If an icon provider is specified, this loader retrieves the service icons
+ * and sets the label images as needed. Icons are retrieved by the executor
+ * shared by all service wizards, and icons downloaded from a URL are kept in
+ * the persistent service icon cache. Icons of the services the user is
+ * currently viewing are retrieved first.
+ */
+class CFServiceWizardDynamicIconLoader {
 
-	private final Object lock = new Object();
+	private static final int PRIORITY_VISIBLE = 0;
 
-	// The wizard page lets us know which icons we should be retrieving; we store them here for processing. List synchronized on lock
-	private final List<ServiceWizardMapEntry> iconsToRetrieve = new ArrayList<ServiceWizardMapEntry>();
+	private static final int PRIORITY_DEFAULT = 1;
+
+	private static final AtomicLong sequence = new AtomicLong();
 
 	private final CloudFoundryServer server;
 
 	private final ICloudFoundryServiceWizardIconProvider iconProvider;
 
-	private boolean isRunning = true;
+	// Tasks that are waiting to run, by image label. Synchronize on
+	// pendingTasks when accessing it
+	private final Map<Label, IconRetrieveRunnable> pendingTasks = new HashMap<Label, IconRetrieveRunnable>();
+
+	private volatile boolean isRunning = true;
 
 	// Synchronize on imageMap when accessing it
 	private Map<String /* service id + provider */, Image> imageMap = new HashMap<String, Image>();
 
 	public CFServiceWizardDynamicIconLoader(ICloudFoundryServiceWizardIconProvider iconProvider, CloudFoundryServer server) {
-		super(CFServiceWizardDynamicIconLoader.class.getName());
-		setDaemon(true);
 		this.iconProvider = iconProvider;
 		this.server = server;
 	}
 
 	/**
-	 * Add icon to the front of the list, for icons the user is currently viewing
+	 * Retrieve the icon before other icons, for icons the user is currently viewing
 	 */
 	public void addIconToFrontOfRetrieveList(CFServiceOffering offering, Label imageLabel) {
-		synchronized (lock) {
-
-			// Add to front (this may create a duplicate; dupes are checked in IconRetrieveRunnable)
-			ServiceWizardMapEntry me = new ServiceWizardMapEntry(offering, imageLabel);
-			iconsToRetrieve.add(0, me);
-			lock.notifyAll();
+		ThreadPoolExecutor executor = CloudFoundryServerUiPlugin.getServiceIconExecutor();
+		synchronized (pendingTasks) {
+			// Icons that are not pending are already retrieved, or being
+			// retrieved
+			IconRetrieveRunnable task = pendingTasks.get(imageLabel);
+			if (task == null || task.priority == PRIORITY_VISIBLE || !executor.remove(task)) {
+				return;
+			}
+			submit(new IconRetrieveRunnable(new ServiceWizardMapEntry(offering, imageLabel), PRIORITY_VISIBLE));
 		}
 	}
 
 	/** Add icon to end of list */
 	public void addIconToRetrieveList(CFServiceOffering offering, Label imageLabel) {
-		ServiceWizardMapEntry me = new ServiceWizardMapEntry(offering, imageLabel);
-		synchronized (lock) {
-			iconsToRetrieve.add(me);
-			lock.notifyAll();
+		synchronized (pendingTasks) {
+			if (!pendingTasks.containsKey(imageLabel)) {
+				submit(new IconRetrieveRunnable(new ServiceWizardMapEntry(offering, imageLabel), PRIORITY_DEFAULT));
+			}
 		}
 	}
 
-	public void run() {
-		// Have up to 10 URL requests running at a time
-		ExecutorService es = Executors.newFixedThreadPool(10);
-
-		while (isRunning) {
-
-			try {
-
-				List<ServiceWizardMapEntry> localIconsToRetrieve = null;
-
-				synchronized (lock) {
-					lock.wait(1000);
-
-					if (isRunning && iconsToRetrieve.size() > 0) {
-
-						localIconsToRetrieve = new ArrayList<ServiceWizardMapEntry>();
-						localIconsToRetrieve.addAll(iconsToRetrieve);
-						iconsToRetrieve.clear();
-					}
-				}
-
-				if (isRunning && localIconsToRetrieve != null) {
-					// Process icon requests outside the lock
-
-					for (ServiceWizardMapEntry e : localIconsToRetrieve) {
-						IconRetrieveRunnable r = new IconRetrieveRunnable(e);
-						es.execute(r);
-					}
-
-					localIconsToRetrieve.clear();
-				}
-
-			}
-			catch (InterruptedException e) {
-				isRunning = false;
+	private void submit(IconRetrieveRunnable task) {
+		if (!isRunning) {
+			return;
+		}
+		synchronized (pendingTasks) {
+			pendingTasks.put(task.entry.getImageLabel(), task);
+		}
+		try {
+			CloudFoundryServerUiPlugin.getServiceIconExecutor().execute(task);
+		}
+		catch (RejectedExecutionException e) {
+			// Plugin is stopping
+			synchronized (pendingTasks) {
+				pendingTasks.remove(task.entry.getImageLabel());
 			}
 		}
+	}
 
-		es.shutdownNow();
+	/**
+	 * Removes the icons of this wizard that are waiting to be retrieved, and
+	 * disposes the retrieved images. Must be called in the UI thread.
+	 */
+	public void dispose() {
+		isRunning = false;
 
-		try {
-			// Wait at most 30 seconds for the remaining tasks to finish
-			es.awaitTermination(30, TimeUnit.SECONDS);
-		}
-		catch (InterruptedException e1) {
-			// ignore.
+		ThreadPoolExecutor executor = CloudFoundryServerUiPlugin.getServiceIconExecutor();
+		synchronized (pendingTasks) {
+			for (IconRetrieveRunnable task : pendingTasks.values()) {
+				executor.remove(task);
+			}
+			pendingTasks.clear();
 		}
 
 		synchronized (imageMap) {
 			// Dispose of old images
-			Set<Entry<String, Image>> s = imageMap.entrySet();
-			for (Entry<String, Image> e : s) {
-				if (e.getValue().isDisposed()) {
-					e.getValue().dispose();
+			for (Image image : imageMap.values()) {
+				if (!image.isDisposed()) {
+					image.dispose();
 				}
 			}
+			imageMap.clear();
 		}
+	}
 
+	/**
+	 * JFace only adapts URL image descriptors to their URL from Eclipse 4.8
+	 * (Photon) on. On older platforms, icons are only cached persistently if
+	 * the provider returns their URL through
+	 * {@link ICloudFoundryServiceWizardIconProvider#getServiceIconURL(CFServiceOffering, org.eclipse.wst.server.core.IServer)}.
+	 * @return URL of the icon if it is downloaded over HTTP, or null otherwise
+	 */
+	private static URL getRemoteURL(ImageDescriptor imageDesc) {
+		if (imageDesc instanceof IAdaptable) {
+			return toRemoteURL(((IAdaptable) imageDesc).getAdapter(URL.class));
+		}
+		return null;
 	}
 
-	public void dispose() {
-		synchronized (lock) {
-			isRunning = false;
+	private static URL toRemoteURL(Object url) {
+		if (url instanceof URL) {
+			String protocol = ((URL) url).getProtocol();
+			if ("http".equals(protocol) || "https".equals(protocol)) { //$NON-NLS-1$ //$NON-NLS-2$
+				return (URL) url;
+			}
 		}
+		return null;
 	}
 
 	/** This runnable is run on many threads at a time; it retrieves the result from the icon provider and sets the icon image label */
-	private class IconRetrieveRunnable implements Runnable {
+	private class IconRetrieveRunnable implements Runnable, Comparable<IconRetrieveRunnable> {
 
 		private final ServiceWizardMapEntry entry;
 
-		public IconRetrieveRunnable(ServiceWizardMapEntry entry) {
+		private final int priority;
+
+		// Icons with the same priority are retrieved in the order they were
+		// added
+		private final long order = sequence.incrementAndGet();
+
+		public IconRetrieveRunnable(ServiceWizardMapEntry entry, int priority) {
 			this.entry = entry;
+			this.priority = priority;
+		}
+
+		public int compareTo(IconRetrieveRunnable other) {
+			if (priority != other.priority) {
+				return priority < other.priority ? -1 : 1;
+			}
+			return order < other.order ? -1 : (order == other.order ? 0 : 1);
 		}
 
 		public void run() {
+			synchronized (pendingTasks) {
+				if (pendingTasks.get(entry.getImageLabel()) == this) {
+					pendingTasks.remove(entry.getImageLabel());
+				}
+			}
+
+			if (!isRunning) {
+				return;
+			}
 
 			CFServiceOffering cso = entry.getOffering();
 			final String mapId = "" + cso.getName() + "-" + cso.getProvider(); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1391,17 +1456,31 @@ class CFServiceWizardDynamicIconLoader extends Thread {
 			// Grab the image from the provider, if needed
 			if (result == null) {
 				Image img = null;
-				ImageDescriptor imageDesc = iconProvider.getServiceIcon(entry.getOffering(), server.getServer());
+				ImageDescriptor imageDesc = null;
+				URL url = toRemoteURL(iconProvider.getServiceIconURL(entry.getOffering(), server.getServer()));
+				if (url == null) {
+					imageDesc = iconProvider.getServiceIcon(entry.getOffering(), server.getServer());
+					url = getRemoteURL(imageDesc);
+				}
 				
-				if(imageDesc != null) {
+				if(url != null || imageDesc != null) {
 					try {
-						img = imageDesc.createImage(false);
+						if (url != null) {
+							// Use the persistent cache for downloaded icons
+							byte[] data = CloudFoundryServerUiPlugin.getServiceIconCache().getIcon(mapId, url);
+							if (data != null) {
+								img = new Image(Display.getDefault(), new ImageData(new ByteArrayInputStream(data)));
+							}
+						}
+						else {
+							img = imageDesc.createImage(false);
+						}
 					} catch (Exception ex) {
 						// Do nothing, img is still null and will 
 						// be handled below using the default image.
 						if (Logger.INFO) {
 							Logger.println(Logger.INFO_LEVEL, this, "run", //$NON-NLS-1$
-									"Error creating image: " + imageDesc.toString(), ex); //$NON-NLS-1$
+									"Error creating image: " + (url != null ? url : imageDesc), ex); //$NON-NLS-1$
 						}
 					}
 				}
@@ -1417,9 +1496,22 @@ class CFServiceWizardDynamicIconLoader extends Thread {
 					
 				if(img != null) {
 					final Image resizeImg = resizeImage(img, 32, 32);
-					result = resizeImg;
 					synchronized (imageMap) {
-						imageMap.put(mapId, resizeImg);
+						if (!isRunning) {
+							// Wizard was closed while retrieving the image
+							resizeImg.dispose();
+							return;
+						}
+						Image existing = imageMap.get(mapId);
+						if (existing != null) {
+							// Retrieved by another thread at the same time
+							resizeImg.dispose();
+							result = existing;
+						}
+						else {
+							imageMap.put(mapId, resizeImg);
+							result = resizeImg;
+						}
 					}
 				}
 			}
@@ -1434,7 +1526,7 @@ class CFServiceWizardDynamicIconLoader extends Thread {
 				public void run() {
 					Label l = entry.getImageLabel();
 
-					if (!l.isDisposed()) {
+					if (!l.isDisposed() && !labelImage.isDisposed()) {
 						l.setImage(labelImage);
 					}
 				}
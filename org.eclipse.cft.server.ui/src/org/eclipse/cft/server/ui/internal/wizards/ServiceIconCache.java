@@ -0,0 +1,462 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pivotal Software, Inc. and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * and the Apache License v2.0 is available at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ *  Contributors:
+ *     Pivotal Software, Inc. - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.cft.server.ui.internal.wizards;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.cft.server.ui.internal.CloudFoundryServerUiPlugin;
+
+/**
+ * Persistent cache of the service icons downloaded by the service wizard,
+ * keyed by service offering and icon URL. Icons are stored in a directory on
+ * disk, so that they are not downloaded again each time the wizard is opened.
+ * <p/>
+ * A cached icon is used as is until the revalidation interval expires. It is
+ * then revalidated with a conditional request using the ETag and
+ * Last-Modified values of the previous response. If the server cannot be
+ * reached, the cached icon is used.
+ * <p/>
+ * The total size of the cached icons is bounded. The least recently used icons
+ * are removed first.
+ */
+public class ServiceIconCache {
+
+	public static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+	public static final long DEFAULT_REVALIDATE_INTERVAL = 24 * 60 * 60 * 1000;
+
+	private static final String INDEX_FILE = "index.properties"; //$NON-NLS-1$
+
+	private static final String KEY = ".key"; //$NON-NLS-1$
+
+	private static final String ETAG = ".etag"; //$NON-NLS-1$
+
+	private static final String LAST_MODIFIED = ".lastModified"; //$NON-NLS-1$
+
+	private static final String VALIDATED = ".validated"; //$NON-NLS-1$
+
+	private static final String ACCESSED = ".accessed"; //$NON-NLS-1$
+
+	private static final int TIMEOUT = 10000;
+
+	private final File directory;
+
+	private final long maxSize;
+
+	private final long revalidateInterval;
+
+	/**
+	 * Cached icons by file name, in least recently used order
+	 */
+	private final LinkedHashMap<String, CachedIcon> icons = new LinkedHashMap<String, CachedIcon>(16, 0.75f, true);
+
+	private long size;
+
+	public ServiceIconCache(File directory) {
+		this(directory, DEFAULT_MAX_SIZE, DEFAULT_REVALIDATE_INTERVAL);
+	}
+
+	/**
+	 * @param directory directory where icons are stored
+	 * @param maxSize maximum total size of the cached icons, in bytes
+	 * @param revalidateInterval time after which a cached icon is revalidated
+	 * with the server
+	 */
+	public ServiceIconCache(File directory, long maxSize, long revalidateInterval) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.revalidateInterval = revalidateInterval;
+		loadIndex();
+	}
+
+	/**
+	 * Returns the icon of the given service offering, from the cache if
+	 * possible. May perform a network request, and should not be called in
+	 * the UI thread.
+	 * @param offeringKey key of the service offering
+	 * @param url URL of the icon
+	 * @return icon data, or null if the icon is not cached and could not be
+	 * downloaded
+	 */
+	public byte[] getIcon(String offeringKey, URL url) {
+		String fileName = getFileName(offeringKey, url);
+		CachedIcon icon;
+		synchronized (this) {
+			icon = icons.get(fileName);
+		}
+
+		// Read the cached icon outside the lock, so that other icons can be
+		// looked up meanwhile
+		byte[] cached = null;
+		if (icon != null) {
+			cached = read(fileName);
+			synchronized (this) {
+				if (cached == null || icons.get(fileName) != icon) {
+					// Removed from disk, or replaced meanwhile
+					if (icons.get(fileName) == icon) {
+						remove(fileName);
+					}
+					cached = null;
+					icon = null;
+				}
+				else {
+					icon.accessed = System.currentTimeMillis();
+					if (icon.accessed - icon.validated < revalidateInterval) {
+						return cached;
+					}
+				}
+			}
+		}
+
+		try {
+			URLConnection connection = openConnection(url);
+			if (!(connection instanceof HttpURLConnection)) {
+				return cached;
+			}
+			HttpURLConnection httpConnection = (HttpURLConnection) connection;
+			if (icon != null) {
+				if (icon.etag != null) {
+					httpConnection.setRequestProperty("If-None-Match", icon.etag); //$NON-NLS-1$
+				}
+				if (icon.lastModified > 0) {
+					httpConnection.setIfModifiedSince(icon.lastModified);
+				}
+			}
+
+			try {
+				int responseCode = httpConnection.getResponseCode();
+				if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+					synchronized (this) {
+						icon.validated = System.currentTimeMillis();
+						saveIndex();
+					}
+					return cached;
+				}
+				if (responseCode == HttpURLConnection.HTTP_OK) {
+					// Icons larger than the cache are not downloaded
+					if (httpConnection.getContentLengthLong() > maxSize) {
+						return cached;
+					}
+					byte[] data = readFully(httpConnection.getInputStream(), maxSize);
+					if (data == null) {
+						return cached;
+					}
+					put(fileName, offeringKey + ' ' + url.toExternalForm(), data,
+							httpConnection.getHeaderField("ETag"), httpConnection.getLastModified()); //$NON-NLS-1$
+					return data;
+				}
+			}
+			finally {
+				httpConnection.disconnect();
+			}
+		}
+		catch (IOException e) {
+			// Server not reachable. Use the cached icon if any.
+		}
+		return cached;
+	}
+
+	public synchronized boolean isCached(String offeringKey, URL url) {
+		return icons.containsKey(getFileName(offeringKey, url));
+	}
+
+	/**
+	 * @return total size of the cached icons, in bytes
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Saves the access times of the cached icons.
+	 */
+	public synchronized void dispose() {
+		saveIndex();
+	}
+
+	protected URLConnection openConnection(URL url) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+		return connection;
+	}
+
+	protected synchronized void put(String fileName, String key, byte[] data, String etag, long lastModified) {
+		if (data.length > maxSize) {
+			return;
+		}
+		remove(fileName);
+		if (!write(fileName, data)) {
+			return;
+		}
+
+		CachedIcon icon = new CachedIcon(key, data.length);
+		icon.etag = etag;
+		icon.lastModified = lastModified;
+		icon.validated = System.currentTimeMillis();
+		icon.accessed = icon.validated;
+		icons.put(fileName, icon);
+		size += data.length;
+
+		// Remove the least recently used icons
+		Iterator<Map.Entry<String, CachedIcon>> it = icons.entrySet().iterator();
+		while (size > maxSize && it.hasNext()) {
+			Map.Entry<String, CachedIcon> eldest = it.next();
+			it.remove();
+			size -= eldest.getValue().size;
+			new File(directory, eldest.getKey()).delete();
+		}
+		saveIndex();
+	}
+
+	protected void remove(String fileName) {
+		CachedIcon icon = icons.remove(fileName);
+		if (icon != null) {
+			size -= icon.size;
+			new File(directory, fileName).delete();
+		}
+	}
+
+	protected String getFileName(String offeringKey, URL url) {
+		String key = offeringKey + ' ' + url.toExternalForm();
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+			StringBuilder fileName = new StringBuilder();
+			for (byte b : digest) {
+				fileName.append(String.format("%02x", b)); //$NON-NLS-1$
+			}
+			return fileName.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			return Integer.toHexString(key.hashCode());
+		}
+		catch (UnsupportedEncodingException e) {
+			return Integer.toHexString(key.hashCode());
+		}
+	}
+
+	protected byte[] read(String fileName) {
+		File file = new File(directory, fileName);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			return readFully(new FileInputStream(file), Long.MAX_VALUE);
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	protected boolean write(String fileName, byte[] data) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return false;
+		}
+		// Write to a temporary file first, as icons are read without holding
+		// the lock of the cache
+		File file = new File(directory, fileName);
+		File tempFile = new File(directory, fileName + ".tmp"); //$NON-NLS-1$
+		OutputStream out = null;
+		boolean written = false;
+		try {
+			out = new FileOutputStream(tempFile);
+			out.write(data);
+			written = true;
+		}
+		catch (IOException e) {
+			CloudFoundryServerUiPlugin.logError(e);
+		}
+		finally {
+			close(out);
+		}
+		if (!written || !tempFile.renameTo(file)) {
+			tempFile.delete();
+			return false;
+		}
+		return true;
+	}
+
+	protected void loadIndex() {
+		File indexFile = new File(directory, INDEX_FILE);
+		if (!indexFile.isFile()) {
+			return;
+		}
+		Properties index = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(indexFile);
+			index.load(in);
+		}
+		catch (IOException e) {
+			// Start with an empty cache
+			return;
+		}
+		finally {
+			close(in);
+		}
+
+		List<Map.Entry<String, CachedIcon>> loaded = new ArrayList<Map.Entry<String, CachedIcon>>();
+		for (String property : index.stringPropertyNames()) {
+			if (!property.endsWith(KEY)) {
+				continue;
+			}
+			String fileName = property.substring(0, property.length() - KEY.length());
+			File file = new File(directory, fileName);
+			if (!file.isFile()) {
+				continue;
+			}
+			CachedIcon icon = new CachedIcon(index.getProperty(property), file.length());
+			icon.etag = index.getProperty(fileName + ETAG);
+			icon.lastModified = getLong(index, fileName + LAST_MODIFIED);
+			icon.validated = getLong(index, fileName + VALIDATED);
+			icon.accessed = getLong(index, fileName + ACCESSED);
+			loaded.add(new AbstractMap.SimpleEntry<String, CachedIcon>(fileName, icon));
+		}
+
+		// Restore the least recently used order
+		Collections.sort(loaded, new Comparator<Map.Entry<String, CachedIcon>>() {
+
+			public int compare(Map.Entry<String, CachedIcon> e1, Map.Entry<String, CachedIcon> e2) {
+				long a1 = e1.getValue().accessed;
+				long a2 = e2.getValue().accessed;
+				return a1 < a2 ? -1 : (a1 == a2 ? 0 : 1);
+			}
+		});
+		for (Map.Entry<String, CachedIcon> entry : loaded) {
+			icons.put(entry.getKey(), entry.getValue());
+			size += entry.getValue().size;
+		}
+	}
+
+	protected void saveIndex() {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+		Properties index = new Properties();
+		for (Map.Entry<String, CachedIcon> entry : icons.entrySet()) {
+			String fileName = entry.getKey();
+			CachedIcon icon = entry.getValue();
+			index.setProperty(fileName + KEY, icon.key);
+			if (icon.etag != null) {
+				index.setProperty(fileName + ETAG, icon.etag);
+			}
+			index.setProperty(fileName + LAST_MODIFIED, Long.toString(icon.lastModified));
+			index.setProperty(fileName + VALIDATED, Long.toString(icon.validated));
+			index.setProperty(fileName + ACCESSED, Long.toString(icon.accessed));
+		}
+
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(new File(directory, INDEX_FILE));
+			index.store(out, null);
+		}
+		catch (IOException e) {
+			CloudFoundryServerUiPlugin.logError(e);
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	private static long getLong(Properties properties, String property) {
+		try {
+			return Long.parseLong(properties.getProperty(property, "0")); //$NON-NLS-1$
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return content of the stream, or null if it is larger than the given
+	 * maximum size. Reading stops as soon as the maximum size is exceeded.
+	 */
+	private static byte[] readFully(InputStream in, long maxSize) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				if (out.size() + read > maxSize) {
+					return null;
+				}
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	private static class CachedIcon {
+
+		private final String key;
+
+		private final long size;
+
+		private String etag;
+
+		private long lastModified;
+
+		private long validated;
+
+		private long accessed;
+
+		public CachedIcon(String key, long size) {
+			this.key = key;
+			this.size = size;
+		}
+	}
+}